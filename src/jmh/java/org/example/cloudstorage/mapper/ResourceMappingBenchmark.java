@@ -0,0 +1,90 @@
+package org.example.cloudstorage.mapper;
+
+import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.dto.storage.ResourceSort;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.util.PathUtils;
+import org.example.cloudstorage.util.SyntheticPaths;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Преобразование объектов хранилища в ответ API на объёмах от 10 тысяч до миллиона элементов:
+ * выдача поиска ({@link ResourceResponseMapper#toDtoList}) и листинг папки с сортировкой,
+ * как в {@code FileQueryService.listFolder}.
+ * <p>
+ * {@code searchMappingRegex} повторяет прежний разбор ключа регулярным выражением и цепочкой подстрок —
+ * база для сравнения выделений памяти на элемент с разбором через {@code StoragePath}.
+ * <p>
+ * Запуск: {@code ./gradlew jmh -PjmhInclude=ResourceMappingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResourceMappingBenchmark {
+
+    private static final Pattern USER_PREFIX_PATTERN = Pattern.compile("^user-\\d+-files/(.*)");
+
+    @Param({"10000", "100000", "1000000"})
+    public int items;
+
+    private List<StorageResource> resources;
+    private ResourceResponseMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        resources = SyntheticPaths.resources(42L, items, 7L);
+        mapper = new ResourceResponseMapper();
+    }
+
+    @Benchmark
+    public List<ResourceInfoDto> searchMapping() {
+        return mapper.toDtoList(resources);
+    }
+
+    @Benchmark
+    public List<ResourceInfoDto> searchMappingRegex() {
+        return resources.stream().map(ResourceMappingBenchmark::toDtoRegex).toList();
+    }
+
+    @Benchmark
+    public List<ResourceInfoDto> listingUnsorted() {
+        return listing(null);
+    }
+
+    @Benchmark
+    public List<ResourceInfoDto> listingSortedByName() {
+        return listing(ResourceSort.NAME);
+    }
+
+    @Benchmark
+    public List<ResourceInfoDto> listingSortedByType() {
+        return listing(ResourceSort.TYPE);
+    }
+
+    private List<ResourceInfoDto> listing(ResourceSort sort) {
+        Stream<ResourceInfoDto> items = resources.stream().map(mapper::toDto);
+        return (sort == null ? items : items.sorted(sort.comparator())).toList();
+    }
+
+    private static ResourceInfoDto toDtoRegex(StorageResource resource) {
+        String relativePath = PathUtils.extractRelativePath(USER_PREFIX_PATTERN, resource.fullPath());
+        String resourceName = PathUtils.extractName(relativePath);
+        String parentPath = PathUtils.extractParentPath(relativePath);
+        return resource.isDirectory()
+                ? ResourceInfoDto.directory(parentPath, resourceName + "/")
+                : ResourceInfoDto.file(parentPath, resourceName, resource.size());
+    }
+}
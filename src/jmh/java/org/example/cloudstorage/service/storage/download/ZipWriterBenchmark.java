@@ -0,0 +1,97 @@
+package org.example.cloudstorage.service.storage.download;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Последовательная запись архива через {@link ZipOutputStream} против {@link ParallelZipWriter}
+ * на сжимаемых записях (текст с повторами), как у типичной папки с логами и исходниками.
+ * <p>
+ * Параллельное сжатие выключено по умолчанию ({@code storage.zip.parallel-deflate-threads: 0}); включать его
+ * стоит по этому замеру на узле с числом ядер не меньше {@code threads}: на одном ядре оба варианта равны.
+ * <p>
+ * Запуск: {@code ./gradlew jmh -PjmhInclude=ZipWriterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ZipWriterBenchmark {
+
+    private static final int LEVEL = 6;
+
+    @Param({"64"})
+    public int entries;
+
+    @Param({"1048576"})
+    public int entrySize;
+
+    // Кривая масштабирования: без неё по одному числу потоков не видно, упирается ли запись в ядра
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private byte[][] contents;
+    private ForkJoinPool pool;
+    private ZipCompressionMetrics metrics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] words = {"storage", "folder", "object", "minio", "archive", "deflate", "user", "path", "\n"};
+        contents = new byte[entries][];
+        for (int i = 0; i < entries; i++) {
+            StringBuilder text = new StringBuilder(entrySize);
+            while (text.length() < entrySize) {
+                text.append(words[random.nextInt(words.length)]).append(' ').append(random.nextInt(1000)).append(' ');
+            }
+            contents[i] = text.substring(0, entrySize).getBytes(StandardCharsets.UTF_8);
+        }
+        pool = new ForkJoinPool(threads);
+        metrics = new ZipCompressionMetrics(new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public void serial() throws IOException {
+        try (ZipOutputStream zos = new ZipOutputStream(OutputStream.nullOutputStream())) {
+            zos.setLevel(LEVEL);
+            for (int i = 0; i < entries; i++) {
+                zos.putNextEntry(new ZipEntry("file-" + i + ".txt"));
+                zos.write(contents[i]);
+                zos.closeEntry();
+            }
+        }
+    }
+
+    @Benchmark
+    public void parallel() throws IOException {
+        try (ParallelZipWriter zip = new ParallelZipWriter(OutputStream.nullOutputStream(), pool,
+                threads * 2, 32L * 1024 * 1024, metrics, metrics.start())) {
+            for (int i = 0; i < entries; i++) {
+                zip.addBuffered("file-" + i + ".txt", contents[i], LEVEL);
+            }
+            zip.finish();
+        }
+    }
+}
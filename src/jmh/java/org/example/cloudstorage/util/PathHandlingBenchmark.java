@@ -0,0 +1,154 @@
+package org.example.cloudstorage.util;
+
+import org.example.cloudstorage.config.AppConstants;
+import org.example.cloudstorage.model.StoragePath;
+import org.example.cloudstorage.service.storage.validation.PathValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Обработка путей, которая выполняется на каждый запрос и на каждый файл загрузки:
+ * нормализация, проверка допустимости и разбор на родителя и имя.
+ * <p>
+ * Методы с суффиксом {@code Regex} и {@code Formatted} повторяют разбор до {@link StoragePath} и оставлены
+ * базой для сравнения; выделения памяти на операцию показывает профилировщик {@code gc}.
+ * <p>
+ * Пути берутся по кругу из заранее построенного набора, чтобы JIT не свернул вызов с константой.
+ * Запуск: {@code ./gradlew jmh -PjmhInclude=PathHandlingBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PathHandlingBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private static final Pattern USER_PREFIX_PATTERN = Pattern.compile("^user-\\d+-files/(.*)");
+
+    /**
+     * {@code clean} — пути в том виде, в каком их шлёт фронт; {@code dirty} — с ведущим и повторными слэшами,
+     * которые вычищает нормализация. Обратные слэши не берутся: валидатор их отклоняет, и замер ушёл бы в исключение.
+     */
+    @Param({"clean", "dirty"})
+    public String shape;
+
+    private String[] paths;
+    private String[] fullPaths;
+    private PathValidator validator;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        paths = new String[SAMPLES];
+        fullPaths = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            String path = SyntheticPaths.relativePath(random);
+            paths[i] = "dirty".equals(shape) ? dirty(path) : path;
+            fullPaths[i] = StoragePath.userRoot(random.nextInt(100_000)) + path;
+        }
+        // validatePath не обращается к каталогу, резолвер не нужен
+        validator = new PathValidator(null);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return PathUtils.normalize(nextPath());
+    }
+
+    @Benchmark
+    public String normalizeRegex() {
+        return nextPath().trim()
+                .replace("\\", "/")
+                .replaceAll("/{2,}", "/")
+                .replaceAll("^/+", "");
+    }
+
+    @Benchmark
+    public String userPath() {
+        return StoragePath.of(next, nextPath()).key();
+    }
+
+    @Benchmark
+    public String userPathFormatted() {
+        return AppConstants.Storage.USER_ROOT_TEMPLATE.formatted(next) + PathUtils.normalize(nextPath());
+    }
+
+    @Benchmark
+    public void validatePath() {
+        validator.validatePath(nextPath(), false);
+    }
+
+    @Benchmark
+    public String relativePath() {
+        return StoragePath.parse(fullPaths[nextIndex()]).relativePath();
+    }
+
+    @Benchmark
+    public String relativePathRegex() {
+        return PathUtils.extractRelativePath(USER_PREFIX_PATTERN, fullPaths[nextIndex()]);
+    }
+
+    @Benchmark
+    public void splitParentAndName(Blackhole blackhole) {
+        StoragePath path = StoragePath.parse(fullPaths[nextIndex()]);
+        blackhole.consume(path.parentPath());
+        blackhole.consume(path.name());
+    }
+
+    @Benchmark
+    public void splitParentAndNameRegex(Blackhole blackhole) {
+        String relative = PathUtils.extractRelativePath(USER_PREFIX_PATTERN, fullPaths[nextIndex()]);
+        blackhole.consume(PathUtils.extractParentPath(relative));
+        blackhole.consume(PathUtils.extractName(relative));
+    }
+
+    @Benchmark
+    public int ancestors() {
+        int depth = 0;
+        for (StoragePath folder = StoragePath.parse(fullPaths[nextIndex()]).parent(); folder != null; folder = folder.parent()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    @Benchmark
+    public int ancestorsRegex() {
+        int depth = 0;
+        for (String folder = PathUtils.extractParentPath(fullPaths[nextIndex()]); !folder.isEmpty();
+             folder = PathUtils.extractParentPath(folder)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    @Benchmark
+    public Object parentSteps() {
+        return PathUtils.getParentSteps(nextPath());
+    }
+
+    private String nextPath() {
+        return paths[nextIndex()];
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    private static String dirty(String path) {
+        return "/" + path.replace("/", "//");
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.cloudstorage.util;
+
+import org.example.cloudstorage.config.AppConstants;
+import org.example.cloudstorage.model.StoragePath;
+import org.example.cloudstorage.model.StorageResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Синтетические пути и объекты для бенчмарков: вложенность до пяти уровней, латиница и кириллица,
+ * примерно каждый восьмой объект — папка. Все пути проходят {@link AppConstants.Storage#PATH_PATTERN}.
+ */
+public final class SyntheticPaths {
+
+    private static final String[] FOLDERS = {
+            "documents", "photos", "Проекты", "archive 2023", "work", "отчёты", "backup_old", "music (live)"
+    };
+    private static final String[] NAMES = {
+            "report", "IMG_2041", "договор", "notes-final", "budget, v2", "scan", "презентация", "readme"
+    };
+    private static final String[] EXTENSIONS = {".pdf", ".jpg", ".docx", ".txt", ".xlsx", ".png"};
+
+    private SyntheticPaths() {}
+
+    public static String relativePath(Random random) {
+        StringBuilder path = new StringBuilder();
+        int depth = random.nextInt(5);
+        for (int i = 0; i < depth; i++) {
+            path.append(FOLDERS[random.nextInt(FOLDERS.length)]).append('/');
+        }
+        if (random.nextInt(8) == 0) {
+            return path.append(FOLDERS[random.nextInt(FOLDERS.length)]).append(random.nextInt(1000)).append('/').toString();
+        }
+        return path.append(NAMES[random.nextInt(NAMES.length)]).append(' ').append(random.nextInt(100_000))
+                .append(EXTENSIONS[random.nextInt(EXTENSIONS.length)]).toString();
+    }
+
+    /**
+     * Объекты одного пользователя с полными ключами хранилища, как их отдают каталог и порт.
+     */
+    public static List<StorageResource> resources(long userId, int count, long seed) {
+        Random random = new Random(seed);
+        String prefix = StoragePath.userRoot(userId);
+        List<StorageResource> resources = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String path = relativePath(random);
+            long size = path.endsWith("/") ? 0 : random.nextInt(50 * 1024 * 1024);
+            resources.add(new StorageResource(prefix + path, size));
+        }
+        return resources;
+    }
+}
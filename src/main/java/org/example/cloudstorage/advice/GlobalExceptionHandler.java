@@ -9,7 +9,7 @@ import org.example.cloudstorage.exception.user.UnauthorizedException;
 import org.example.cloudstorage.exception.user.UserAlreadyExistsException;
 import org.example.cloudstorage.exception.user.UserNotFoundException;
 import org.example.cloudstorage.exception.BadRequestException;
-import org.example.cloudstorage.util.PathUtils;
+import org.example.cloudstorage.model.StoragePath;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -26,7 +26,7 @@ public class GlobalExceptionHandler {
     // Storage
     @ExceptionHandler(StorageException.class)
     public ResponseEntity<ErrorResponse> handleStorageException(StorageException e) {
-        String relativePath = PathUtils.extractRelativePath(AppConstants.Storage.USER_PREFIX_PATTERN, e.getPath());
+        String relativePath = StoragePath.parse(e.getPath()).relativePath();
         String fullMessage = e.getMessage() + AppConstants.ExceptionMessages.MESSAGE_PATH_DELIMITER + relativePath;
 
         log.warn("Storage exception occurred: status={}, message='{}', path='{}'",
@@ -11,15 +11,14 @@ public final class AppConstants {
         private Storage() {}
 
         public static final String USER_ROOT_TEMPLATE = "user-%d-files/";
-        public static final Pattern USER_PREFIX_PATTERN = Pattern.compile(
-                "^" + USER_ROOT_TEMPLATE.replace("%d", "\\d+") + "(.*)"
-        );
 
         public static final String PATH_REGEXP = "^[a-zA-Zа-яА-ЯёЁ0-9 /_.,!()\\-]+$";
         public static final Pattern PATH_PATTERN = Pattern.compile(PATH_REGEXP);
 
         public static final int MAX_PATH_LENGTH = 1024;
 
+        public static final int MAX_PAGE_SIZE = 1000;
+
     }
 
     public static final class Validation {
@@ -56,6 +55,7 @@ public final class AppConstants {
         // Лимиты
         public static final String MAX_FILE_COUNT_EXCEEDED = "Превышено максимальное количество файлов";
         public static final String MAX_STORAGE_SIZE_EXCEEDED = "Превышен максимальный размер хранилища";
+        public static final String MAX_FILE_SIZE_EXCEEDED = "Превышен максимальный размер файла";
 
         // Ошибки хранилища
         public static final String RESOURCE_NOT_FOUND = "Ресурс не найден";
@@ -70,6 +70,21 @@ public final class AppConstants {
         public static final String PATH_MUST_BE_DIRECTORY = "Путь к директории должен заканчиваться на '/'";
         public static final String MOVE_TYPE_MISMATCH = "Нельзя менять тип ресурса (файл/папка) при перемещении";
         public static final String MOVE_INTO_ITSELF = "Нельзя переместить папку в саму себя или свою подпапку";
+        public static final String UPLOAD_STREAMING_DISABLED = "Потоковая загрузка выключена, используйте POST /api/resource";
+        public static final String UPLOAD_NOT_MULTIPART = "Ожидается запрос multipart/form-data";
+        public static final String UPLOAD_LENGTH_REQUIRED = "Для потоковой загрузки нужен заголовок Content-Length";
+        public static final String UPLOAD_SESSION_NOT_FOUND = "Сессия загрузки не найдена или истекла";
+        public static final String UPLOAD_OFFSET_MISMATCH = "Смещение не совпадает с принятым сервером, запросите текущее";
+        public static final String UPLOAD_SESSION_BUSY = "Сессия загрузки занята другим запросом";
+        public static final String UPLOAD_INCOMPLETE = "Приняты не все байты файла";
+        public static final String UPLOAD_CHUNK_SIZE_INVALID = "Размер части должен совпадать с размером части сессии, меньше может быть только последняя";
+        public static final String JOB_NOT_FOUND = "Задача не найдена";
+        public static final String JOB_LIMIT_EXCEEDED = "Слишком много незавершённых задач, дождитесь окончания текущих";
+        public static final String JOB_RESULT_NOT_READY = "Результат задачи ещё не готов";
+        public static final String JOB_NO_RESULT = "У задачи нет результата для скачивания";
+        public static final String JOB_ALREADY_FINISHED = "Задача уже завершена";
+        public static final String INVALID_CURSOR = "Некорректный курсор пагинации";
+        public static final String SORT_NOT_PAGEABLE = "Сортировка доступна только для листинга всей папки, без limit и cursor";
         public static final String FOLDER_PARENT_MISSING = "Родительская папка не существует. Вручную нельзя создавать вложенные папки";
 
         // Ошибки пользователей
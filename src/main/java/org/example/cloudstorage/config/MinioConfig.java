@@ -2,18 +2,32 @@ package org.example.cloudstorage.config;
 
 import io.minio.BucketExistsArgs;
 import io.minio.MakeBucketArgs;
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.example.cloudstorage.service.storage.port.MultipartMinioClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
 @Slf4j
 @Configuration
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "minio", matchIfMissing = true)
 @RequiredArgsConstructor
 public class MinioConfig {
 
+    // Как у клиента MinIO по умолчанию
+    private static final Duration HTTP_TIMEOUT = Duration.ofMinutes(5);
+
     private final MinioProperties minioProperties;
+    private final StorageProperties storageProperties;
 
     @Bean
     public MinioClient minioClient() {
@@ -29,6 +43,32 @@ public class MinioConfig {
         return client;
     }
 
+    /**
+     * Отдельный асинхронный клиент под параллельные части: у OkHttp по умолчанию не больше 5 асинхронных
+     * запросов на хост, поэтому диспетчер расширяется до размера пула загрузки.
+     */
+    @Bean
+    public MultipartMinioClient multipartMinioClient() {
+        int threads = storageProperties.getUpload().getPartThreads();
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Math.max(threads, 64));
+        dispatcher.setMaxRequestsPerHost(threads);
+
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectTimeout(HTTP_TIMEOUT)
+                .writeTimeout(HTTP_TIMEOUT)
+                .readTimeout(HTTP_TIMEOUT)
+                .protocols(List.of(Protocol.HTTP_1_1))
+                .build();
+
+        return new MultipartMinioClient(MinioAsyncClient.builder()
+                .endpoint(minioProperties.getUrl())
+                .credentials(minioProperties.getAccessKey(), minioProperties.getSecretKey())
+                .httpClient(httpClient)
+                .build());
+    }
+
     private void initializeBucket(MinioClient client) {
         String bucket = minioProperties.getBucketName();
         try {
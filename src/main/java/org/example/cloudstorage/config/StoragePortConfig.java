@@ -0,0 +1,82 @@
+package org.example.cloudstorage.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.service.storage.dedup.BlobCatalog;
+import org.example.cloudstorage.service.storage.port.CachingObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.DeduplicatingObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.InstrumentedObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.PathIndirectionStoragePort;
+import org.example.cloudstorage.service.storage.tree.PathTree;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Slf4j
+@Configuration
+public class StoragePortConfig {
+
+    /**
+     * Имя бина хранилища: MinIO, локальная файловая система или память, в зависимости от {@code storage.backend}.
+     */
+    public static final String BACKEND_PORT = "backendStoragePort";
+
+    /**
+     * Порт содержимого: объекты по ключам хранилища, без дерева путей и кэша.
+     * Через него дерево путей читает и пишет объекты, а миграция видит бакет таким, каким он был до дерева.
+     */
+    @Bean
+    public ObjectStoragePort contentStoragePort(@Qualifier(BACKEND_PORT) ObjectStoragePort backend,
+                                                StorageProperties properties,
+                                                MeterRegistry meterRegistry,
+                                                BlobCatalog blobCatalog) {
+        ObjectStoragePort port = backend;
+
+        if (properties.getMetrics().isEnabled()) {
+            // Прямо над бэкендом: метрики показывают запросы к хранилищу, а не к кэшу или дереву путей
+            log.info("Storage metrics enabled: slo={}, slowThreshold={}",
+                    properties.getMetrics().getSlo(),
+                    properties.getMetrics().getSlowThreshold());
+            port = new InstrumentedObjectStoragePort(port, properties.getMetrics(), meterRegistry);
+        }
+
+        if (properties.getDedup().isEnabled()) {
+            log.info("Content-addressable storage enabled: quotaMode={}, gcGracePeriod={}",
+                    properties.getDedup().getQuotaMode(),
+                    properties.getDedup().getGcGracePeriod());
+            port = new DeduplicatingObjectStoragePort(port, blobCatalog);
+        }
+
+        return port;
+    }
+
+    /**
+     * Порт, который получают сервисы: порт содержимого, обёрнутый включёнными декораторами.
+     */
+    @Bean
+    @Primary
+    public ObjectStoragePort objectStoragePort(@Qualifier("contentStoragePort") ObjectStoragePort contentStoragePort,
+                                               StorageProperties properties,
+                                               MeterRegistry meterRegistry,
+                                               PathTree pathTree) {
+        ObjectStoragePort port = contentStoragePort;
+
+        if (properties.getIndirection().isEnabled()) {
+            log.info("Path tree enabled: objects stored under '{}', folders renamed in place",
+                    PathIndirectionStoragePort.OBJECT_PREFIX);
+            port = new PathIndirectionStoragePort(port, pathTree);
+        }
+
+        if (properties.getCache().isEnabled()) {
+            log.info("Storage metadata cache enabled: maxSize={}, ttl={}, negativeTtl={}",
+                    properties.getCache().getMaximumSize(),
+                    properties.getCache().getTtl(),
+                    properties.getCache().getNegativeTtl());
+            port = new CachingObjectStoragePort(port, properties.getCache(), meterRegistry);
+        }
+
+        return port;
+    }
+}
@@ -0,0 +1,186 @@
+package org.example.cloudstorage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "storage")
+public class StorageProperties {
+
+    // Где лежат объекты: MINIO, LOCAL (файловая система узла) или MEMORY (тесты и бенчмарки)
+    private Backend backend = Backend.MINIO;
+    private Usage usage = new Usage();
+    private Move move = new Move();
+    private Cache cache = new Cache();
+    private Catalog catalog = new Catalog();
+    private Zip zip = new Zip();
+    private Upload upload = new Upload();
+    private Dedup dedup = new Dedup();
+    private Indirection indirection = new Indirection();
+    private Jobs jobs = new Jobs();
+    private Local local = new Local();
+    private Memory memory = new Memory();
+    private Metrics metrics = new Metrics();
+
+    public enum Backend {
+        MINIO,
+        LOCAL,
+        MEMORY
+    }
+
+    @Data
+    public static class Usage {
+        // Пересчитать учёт занятого места по содержимому бакета при старте приложения
+        private boolean rebuildOnStartup = false;
+    }
+
+    @Data
+    public static class Move {
+        // Сколько копирований одной папки выполняется одновременно
+        private int parallelism = 8;
+        // Источники удаляются пачками по мере завершения копирования
+        private int deleteBatchSize = 1000;
+        // Повторы при временной недоступности хранилища
+        private int maxRetries = 3;
+        private Duration retryBackoff = Duration.ofMillis(200);
+    }
+
+    @Data
+    public static class Cache {
+        // Кэш метаданных локален для узла: чужие изменения видны не позже чем через TTL
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofSeconds(30);
+        private Duration negativeTtl = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Catalog {
+        // Перестроить каталог метаданных по содержимому бакета при старте приложения
+        private boolean rebuildOnStartup = false;
+        // Cron периодической сверки каталога с бакетом, "-" отключает
+        private String reconcileCron = "-";
+    }
+
+    @Data
+    public static class Zip {
+        // Сколько объектов архива скачивается заранее, пока пишется текущий
+        private int prefetchDepth = 8;
+        // Потолок памяти под скачанные, но ещё не записанные объекты одного архива
+        private DataSize prefetchBudget = DataSize.ofMegabytes(32);
+        // Общий пул загрузчиков на все архивы узла
+        private int prefetchThreads = 16;
+        // Уровень deflate для сжимаемых файлов (1 — быстрее, 9 — плотнее)
+        private int deflateLevel = 6;
+        // Потоки параллельного сжатия записей на весь узел; 0 — архив сжимается в одном потоке.
+        // Включается явно: выигрыш над последовательной записью пока не измерен на многоядерном узле
+        private int parallelDeflateThreads = 0;
+    }
+
+    @Data
+    public static class Upload {
+        // POST /resource/stream: разбор multipart на commons-fileupload2, у которого пока только milestone-релизы.
+        // Выключено — эндпоинт отвечает 400, обычная загрузка через Spring multipart работает как раньше
+        private boolean streamingEnabled = false;
+        // Потолок одного файла в потоковой загрузке (multipart-лимиты Spring её не касаются)
+        private DataSize maxFileSize = DataSize.ofGigabytes(5);
+        // Файлы от этого размера (и потоки неизвестной длины) грузятся параллельными частями
+        private DataSize multipartThreshold = DataSize.ofMegabytes(64);
+        // Размер части; в памяти одной загрузки держится не больше partParallelism частей
+        private DataSize partSize = DataSize.ofMegabytes(16);
+        private int partParallelism = 4;
+        // Общий пул загрузки частей на весь узел
+        private int partThreads = 16;
+        // Повторы одной части при временной недоступности хранилища
+        private int partMaxRetries = 3;
+        private Duration partRetryBackoff = Duration.ofMillis(200);
+        // Возобновляемые загрузки: размер части (не меньше 5 МБ, кроме последней) и срок жизни сессии без активности
+        private DataSize sessionChunkSize = DataSize.ofMegabytes(16);
+        private Duration sessionTtl = Duration.ofHours(24);
+        // Как часто фоновая очистка отменяет просроченные сессии
+        private Duration sessionCleanupInterval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Dedup {
+        // Содержимое хранится один раз по SHA-256, пути ссылаются на него; только для нового бакета:
+        // объекты, записанные без этого режима, через порт видны не будут
+        private boolean enabled = false;
+        // LOGICAL — квота считает каждый файл, PHYSICAL — одинаковое содержимое у пользователя считается один раз
+        private QuotaMode quotaMode = QuotaMode.LOGICAL;
+        // Блоб без ссылок живёт не меньше этого срока: успевает завершиться загрузка, которая его переиспользует
+        private Duration gcGracePeriod = Duration.ofHours(24);
+        private Duration gcInterval = Duration.ofHours(1);
+        private int gcBatchSize = 1000;
+
+        public enum QuotaMode {
+            LOGICAL,
+            PHYSICAL
+        }
+    }
+
+    @Data
+    public static class Indirection {
+        // Пути разрешаются через дерево в БД, объекты лежат под неизменными ключами: перенос папки — один UPDATE.
+        // Включается один раз: объекты, записанные в этом режиме, без дерева не найти
+        private boolean enabled = false;
+        // Перенести в дерево объекты, записанные по пути как по ключу, при старте приложения
+        private boolean migrateOnStartup = false;
+    }
+
+    @Data
+    public static class Jobs {
+        // Сколько фоновых задач выполняет один узел одновременно
+        private int workers = 2;
+        // Незавершённых задач на пользователя; сверх этого новые отклоняются
+        private int maxActivePerUser = 5;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        // Задачу, чей узел не присылал пульс дольше heartbeatTimeout, забирает другой узел
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+        private Duration heartbeatTimeout = Duration.ofMinutes(2);
+        // Сколько раз задача запускается заново после падения узлов, прежде чем считаться проваленной
+        private int maxAttempts = 3;
+        // Как часто прогресс пишется в БД; заодно с той же частотой проверяется отмена
+        private Duration progressFlushInterval = Duration.ofSeconds(1);
+        // Завершённые задачи и готовые архивы хранятся столько, потом удаляются
+        private Duration retention = Duration.ofHours(24);
+        private Duration cleanupInterval = Duration.ofMinutes(10);
+        // Каталог для сборки архивов до загрузки в хранилище; пусто — системный временный каталог
+        private String workDir;
+        // Сколько держится открытым поток событий прогресса
+        private Duration eventsTimeout = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Local {
+        // Корень хранилища: объекты лежат в data/, незавершённые записи и части загрузок — в tmp/
+        private String root = "./storage";
+    }
+
+    @Data
+    public static class Memory {
+        // Задержка каждого запроса к хранилищу и пропускная способность передачи данных (0 — без ограничения):
+        // позволяют нагружать сервисы в процессе с профилем, похожим на сетевое хранилище
+        private Duration latency = Duration.ZERO;
+        private DataSize bandwidth = DataSize.ofBytes(0);
+    }
+
+    @Data
+    public static class Metrics {
+        // Задержки, байты, ошибки и запросы в работе для каждого обращения к хранилищу (storage.requests и др.)
+        private boolean enabled = true;
+        // Корзины гистограммы задержек: по ним в Prometheus считается доля запросов быстрее порога SLO
+        private List<Duration> slo = List.of(Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25),
+                Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+                Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5), Duration.ofSeconds(10));
+        // Запросы дольше порога пишутся в лог с путём: по ним ищутся медленные префиксы, которых нет в тегах
+        private Duration slowThreshold = Duration.ofSeconds(1);
+    }
+}
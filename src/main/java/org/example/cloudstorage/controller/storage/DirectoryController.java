@@ -1,23 +1,65 @@
 package org.example.cloudstorage.controller.storage;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.example.cloudstorage.annotation.user.CurrentUser;
+import org.example.cloudstorage.config.AppConstants;
 import org.example.cloudstorage.controller.swagger.DirectorySwagger;
+import org.example.cloudstorage.dto.storage.DirectoryPageDto;
+import org.example.cloudstorage.dto.storage.ListingFormat;
 import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.dto.storage.ResourceSort;
+import org.example.cloudstorage.exception.BadRequestException;
 import org.example.cloudstorage.service.storage.FileService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequiredArgsConstructor
 public class DirectoryController implements DirectorySwagger {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final FileService fileService;
 
     @Override
-    public List<ResourceInfoDto> listDirectory(@CurrentUser Long userId, String path) {
-        return fileService.listFolder(userId, path);
+    public ResponseEntity<?> listDirectory(@CurrentUser Long userId, String path,
+                                           Integer limit, String cursor, ResourceSort sort,
+                                           WebRequest webRequest, HttpServletResponse response) {
+        if (sort != null && (limit != null || cursor != null)) {
+            // Страницы идут в порядке ключей: отсортированная страница не была бы частью отсортированной папки
+            throw new BadRequestException(AppConstants.ExceptionMessages.SORT_NOT_PAGEABLE);
+        }
+
+        // Страница всегда JSON, полный листинг — JSON или NDJSON по Accept
+        ListingFormat format = limit == null
+                ? ListingFormat.fromAccept(webRequest.getHeader(HttpHeaders.ACCEPT))
+                : ListingFormat.JSON;
+        // Выставляется до проверки, чтобы кэш различал представления и в ответе 304
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+        // Несуществующая папка получает 404 раньше, чем If-None-Match сравнивается с ETag
+        String etag = fileService.getFolderETag(userId, path, format);
+        if (webRequest.checkNotModified(etag)) {
+            // 304 и ETag уже выставлены, листинг не строится
+            return null;
+        }
+
+        if (limit == null) {
+            // Вся папка пишется в ответ постранично, не собираясь в памяти целиком
+            return ResponseEntity.ok().eTag(etag)
+                    .contentType(format.mediaType())
+                    .body(fileService.streamFolder(userId, path, sort, format));
+        }
+
+        DirectoryPageDto page = fileService.listFolderPage(userId, path, limit, cursor);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
     }
 
     @Override
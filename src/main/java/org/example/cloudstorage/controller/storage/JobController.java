@@ -0,0 +1,65 @@
+package org.example.cloudstorage.controller.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.example.cloudstorage.annotation.user.CurrentUser;
+import org.example.cloudstorage.controller.swagger.JobSwagger;
+import org.example.cloudstorage.dto.storage.StorageJobDto;
+import org.example.cloudstorage.dto.storage.ZipCompression;
+import org.example.cloudstorage.service.storage.FileService;
+import org.example.cloudstorage.service.storage.download.FileDownload;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class JobController implements JobSwagger {
+
+    private final FileService fileService;
+
+    @Override
+    public StorageJobDto submitDelete(@CurrentUser Long userId, String path) {
+        return fileService.submitDeleteJob(userId, path);
+    }
+
+    @Override
+    public StorageJobDto submitMove(@CurrentUser Long userId, String from, String to) {
+        return fileService.submitMoveJob(userId, from, to);
+    }
+
+    @Override
+    public StorageJobDto submitZip(@CurrentUser Long userId, String path, ZipCompression compression) {
+        return fileService.submitZipJob(userId, path, compression);
+    }
+
+    @Override
+    public List<StorageJobDto> listJobs(@CurrentUser Long userId) {
+        return fileService.listJobs(userId);
+    }
+
+    @Override
+    public StorageJobDto getJob(@CurrentUser Long userId, String jobId) {
+        return fileService.getJob(userId, jobId);
+    }
+
+    @Override
+    public SseEmitter streamJob(@CurrentUser Long userId, String jobId) {
+        return fileService.subscribeToJob(userId, jobId);
+    }
+
+    @Override
+    public StorageJobDto cancelJob(@CurrentUser Long userId, String jobId) {
+        return fileService.cancelJob(userId, jobId);
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> downloadResult(@CurrentUser Long userId, String jobId) {
+        FileDownload download = fileService.downloadJobResult(userId, jobId);
+        return ResponseEntity.status(download.status())
+                .headers(download.headers())
+                .body(download.body());
+    }
+}
@@ -1,19 +1,29 @@
 package org.example.cloudstorage.controller.storage;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.example.cloudstorage.annotation.user.CurrentUser;
+import org.example.cloudstorage.config.AppConstants;
 import org.example.cloudstorage.controller.swagger.ResourceSwagger;
+import org.example.cloudstorage.dto.storage.ListingFormat;
 import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.dto.storage.ZipCompression;
 import org.example.cloudstorage.service.storage.FileService;
+import org.example.cloudstorage.service.storage.download.FileDownload;
+import org.example.cloudstorage.service.storage.query.StreamedPage;
 import org.example.cloudstorage.util.PathUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -35,20 +45,42 @@ public class ResourceController implements ResourceSwagger {
         return fileService.upload(userId, path, object);
     }
 
+    @Override
+    public List<ResourceInfoDto> uploadStream(@CurrentUser Long userId, HttpServletRequest request) throws IOException {
+        // @RequestParam здесь нельзя: чтение параметров заставит контейнер разобрать и буферизовать тело
+        return fileService.uploadStream(userId, queryParameter(request, "path"), request);
+    }
+
     @Override
     public void deleteResource(@CurrentUser Long userId, String path) {
         fileService.delete(userId, path);
     }
 
     @Override
-    public ResponseEntity<StreamingResponseBody> download(@CurrentUser Long userId, String path) {
+    public ResponseEntity<StreamingResponseBody> download(@CurrentUser Long userId, String path,
+                                                          ZipCompression compression, String range,
+                                                          String ifRange, WebRequest webRequest) {
         String fileName = PathUtils.getDownloadName(path);
+        String contentDisposition = "attachment; filename=\"" + fileName + "\"";
+
+        if (!path.endsWith("/")) {
+            FileDownload download = fileService.downloadFile(userId, path, range, ifRange);
+            HttpHeaders headers = download.headers();
+            if (webRequest.checkNotModified(headers.getETag(), headers.getLastModified())) {
+                // 304 (или 412 для If-Match) уже выставлен, тело из хранилища не читается
+                return null;
+            }
+            return ResponseEntity.status(download.status())
+                    .headers(download.headers())
+                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+                    .body(download.body());
+        }
 
-        StreamingResponseBody responseBody = fileService.download(userId, path);
+        StreamingResponseBody responseBody = fileService.download(userId, path, compression);
 
         return ResponseEntity.ok().header(
                         HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + fileName + "\"")
+                        contentDisposition)
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
                 .body(responseBody);
     }
@@ -59,7 +91,33 @@ public class ResourceController implements ResourceSwagger {
     }
 
     @Override
-    public List<ResourceInfoDto> search(@CurrentUser Long userId, String query) {
-        return fileService.search(userId, query);
+    public ResponseEntity<?> search(@CurrentUser Long userId, String query,
+                                    Integer limit, String cursor, WebRequest webRequest) {
+        ListingFormat format = ListingFormat.fromAccept(webRequest.getHeader(HttpHeaders.ACCEPT));
+        if (limit == null && cursor == null) {
+            // Прежний контракт: все совпадения по подстроке пути, потоком в запрошенном формате
+            return ResponseEntity.ok()
+                    .contentType(format.mediaType())
+                    .body(fileService.streamPathSearch(userId, query, format));
+        }
+
+        // Страница читается до ответа ради курсора, а в ответ пишется потоком в запрошенном формате
+        int pageSize = limit == null ? AppConstants.Storage.MAX_PAGE_SIZE : limit;
+        StreamedPage page = fileService.streamSearchPage(userId, query, pageSize, cursor, format);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(format.mediaType());
+        if (page.nextCursor() != null) {
+            response.header(DirectoryController.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.body());
+    }
+
+    private static String queryParameter(HttpServletRequest request, String name) {
+        String value = UriComponentsBuilder.newInstance()
+                .query(request.getQueryString())
+                .build()
+                .getQueryParams()
+                .getFirst(name);
+        return value == null ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
     }
 }
@@ -0,0 +1,45 @@
+package org.example.cloudstorage.controller.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.example.cloudstorage.annotation.user.CurrentUser;
+import org.example.cloudstorage.controller.swagger.UploadSessionSwagger;
+import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.dto.storage.UploadSessionDto;
+import org.example.cloudstorage.service.storage.FileService;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+@RestController
+@RequiredArgsConstructor
+public class UploadSessionController implements UploadSessionSwagger {
+
+    private final FileService fileService;
+
+    @Override
+    public UploadSessionDto createSession(@CurrentUser Long userId, String path, String name, long size,
+                                          String contentType) {
+        return fileService.createUploadSession(userId, path, name, size, contentType);
+    }
+
+    @Override
+    public UploadSessionDto getSession(@CurrentUser Long userId, String sessionId) {
+        return fileService.getUploadSession(userId, sessionId);
+    }
+
+    @Override
+    public UploadSessionDto uploadChunk(@CurrentUser Long userId, String sessionId, long offset,
+                                        long contentLength, InputStream body) {
+        return fileService.uploadChunk(userId, sessionId, offset, body, contentLength);
+    }
+
+    @Override
+    public ResourceInfoDto completeSession(@CurrentUser Long userId, String sessionId) {
+        return fileService.completeUploadSession(userId, sessionId);
+    }
+
+    @Override
+    public void abortSession(@CurrentUser Long userId, String sessionId) {
+        fileService.abortUploadSession(userId, sessionId);
+    }
+}
@@ -1,18 +1,25 @@
 package org.example.cloudstorage.controller.swagger;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import org.example.cloudstorage.annotation.storage.ValidPath;
+import org.example.cloudstorage.config.AppConstants;
 import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.dto.storage.ResourceSort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @Tag(name = "Directory", description = "Навигация и управление структурой папок")
 @RequestMapping("/api/directory")
@@ -20,23 +27,53 @@ public interface DirectorySwagger {
 
     @Operation(
             summary = "Просмотр содержимого папки",
-            description = "Возвращает список файлов и подпапок по указанному пути. Если путь пустой, возвращает корень.",
+            description = "Возвращает список файлов и подпапок по указанному пути. Если путь пустой, возвращает корень. "
+                    + "Если передан limit, возвращается одна страница, а курсор следующей страницы приходит в заголовке X-Next-Cursor. "
+                    + "Без limit папка пишется в ответ потоком по мере чтения; с Accept: application/x-ndjson "
+                    + "вместо JSON-массива приходит по объекту на строку. "
+                    + "Ответ содержит ETag содержимого папки, свой для JSON и NDJSON, и Vary: Accept; "
+                    + "при совпадении с If-None-Match возвращается 304 без тела.",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Список получен",
-                            content = @Content(array = @ArraySchema(schema = @Schema(implementation = ResourceInfoDto.class)))
+                            content = {
+                                    @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                            array = @ArraySchema(schema = @Schema(implementation = ResourceInfoDto.class))),
+                                    @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                            schema = @Schema(implementation = ResourceInfoDto.class))
+                            }
                     ),
-                    @ApiResponse(responseCode = "400", description = "Некорректный путь или объект не является папкой"),
-                    @ApiResponse(responseCode = "401", description = "Пользователь не авторизован")
+                    @ApiResponse(responseCode = "304", description = "Содержимое папки не изменилось"),
+                    @ApiResponse(responseCode = "400", description = "Некорректный путь, объект не является папкой "
+                            + "или сортировка передана вместе с limit или cursor"),
+                    @ApiResponse(responseCode = "401", description = "Пользователь не авторизован"),
+                    @ApiResponse(responseCode = "404", description = "Папка не существует")
             }
     )
     @GetMapping
-    List<ResourceInfoDto> listDirectory(
+    ResponseEntity<?> listDirectory(
             Long userId,
             @RequestParam(required = false)
             @ValidPath(mustBeDirectory = true)
-            String path
+            String path,
+
+            @RequestParam(required = false)
+            @Min(1)
+            @Max(AppConstants.Storage.MAX_PAGE_SIZE)
+            @Parameter(description = "Размер страницы. Без него возвращается вся папка")
+            Integer limit,
+
+            @RequestParam(required = false)
+            @Parameter(description = "Курсор из заголовка X-Next-Cursor предыдущей страницы")
+            String cursor,
+
+            @RequestParam(required = false)
+            @Parameter(description = "Сортировка: NAME, SIZE или TYPE. Только для листинга всей папки: с limit или cursor — 400")
+            ResourceSort sort,
+
+            WebRequest webRequest,
+            HttpServletResponse response
     );
 
     @Operation(
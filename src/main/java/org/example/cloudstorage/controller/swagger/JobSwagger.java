@@ -0,0 +1,154 @@
+package org.example.cloudstorage.controller.swagger;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.NotBlank;
+import org.example.cloudstorage.annotation.storage.ValidPath;
+import org.example.cloudstorage.dto.storage.StorageJobDto;
+import org.example.cloudstorage.dto.storage.ZipCompression;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+@Tag(name = "Jobs", description = "Фоновое выполнение долгих операций над папками")
+@RequestMapping("/api/jobs")
+public interface JobSwagger {
+
+    @Operation(
+            summary = "Удалить в фоне",
+            description = "Ставит удаление файла или папки в очередь и сразу возвращает задачу.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Задача поставлена в очередь"),
+                    @ApiResponse(responseCode = "404", description = "Ресурс не найден"),
+                    @ApiResponse(responseCode = "429", description = "Слишком много незавершённых задач")
+            }
+    )
+    @PostMapping("/delete")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    StorageJobDto submitDelete(
+            Long userId,
+
+            @RequestParam
+            @NotBlank
+            @ValidPath
+            @Parameter(description = "Путь к файлу или папке", example = "photos/2023/")
+            String path
+    );
+
+    @Operation(
+            summary = "Переместить в фоне",
+            description = "Проверяет перемещение как синхронный запрос и ставит его в очередь. Отменённый перенос откатывается.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Задача поставлена в очередь"),
+                    @ApiResponse(responseCode = "400", description = "Некорректные пути"),
+                    @ApiResponse(responseCode = "404", description = "Ресурс не найден"),
+                    @ApiResponse(responseCode = "409", description = "Путь назначения уже занят"),
+                    @ApiResponse(responseCode = "429", description = "Слишком много незавершённых задач")
+            }
+    )
+    @PostMapping("/move")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    StorageJobDto submitMove(
+            Long userId,
+
+            @RequestParam
+            @NotBlank
+            @ValidPath
+            @Parameter(description = "Исходный путь")
+            String from,
+
+            @RequestParam
+            @NotBlank
+            @ValidPath
+            @Parameter(description = "Путь назначения")
+            String to
+    );
+
+    @Operation(
+            summary = "Собрать архив папки в фоне",
+            description = "Архив сохраняется на сервере и доступен по /api/jobs/{jobId}/result до истечения срока хранения задачи.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Задача поставлена в очередь"),
+                    @ApiResponse(responseCode = "400", description = "Путь не является папкой"),
+                    @ApiResponse(responseCode = "404", description = "Папка не найдена"),
+                    @ApiResponse(responseCode = "429", description = "Слишком много незавершённых задач")
+            }
+    )
+    @PostMapping("/zip")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    StorageJobDto submitZip(
+            Long userId,
+
+            @RequestParam
+            @NotBlank
+            @ValidPath(mustBeDirectory = true)
+            @Parameter(description = "Путь к папке", example = "photos/2023/")
+            String path,
+
+            @RequestParam(required = false)
+            @Parameter(description = "Сжатие архива: AUTO (по умолчанию), FAST или NONE")
+            ZipCompression compression
+    );
+
+    @Operation(
+            summary = "Последние задачи",
+            responses = @ApiResponse(responseCode = "200", description = "Задачи пользователя, новые первыми")
+    )
+    @GetMapping
+    List<StorageJobDto> listJobs(Long userId);
+
+    @Operation(
+            summary = "Состояние задачи",
+            description = "Прогресс в объектах и байтах; у выполняющейся задачи — оценка оставшегося времени.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Состояние получено"),
+                    @ApiResponse(responseCode = "404", description = "Задача не найдена")
+            }
+    )
+    @GetMapping("/{jobId}")
+    StorageJobDto getJob(Long userId, @PathVariable String jobId);
+
+    @Operation(
+            summary = "Поток прогресса задачи",
+            description = "Server-Sent Events: событие progress при каждом изменении состояния, поток закрывается после завершения задачи.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Поток открыт",
+                            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)),
+                    @ApiResponse(responseCode = "404", description = "Задача не найдена")
+            }
+    )
+    @GetMapping(path = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter streamJob(Long userId, @PathVariable String jobId);
+
+    @Operation(
+            summary = "Отменить задачу",
+            description = "Задача из очереди отменяется сразу, выполняющаяся — при ближайшей записи прогресса.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Отмена принята"),
+                    @ApiResponse(responseCode = "404", description = "Задача не найдена"),
+                    @ApiResponse(responseCode = "409", description = "Задача уже завершена")
+            }
+    )
+    @PostMapping("/{jobId}/cancel")
+    StorageJobDto cancelJob(Long userId, @PathVariable String jobId);
+
+    @Operation(
+            summary = "Скачать результат задачи",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Архив передаётся",
+                            content = @Content(mediaType = "application/zip")),
+                    @ApiResponse(responseCode = "404", description = "Задача не найдена"),
+                    @ApiResponse(responseCode = "409", description = "Архив ещё не готов или у задачи нет результата")
+            }
+    )
+    @GetMapping("/{jobId}/result")
+    ResponseEntity<StreamingResponseBody> downloadResult(Long userId, @PathVariable String jobId);
+}
@@ -2,17 +2,26 @@ package org.example.cloudstorage.controller.swagger;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import org.example.cloudstorage.annotation.storage.ValidPath;
+import org.example.cloudstorage.config.AppConstants;
 import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.dto.storage.ZipCompression;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
@@ -61,6 +70,29 @@ public interface ResourceSwagger {
             List<MultipartFile> object
     ) throws IOException;
 
+    @Operation(
+            summary = "Потоковая загрузка файлов",
+            description = "Части multipart-запроса пишутся в хранилище по мере поступления, без временных файлов. "
+                    + "Нужен заголовок Content-Length, лимиты spring.servlet.multipart не применяются. "
+                    + "Доступна только при storage.upload.streaming-enabled.",
+            parameters = @Parameter(in = ParameterIn.QUERY, name = "path", description = "Папка назначения"),
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Файлы успешно загружены"),
+                    @ApiResponse(responseCode = "400", description = "Ошибка валидации пути, запрос без Content-Length "
+                            + "или потоковая загрузка выключена"),
+                    @ApiResponse(responseCode = "409", description = "Файл с таким именем уже существует в данной папке"),
+                    @ApiResponse(responseCode = "413", description = "Превышена квота или максимальный размер файла")
+            }
+    )
+    @PostMapping(path = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    List<ResourceInfoDto> uploadStream(
+            Long userId,
+
+            @Parameter(hidden = true)
+            HttpServletRequest request
+    ) throws IOException;
+
     @Operation(
             summary = "Удаление объекта",
             responses = {
@@ -81,14 +113,20 @@ public interface ResourceSwagger {
 
     @Operation(
             summary = "Скачать файл",
-            description = "Возвращает содержимое файла в виде потока данных. Устанавливает правильный Content-Disposition для браузера.",
+            description = "Возвращает содержимое файла в виде потока данных. Устанавливает правильный Content-Disposition для браузера. "
+                    + "Для файла поддерживается заголовок Range (один или несколько диапазонов), для папки отдаётся ZIP целиком. "
+                    + "Файл отдаётся с ETag и Last-Modified; условные запросы If-None-Match и If-Modified-Since "
+                    + "получают 304 без тела, If-Range от другой версии файла отключает Range.",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Файл найден и передается",
                             content = @Content(mediaType = "application/octet-stream")
                     ),
-                    @ApiResponse(responseCode = "404", description = "Файл не найден")
+                    @ApiResponse(responseCode = "206", description = "Передаются запрошенные диапазоны файла"),
+                    @ApiResponse(responseCode = "304", description = "Файл не изменился с версии, которая есть у клиента"),
+                    @ApiResponse(responseCode = "404", description = "Файл не найден"),
+                    @ApiResponse(responseCode = "416", description = "Ни один из диапазонов не попадает в файл")
             }
     )
     @GetMapping("/download")
@@ -102,7 +140,21 @@ public interface ResourceSwagger {
                     description = "Путь к файлу для скачивания",
                     example = "docs/contract.pdf"
             )
-            String path
+            String path,
+
+            @RequestParam(required = false)
+            @Parameter(description = "Сжатие архива папки: AUTO (по умолчанию), FAST или NONE. Для файла не используется")
+            ZipCompression compression,
+
+            @RequestHeader(value = HttpHeaders.RANGE, required = false)
+            @Parameter(description = "Диапазоны байт файла, например bytes=0-1023 или bytes=0-99,200-299")
+            String range,
+
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false)
+            @Parameter(description = "ETag или Last-Modified версии, к которой относятся диапазоны")
+            String ifRange,
+
+            WebRequest webRequest
     );
 
     @Operation(
@@ -130,26 +182,49 @@ public interface ResourceSwagger {
 
     @Operation(
             summary = "Поиск файлов и папок",
-            description = "Рекурсивный поиск по названию среди всех ресурсов пользователя.",
+            description = "Рекурсивный поиск среди всех ресурсов пользователя. "
+                    + "Без limit и cursor — все ресурсы, в пути которых есть подстрока (без учёта регистра), "
+                    + "в порядке ключей, без ограничения числа; ответ пишется потоком. "
+                    + "С limit или cursor — поиск по имени с ранжированием: точное совпадение имени, "
+                    + "затем совпадение с начала, затем похожие; курсор следующей страницы приходит "
+                    + "в заголовке X-Next-Cursor. "
+                    + "Ответ пишется потоком в обоих режимах; с Accept: application/x-ndjson — по объекту на строку.",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Результаты поиска (может быть пустым списком)",
-                            content = @Content(array = @ArraySchema(schema = @Schema(implementation = ResourceInfoDto.class)))
+                            content = {
+                                    @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                            array = @ArraySchema(schema = @Schema(implementation = ResourceInfoDto.class))),
+                                    @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                            schema = @Schema(implementation = ResourceInfoDto.class))
+                            }
                     ),
                     @ApiResponse(responseCode = "401", description = "Неавторизован")
             }
     )
     @GetMapping("/search")
-    List<ResourceInfoDto> search(
+    ResponseEntity<?> search(
             Long userId,
 
             @RequestParam
             @NotBlank
             @Parameter(
-                    description = "Часть имени файла или папки для поиска",
+                    description = "Часть пути (без limit и cursor) или имени (с ними) файла или папки",
                     example = "report"
             )
-            String query
+            String query,
+
+            @RequestParam(required = false)
+            @Min(1)
+            @Max(AppConstants.Storage.MAX_PAGE_SIZE)
+            @Parameter(description = "Размер страницы ранжированного поиска; без него возвращаются все совпадения по пути")
+            Integer limit,
+
+            @RequestParam(required = false)
+            @Parameter(description = "Курсор из заголовка X-Next-Cursor предыдущей страницы")
+            String cursor,
+
+            WebRequest webRequest
     );
 }
@@ -0,0 +1,119 @@
+package org.example.cloudstorage.controller.swagger;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.example.cloudstorage.annotation.storage.ValidPath;
+import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.dto.storage.UploadSessionDto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@Tag(name = "Upload sessions", description = "Возобновляемая загрузка крупных файлов частями")
+@RequestMapping("/api/upload-sessions")
+public interface UploadSessionSwagger {
+
+    @Operation(
+            summary = "Создать сессию загрузки",
+            description = "Резервирует квоту под весь файл. Части шлются в PUT по порядку, размером chunkSize из ответа.",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Сессия создана"),
+                    @ApiResponse(responseCode = "400", description = "Ошибка валидации пути или имени"),
+                    @ApiResponse(responseCode = "409", description = "Файл с таким именем уже существует в данной папке"),
+                    @ApiResponse(responseCode = "413", description = "Превышена квота или максимальный размер файла")
+            }
+    )
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    UploadSessionDto createSession(
+            Long userId,
+
+            @RequestParam(required = false)
+            @ValidPath(mustBeDirectory = true)
+            @Parameter(description = "Папка назначения")
+            String path,
+
+            @RequestParam
+            @NotBlank
+            @ValidPath
+            @Parameter(description = "Имя файла")
+            String name,
+
+            @RequestParam
+            @Min(0)
+            @Parameter(description = "Итоговый размер файла в байтах")
+            long size,
+
+            @RequestParam(required = false)
+            String contentType
+    );
+
+    @Operation(
+            summary = "Состояние сессии",
+            description = "Возвращает принятое сервером смещение: с него нужно продолжить после обрыва.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Состояние получено"),
+                    @ApiResponse(responseCode = "404", description = "Сессия не найдена или истекла")
+            }
+    )
+    @GetMapping("/{sessionId}")
+    UploadSessionDto getSession(Long userId, @PathVariable String sessionId);
+
+    @Operation(
+            summary = "Загрузить часть",
+            description = "Тело запроса — байты файла начиная с offset. Все части, кроме последней, размером ровно chunkSize.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Часть принята, в ответе новое смещение"),
+                    @ApiResponse(responseCode = "400", description = "Неверный размер части"),
+                    @ApiResponse(responseCode = "404", description = "Сессия не найдена или истекла"),
+                    @ApiResponse(responseCode = "409", description = "Смещение не совпадает с принятым или сессия занята")
+            }
+    )
+    @PutMapping(path = "/{sessionId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    UploadSessionDto uploadChunk(
+            Long userId,
+
+            @PathVariable
+            String sessionId,
+
+            @RequestParam
+            @Min(0)
+            long offset,
+
+            @RequestHeader(HttpHeaders.CONTENT_LENGTH)
+            long contentLength,
+
+            @Parameter(hidden = true)
+            InputStream body
+    );
+
+    @Operation(
+            summary = "Завершить загрузку",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Файл собран"),
+                    @ApiResponse(responseCode = "404", description = "Сессия не найдена или истекла"),
+                    @ApiResponse(responseCode = "409", description = "Приняты не все байты или путь уже занят")
+            }
+    )
+    @PostMapping("/{sessionId}/complete")
+    @ResponseStatus(HttpStatus.CREATED)
+    ResourceInfoDto completeSession(Long userId, @PathVariable String sessionId);
+
+    @Operation(
+            summary = "Отменить загрузку",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Сессия отменена, квота возвращена"),
+                    @ApiResponse(responseCode = "404", description = "Сессия не найдена или истекла")
+            }
+    )
+    @DeleteMapping("/{sessionId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    void abortSession(Long userId, @PathVariable String sessionId);
+}
@@ -0,0 +1,9 @@
+package org.example.cloudstorage.dto.storage;
+
+import java.util.List;
+
+public record DirectoryPageDto(
+        List<ResourceInfoDto> items,
+        String nextCursor
+) {
+}
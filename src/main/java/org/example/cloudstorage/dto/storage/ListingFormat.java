@@ -0,0 +1,37 @@
+package org.example.cloudstorage.dto.storage;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+/**
+ * Формат потокового листинга, выбирается по заголовку {@code Accept}.
+ */
+public enum ListingFormat {
+    /** Обычный JSON-массив: тот же ответ, что без потоковой записи. */
+    JSON(MediaType.APPLICATION_JSON),
+    /** По объекту JSON на строку: клиент может разбирать ответ, не дожидаясь конца. */
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    private final MediaType mediaType;
+
+    ListingFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * NDJSON только по явной просьбе клиента: {@code *}{@code /*} и отсутствие заголовка дают JSON.
+     */
+    public static ListingFormat fromAccept(String accept) {
+        if (!StringUtils.hasText(accept)) return JSON;
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(NDJSON.mediaType::equalsTypeAndSubtype) ? NDJSON : JSON;
+        } catch (IllegalArgumentException e) {
+            return JSON;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.cloudstorage.dto.storage;
+
+import java.util.Comparator;
+
+public enum ResourceSort {
+    NAME(Comparator.comparing(ResourceInfoDto::name)),
+    SIZE(Comparator.comparing((ResourceInfoDto dto) -> dto.size() == null ? -1L : dto.size())
+            .thenComparing(ResourceInfoDto::name)),
+    TYPE(Comparator.comparing((ResourceInfoDto dto) -> dto.type() == ResourceInfoDto.ResourceType.FILE)
+            .thenComparing(ResourceInfoDto::name));
+
+    private final Comparator<ResourceInfoDto> comparator;
+
+    ResourceSort(Comparator<ResourceInfoDto> comparator) {
+        this.comparator = comparator;
+    }
+
+    public Comparator<ResourceInfoDto> comparator() {
+        return comparator;
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.cloudstorage.dto.storage;
+
+import java.util.List;
+
+public record SearchPageDto(
+        List<ResourceInfoDto> items,
+        String nextCursor
+) {
+}
@@ -0,0 +1,29 @@
+package org.example.cloudstorage.dto.storage;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.example.cloudstorage.model.StorageJob;
+
+import java.time.Instant;
+
+/**
+ * Состояние фоновой задачи для клиента. {@code etaSeconds} есть только у выполняющейся задачи,
+ * когда по пройденной части уже можно оценить остаток.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StorageJobDto(
+        String id,
+        StorageJob.Type type,
+        StorageJob.Status status,
+        String path,
+        String target,
+        long itemsDone,
+        long itemsTotal,
+        long bytesDone,
+        long bytesTotal,
+        Long etaSeconds,
+        String error,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt
+) {
+}
@@ -0,0 +1,17 @@
+package org.example.cloudstorage.dto.storage;
+
+import java.time.Instant;
+
+/**
+ * Состояние возобновляемой загрузки для клиента: следующую часть нужно слать со смещением {@code offset}.
+ */
+public record UploadSessionDto(
+        String id,
+        String path,
+        String name,
+        long size,
+        long offset,
+        long chunkSize,
+        Instant expiresAt
+) {
+}
@@ -0,0 +1,13 @@
+package org.example.cloudstorage.dto.storage;
+
+/**
+ * Режим сжатия архива папки, выбирается на запрос.
+ */
+public enum ZipCompression {
+    /** Уже сжатые форматы хранятся как есть, остальное сжимается с настроенным уровнем. */
+    AUTO,
+    /** То же, но с самым быстрым уровнем сжатия. */
+    FAST,
+    /** Без сжатия: архив только собирает файлы вместе. */
+    NONE
+}
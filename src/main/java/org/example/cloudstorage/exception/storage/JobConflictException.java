@@ -0,0 +1,12 @@
+package org.example.cloudstorage.exception.storage;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Запрос не согласуется с состоянием фоновой задачи: результат ещё не готов или задача уже завершена.
+ */
+public class JobConflictException extends StorageException {
+    public JobConflictException(String message, String jobId) {
+        super(HttpStatus.CONFLICT, message, jobId);
+    }
+}
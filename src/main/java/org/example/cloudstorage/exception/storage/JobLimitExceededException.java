@@ -0,0 +1,11 @@
+package org.example.cloudstorage.exception.storage;
+
+import org.springframework.http.HttpStatus;
+
+import static org.example.cloudstorage.config.AppConstants.ExceptionMessages.JOB_LIMIT_EXCEEDED;
+
+public class JobLimitExceededException extends StorageException {
+    public JobLimitExceededException(String path) {
+        super(HttpStatus.TOO_MANY_REQUESTS, JOB_LIMIT_EXCEEDED, path);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.cloudstorage.exception.storage;
+
+import org.springframework.http.HttpStatus;
+
+import static org.example.cloudstorage.config.AppConstants.ExceptionMessages.JOB_NOT_FOUND;
+
+public class JobNotFoundException extends StorageException {
+    public JobNotFoundException(String jobId) {
+        super(HttpStatus.NOT_FOUND, JOB_NOT_FOUND, jobId);
+    }
+}
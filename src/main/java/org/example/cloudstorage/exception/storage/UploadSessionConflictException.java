@@ -0,0 +1,13 @@
+package org.example.cloudstorage.exception.storage;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Запрос не согласуется с текущим состоянием сессии загрузки: неверное смещение, сессия занята
+ * другим запросом или ещё не все байты приняты.
+ */
+public class UploadSessionConflictException extends StorageException {
+    public UploadSessionConflictException(String message, String path) {
+        super(HttpStatus.CONFLICT, message, path);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.cloudstorage.exception.storage;
+
+import org.springframework.http.HttpStatus;
+
+import static org.example.cloudstorage.config.AppConstants.ExceptionMessages.UPLOAD_SESSION_NOT_FOUND;
+
+public class UploadSessionNotFoundException extends StorageException {
+    public UploadSessionNotFoundException(String sessionId) {
+        super(HttpStatus.NOT_FOUND, UPLOAD_SESSION_NOT_FOUND, sessionId);
+    }
+}
@@ -1,9 +1,8 @@
 package org.example.cloudstorage.mapper;
 
-import org.example.cloudstorage.config.AppConstants;
 import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.model.StoragePath;
 import org.example.cloudstorage.model.StorageResource;
-import org.example.cloudstorage.util.PathUtils;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -12,24 +11,23 @@ import java.util.List;
 public class ResourceResponseMapper {
 
     public ResourceInfoDto toDto(StorageResource resource) {
-        return toDto(resource.fullPath(), resource.isDirectory(), resource.size());
+        return toDto(StoragePath.parse(resource.fullPath()), resource.isDirectory(), resource.size());
     }
 
     public ResourceInfoDto fromDirectory(String fullPath) {
-        return toDto(fullPath, true, null);
+        return toDto(StoragePath.parse(fullPath), true, null);
     }
 
-    private ResourceInfoDto toDto(String fullPath, boolean isDirectory, Long size) {
-        String relativePath = PathUtils.extractRelativePath(AppConstants.Storage.USER_PREFIX_PATTERN, fullPath);
-        String resourceName = PathUtils.extractName(relativePath);
-        String parentPath = PathUtils.extractParentPath(relativePath);
+    // Ключ разбирается один раз, родитель и имя вырезаются из него по смещениям
+    private ResourceInfoDto toDto(StoragePath path, boolean isDirectory, Long size) {
+        String parentPath = path.parentPath();
 
         if (isDirectory) {
             // фронт требует, чтобы имя папки заканчивалось слэшем
-            String dirName = resourceName.endsWith("/") ? resourceName : resourceName + "/";
+            String dirName = path.isDirectory() && !path.isRoot() ? path.lastSegment() : path.name() + "/";
             return ResourceInfoDto.directory(parentPath, dirName);
         } else {
-            return ResourceInfoDto.file(parentPath, resourceName, size);
+            return ResourceInfoDto.file(parentPath, path.name(), size);
         }
     }
 
@@ -0,0 +1,36 @@
+package org.example.cloudstorage.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Содержимое в режиме дедупликации: один объект в бакете на каждый уникальный SHA-256.
+ * Блоб с нулевым счётчиком ссылок удаляется сборщиком мусора по истечении льготного периода.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "blobs")
+public class Blob {
+    @Id
+    private String hash;
+
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private long refCount;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false, insertable = false, updatable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,35 @@
+package org.example.cloudstorage.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Путь пользователя в режиме дедупликации: полный ключ хранилища, указывающий на блоб.
+ * Маркер папки хранится строкой без блоба.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "blob_refs")
+public class BlobReference {
+    @Id
+    private String path;
+
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    private String hash;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private Instant createdAt;
+}
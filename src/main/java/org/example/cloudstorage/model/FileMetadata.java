@@ -0,0 +1,54 @@
+package org.example.cloudstorage.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Строка каталога метаданных. Путь хранится относительно корня пользователя, папки заканчиваются слэшем.
+ * Виртуальные папки не имеют маркера в бакете и существуют, пока под ними есть объекты.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "files")
+public class FileMetadata {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String path;
+
+    @Column(name = "parent_path", nullable = false)
+    private String parentPath;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "is_dir", nullable = false)
+    private boolean directory;
+
+    @Column(name = "is_virtual", nullable = false)
+    private boolean virtual;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    private String etag;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false, insertable = false, updatable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,105 @@
+package org.example.cloudstorage.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.example.cloudstorage.dto.storage.ZipCompression;
+
+import java.time.Instant;
+
+/**
+ * Фоновая операция над ресурсом пользователя. Строка — и очередь, и журнал прогресса:
+ * узел, выполняющий задачу, регулярно обновляет {@code heartbeatAt}, и задачу с устаревшим пульсом
+ * забирает другой узел.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "storage_jobs")
+public class StorageJob {
+    @Id
+    private String id;
+
+    @Column(name = "owner_id", nullable = false)
+    private long ownerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(name = "source_path", nullable = false)
+    private String sourcePath;
+
+    @Column(name = "target_path")
+    private String targetPath;
+
+    @Enumerated(EnumType.STRING)
+    private ZipCompression compression;
+
+    @Column(name = "items_total", nullable = false)
+    private long itemsTotal;
+
+    @Column(name = "bytes_total", nullable = false)
+    private long bytesTotal;
+
+    @Column(name = "items_done", nullable = false)
+    private long itemsDone;
+
+    @Column(name = "bytes_done", nullable = false)
+    private long bytesDone;
+
+    // Ключ готового архива в хранилище
+    @Column(name = "result_key")
+    private String resultKey;
+
+    private String error;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "worker_id")
+    private String workerId;
+
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    public enum Type {
+        DELETE,
+        MOVE,
+        ZIP
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+        CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    // Задача уже выполнялась и была прервана остановкой узла
+    public boolean isResumed() {
+        return attempts > 1;
+    }
+}
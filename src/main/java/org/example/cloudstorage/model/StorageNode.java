@@ -0,0 +1,59 @@
+package org.example.cloudstorage.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Узел дерева путей. Полный путь — имена узлов от корня, у папок имя заканчивается слэшем.
+ * Файл указывает на объект бакета {@code storageKey}, который не меняется при переименовании предков.
+ * Папка без маркера существует, пока в ней есть узлы, как общий префикс в бакете.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "storage_nodes")
+public class StorageNode {
+    public static final long ROOT_PARENT = 0;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "parent_id", nullable = false)
+    private long parentId;
+
+    // Владелец по корню user-N-files/; у узлов вне пользовательских корней пусто
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(name = "is_dir", nullable = false)
+    private boolean directory;
+
+    @Column(name = "is_marker", nullable = false)
+    private boolean marker;
+
+    @Column(name = "storage_key")
+    private String storageKey;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    private String etag;
+
+    @Column(name = "updated_at", nullable = false, insertable = false, updatable = false)
+    private Instant updatedAt;
+
+    // Версия листинга папки: новое значение последовательности при каждом изменении первого уровня
+    @Column(name = "children_version", nullable = false, insertable = false, updatable = false)
+    private long childrenVersion;
+}
@@ -0,0 +1,12 @@
+package org.example.cloudstorage.model;
+
+import java.util.List;
+
+public record StoragePage(
+        List<StorageResource> items,
+        String lastKey
+) {
+    public boolean hasMore() {
+        return lastKey != null;
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.cloudstorage.model;
+
+import org.example.cloudstorage.config.AppConstants;
+import org.example.cloudstorage.util.PathUtils;
+
+/**
+ * Путь в хранилище, разобранный один раз: ключ объекта, владелец, начало пути относительно корня пользователя
+ * и начало последнего сегмента.
+ * <p>
+ * Родитель — вид на тот же ключ меньшей длины: подъём по предкам не разбирает строку заново, но каждый шаг
+ * создаёт новый небольшой объект со смещениями. Имя, родительский путь, относительный путь и ключ предка
+ * вырезаются из исходной строки по готовым смещениям, только когда их просят, и каждый такой вызов создаёт
+ * новую строку. Ключ пользователя имеет вид {@code user-<id>-files/<путь>}, папка заканчивается
+ * слэшем; ключ вне пользовательских корней разбирается как относительный путь без владельца.
+ */
+public final class StoragePath {
+
+    public static final long NO_OWNER = -1;
+
+    private static final String USER_ROOT_HEAD;
+    private static final String USER_ROOT_TAIL;
+
+    static {
+        String template = AppConstants.Storage.USER_ROOT_TEMPLATE;
+        int placeholder = template.indexOf("%d");
+        USER_ROOT_HEAD = template.substring(0, placeholder);
+        USER_ROOT_TAIL = template.substring(placeholder + 2);
+    }
+
+    // Long.MAX_VALUE — 19 цифр; длиннее владелец не разбирается
+    private static final int MAX_USER_ID_DIGITS = 18;
+
+    private final String source;
+    private final int end;
+    private final long userId;
+    private final int relativeStart;
+    private final int nameStart;
+    private String key;
+
+    private StoragePath(String source, int end, long userId, int relativeStart) {
+        this.source = source;
+        this.end = end;
+        this.userId = userId;
+        this.relativeStart = relativeStart;
+        this.nameStart = nameStart(source, end, relativeStart);
+    }
+
+    /**
+     * Путь из пользовательского ввода: нормализуется и склеивается с корнем пользователя в одну строку.
+     */
+    public static StoragePath of(long userId, String path) {
+        String relative = PathUtils.normalize(path);
+        String key = USER_ROOT_HEAD + userId + USER_ROOT_TAIL + relative;
+        return new StoragePath(key, key.length(), userId, key.length() - relative.length());
+    }
+
+    public static StoragePath root(long userId) {
+        return of(userId, "");
+    }
+
+    /**
+     * Корень пользователя {@code user-<id>-files/}.
+     */
+    public static String userRoot(long userId) {
+        return USER_ROOT_HEAD + userId + USER_ROOT_TAIL;
+    }
+
+    /**
+     * Разбирает готовый ключ хранилища без регулярных выражений; строка ключа не копируется.
+     */
+    public static StoragePath parse(String key) {
+        long userId = NO_OWNER;
+        int relativeStart = 0;
+        if (key.startsWith(USER_ROOT_HEAD)) {
+            int digitsStart = USER_ROOT_HEAD.length();
+            int digitsEnd = digitsStart;
+            while (digitsEnd < key.length() && isAsciiDigit(key.charAt(digitsEnd))) {
+                digitsEnd++;
+            }
+            if (digitsEnd > digitsStart && key.startsWith(USER_ROOT_TAIL, digitsEnd)) {
+                relativeStart = digitsEnd + USER_ROOT_TAIL.length();
+                if (digitsEnd - digitsStart <= MAX_USER_ID_DIGITS) {
+                    userId = Long.parseLong(key, digitsStart, digitsEnd, 10);
+                }
+            }
+        }
+        return new StoragePath(key, key.length(), userId, relativeStart);
+    }
+
+    public String key() {
+        if (key == null) {
+            key = end == source.length() ? source : source.substring(0, end);
+        }
+        return key;
+    }
+
+    /**
+     * Владелец ключа или {@link #NO_OWNER}, если ключ лежит вне пользовательских корней.
+     */
+    public long userId() {
+        return userId;
+    }
+
+    public boolean hasOwner() {
+        return userId != NO_OWNER;
+    }
+
+    /**
+     * Корень пользователя (или пустой путь для ключа без владельца).
+     */
+    public boolean isRoot() {
+        return end == relativeStart;
+    }
+
+    public boolean isDirectory() {
+        return isRoot() || source.charAt(end - 1) == '/';
+    }
+
+    /**
+     * Лежит прямо в корне пользователя.
+     */
+    public boolean isTopLevel() {
+        return !isRoot() && nameStart == relativeStart;
+    }
+
+    /**
+     * Путь относительно корня пользователя, как его видит клиент. Новая строка на каждый вызов.
+     */
+    public String relativePath() {
+        return source.substring(relativeStart, end);
+    }
+
+    /**
+     * Имя без завершающего слэша; у корня пустое. Новая строка на каждый вызов.
+     */
+    public String name() {
+        if (isRoot()) return "";
+        return source.substring(nameStart, isDirectory() ? end - 1 : end);
+    }
+
+    /**
+     * Последний сегмент как есть: у папки со слэшем.
+     */
+    public String lastSegment() {
+        return source.substring(nameStart, end);
+    }
+
+    /**
+     * Относительный путь родительской папки со слэшем; пустой для объектов в корне.
+     */
+    public String parentPath() {
+        return source.substring(relativeStart, nameStart);
+    }
+
+    /**
+     * Ключ без завершающего слэша: под этим ключом лежал бы файл с именем папки.
+     */
+    public String keyWithoutSlash() {
+        return isDirectory() && end > 0 ? source.substring(0, end - 1) : key();
+    }
+
+    /**
+     * Родительская папка или {@code null} у корня. Для ключа без владельца подъём заканчивается
+     * на папке верхнего уровня, пустой корень не отдаётся. Строку не копирует, но каждый вызов
+     * создаёт новый {@code StoragePath}.
+     */
+    public StoragePath parent() {
+        if (isRoot() || nameStart == 0) return null;
+        return new StoragePath(source, nameStart, userId, relativeStart);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof StoragePath other && key().equals(other.key());
+    }
+
+    @Override
+    public int hashCode() {
+        return key().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return key();
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int nameStart(String source, int end, int relativeStart) {
+        if (end == relativeStart) return relativeStart;
+        // Завершающий слэш папки сегменты не разделяет
+        int slash = source.lastIndexOf('/', end - 2);
+        return Math.max(slash + 1, relativeStart);
+    }
+}
@@ -1,9 +1,18 @@
 package org.example.cloudstorage.model;
 
+import java.time.Instant;
+
 public record StorageResource(
         String fullPath,
-        long size
+        long size,
+        String contentType,
+        String etag,
+        Instant lastModified
 ) {
+    public StorageResource(String fullPath, long size) {
+        this(fullPath, size, null, null, null);
+    }
+
     public boolean isDirectory() {
         return fullPath != null && fullPath.endsWith("/");
     }
@@ -0,0 +1,29 @@
+package org.example.cloudstorage.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Состояние возобновляемой загрузки: куда пишется файл, сколько байт уже принято
+ * и ETag загруженных частей по порядку номеров.
+ */
+public record UploadSession(
+        String id,
+        long userId,
+        String fullPath,
+        long size,
+        String contentType,
+        String uploadId,
+        long chunkSize,
+        long offset,
+        Instant expiresAt,
+        List<String> partEtags
+) {
+    public boolean isComplete() {
+        return offset == size;
+    }
+
+    public int nextPartNumber() {
+        return (int) (offset / chunkSize) + 1;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.cloudstorage.repository;
+
+import org.example.cloudstorage.model.BlobReference;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BlobReferenceRepository extends JpaRepository<BlobReference, String> {
+
+    /*
+     * Сериализует запись одного пути: строки ещё может не быть, поэтому блокировки строки недостаточно.
+     * Лок транзакционный и снимается при коммите.
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtext(:path))) locked", nativeQuery = true)
+    int lockPath(@Param("path") String path);
+
+    // Удалённая параллельно строка не вернётся: каждую ссылку освобождает ровно одна транзакция
+    @Query(value = "SELECT * FROM blob_refs WHERE path IN (:paths) ORDER BY path FOR UPDATE", nativeQuery = true)
+    List<BlobReference> lockAll(@Param("paths") Collection<String> paths);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            INSERT INTO blob_refs (path, owner_id, hash, size, content_type)
+            VALUES (:path, :ownerId, :hash, :size, :contentType)
+            ON CONFLICT (path) DO UPDATE
+            SET owner_id = EXCLUDED.owner_id,
+                hash = EXCLUDED.hash,
+                size = EXCLUDED.size,
+                content_type = EXCLUDED.content_type,
+                created_at = NOW()
+            """, nativeQuery = true)
+    int upsert(@Param("path") String path,
+               @Param("ownerId") Long ownerId,
+               @Param("hash") String hash,
+               @Param("size") long size,
+               @Param("contentType") String contentType);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "DELETE FROM blob_refs WHERE path IN (:paths)", nativeQuery = true)
+    int deleteByPaths(@Param("paths") Collection<String> paths);
+
+    long countByOwnerIdAndHash(Long ownerId, String hash);
+
+    // Все ключи с префиксом лежат в полуинтервале [prefix, prefixEnd)
+    @Query(value = """
+            SELECT * FROM blob_refs
+            WHERE path >= :prefix
+              AND path < :prefixEnd
+              AND path > :afterPath
+            ORDER BY path
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<BlobReference> findRange(@Param("prefix") String prefix,
+                                  @Param("prefixEnd") String prefixEnd,
+                                  @Param("afterPath") String afterPath,
+                                  @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT EXISTS (SELECT 1 FROM blob_refs WHERE path >= :prefix AND path < :prefixEnd)
+            """, nativeQuery = true)
+    boolean existsInRange(@Param("prefix") String prefix, @Param("prefixEnd") String prefixEnd);
+
+    /*
+     * Первый уровень папки, как листинг бакета с разделителем: ключ до первого слэша после папки.
+     * Обходит всё поддерево папки, поэтому годится для служебных обходов, а не для листинга в UI:
+     * тот обслуживается каталогом files.
+     */
+    @Query(value = """
+            SELECT DISTINCT child FROM (
+                SELECT CASE WHEN strpos(substr(path, :offset), '/') > 0
+                            THEN left(path, :offset + strpos(substr(path, :offset), '/') - 1)
+                            ELSE path
+                       END AS child
+                FROM blob_refs
+                WHERE path > :folder
+                  AND path < :folderEnd
+            ) children
+            WHERE child > :afterKey
+            ORDER BY child
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<String> findChildKeys(@Param("folder") String folder,
+                               @Param("folderEnd") String folderEnd,
+                               @Param("offset") int offset,
+                               @Param("afterKey") String afterKey,
+                               @Param("limit") int limit);
+}
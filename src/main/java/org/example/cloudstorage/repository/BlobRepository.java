@@ -0,0 +1,60 @@
+package org.example.cloudstorage.repository;
+
+import org.example.cloudstorage.model.Blob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface BlobRepository extends JpaRepository<Blob, String> {
+
+    /*
+     * Первая ссылка на содержимое создаёт блоб с переданным ключом, последующие только увеличивают счётчик.
+     * Строка остаётся заблокированной до конца транзакции, поэтому сборщик мусора её не заберёт.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            INSERT INTO blobs (hash, storage_key, size, ref_count)
+            VALUES (:hash, :storageKey, :size, 1)
+            ON CONFLICT (hash) DO UPDATE
+            SET ref_count = blobs.ref_count + 1,
+                updated_at = NOW()
+            """, nativeQuery = true)
+    int acquire(@Param("hash") String hash,
+                @Param("storageKey") String storageKey,
+                @Param("size") long size);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            UPDATE blobs
+            SET ref_count = ref_count + :delta,
+                updated_at = NOW()
+            WHERE hash = :hash
+            """, nativeQuery = true)
+    int adjustRefCount(@Param("hash") String hash, @Param("delta") long delta);
+
+    @Query(value = "SELECT storage_key FROM blobs WHERE hash = :hash", nativeQuery = true)
+    String findStorageKey(@Param("hash") String hash);
+
+    // SKIP LOCKED: несколько узлов собирают мусор параллельно, не мешая друг другу и загрузкам
+    @Query(value = """
+            SELECT * FROM blobs
+            WHERE ref_count = 0
+              AND updated_at < :cutoff
+            ORDER BY updated_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Blob> lockUnreferenced(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "DELETE FROM blobs WHERE hash IN (:hashes) AND ref_count = 0", nativeQuery = true)
+    int deleteUnreferenced(@Param("hashes") Collection<String> hashes);
+
+    @Query(value = "SELECT storage_key FROM blobs WHERE storage_key IN (:keys)", nativeQuery = true)
+    List<String> findExistingKeys(@Param("keys") Collection<String> keys);
+}
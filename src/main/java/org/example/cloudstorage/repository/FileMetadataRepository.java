@@ -0,0 +1,204 @@
+package org.example.cloudstorage.repository;
+
+import org.example.cloudstorage.model.FileMetadata;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long> {
+
+    Optional<FileMetadata> findByUserIdAndPath(long userId, String path);
+
+    boolean existsByUserId(long userId);
+
+    // Покрывается индексом (user_id, parent_path, path): и фильтр, и порядок берутся из индекса
+    @Query(value = """
+            SELECT * FROM files
+            WHERE user_id = :userId
+              AND parent_path = :parentPath
+              AND path > :afterPath
+            ORDER BY path
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<FileMetadata> findChildren(@Param("userId") long userId,
+                                    @Param("parentPath") String parentPath,
+                                    @Param("afterPath") String afterPath,
+                                    @Param("limit") int limit);
+
+    // Версия листинга папки, см. 011-add-folder-versions.sql
+    @Query(value = "SELECT version FROM folder_versions WHERE user_id = :userId AND path = :path", nativeQuery = true)
+    Optional<Long> findFolderVersion(@Param("userId") long userId, @Param("path") String path);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO folder_versions (user_id, path) VALUES (:userId, :path)
+            ON CONFLICT (user_id, path) DO NOTHING
+            """, nativeQuery = true)
+    int insertFolderVersion(@Param("userId") long userId, @Param("path") String path);
+
+    @Modifying
+    @Query(value = "DELETE FROM folder_versions WHERE user_id = :userId AND path = :path", nativeQuery = true)
+    int deleteFolderVersion(@Param("userId") long userId, @Param("path") String path);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM folder_versions
+            WHERE user_id = :userId AND path >= :fromPath AND path < :toPath
+            """, nativeQuery = true)
+    int deleteFolderVersions(@Param("userId") long userId,
+                             @Param("fromPath") String fromPath,
+                             @Param("toPath") String toPath);
+
+    @Modifying
+    @Query(value = "DELETE FROM folder_versions WHERE user_id = :userId", nativeQuery = true)
+    int deleteFolderVersionsByUser(@Param("userId") long userId);
+
+    interface SubtreeTotals {
+        long getItems();
+
+        long getBytes();
+    }
+
+    // Объём поддерева для оценки прогресса фоновых задач: виртуальные папки объектами не являются
+    @Query(value = """
+            SELECT COUNT(*) FILTER (WHERE NOT is_virtual) AS items, COALESCE(SUM(size), 0) AS bytes
+            FROM files
+            WHERE user_id = :userId AND path >= :fromPath AND path < :toPath
+            """, nativeQuery = true)
+    SubtreeTotals subtreeTotals(@Param("userId") long userId,
+                                @Param("fromPath") String fromPath,
+                                @Param("toPath") String toPath);
+
+    /*
+     * Подстрока ищется по триграммному индексу idx_files_name_trgm. Ранжирование: точное совпадение имени,
+     * затем совпадение с начала имени, затем триграммная похожесть. Виртуальные папки в бакете не существуют
+     * как объекты, поэтому в поиск не попадают.
+     */
+    @Query(value = """
+            SELECT * FROM files
+            WHERE user_id = :userId
+              AND NOT is_virtual
+              AND lower(name) LIKE :pattern ESCAPE '\\'
+            ORDER BY lower(name) = :query DESC,
+                     lower(name) LIKE :prefixPattern ESCAPE '\\' DESC,
+                     similarity(lower(name), :query) DESC,
+                     path
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<FileMetadata> searchByName(@Param("userId") long userId,
+                                    @Param("query") String query,
+                                    @Param("pattern") String pattern,
+                                    @Param("prefixPattern") String prefixPattern,
+                                    @Param("offset") int offset,
+                                    @Param("limit") int limit);
+
+    // Подстрока во всём пути (индекс idx_files_path_trgm), в порядке ключей: страницы продолжаются после afterPath
+    @Query(value = """
+            SELECT * FROM files
+            WHERE user_id = :userId
+              AND NOT is_virtual
+              AND lower(path) LIKE :pattern ESCAPE '\\'
+              AND path > :afterPath
+            ORDER BY path
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<FileMetadata> findByPathContaining(@Param("userId") long userId,
+                                            @Param("pattern") String pattern,
+                                            @Param("afterPath") String afterPath,
+                                            @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO files (user_id, path, parent_path, name, size, is_dir, is_virtual, content_type, etag, updated_at)
+            VALUES (:userId, :path, :parentPath, :name, :size, :directory, FALSE, :contentType, :etag, :modifiedAt)
+            ON CONFLICT (user_id, path) DO UPDATE
+            SET size = EXCLUDED.size,
+                is_dir = EXCLUDED.is_dir,
+                is_virtual = FALSE,
+                content_type = EXCLUDED.content_type,
+                etag = EXCLUDED.etag,
+                updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int upsert(@Param("userId") long userId,
+               @Param("path") String path,
+               @Param("parentPath") String parentPath,
+               @Param("name") String name,
+               @Param("size") long size,
+               @Param("directory") boolean directory,
+               @Param("contentType") String contentType,
+               @Param("etag") String etag,
+               @Param("modifiedAt") Instant modifiedAt);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO files (user_id, path, parent_path, name, size, is_dir, is_virtual)
+            VALUES (:userId, :path, :parentPath, :name, 0, TRUE, TRUE)
+            ON CONFLICT (user_id, path) DO NOTHING
+            """, nativeQuery = true)
+    int insertVirtualFolder(@Param("userId") long userId,
+                            @Param("path") String path,
+                            @Param("parentPath") String parentPath,
+                            @Param("name") String name);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM files
+            WHERE user_id = :userId AND path IN (:paths)
+            """, nativeQuery = true)
+    int deleteByPaths(@Param("userId") long userId, @Param("paths") Collection<String> paths);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM files
+            WHERE user_id = :userId AND path >= :fromPath AND path < :toPath
+            """, nativeQuery = true)
+    int deleteRange(@Param("userId") long userId,
+                    @Param("fromPath") String fromPath,
+                    @Param("toPath") String toPath);
+
+    @Modifying
+    @Query(value = "DELETE FROM files WHERE user_id = :userId", nativeQuery = true)
+    int deleteAllByUser(@Param("userId") long userId);
+
+    // Удаляет виртуальную папку, только если в ней ничего не осталось
+    @Modifying
+    @Query(value = """
+            DELETE FROM files
+            WHERE user_id = :userId AND path = :path AND is_virtual
+              AND NOT EXISTS (SELECT 1 FROM files c WHERE c.user_id = :userId AND c.parent_path = :path)
+            """, nativeQuery = true)
+    int deleteIfEmptyVirtual(@Param("userId") long userId, @Param("path") String path);
+
+    @Modifying
+    @Query(value = """
+            UPDATE files
+            SET path = :toPath, parent_path = :toParentPath, name = :toName, updated_at = NOW()
+            WHERE user_id = :userId AND path = :fromPath
+            """, nativeQuery = true)
+    int rename(@Param("userId") long userId,
+               @Param("fromPath") String fromPath,
+               @Param("toPath") String toPath,
+               @Param("toParentPath") String toParentPath,
+               @Param("toName") String toName);
+
+    // Переносит всё содержимое папки одним UPDATE, сама папка переименовывается отдельно через rename
+    @Modifying
+    @Query(value = """
+            UPDATE files
+            SET path = :toPrefix || substr(path, :fromLength + 1),
+                parent_path = :toPrefix || substr(parent_path, :fromLength + 1),
+                updated_at = NOW()
+            WHERE user_id = :userId AND path > :fromPrefix AND path < :fromEnd
+            """, nativeQuery = true)
+    int moveDescendants(@Param("userId") long userId,
+                        @Param("fromPrefix") String fromPrefix,
+                        @Param("fromEnd") String fromEnd,
+                        @Param("fromLength") int fromLength,
+                        @Param("toPrefix") String toPrefix);
+}
@@ -0,0 +1,116 @@
+package org.example.cloudstorage.repository;
+
+import org.example.cloudstorage.model.StorageJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StorageJobRepository extends JpaRepository<StorageJob, String> {
+
+    Optional<StorageJob> findByIdAndOwnerId(String id, long ownerId);
+
+    @Query(value = """
+            SELECT * FROM storage_jobs
+            WHERE owner_id = :ownerId
+            ORDER BY created_at DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<StorageJob> findRecent(@Param("ownerId") long ownerId, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT COUNT(*) FROM storage_jobs
+            WHERE owner_id = :ownerId AND status IN ('QUEUED', 'RUNNING')
+            """, nativeQuery = true)
+    long countActive(@Param("ownerId") long ownerId);
+
+    /**
+     * Сериализует постановку задач одного пользователя: новой строки ещё нет, блокировать нечего,
+     * а без лока две параллельные постановки видят один и тот же счётчик. Лок транзакционный
+     * и снимается при коммите.
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:ownerId)) locked", nativeQuery = true)
+    int lockOwner(@Param("ownerId") long ownerId);
+
+    // Ожидающие задачи и задачи, чей узел перестал присылать пульс. SKIP LOCKED: узлы разбирают очередь не мешая друг другу
+    @Query(value = """
+            SELECT * FROM storage_jobs
+            WHERE status = 'QUEUED'
+               OR (status = 'RUNNING' AND heartbeat_at < :staleBefore)
+            ORDER BY created_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<StorageJob> lockClaimable(@Param("staleBefore") Instant staleBefore, @Param("limit") int limit);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            UPDATE storage_jobs
+            SET items_done = :itemsDone, bytes_done = :bytesDone, heartbeat_at = NOW()
+            WHERE id = :id AND worker_id = :workerId
+            """, nativeQuery = true)
+    int updateProgress(@Param("id") String id,
+                       @Param("workerId") String workerId,
+                       @Param("itemsDone") long itemsDone,
+                       @Param("bytesDone") long bytesDone);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            UPDATE storage_jobs
+            SET heartbeat_at = NOW()
+            WHERE id IN (:ids) AND worker_id = :workerId AND status = 'RUNNING'
+            """, nativeQuery = true)
+    int heartbeat(@Param("ids") Collection<String> ids, @Param("workerId") String workerId);
+
+    @Query(value = "SELECT cancel_requested FROM storage_jobs WHERE id = :id", nativeQuery = true)
+    boolean isCancelRequested(@Param("id") String id);
+
+    // Отмена задачи в очереди завершает её сразу, выполняющейся — только помечает
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            UPDATE storage_jobs
+            SET status = CASE WHEN status = 'QUEUED' THEN 'CANCELLED' ELSE status END,
+                finished_at = CASE WHEN status = 'QUEUED' THEN NOW() ELSE finished_at END,
+                cancel_requested = TRUE
+            WHERE id = :id AND owner_id = :ownerId AND status IN ('QUEUED', 'RUNNING')
+            """, nativeQuery = true)
+    int requestCancel(@Param("id") String id, @Param("ownerId") long ownerId);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            UPDATE storage_jobs
+            SET status = :status, items_done = :itemsDone, bytes_done = :bytesDone,
+                result_key = :resultKey, error = :error, finished_at = NOW(), heartbeat_at = NOW()
+            WHERE id = :id AND worker_id = :workerId
+            """, nativeQuery = true)
+    int finish(@Param("id") String id,
+               @Param("workerId") String workerId,
+               @Param("status") String status,
+               @Param("itemsDone") long itemsDone,
+               @Param("bytesDone") long bytesDone,
+               @Param("resultKey") String resultKey,
+               @Param("error") String error);
+
+    // Узел останавливается штатно: его задачи сразу возвращаются в очередь, не дожидаясь устаревания пульса
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            UPDATE storage_jobs
+            SET status = 'QUEUED', worker_id = NULL
+            WHERE worker_id = :workerId AND status = 'RUNNING'
+            """, nativeQuery = true)
+    int requeue(@Param("workerId") String workerId);
+
+    @Query(value = """
+            SELECT * FROM storage_jobs
+            WHERE finished_at < :finishedBefore
+            ORDER BY finished_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<StorageJob> lockExpired(@Param("finishedBefore") Instant finishedBefore, @Param("limit") int limit);
+}
@@ -0,0 +1,168 @@
+package org.example.cloudstorage.repository;
+
+import org.example.cloudstorage.model.StorageNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StorageNodeRepository extends JpaRepository<StorageNode, Long> {
+
+    Optional<StorageNode> findByParentIdAndName(long parentId, String name);
+
+    // Покрывается уникальным индексом (parent_id, name): и фильтр, и порядок берутся из индекса
+    @Query(value = """
+            SELECT * FROM storage_nodes
+            WHERE parent_id = :parentId
+              AND name >= :fromName
+              AND name > :afterName
+            ORDER BY name
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<StorageNode> findChildren(@Param("parentId") long parentId,
+                                   @Param("fromName") String fromName,
+                                   @Param("afterName") String afterName,
+                                   @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT * FROM storage_nodes
+            WHERE parent_id = :parentId
+              AND name >= :fromName
+              AND name > :afterName
+              AND name < :toName
+            ORDER BY name
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<StorageNode> findChildrenBelow(@Param("parentId") long parentId,
+                                        @Param("fromName") String fromName,
+                                        @Param("afterName") String afterName,
+                                        @Param("toName") String toName,
+                                        @Param("limit") int limit);
+
+    // Объём поддерева: объекты — файлы и маркеры папок, неявные папки объектами не являются
+    @Query(value = """
+            WITH RECURSIVE subtree AS (
+                SELECT id, is_dir, is_marker, size FROM storage_nodes WHERE parent_id = :id
+                UNION ALL
+                SELECT node.id, node.is_dir, node.is_marker, node.size
+                FROM storage_nodes node
+                JOIN subtree ON node.parent_id = subtree.id
+                WHERE subtree.is_dir
+            )
+            SELECT COUNT(*) FILTER (WHERE NOT is_dir OR is_marker) AS items, COALESCE(SUM(size), 0) AS bytes
+            FROM subtree
+            """, nativeQuery = true)
+    FileMetadataRepository.SubtreeTotals subtreeTotals(@Param("id") long id);
+
+    /*
+     * Поиск по подстроке имени по триграммному индексу idx_storage_nodes_name_trgm, с тем же ранжированием,
+     * что у FileMetadataRepository.searchByName. Неявные папки как объекты не существуют и в поиск не попадают.
+     */
+    @Query(value = """
+            SELECT * FROM storage_nodes
+            WHERE user_id = :userId
+              AND parent_id <> 0
+              AND (NOT is_dir OR is_marker)
+              AND lower(rtrim(name, '/')) LIKE :pattern ESCAPE '\\'
+            ORDER BY lower(rtrim(name, '/')) = :query DESC,
+                     lower(rtrim(name, '/')) LIKE :prefixPattern ESCAPE '\\' DESC,
+                     similarity(lower(rtrim(name, '/')), :query) DESC,
+                     id
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<StorageNode> searchByName(@Param("userId") long userId,
+                                   @Param("query") String query,
+                                   @Param("pattern") String pattern,
+                                   @Param("prefixPattern") String prefixPattern,
+                                   @Param("offset") int offset,
+                                   @Param("limit") int limit);
+
+    interface NodePath {
+        long getId();
+
+        String getPath();
+    }
+
+    // Полные пути узлов: имена предков склеиваются подъёмом до корня, по запросу на уровень для всех узлов сразу
+    @Query(value = """
+            WITH RECURSIVE up AS (
+                SELECT id AS node_id, parent_id, name AS path FROM storage_nodes WHERE id IN (:ids)
+                UNION ALL
+                SELECT up.node_id, node.parent_id, node.name || up.path
+                FROM up
+                JOIN storage_nodes node ON node.id = up.parent_id
+            )
+            SELECT node_id AS id, path FROM up WHERE parent_id = 0
+            """, nativeQuery = true)
+    List<NodePath> findPaths(@Param("ids") Collection<Long> ids);
+
+    // Папки создаются по мере надобности, параллельные загрузки в одну папку не конфликтуют
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            INSERT INTO storage_nodes (parent_id, name, is_dir, user_id)
+            VALUES (:parentId, :name, TRUE, :userId)
+            ON CONFLICT (parent_id, name) DO NOTHING
+            """, nativeQuery = true)
+    int insertFolderIfAbsent(@Param("parentId") long parentId, @Param("name") String name, @Param("userId") Long userId);
+
+    // Новая версия листинга папки: её первый уровень изменился
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE storage_nodes SET children_version = nextval('folder_version_seq') WHERE id = :id",
+            nativeQuery = true)
+    int bumpChildrenVersion(@Param("id") long id);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE storage_nodes SET is_marker = :marker, updated_at = NOW() WHERE id = :id", nativeQuery = true)
+    int setMarker(@Param("id") long id, @Param("marker") boolean marker);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            INSERT INTO storage_nodes (parent_id, name, is_dir, storage_key, size, content_type, etag, updated_at, user_id)
+            VALUES (:parentId, :name, FALSE, :storageKey, :size, :contentType, :etag, :modifiedAt, :userId)
+            ON CONFLICT (parent_id, name) DO UPDATE
+            SET storage_key = EXCLUDED.storage_key,
+                size = EXCLUDED.size,
+                content_type = EXCLUDED.content_type,
+                etag = EXCLUDED.etag,
+                updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int upsertFile(@Param("parentId") long parentId,
+                   @Param("name") String name,
+                   @Param("storageKey") String storageKey,
+                   @Param("size") long size,
+                   @Param("contentType") String contentType,
+                   @Param("etag") String etag,
+                   @Param("modifiedAt") Instant modifiedAt,
+                   @Param("userId") Long userId);
+
+    // Перенос поддерева любого размера: потомки ссылаются на узел по id и остаются на месте
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            UPDATE storage_nodes
+            SET parent_id = :parentId,
+                name = :name,
+                updated_at = NOW()
+            WHERE id = :id
+            """, nativeQuery = true)
+    int move(@Param("id") long id, @Param("parentId") long parentId, @Param("name") String name);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "DELETE FROM storage_nodes WHERE id IN (:ids) AND NOT is_dir", nativeQuery = true)
+    int deleteFiles(@Param("ids") Collection<Long> ids);
+
+    // Папка без маркера живёт, пока в ней что-то есть
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            DELETE FROM storage_nodes
+            WHERE id = :id
+              AND is_dir
+              AND NOT is_marker
+              AND NOT EXISTS (SELECT 1 FROM storage_nodes child WHERE child.parent_id = :id)
+            """, nativeQuery = true)
+    int deleteIfEmptyImplicit(@Param("id") long id);
+}
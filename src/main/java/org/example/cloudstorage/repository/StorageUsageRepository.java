@@ -0,0 +1,70 @@
+package org.example.cloudstorage.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.cloudstorage.model.StorageUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM StorageUsage u WHERE u.userId = :userId")
+    Optional<StorageUsage> lockByUserId(@Param("userId") long userId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO storage_usage (user_id, used_bytes, object_count)
+            VALUES (:userId, :usedBytes, :objectCount)
+            ON CONFLICT (user_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") long userId,
+                       @Param("usedBytes") long usedBytes,
+                       @Param("objectCount") long objectCount);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO storage_usage (user_id, used_bytes, object_count)
+            VALUES (:userId, :usedBytes, :objectCount)
+            ON CONFLICT (user_id) DO UPDATE
+            SET used_bytes = EXCLUDED.used_bytes,
+                object_count = EXCLUDED.object_count,
+                updated_at = NOW()
+            """, nativeQuery = true)
+    int upsert(@Param("userId") long userId,
+               @Param("usedBytes") long usedBytes,
+               @Param("objectCount") long objectCount);
+
+    // Условный инкремент: строка блокируется на время UPDATE, поэтому параллельные загрузки не проскочат лимит
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            UPDATE storage_usage
+            SET used_bytes = used_bytes + :bytes,
+                object_count = object_count + :count,
+                updated_at = NOW()
+            WHERE user_id = :userId
+              AND used_bytes + :bytes <= :maxBytes
+              AND object_count + :count <= :maxCount
+            """, nativeQuery = true)
+    int tryReserve(@Param("userId") long userId,
+                   @Param("count") long count,
+                   @Param("bytes") long bytes,
+                   @Param("maxCount") long maxCount,
+                   @Param("maxBytes") long maxBytes);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            UPDATE storage_usage
+            SET used_bytes = GREATEST(used_bytes + :bytes, 0),
+                object_count = GREATEST(object_count + :count, 0),
+                updated_at = NOW()
+            WHERE user_id = :userId
+            """, nativeQuery = true)
+    int adjust(@Param("userId") long userId,
+               @Param("count") long count,
+               @Param("bytes") long bytes);
+}
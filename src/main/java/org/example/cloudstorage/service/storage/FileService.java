@@ -1,16 +1,31 @@
 package org.example.cloudstorage.service.storage;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.dto.storage.DirectoryPageDto;
+import org.example.cloudstorage.dto.storage.ListingFormat;
 import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.dto.storage.ResourceSort;
+import org.example.cloudstorage.dto.storage.SearchPageDto;
+import org.example.cloudstorage.dto.storage.StorageJobDto;
+import org.example.cloudstorage.dto.storage.UploadSessionDto;
+import org.example.cloudstorage.dto.storage.ZipCompression;
 import org.example.cloudstorage.service.storage.action.FileActionService;
+import org.example.cloudstorage.service.storage.download.FileDownload;
 import org.example.cloudstorage.service.storage.download.FileDownloadService;
+import org.example.cloudstorage.service.storage.job.StorageJobService;
 import org.example.cloudstorage.service.storage.query.FileQueryService;
+import org.example.cloudstorage.service.storage.query.StreamedPage;
+import org.example.cloudstorage.service.storage.upload.StreamingUploadService;
+import org.example.cloudstorage.service.storage.upload.UploadSessionService;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Slf4j
@@ -21,6 +36,9 @@ public class FileService {
     private final FileActionService actionService;
     private final FileQueryService queryService;
     private final FileDownloadService downloadService;
+    private final StreamingUploadService streamingUploadService;
+    private final UploadSessionService uploadSessionService;
+    private final StorageJobService jobService;
 
     // Чтение
     public ResourceInfoDto getResource(long userId, String path) {
@@ -28,11 +46,43 @@ public class FileService {
     }
 
     public List<ResourceInfoDto> listFolder(long userId, String path) {
-        return queryService.listFolder(userId, path);
+        return queryService.listFolder(userId, path, null);
+    }
+
+    public List<ResourceInfoDto> listFolder(long userId, String path, ResourceSort sort) {
+        return queryService.listFolder(userId, path, sort);
+    }
+
+    public String getFolderETag(long userId, String path) {
+        return queryService.getFolderETag(userId, path, ListingFormat.JSON);
+    }
+
+    public String getFolderETag(long userId, String path, ListingFormat format) {
+        return queryService.getFolderETag(userId, path, format);
+    }
+
+    public DirectoryPageDto listFolderPage(long userId, String path, int limit, String cursor) {
+        return queryService.listFolderPage(userId, path, limit, cursor);
+    }
+
+    public StreamingResponseBody streamFolder(long userId, String path, ResourceSort sort, ListingFormat format) {
+        return queryService.streamFolder(userId, path, sort, format);
     }
 
     public List<ResourceInfoDto> search(long userId, String query) {
-        return queryService.search(userId, query);
+        return queryService.searchByPath(userId, query);
+    }
+
+    public StreamingResponseBody streamPathSearch(long userId, String query, ListingFormat format) {
+        return queryService.streamPathSearch(userId, query, format);
+    }
+
+    public SearchPageDto search(long userId, String query, int limit, String cursor) {
+        return queryService.search(userId, query, limit, cursor);
+    }
+
+    public StreamedPage streamSearchPage(long userId, String query, int limit, String cursor, ListingFormat format) {
+        return queryService.streamSearchPage(userId, query, limit, cursor, format);
     }
 
     // Изменение
@@ -40,6 +90,10 @@ public class FileService {
         return actionService.upload(userId, path, files);
     }
 
+    public List<ResourceInfoDto> uploadStream(long userId, String path, HttpServletRequest request) throws IOException {
+        return streamingUploadService.upload(userId, path, request);
+    }
+
     public void delete(long userId, String path) {
         actionService.delete(userId, path);
     }
@@ -52,8 +106,70 @@ public class FileService {
         return actionService.createFolder(userId, path);
     }
 
+    // Возобновляемая загрузка
+    public UploadSessionDto createUploadSession(long userId, String path, String name, long size, String contentType) {
+        return uploadSessionService.create(userId, path, name, size, contentType);
+    }
+
+    public UploadSessionDto getUploadSession(long userId, String sessionId) {
+        return uploadSessionService.status(userId, sessionId);
+    }
+
+    public UploadSessionDto uploadChunk(long userId, String sessionId, long offset, InputStream data, long length) {
+        return uploadSessionService.uploadChunk(userId, sessionId, offset, data, length);
+    }
+
+    public ResourceInfoDto completeUploadSession(long userId, String sessionId) {
+        return uploadSessionService.complete(userId, sessionId);
+    }
+
+    public void abortUploadSession(long userId, String sessionId) {
+        uploadSessionService.abort(userId, sessionId);
+    }
+
     // Скачивание
     public StreamingResponseBody download(long userId, String path) {
         return downloadService.download(userId, path);
     }
+
+    public StreamingResponseBody download(long userId, String path, ZipCompression compression) {
+        return downloadService.download(userId, path, compression);
+    }
+
+    public FileDownload downloadFile(long userId, String path, String range, String ifRange) {
+        return downloadService.downloadFile(userId, path, range, ifRange);
+    }
+
+    // Фоновые задачи
+    public StorageJobDto submitDeleteJob(long userId, String path) {
+        return jobService.submitDelete(userId, path);
+    }
+
+    public StorageJobDto submitMoveJob(long userId, String from, String to) {
+        return jobService.submitMove(userId, from, to);
+    }
+
+    public StorageJobDto submitZipJob(long userId, String path, ZipCompression compression) {
+        return jobService.submitZip(userId, path, compression);
+    }
+
+    public List<StorageJobDto> listJobs(long userId) {
+        return jobService.listRecent(userId);
+    }
+
+    public StorageJobDto getJob(long userId, String jobId) {
+        return jobService.get(userId, jobId);
+    }
+
+    public SseEmitter subscribeToJob(long userId, String jobId) {
+        return jobService.subscribe(userId, jobId);
+    }
+
+    public StorageJobDto cancelJob(long userId, String jobId) {
+        return jobService.cancel(userId, jobId);
+    }
+
+    public FileDownload downloadJobResult(long userId, String jobId) {
+        return jobService.downloadResult(userId, jobId);
+    }
 }
@@ -1,80 +1,130 @@
 package org.example.cloudstorage.service.storage.action;
 
 import lombok.extern.slf4j.Slf4j;
-import org.example.cloudstorage.config.AppConstants;
-import org.example.cloudstorage.config.MinioProperties;
 import org.example.cloudstorage.dto.storage.ResourceInfoDto;
-import org.example.cloudstorage.exception.storage.Quota.StorageQuotaExceededException;
 import org.example.cloudstorage.mapper.ResourceResponseMapper;
+import org.example.cloudstorage.model.StoragePath;
 import org.example.cloudstorage.model.StorageResource;
 import org.example.cloudstorage.service.storage.base.AbstractStorageService;
+import org.example.cloudstorage.service.storage.base.ProgressListener;
+import org.example.cloudstorage.service.storage.catalog.FileCatalogService;
 import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.quota.StorageUsageService;
 import org.example.cloudstorage.service.storage.validation.PathValidator;
+import org.example.cloudstorage.util.BatchUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class FileActionService extends AbstractStorageService {
 
-    private final MinioProperties properties;
+    private static final int BATCH_SIZE = 1000;
+
+    private final StorageUsageService usageService;
+    private final FolderMoveEngine moveEngine;
+    private final FileCatalogService catalog;
 
     public FileActionService(ObjectStoragePort storagePort,
                              PathValidator pathValidator,
                              ResourceResponseMapper resourceMapper,
-                             MinioProperties properties) {
+                             StorageUsageService usageService,
+                             FolderMoveEngine moveEngine,
+                             FileCatalogService catalog) {
         super(storagePort, pathValidator, resourceMapper);
-        this.properties = properties;
+        this.usageService = usageService;
+        this.moveEngine = moveEngine;
+        this.catalog = catalog;
     }
 
     public List<ResourceInfoDto> upload(long userId, String destinationPath, List<MultipartFile> files) throws IOException {
         log.info("Upload request: userId={}, to='{}', filesCount={}", userId, destinationPath, files.size());
 
-        checkQuota(userId, files);
+        long incomingSize = files.stream()
+                .mapToLong(MultipartFile::getSize)
+                .sum();
+        usageService.reserve(userId, files.size(), incomingSize);
 
         List<StorageResource> uploadedResources = new ArrayList<>();
-        for (MultipartFile file : files) {
-            String originalFilename = file.getOriginalFilename();
-            pathValidator.validatePath(originalFilename, false);
-
-            String relativePath = destinationPath + originalFilename;
-            String fullPath = generateUserPath(userId, relativePath);
-
-            log.debug("Uploading file: '{}' ({} bytes)", fullPath, file.getSize());
-            pathValidator.validateUpload(fullPath);
-
-            StorageResource resource = storagePort.uploadFile(
-                    fullPath,
-                    file.getInputStream(),
-                    file.getSize(),
-                    file.getContentType()
-            );
-            uploadedResources.add(resource);
+        long uploadedSize = 0;
+        try {
+            for (MultipartFile file : files) {
+                String originalFilename = file.getOriginalFilename();
+                pathValidator.validatePath(originalFilename, false);
+
+                String relativePath = destinationPath + originalFilename;
+                String fullPath = generateUserPath(userId, relativePath);
+
+                log.debug("Uploading file: '{}' ({} bytes)", fullPath, file.getSize());
+                pathValidator.validateUpload(fullPath);
+
+                StorageResource resource = storagePort.uploadFile(
+                        fullPath,
+                        file.getInputStream(),
+                        file.getSize(),
+                        file.getContentType()
+                );
+                uploadedResources.add(resource);
+                uploadedSize += file.getSize();
+                catalog.recordFile(userId, resource);
+            }
+        } catch (RuntimeException | IOException e) {
+            // Возвращаем резерв за файлы, которые так и не попали в хранилище
+            usageService.release(userId, files.size() - uploadedResources.size(), incomingSize - uploadedSize);
+            throw e;
         }
 
         return resourceMapper.toDtoList(uploadedResources);
     }
 
     public void delete(long userId, String path) {
+        delete(userId, path, ProgressListener.NONE);
+    }
+
+    /**
+     * Удаление с отчётом о прогрессе после каждой пачки. Квота возвращается по пачкам,
+     * поэтому прерванное удаление папки оставляет учёт согласованным с тем, что уже удалено.
+     */
+    public void delete(long userId, String path, ProgressListener progress) {
         log.info("Request to delete resource: userId={}, path='{}'", userId, path);
         String fullPath = generateUserPath(userId, path);
 
         if (path.endsWith("/")) {
             log.debug("Deleting folder recursively: '{}'", fullPath);
-            var pathsToDelete = storagePort.listAllPathsRecursive(fullPath);
-            log.debug("Found {} objects to delete", pathsToDelete.size());
-            storagePort.deleteObjects(pathsToDelete);
+            long[] deleted = new long[1];
+            try (Stream<StorageResource> resources = storagePort.streamAllObjectsRecursive(fullPath)) {
+                BatchUtils.forEachBatch(resources, BATCH_SIZE, batch -> {
+                    List<String> paths = batch.stream().map(StorageResource::fullPath).toList();
+                    long bytes = batch.stream().mapToLong(StorageResource::size).sum();
+                    storagePort.deleteObjects(paths);
+                    catalog.removeObjects(userId, paths);
+                    usageService.release(userId, batch.size(), bytes);
+                    deleted[0] += batch.size();
+                    progress.advance(batch.size(), bytes);
+                });
+            }
+            catalog.removeFolder(userId, fullPath);
+            log.debug("Deleted {} objects", deleted[0]);
         } else {
             log.debug("Deleting single file: '{}'", fullPath);
+            StorageResource resource = storagePort.getResource(fullPath);
             storagePort.delete(fullPath);
+            catalog.removeObjects(userId, List.of(fullPath));
+            usageService.release(userId, 1, resource.size());
+            progress.advance(1, resource.size());
         }
     }
 
     public ResourceInfoDto move(long userId, String fromPath, String toPath) {
+        return move(userId, fromPath, toPath, ProgressListener.NONE);
+    }
+
+    public ResourceInfoDto move(long userId, String fromPath, String toPath, ProgressListener progress) {
         log.info("Move request: userId={}, from='{}', to='{}'", userId, fromPath, toPath);
         String fullFrom = generateUserPath(userId, fromPath);
         String fullTo = generateUserPath(userId, toPath);
@@ -82,67 +132,63 @@ public class FileActionService extends AbstractStorageService {
         log.debug("Normalized move paths: fullFrom='{}', fullTo='{}'", fullFrom, fullTo);
         pathValidator.validateMove(fullFrom, fullTo);
 
+        // Перемещение внутри хранилища пользователя не меняет ни объём, ни количество объектов
         if (fromPath.endsWith("/")) {
-            List<String> paths = storagePort.listAllPathsRecursive(fullFrom);
-            log.debug("Moving folder contents. Found {} sub-paths", paths.size());
-
-            for (String path : paths) {
-                String relativePart = path.substring(fullFrom.length());
-                String newPath = fullTo + relativePart;
-
-                log.trace("Copying: '{}' -> '{}'", path, newPath);
-                storagePort.copy(path, newPath);
+            if (storagePort.rename(fullFrom, fullTo)) {
+                log.debug("Folder renamed in place: '{}' -> '{}'", fullFrom, fullTo);
+            } else {
+                log.debug("Moving folder contents: '{}' -> '{}'", fullFrom, fullTo);
+                long moved = moveEngine.move(fullFrom, fullTo, progress);
+                log.debug("Moved {} objects", moved);
             }
+            catalog.moveFolder(userId, fullFrom, fullTo);
 
-            storagePort.deleteObjects(paths);
             log.debug("Fetching resource after move: '{}'", fullTo);
             return resourceMapper.fromDirectory(fullTo);
         } else {
             log.debug("Moving single file: '{}' -> '{}'", fullFrom, fullTo);
+            if (!storagePort.rename(fullFrom, fullTo)) {
+                storagePort.copy(fullFrom, fullTo);
+                storagePort.delete(fullFrom);
+            }
+            log.debug("Fetching resource after move: '{}'", fullTo);
+            StorageResource moved = storagePort.getResource(fullTo);
+            catalog.moveFile(userId, fullFrom, moved);
+            return resourceMapper.toDto(moved);
+        }
+    }
+
+    /**
+     * Доводит до конца перенос, прерванный остановкой узла. Часть объектов уже может лежать в назначении,
+     * поэтому проверки занятости назначения не выполняются: переносится то, что осталось в источнике,
+     * а каталог пользователя пересобирается по хранилищу.
+     */
+    public void resumeMove(long userId, String fromPath, String toPath, ProgressListener progress) {
+        log.info("Resuming move: userId={}, from='{}', to='{}'", userId, fromPath, toPath);
+        String fullFrom = generateUserPath(userId, fromPath);
+        String fullTo = generateUserPath(userId, toPath);
+
+        if (fromPath.endsWith("/")) {
+            if (storagePort.containsObjects(fullFrom) && !storagePort.rename(fullFrom, fullTo)) {
+                long moved = moveEngine.move(fullFrom, fullTo, progress);
+                log.debug("Resumed move: {} remaining objects moved", moved);
+            }
+        } else if (storagePort.exists(fullFrom) && !storagePort.rename(fullFrom, fullTo)) {
             storagePort.copy(fullFrom, fullTo);
             storagePort.delete(fullFrom);
-            log.debug("Fetching resource after move: '{}'", fullTo);
-            return resourceMapper.toDto(storagePort.getResource(fullTo));
         }
+        catalog.rebuild(userId);
     }
 
     public ResourceInfoDto createFolder(long userId, String path) {
         log.info("Create folder request: userId={}, path='{}'", userId, path);
-        String fullPath = generateUserPath(userId, path);
+        StoragePath folder = userPath(userId, path);
+        String fullPath = folder.key();
 
-        pathValidator.validateCreateFolder(fullPath, generateUserPrefix(userId));
+        pathValidator.validateCreateFolder(folder);
         StorageResource resource = storagePort.createFolder(fullPath);
+        catalog.recordFolder(userId, fullPath);
+        usageService.record(userId, 1, 0);
         return resourceMapper.toDto(resource);
     }
-
-    private void checkQuota(long userId, List<MultipartFile> newFiles) {
-        String userPrefix = generateUserPrefix(userId);
-
-        List<StorageResource> currentResources = storagePort.listAllObjectsRecursive(userPrefix);
-
-        int currentFileCount = currentResources.size();
-        long currentTotalSize = currentResources.stream()
-                .mapToLong(StorageResource::size)
-                .sum();
-
-        int incomingCount = newFiles.size();
-        long incomingSize = newFiles.stream()
-                .mapToLong(MultipartFile::getSize)
-                .sum();
-
-        log.debug("Quota check for user {}: currentCount={}, newCount={}, currentSize={}, newSize={}",
-                userId, currentFileCount, incomingCount, currentTotalSize, incomingSize);
-
-        // Проверка по количеству
-        if (currentFileCount + incomingCount > properties.getMaxFilesCount()) {
-            log.warn("Quota exceeded for user {}: too many files", userId);
-            throw new StorageQuotaExceededException(AppConstants.ExceptionMessages.MAX_FILE_COUNT_EXCEEDED);
-        }
-
-        // Проверка по размеру
-        if (currentTotalSize + incomingSize > properties.getMaxStorageSize().toBytes()) {
-            log.warn("Quota exceeded for user {}: storage size limit reached", userId);
-            throw new StorageQuotaExceededException(AppConstants.ExceptionMessages.MAX_STORAGE_SIZE_EXCEEDED);
-        }
-    }
 }
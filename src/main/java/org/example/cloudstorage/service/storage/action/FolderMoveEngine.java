@@ -0,0 +1,235 @@
+package org.example.cloudstorage.service.storage.action;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.exception.storage.StorageInternalException;
+import org.example.cloudstorage.exception.storage.StorageUnavailableException;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.base.ProgressListener;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.util.BatchUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Перемещение папки серверными копированиями с ограниченной параллельностью.
+ * <p>
+ * Листинг источника читается в вызывающем потоке и сразу раздаётся воркерам, так что листинг
+ * и копирование идут внахлёст, а в памяти держится не больше {@code parallelism} задач.
+ * Скопированные источники удаляются пачками по {@code deleteBatchSize}, после каждой пачки
+ * вызывается {@link ProgressListener}.
+ * <p>
+ * Если копирование падает окончательно (после повторов), выполняется откат: для каждого объекта
+ * в папке назначения, чей источник уже удалён, выполняется обратное копирование, затем папка назначения
+ * удаляется целиком. Откат не хранит список перемещённых ключей и работает по листингу назначения,
+ * поэтому память остаётся постоянной при любом размере папки.
+ * <p>
+ * Задачи только блокируются на вводе-выводе и не держат мониторов, поэтому пул можно заменить
+ * на виртуальные потоки без изменения логики.
+ */
+@Slf4j
+@Component
+public class FolderMoveEngine {
+
+    private final ObjectStoragePort storagePort;
+    private final StorageProperties.Move settings;
+    private final ExecutorService executor;
+
+    public FolderMoveEngine(ObjectStoragePort storagePort, StorageProperties properties) {
+        this.storagePort = storagePort;
+        this.settings = properties.getMove();
+        this.executor = Executors.newFixedThreadPool(settings.getParallelism(),
+                new CustomizableThreadFactory("storage-copy-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Переносит все объекты из {@code fromPrefix} в {@code toPrefix}.
+     *
+     * @return количество перенесённых объектов
+     */
+    public long move(String fromPrefix, String toPrefix) {
+        return move(fromPrefix, toPrefix, ProgressListener.NONE);
+    }
+
+    /**
+     * То же с отчётом о прогрессе. Исключение из {@code progress} прерывает перенос с откатом.
+     */
+    public long move(String fromPrefix, String toPrefix, ProgressListener progress) {
+        MoveRun run = new MoveRun(fromPrefix, toPrefix, progress);
+        try (Stream<StorageResource> sources = storagePort.streamAllObjectsRecursive(fromPrefix)) {
+            run.execute(sources.iterator());
+        }
+        return run.moved.get();
+    }
+
+    private final class MoveRun {
+        private final String fromPrefix;
+        private final String toPrefix;
+        private final ProgressListener progress;
+
+        private final Semaphore permits = new Semaphore(settings.getParallelism());
+        private final ConcurrentLinkedQueue<StorageResource> copiedSources = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingDeletes = new AtomicInteger();
+        private final AtomicLong moved = new AtomicLong();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        private MoveRun(String fromPrefix, String toPrefix, ProgressListener progress) {
+            this.fromPrefix = fromPrefix;
+            this.toPrefix = toPrefix;
+            this.progress = progress;
+        }
+
+        private void execute(Iterator<StorageResource> sources) {
+            log.debug("Parallel move started: '{}' -> '{}', parallelism={}", fromPrefix, toPrefix, settings.getParallelism());
+
+            try {
+                while (sources.hasNext() && failure.get() == null) {
+                    StorageResource source = sources.next();
+                    String destination = toPrefix + source.fullPath().substring(fromPrefix.length());
+
+                    permits.acquire();
+                    CompletableFuture.runAsync(() -> copyWithRetry(source.fullPath(), destination), executor)
+                            .whenComplete((ignored, error) -> {
+                                if (error == null) {
+                                    copiedSources.add(source);
+                                    pendingDeletes.incrementAndGet();
+                                } else {
+                                    failure.compareAndSet(null, unwrap(error));
+                                }
+                                permits.release();
+                            });
+
+                    if (pendingDeletes.get() >= settings.getDeleteBatchSize()) {
+                        flushDeletes();
+                    }
+                }
+                awaitInFlight();
+
+                if (failure.get() == null) {
+                    while (!copiedSources.isEmpty()) {
+                        flushDeletes();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, new StorageInternalException(fromPrefix, e));
+                awaitInFlightQuietly();
+            } catch (RuntimeException e) {
+                // Ошибка листинга источника или отмена через progress
+                failure.compareAndSet(null, e);
+                awaitInFlightQuietly();
+            }
+
+            RuntimeException error = failure.get();
+            if (error != null) {
+                log.error("Parallel move failed after {} objects: '{}' -> '{}': {}",
+                        moved.get(), fromPrefix, toPrefix, error.getMessage());
+                rollback();
+                throw error;
+            }
+
+            log.debug("Parallel move finished: {} objects moved '{}' -> '{}'", moved.get(), fromPrefix, toPrefix);
+        }
+
+        private void flushDeletes() {
+            List<StorageResource> batch = new ArrayList<>(settings.getDeleteBatchSize());
+            StorageResource source;
+            while (batch.size() < settings.getDeleteBatchSize() && (source = copiedSources.poll()) != null) {
+                batch.add(source);
+            }
+            if (batch.isEmpty()) return;
+
+            pendingDeletes.addAndGet(-batch.size());
+            storagePort.deleteObjects(batch.stream().map(StorageResource::fullPath).toList());
+            moved.addAndGet(batch.size());
+            log.trace("Parallel move: deleted batch of {} sources", batch.size());
+            progress.advance(batch.size(), batch.stream().mapToLong(StorageResource::size).sum());
+        }
+
+        private void awaitInFlight() throws InterruptedException {
+            permits.acquire(settings.getParallelism());
+            permits.release(settings.getParallelism());
+        }
+
+        private void awaitInFlightQuietly() {
+            permits.acquireUninterruptibly(settings.getParallelism());
+            permits.release(settings.getParallelism());
+        }
+
+        /**
+         * Возвращает папку в исходное состояние: то, что уже удалено из источника, копируется обратно,
+         * после чего назначение очищается. Источники, которые ещё не удалялись, остаются на месте.
+         */
+        private void rollback() {
+            log.warn("Rolling back move '{}' -> '{}'", fromPrefix, toPrefix);
+            try (Stream<String> destinations = storagePort.streamAllObjectsRecursive(toPrefix)
+                    .map(StorageResource::fullPath)) {
+                BatchUtils.forEachBatch(destinations, settings.getDeleteBatchSize(), batch -> {
+                    for (String destination : batch) {
+                        String source = fromPrefix + destination.substring(toPrefix.length());
+                        if (!storagePort.exists(source)) {
+                            copyWithRetry(destination, source);
+                        }
+                    }
+                    storagePort.deleteObjects(batch);
+                });
+                log.info("Move '{}' -> '{}' rolled back", fromPrefix, toPrefix);
+            } catch (RuntimeException e) {
+                log.error("Rollback of move '{}' -> '{}' failed, objects are split between both folders: {}",
+                        fromPrefix, toPrefix, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void copyWithRetry(String source, String destination) {
+        int attempt = 0;
+        while (true) {
+            try {
+                log.trace("Copying: '{}' -> '{}'", source, destination);
+                storagePort.copy(source, destination);
+                return;
+            } catch (StorageUnavailableException e) {
+                if (++attempt > settings.getMaxRetries()) throw e;
+
+                long backoff = settings.getRetryBackoff().toMillis() << (attempt - 1);
+                log.warn("Transient copy failure '{}' -> '{}', retry {}/{} in {} ms",
+                        source, destination, attempt, settings.getMaxRetries(), backoff);
+                sleep(backoff, source);
+            }
+        }
+    }
+
+    private static void sleep(long millis, String path) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageInternalException(path, e);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RuntimeException runtime ? runtime : new StorageInternalException(null, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.cloudstorage.service.storage.base;
+
+/**
+ * Приёмник прогресса долгой операции над папкой. Вызывается по мере обработки объектов,
+ * в том числе из рабочих потоков операции.
+ * <p>
+ * Бросив исключение, приёмник прерывает операцию: так фоновые задачи отменяются на ходу.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    ProgressListener NONE = (items, bytes) -> { };
+
+    void advance(long items, long bytes);
+}
@@ -0,0 +1,52 @@
+package org.example.cloudstorage.service.storage.catalog;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.model.User;
+import org.example.cloudstorage.repository.UserRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Сверка каталога метаданных с бакетом для всех пользователей: при старте
+ * ({@code storage.catalog.rebuild-on-startup=true}) и по расписанию ({@code storage.catalog.reconcile-cron}).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileCatalogReconciler implements ApplicationRunner {
+
+    private final UserRepository userRepository;
+    private final FileCatalogService catalog;
+    private final StorageProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.getCatalog().isRebuildOnStartup()) {
+            reconcileAll();
+        }
+    }
+
+    @Scheduled(cron = "${storage.catalog.reconcile-cron:-}")
+    public void reconcileAll() {
+        if (properties.getIndirection().isEnabled()) {
+            // Каталогом служит дерево путей, его обновляет сам порт: сверять нечего
+            log.info("File catalog is served by the path tree, reconciliation skipped");
+            return;
+        }
+        log.info("Reconciling file catalog with bucket for all users");
+        int rebuilt = 0;
+        for (User user : userRepository.findAll()) {
+            try {
+                catalog.rebuild(user.getId());
+                rebuilt++;
+            } catch (RuntimeException e) {
+                log.error("Failed to rebuild file catalog for user {}: {}", user.getId(), e.getMessage(), e);
+            }
+        }
+        log.info("File catalog reconciled for {} users", rebuilt);
+    }
+}
@@ -0,0 +1,413 @@
+package org.example.cloudstorage.service.storage.catalog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.model.FileMetadata;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StoragePath;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.repository.FileMetadataRepository;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.tree.PathTree;
+import org.example.cloudstorage.util.PathUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Каталог метаданных в Postgres, зеркало содержимого бакета по ключу (user_id, path).
+ * <p>
+ * Снаружи сервис работает с полными ключами хранилища, внутри хранит пути относительно корня пользователя.
+ * Папки, которые в бакете существуют только как общий префикс, материализуются виртуальными строками:
+ * они создаются вместе с первым объектом внутри и удаляются вместе с последним, так что листинг каталога
+ * совпадает с листингом бакета. Каждый метод — одна транзакция, вызывается после успешной операции
+ * в хранилище.
+ * <p>
+ * Листинг каждой папки имеет версию для ETag ({@code folder_versions}): запись, меняющая первый уровень папки,
+ * удаляет её версию, и следующее чтение получает новое значение последовательности.
+ * <p>
+ * Для пользователя, у которого в каталоге ещё нет строк, а в бакете есть объекты, каталог один раз
+ * строится из бакета при первом обращении.
+ * <p>
+ * С деревом путей ({@code storage.indirection.enabled}) каталогом служит само дерево: чтение идёт
+ * из {@link PathTree}, которое порт обновляет в той же операции, что и хранилище, а запись в {@code files}
+ * не выполняется. Так у путей один источник правды, и перенос папки остаётся одним UPDATE её узла.
+ */
+@Slf4j
+@Service
+public class FileCatalogService {
+
+    // Страница дерева при чтении папки целиком
+    private static final int TREE_PAGE_SIZE = 1000;
+    // Страница каталога при потоковом поиске по пути
+    private static final int PATH_SEARCH_PAGE_SIZE = 1000;
+    // Версия корня пользователя, пока в дереве нет его узла: последовательность версий начинается с 1
+    private static final long EMPTY_ROOT_VERSION = 0;
+
+    private final FileMetadataRepository repository;
+    private final ObjectStoragePort storagePort;
+    private final PathTree tree;
+    private final boolean fromTree;
+
+    private final Set<Long> initializedUsers = ConcurrentHashMap.newKeySet();
+
+    public FileCatalogService(FileMetadataRepository repository, ObjectStoragePort storagePort, PathTree tree,
+                              StorageProperties properties) {
+        this.repository = repository;
+        this.storagePort = storagePort;
+        this.tree = tree;
+        this.fromTree = properties.getIndirection().isEnabled();
+    }
+
+    // Запись
+
+    @Transactional
+    public void recordFile(long userId, StorageResource resource) {
+        if (fromTree) return;
+        ensureInitialized(userId);
+        String path = relative(resource.fullPath());
+        upsert(userId, path, resource);
+        touch(userId, PathUtils.extractParentPath(path));
+        ensureAncestors(userId, path, new HashSet<>());
+    }
+
+    @Transactional
+    public void recordFolder(long userId, String fullPath) {
+        if (fromTree) return;
+        ensureInitialized(userId);
+        String path = relative(fullPath);
+        upsert(userId, path, new StorageResource(fullPath, 0));
+        touch(userId, PathUtils.extractParentPath(path));
+        ensureAncestors(userId, path, new HashSet<>());
+    }
+
+    /**
+     * Удаляет строки ровно для этих ключей; пустые после этого виртуальные папки подчищаются.
+     */
+    @Transactional
+    public void removeObjects(long userId, List<String> fullPaths) {
+        if (fromTree || fullPaths.isEmpty()) return;
+        ensureInitialized(userId);
+        List<String> paths = fullPaths.stream().map(this::relative).toList();
+        repository.deleteByPaths(userId, paths);
+        paths.stream()
+                .map(PathUtils::extractParentPath)
+                .distinct()
+                .forEach(parent -> {
+                    touch(userId, parent);
+                    pruneEmptyAncestors(userId, parent);
+                });
+    }
+
+    /**
+     * Удаляет папку вместе со всем поддеревом, включая виртуальные подпапки.
+     */
+    @Transactional
+    public void removeFolder(long userId, String fullPath) {
+        if (fromTree) return;
+        ensureInitialized(userId);
+        String path = relative(fullPath);
+        int removed = repository.deleteRange(userId, path, subtreeEnd(path));
+        repository.deleteFolderVersions(userId, path, subtreeEnd(path));
+        touch(userId, PathUtils.extractParentPath(path));
+        pruneEmptyAncestors(userId, PathUtils.extractParentPath(path));
+        log.debug("Catalog: removed {} rows under '{}' for user {}", removed, path, userId);
+    }
+
+    @Transactional
+    public void moveFile(long userId, String fullFrom, StorageResource destination) {
+        if (fromTree) return;
+        ensureInitialized(userId);
+        String from = relative(fullFrom);
+        String to = relative(destination.fullPath());
+
+        repository.deleteByPaths(userId, List.of(from));
+        upsert(userId, to, destination);
+        touch(userId, PathUtils.extractParentPath(from));
+        touch(userId, PathUtils.extractParentPath(to));
+        ensureAncestors(userId, to, new HashSet<>());
+        pruneEmptyAncestors(userId, PathUtils.extractParentPath(from));
+    }
+
+    /**
+     * Переносит папку и всё её поддерево двумя UPDATE, без обхода строк в приложении.
+     * С деревом путей перенос уже сделан портом: узел папки переставлен одним UPDATE.
+     */
+    @Transactional
+    public void moveFolder(long userId, String fullFrom, String fullTo) {
+        if (fromTree) return;
+        ensureInitialized(userId);
+        String from = relative(fullFrom);
+        String to = relative(fullTo);
+
+        // В бакете назначения нет, значит и в каталоге там могут быть только устаревшие строки
+        repository.deleteRange(userId, to, subtreeEnd(to));
+        int moved = repository.moveDescendants(userId, from, subtreeEnd(from), from.length(), to);
+        if (repository.rename(userId, from, to, PathUtils.extractParentPath(to), PathUtils.extractName(to)) == 0) {
+            repository.insertVirtualFolder(userId, to, PathUtils.extractParentPath(to), PathUtils.extractName(to));
+        }
+        // Листинги перенесённого поддерева изменились вместе с путями его объектов
+        repository.deleteFolderVersions(userId, from, subtreeEnd(from));
+        repository.deleteFolderVersions(userId, to, subtreeEnd(to));
+        touch(userId, PathUtils.extractParentPath(from));
+        touch(userId, PathUtils.extractParentPath(to));
+
+        ensureAncestors(userId, to, new HashSet<>());
+        pruneEmptyAncestors(userId, PathUtils.extractParentPath(from));
+        log.debug("Catalog: moved {} rows '{}' -> '{}' for user {}", moved, from, to, userId);
+    }
+
+    // Чтение
+
+    @Transactional
+    public Optional<StorageResource> find(long userId, String fullPath) {
+        if (fromTree) {
+            return tree.resolve(fullPath).map(node -> PathTree.toResource(fullPath, node));
+        }
+        ensureInitialized(userId);
+        return repository.findByUserIdAndPath(userId, relative(fullPath))
+                .map(entry -> toResource(userId, entry));
+    }
+
+    @Transactional
+    public List<StorageResource> listFolder(long userId, String fullFolderPath) {
+        if (fromTree) {
+            List<StorageResource> children = new ArrayList<>();
+            String afterKey = null;
+            do {
+                StoragePage page = tree.listFolderPage(fullFolderPath, afterKey, TREE_PAGE_SIZE);
+                children.addAll(page.items());
+                afterKey = page.lastKey();
+            } while (afterKey != null);
+            return children;
+        }
+        ensureInitialized(userId);
+        return repository.findChildren(userId, relative(fullFolderPath), "", Integer.MAX_VALUE).stream()
+                .map(entry -> toResource(userId, entry))
+                .toList();
+    }
+
+    /**
+     * Страница первого уровня папки строго после {@code afterKey} (полный ключ) в порядке ключей,
+     * тот же контракт, что у {@link ObjectStoragePort#listFolderPage}.
+     */
+    @Transactional
+    public StoragePage listFolderPage(long userId, String fullFolderPath, String afterKey, int limit) {
+        if (fromTree) {
+            return tree.listFolderPage(fullFolderPath, afterKey, limit);
+        }
+        ensureInitialized(userId);
+        String afterPath = afterKey == null ? "" : relative(afterKey);
+        List<StorageResource> rows = repository.findChildren(userId, relative(fullFolderPath), afterPath, limit + 1)
+                .stream()
+                .map(entry -> toResource(userId, entry))
+                .toList();
+
+        if (rows.size() <= limit) {
+            return new StoragePage(rows, null);
+        }
+        List<StorageResource> page = rows.subList(0, limit);
+        return new StoragePage(page, page.get(limit - 1).fullPath());
+    }
+
+    /**
+     * Версия листинга папки: одна и та же, пока не меняется первый уровень папки, и никогда не повторяется
+     * после изменения. Пусто, если папки нет; корень пользователя существует всегда.
+     */
+    @Transactional
+    public Optional<Long> folderVersion(long userId, String fullFolderPath) {
+        String path = relative(fullFolderPath);
+        if (fromTree) {
+            Optional<Long> version = tree.folderVersion(fullFolderPath);
+            return version.isPresent() || !path.isEmpty() ? version : Optional.of(EMPTY_ROOT_VERSION);
+        }
+        ensureInitialized(userId);
+        boolean exists = path.isEmpty() || repository.findByUserIdAndPath(userId, path)
+                .filter(FileMetadata::isDirectory)
+                .isPresent();
+        if (!exists) {
+            return Optional.empty();
+        }
+
+        Optional<Long> version = repository.findFolderVersion(userId, path);
+        if (version.isPresent()) {
+            return version;
+        }
+        // Версию удалила запись в папку или её ещё не читали: выдаётся новое значение последовательности
+        repository.insertFolderVersion(userId, path);
+        return repository.findFolderVersion(userId, path);
+    }
+
+    /**
+     * Сколько объектов и байт лежит в папке вместе с подпапками.
+     */
+    @Transactional
+    public FileMetadataRepository.SubtreeTotals subtreeTotals(long userId, String fullFolderPath) {
+        if (fromTree) {
+            return tree.subtreeTotals(fullFolderPath);
+        }
+        ensureInitialized(userId);
+        String path = relative(fullFolderPath);
+        // У корня пользователя нет общего начала пути, кроме пустого: берётся весь каталог
+        String end = path.isEmpty() ? String.valueOf(Character.MAX_VALUE) : subtreeEnd(path);
+        return repository.subtreeTotals(userId, path, end);
+    }
+
+    /**
+     * Поиск по подстроке имени в ранжированном порядке: {@code limit} результатов начиная с {@code offset}.
+     */
+    @Transactional
+    public List<StorageResource> search(long userId, String query, int offset, int limit) {
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        String escaped = escapeLike(lowerQuery);
+        if (fromTree) {
+            return tree.search(userId, lowerQuery, "%" + escaped + "%", escaped + "%", offset, limit);
+        }
+        ensureInitialized(userId);
+        return repository.searchByName(userId, lowerQuery, "%" + escaped + "%", escaped + "%", offset, limit).stream()
+                .map(entry -> toResource(userId, entry))
+                .toList();
+    }
+
+    /**
+     * Все объекты пользователя, в пути которых (относительно корня пользователя) есть подстрока {@code query},
+     * в порядке ключей и без ограничения числа — прежний контракт поиска. Каталог читается страницами
+     * по мере чтения потока. Полных путей в дереве нет, поэтому с ним обходится рекурсивный листинг порта.
+     */
+    @Transactional
+    public Stream<StorageResource> streamPathMatches(long userId, String query) {
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        String userPrefix = userPrefix(userId);
+        if (fromTree) {
+            return storagePort.streamAllObjectsRecursive(userPrefix)
+                    .filter(resource -> resource.fullPath().length() > userPrefix.length())
+                    .filter(resource -> resource.fullPath().substring(userPrefix.length())
+                            .toLowerCase(Locale.ROOT)
+                            .contains(lowerQuery));
+        }
+        ensureInitialized(userId);
+        String pattern = "%" + escapeLike(lowerQuery) + "%";
+        return pathPages(afterPath -> repository.findByPathContaining(userId, pattern, afterPath, PATH_SEARCH_PAGE_SIZE))
+                .map(entry -> toResource(userId, entry));
+    }
+
+    // Сверка с бакетом
+
+    /**
+     * Перестраивает каталог пользователя по фактическому содержимому бакета.
+     * Записи, сделанные параллельно с обходом, могут потеряться; следующая сверка их вернёт.
+     */
+    @Transactional
+    public long rebuild(long userId) {
+        if (fromTree) {
+            // Дерево и есть каталог, объекты в него переносит PathTreeMigrationRunner
+            log.debug("Catalog for user {} is served by the path tree, nothing to rebuild", userId);
+            return 0;
+        }
+        String userPrefix = userPrefix(userId);
+        repository.deleteAllByUser(userId);
+        repository.deleteFolderVersionsByUser(userId);
+
+        Set<String> knownFolders = new HashSet<>();
+        long[] count = new long[1];
+        try (Stream<StorageResource> resources = storagePort.streamAllObjectsRecursive(userPrefix)) {
+            resources.forEach(resource -> {
+                String path = relative(resource.fullPath());
+                if (path.isEmpty()) return; // маркер корня пользователя
+
+                upsert(userId, path, resource);
+                ensureAncestors(userId, path, knownFolders);
+                count[0]++;
+            });
+        }
+
+        initializedUsers.add(userId);
+        log.info("Catalog rebuilt for user {}: {} objects", userId, count[0]);
+        return count[0];
+    }
+
+    private void ensureInitialized(long userId) {
+        if (initializedUsers.contains(userId)) return;
+
+        if (!repository.existsByUserId(userId) && storagePort.containsObjects(userPrefix(userId))) {
+            log.info("No catalog rows for user {}, building catalog from bucket", userId);
+            rebuild(userId);
+        }
+        initializedUsers.add(userId);
+    }
+
+    private void upsert(long userId, String path, StorageResource resource) {
+        repository.upsert(userId, path, PathUtils.extractParentPath(path), PathUtils.extractName(path), resource.size(),
+                path.endsWith("/"), resource.contentType(), resource.etag(),
+                resource.lastModified() != null ? resource.lastModified() : Instant.now());
+    }
+
+    /**
+     * Гарантирует строки для всех папок над {@code path}. Существующие строки (в том числе явные папки)
+     * не трогаются; {@code known} позволяет не повторять вставки при массовой загрузке.
+     */
+    private void ensureAncestors(long userId, String path, Set<String> known) {
+        for (String folder = PathUtils.extractParentPath(path);
+             !folder.isEmpty() && known.add(folder);
+             folder = PathUtils.extractParentPath(folder)) {
+            String parent = PathUtils.extractParentPath(folder);
+            if (repository.insertVirtualFolder(userId, folder, parent, PathUtils.extractName(folder)) > 0) {
+                touch(userId, parent);
+            }
+        }
+    }
+
+    private void pruneEmptyAncestors(long userId, String folder) {
+        while (!folder.isEmpty() && repository.deleteIfEmptyVirtual(userId, folder) > 0) {
+            folder = PathUtils.extractParentPath(folder);
+            touch(userId, folder);
+        }
+    }
+
+    // Первый уровень папки изменился: её версия листинга больше не действительна
+    private void touch(long userId, String folder) {
+        repository.deleteFolderVersion(userId, folder);
+    }
+
+    // Страницы запрашиваются по мере чтения стрима; короткая страница — последняя
+    private static Stream<FileMetadata> pathPages(Function<String, List<FileMetadata>> nextPage) {
+        return Stream.iterate(nextPage.apply(""),
+                        page -> !page.isEmpty(),
+                        page -> page.size() < PATH_SEARCH_PAGE_SIZE
+                                ? List.of()
+                                : nextPage.apply(page.get(page.size() - 1).getPath()))
+                .flatMap(List::stream);
+    }
+
+    private StorageResource toResource(long userId, FileMetadata entry) {
+        return new StorageResource(userPrefix(userId) + entry.getPath(), entry.getSize(),
+                entry.getContentType(), entry.getEtag(), entry.getUpdatedAt());
+    }
+
+    private String relative(String fullPath) {
+        return StoragePath.parse(fullPath).relativePath();
+    }
+
+    private static String userPrefix(long userId) {
+        return StoragePath.userRoot(userId);
+    }
+
+    // Все пути поддерева "a/" лежат в полуинтервале ["a/", "a0"): '0' идёт сразу за '/'
+    private static String subtreeEnd(String folderPath) {
+        return folderPath.substring(0, folderPath.length() - 1) + (char) ('/' + 1);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,227 @@
+package org.example.cloudstorage.service.storage.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.Blob;
+import org.example.cloudstorage.model.BlobReference;
+import org.example.cloudstorage.model.StoragePath;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.repository.BlobReferenceRepository;
+import org.example.cloudstorage.repository.BlobRepository;
+import org.example.cloudstorage.repository.StorageUsageRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Метаданные режима дедупликации: блобы со счётчиками ссылок и пути, которые на них указывают.
+ * <p>
+ * Работает с полными ключами хранилища, как порт. Каждый метод — одна транзакция; счётчик блоба
+ * меняется в той же транзакции, что и ссылка, поэтому блоб с живыми ссылками не попадёт к сборщику мусора.
+ * <p>
+ * При {@code quota-mode=PHYSICAL} сервисы по-прежнему резервируют и освобождают логический размер файла,
+ * а каталог поправляет счётчик занятого места: ссылка на содержимое, которое у пользователя уже есть,
+ * ничего не добавляет, а удаление не последней такой ссылки ничего не освобождает.
+ */
+@Slf4j
+@Service
+public class BlobCatalog {
+
+    private final BlobRepository blobRepository;
+    private final BlobReferenceRepository referenceRepository;
+    private final StorageUsageRepository usageRepository;
+    private final boolean physicalQuota;
+
+    public BlobCatalog(BlobRepository blobRepository, BlobReferenceRepository referenceRepository,
+                       StorageUsageRepository usageRepository, StorageProperties properties) {
+        this.blobRepository = blobRepository;
+        this.referenceRepository = referenceRepository;
+        this.usageRepository = usageRepository;
+        this.physicalQuota = properties.getDedup().getQuotaMode() == StorageProperties.Dedup.QuotaMode.PHYSICAL;
+    }
+
+    // Запись
+
+    /**
+     * Привязывает путь к содержимому с хешем {@code hash}. Если такого содержимого ещё нет, им становится
+     * только что записанный объект {@code storageKey}; иначе возвращается ключ уже существующего блоба,
+     * а записанный объект вызывающий код удаляет как дубликат.
+     *
+     * @return ключ блоба, на который теперь указывает путь
+     */
+    @Transactional
+    public String attach(String path, String hash, String storageKey, long size, String contentType) {
+        referenceRepository.lockPath(path);
+        detach(referenceRepository.lockAll(List.of(path)));
+
+        blobRepository.acquire(hash, storageKey, size);
+        addReference(path, hash, size, contentType);
+        return blobRepository.findStorageKey(hash);
+    }
+
+    @Transactional
+    public void addFolder(String path) {
+        referenceRepository.lockPath(path);
+        detach(referenceRepository.lockAll(List.of(path)));
+        referenceRepository.upsert(path, ownerOf(path), null, 0, null);
+    }
+
+    /**
+     * Копия — новая ссылка на тот же блоб, содержимое не читается и не пишется.
+     */
+    @Transactional
+    public void copy(String sourcePath, String destinationPath) {
+        referenceRepository.lockPath(destinationPath);
+        BlobReference source = referenceRepository.lockAll(List.of(sourcePath)).stream()
+                .findFirst()
+                .orElseThrow(() -> new StorageNotFoundException(sourcePath));
+        detach(referenceRepository.lockAll(List.of(destinationPath)));
+
+        if (source.getHash() == null) {
+            referenceRepository.upsert(destinationPath, ownerOf(destinationPath), null, 0, null);
+            return;
+        }
+        blobRepository.adjustRefCount(source.getHash(), 1);
+        addReference(destinationPath, source.getHash(), source.getSize(), source.getContentType());
+    }
+
+    /**
+     * Удаляет ссылки; блобы, оставшиеся без ссылок, дождутся сборщика мусора.
+     */
+    @Transactional
+    public void remove(Collection<String> paths) {
+        if (paths.isEmpty()) return;
+        detach(referenceRepository.lockAll(paths));
+    }
+
+    // Чтение
+
+    @Transactional(readOnly = true)
+    public Optional<StorageResource> find(String path) {
+        return referenceRepository.findById(path).map(BlobCatalog::toResource);
+    }
+
+    /**
+     * Ключ объекта в бакете, где лежит содержимое пути; пусто, если такого пути нет или это маркер папки.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> findStorageKey(String path) {
+        return referenceRepository.findById(path)
+                .map(BlobReference::getHash)
+                .map(blobRepository::findStorageKey);
+    }
+
+    /**
+     * Рекурсивный листинг префикса строго после {@code afterPath} в порядке ключей.
+     */
+    @Transactional(readOnly = true)
+    public List<StorageResource> listRange(String prefix, String afterPath, int limit) {
+        return referenceRepository.findRange(prefix, rangeEnd(prefix), afterPath == null ? "" : afterPath, limit)
+                .stream()
+                .map(BlobCatalog::toResource)
+                .toList();
+    }
+
+    /**
+     * Первый уровень папки строго после {@code afterKey}: файлы и подпапки, как листинг бакета с разделителем.
+     */
+    @Transactional(readOnly = true)
+    public List<StorageResource> listChildren(String folderPath, String afterKey, int limit) {
+        List<String> keys = referenceRepository.findChildKeys(folderPath, rangeEnd(folderPath),
+                folderPath.length() + 1, afterKey == null ? "" : afterKey, limit);
+
+        List<String> files = keys.stream().filter(key -> !key.endsWith("/")).toList();
+        Map<String, StorageResource> references = new HashMap<>();
+        referenceRepository.findAllById(files)
+                .forEach(reference -> references.put(reference.getPath(), toResource(reference)));
+
+        return keys.stream()
+                .map(key -> key.endsWith("/") ? new StorageResource(key, 0) : references.get(key))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public boolean containsAny(String prefix) {
+        return referenceRepository.existsInRange(prefix, rangeEnd(prefix));
+    }
+
+    // Сборка мусора
+
+    /**
+     * Забирает до {@code limit} блобов без ссылок, не менявшихся с {@code cutoff}, и удаляет их строки.
+     *
+     * @return ключи объектов, которые теперь нужно удалить из бакета
+     */
+    @Transactional
+    public List<String> claimUnreferenced(Instant cutoff, int limit) {
+        List<Blob> blobs = blobRepository.lockUnreferenced(cutoff, limit);
+        if (blobs.isEmpty()) return List.of();
+
+        blobRepository.deleteUnreferenced(blobs.stream().map(Blob::getHash).toList());
+        return blobs.stream().map(Blob::getStorageKey).toList();
+    }
+
+    /**
+     * Какие из ключей бакета принадлежат известным блобам; остальные — следы прерванных загрузок.
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findKnownKeys(Collection<String> storageKeys) {
+        if (storageKeys.isEmpty()) return Set.of();
+        return new HashSet<>(blobRepository.findExistingKeys(storageKeys));
+    }
+
+    private void addReference(String path, String hash, long size, String contentType) {
+        Long owner = ownerOf(path);
+        // Проверяется до вставки: есть ли у владельца это содержимое под другим путём
+        boolean alreadyHeld = owner != null && referenceRepository.countByOwnerIdAndHash(owner, hash) > 0;
+        referenceRepository.upsert(path, owner, hash, size, contentType);
+
+        if (physicalQuota && alreadyHeld) {
+            usageRepository.adjust(owner, 0, -size);
+            log.debug("Duplicate content for user {}: '{}' is not charged ({} bytes)", owner, path, size);
+        }
+    }
+
+    private void detach(List<BlobReference> references) {
+        if (references.isEmpty()) return;
+        referenceRepository.deleteByPaths(references.stream().map(BlobReference::getPath).toList());
+
+        for (BlobReference reference : references) {
+            if (reference.getHash() == null) continue;
+            blobRepository.adjustRefCount(reference.getHash(), -1);
+
+            Long owner = reference.getOwnerId();
+            if (physicalQuota && owner != null && referenceRepository.countByOwnerIdAndHash(owner, reference.getHash()) > 0) {
+                // Содержимое остаётся у владельца под другим путём: освобождённое сервисом место возвращается
+                usageRepository.adjust(owner, 0, reference.getSize());
+            }
+        }
+    }
+
+    private static StorageResource toResource(BlobReference reference) {
+        return new StorageResource(reference.getPath(), reference.getSize(), reference.getContentType(),
+                reference.getHash(), reference.getCreatedAt() != null ? reference.getCreatedAt() : Instant.now());
+    }
+
+    private static Long ownerOf(String path) {
+        StoragePath parsed = StoragePath.parse(path);
+        return parsed.hasOwner() ? parsed.userId() : null;
+    }
+
+    // Все ключи с префиксом меньше префикса с увеличенным последним символом
+    private static String rangeEnd(String prefix) {
+        if (prefix.isEmpty()) return String.valueOf(Character.MAX_VALUE);
+        return prefix.substring(0, prefix.length() - 1) + (char) (prefix.charAt(prefix.length() - 1) + 1);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.cloudstorage.service.storage.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StoragePortConfig;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.port.DeduplicatingObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.util.BatchUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Сборщик мусора режима дедупликации. За один проход:
+ * <ul>
+ *     <li>удаляет блобы, на которые дольше льготного периода нет ни одной ссылки;</li>
+ *     <li>удаляет объекты под {@value DeduplicatingObjectStoragePort#BLOB_PREFIX}, которых нет в каталоге блобов:
+ *     дубликаты, которые не удалось удалить сразу, и следы загрузок, прерванных до записи в каталог.</li>
+ * </ul>
+ * Работает с бакетом напрямую, в обход порта с дедупликацией. Узлы забирают блобы через SKIP LOCKED,
+ * поэтому проход можно запускать на всех узлах одновременно.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "storage.dedup", name = "enabled", havingValue = "true")
+public class BlobGarbageCollector {
+
+    private final BlobCatalog catalog;
+    private final ObjectStoragePort bucket;
+    private final StorageProperties.Dedup settings;
+    private final Clock clock = Clock.systemUTC();
+
+    public BlobGarbageCollector(BlobCatalog catalog,
+                                @Qualifier(StoragePortConfig.BACKEND_PORT) ObjectStoragePort bucket,
+                                StorageProperties properties) {
+        this.catalog = catalog;
+        this.bucket = bucket;
+        this.settings = properties.getDedup();
+    }
+
+    @Scheduled(fixedDelayString = "${storage.dedup.gc-interval:PT1H}")
+    public void collect() {
+        Instant cutoff = clock.instant().minus(settings.getGcGracePeriod());
+        try {
+            long reclaimed = reclaimUnreferenced(cutoff);
+            long orphans = removeOrphans(cutoff);
+            if (reclaimed > 0 || orphans > 0) {
+                log.info("Blob GC: {} unreferenced blobs and {} orphaned objects removed", reclaimed, orphans);
+            }
+        } catch (RuntimeException e) {
+            log.error("Blob GC failed: {}", e.getMessage(), e);
+        }
+    }
+
+    long reclaimUnreferenced(Instant cutoff) {
+        long reclaimed = 0;
+        List<String> keys;
+        while (!(keys = catalog.claimUnreferenced(cutoff, settings.getGcBatchSize())).isEmpty()) {
+            // Строки уже удалены: если бакет сейчас не ответит, объекты уберёт поиск сирот на следующем проходе
+            bucket.deleteObjects(keys);
+            reclaimed += keys.size();
+        }
+        return reclaimed;
+    }
+
+    long removeOrphans(Instant cutoff) {
+        AtomicLong removed = new AtomicLong();
+        try (Stream<StorageResource> objects = bucket.streamAllObjectsRecursive(DeduplicatingObjectStoragePort.BLOB_PREFIX)) {
+            // Свежие объекты могут принадлежать загрузке, которая ещё не записала блоб в каталог
+            Stream<String> candidates = objects
+                    .filter(object -> object.lastModified() != null && object.lastModified().isBefore(cutoff))
+                    .map(StorageResource::fullPath);
+
+            BatchUtils.forEachBatch(candidates, settings.getGcBatchSize(), batch -> {
+                Set<String> known = catalog.findKnownKeys(batch);
+                List<String> orphans = batch.stream().filter(key -> !known.contains(key)).toList();
+                if (!orphans.isEmpty()) {
+                    bucket.deleteObjects(orphans);
+                    removed.addAndGet(orphans.size());
+                }
+            });
+        }
+        return removed.get();
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.cloudstorage.service.storage.download;
+
+import org.springframework.http.HttpRange;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбор заголовка {@code Range} относительно размера объекта.
+ * <p>
+ * Некорректный заголовок, а также заголовок с числом диапазонов больше {@link #MAX_RANGES}, игнорируется:
+ * RFC 9110 разрешает ответить на такой запрос целым объектом. Неудовлетворимые диапазоны отбрасываются;
+ * если не осталось ни одного, запрос неудовлетворим (416).
+ */
+public final class ByteRanges {
+
+    // Защита от запросов из сотен мелких диапазонов: каждый стоит отдельного ranged GET к хранилищу
+    public static final int MAX_RANGES = 16;
+
+    private ByteRanges() {}
+
+    public record ByteRange(long start, long end) {
+        public long length() {
+            return end - start + 1;
+        }
+
+        public String contentRange(long size) {
+            return "bytes " + start + "-" + end + "/" + size;
+        }
+    }
+
+    /**
+     * @return {@code null}, если заголовка нет или его нужно игнорировать; пустой список, если ни один диапазон
+     * не удовлетворим; иначе диапазоны в порядке запроса
+     */
+    public static List<ByteRange> parse(String header, long size) {
+        if (header == null || header.isBlank() || size == 0) return null;
+
+        List<HttpRange> requested;
+        try {
+            requested = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (requested.isEmpty() || requested.size() > MAX_RANGES) return null;
+
+        List<ByteRange> satisfiable = new ArrayList<>(requested.size());
+        for (HttpRange range : requested) {
+            long start = range.getRangeStart(size);
+            long end = range.getRangeEnd(size);
+            // Начало за концом объекта (или пустой суффикс): такой диапазон просто не обслуживается
+            if (start < size && start <= end) {
+                satisfiable.add(new ByteRange(start, end));
+            }
+        }
+        return satisfiable;
+    }
+
+    /**
+     * Проверка {@code If-Range}: диапазоны обслуживаются, только если клиент докачивает ту же версию объекта.
+     * Сравнение строгое: слабый ETag не совпадает никогда, дата — только точно с {@code Last-Modified}.
+     *
+     * @param etag ETag объекта в кавычках
+     */
+    public static boolean ifRangeMatches(String ifRange, String etag, Instant lastModified) {
+        if (ifRange == null || ifRange.isBlank()) return true;
+
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return etag != null && value.equals(etag);
+        }
+        if (lastModified == null) return false;
+        try {
+            Instant since = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return since.getEpochSecond() == lastModified.getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.cloudstorage.service.storage.download;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Ответ на скачивание файла: статус (200, 206 или 416), заголовки содержимого и поток тела.
+ */
+public record FileDownload(HttpStatus status, HttpHeaders headers, StreamingResponseBody body) {
+}
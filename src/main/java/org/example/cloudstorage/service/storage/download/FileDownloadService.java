@@ -1,37 +1,163 @@
 package org.example.cloudstorage.service.storage.download;
 
 import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.dto.storage.ZipCompression;
 import org.example.cloudstorage.exception.storage.StorageNotFoundException;
 import org.example.cloudstorage.mapper.ResourceResponseMapper;
+import org.example.cloudstorage.model.StorageResource;
 import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
 import org.example.cloudstorage.service.storage.validation.PathValidator;
 import org.example.cloudstorage.service.storage.base.AbstractStorageService;
+import org.example.cloudstorage.service.storage.base.ProgressListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class FileDownloadService extends AbstractStorageService {
 
+    private final ObjectPrefetcher prefetcher;
+    private final ZipCompressionPolicy compressionPolicy;
+    private final ZipCompressionMetrics compressionMetrics;
+    private final ParallelZipWriterFactory parallelZip;
+
     public FileDownloadService(ObjectStoragePort storagePort, PathValidator pathValidator,
-                               ResourceResponseMapper resourceMapper) {
+                               ResourceResponseMapper resourceMapper, ObjectPrefetcher prefetcher,
+                               ZipCompressionPolicy compressionPolicy, ZipCompressionMetrics compressionMetrics,
+                               ParallelZipWriterFactory parallelZip) {
         super(storagePort, pathValidator, resourceMapper);
+        this.prefetcher = prefetcher;
+        this.compressionPolicy = compressionPolicy;
+        this.compressionMetrics = compressionMetrics;
+        this.parallelZip = parallelZip;
     }
 
     public StreamingResponseBody download(long userId, String path) {
-        log.info("Request to download: userId={}, path='{}'", userId, path);
+        return download(userId, path, ZipCompression.AUTO);
+    }
+
+    public StreamingResponseBody download(long userId, String path, ZipCompression compression) {
+        log.info("Request to download: userId={}, path='{}', compression={}", userId, path, compression);
         String fullPath = generateUserPath(userId, path);
 
         if (!path.endsWith("/")) {
             return downloadSingleFile(fullPath);
         }
-        return downloadFolderAsZip(fullPath, path);
+        return downloadFolderAsZip(fullPath, path, compression == null ? ZipCompression.AUTO : compression,
+                ProgressListener.NONE);
+    }
+
+    /**
+     * Тот же архив папки, что и при скачивании, для фоновой сборки: прогресс сообщается после каждого объекта.
+     */
+    public StreamingResponseBody zipFolder(long userId, String path, ZipCompression compression,
+                                           ProgressListener progress) {
+        log.info("Request to build folder archive: userId={}, path='{}', compression={}", userId, path, compression);
+        String fullPath = generateUserPath(userId, path);
+        return downloadFolderAsZip(fullPath, path, compression == null ? ZipCompression.AUTO : compression, progress);
+    }
+
+    /**
+     * Скачивание файла с поддержкой {@code Range}: один диапазон отдаётся как 206 с {@code Content-Range},
+     * несколько — как {@code multipart/byteranges}. Каждый диапазон читается из хранилища отдельным ranged GET,
+     * поэтому перемотка видео и докачка не тянут объект целиком.
+     * <p>
+     * В заголовках всегда есть строгий {@code ETag} и {@code Last-Modified} из метаданных объекта:
+     * по ним контроллер отвечает 304 на условный запрос, не открывая поток. {@code Range} с {@code If-Range}
+     * от другой версии объекта игнорируется, и отдаётся файл целиком.
+     */
+    public FileDownload downloadFile(long userId, String path, String rangeHeader, String ifRange) {
+        log.info("Request to download file: userId={}, path='{}', range='{}'", userId, path, rangeHeader);
+        String fullPath = generateUserPath(userId, path);
+        StorageResource resource = storagePort.getResource(fullPath);
+        long size = resource.size();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String etag = resource.etag() == null ? null : "\"" + resource.etag() + "\"";
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        if (resource.lastModified() != null) {
+            headers.setLastModified(resource.lastModified());
+        }
+
+        List<ByteRanges.ByteRange> ranges = ByteRanges.ifRangeMatches(ifRange, etag, resource.lastModified())
+                ? ByteRanges.parse(rangeHeader, size)
+                : null;
+        if (ranges == null) {
+            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            headers.setContentLength(size);
+            return new FileDownload(HttpStatus.OK, headers, downloadSingleFile(fullPath));
+        }
+
+        if (ranges.isEmpty()) {
+            log.debug("Unsatisfiable range '{}' for '{}' ({} bytes)", rangeHeader, fullPath, size);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return new FileDownload(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, headers, null);
+        }
+
+        if (ranges.size() == 1) {
+            ByteRanges.ByteRange range = ranges.get(0);
+            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            headers.setContentLength(range.length());
+            headers.set(HttpHeaders.CONTENT_RANGE, range.contentRange(size));
+            return new FileDownload(HttpStatus.PARTIAL_CONTENT, headers, outputStream -> {
+                try (InputStream is = storagePort.download(fullPath, range.start(), range.length())) {
+                    is.transferTo(outputStream);
+                }
+            });
+        }
+
+        return downloadByteRanges(fullPath, size, ranges, headers);
+    }
+
+    private FileDownload downloadByteRanges(String fullPath, long size, List<ByteRanges.ByteRange> ranges,
+                                            HttpHeaders headers) {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (ByteRanges.ByteRange range : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + MediaType.APPLICATION_OCTET_STREAM_VALUE + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + range.contentRange(size) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        headers.setContentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary));
+        headers.setContentLength(contentLength);
+        log.debug("Multi-range download of '{}': {} ranges, {} bytes", fullPath, ranges.size(), contentLength);
+
+        return new FileDownload(HttpStatus.PARTIAL_CONTENT, headers, outputStream -> {
+            for (int i = 0; i < ranges.size(); i++) {
+                ByteRanges.ByteRange range = ranges.get(i);
+                outputStream.write(partHeaders.get(i));
+                try (InputStream is = storagePort.download(fullPath, range.start(), range.length())) {
+                    is.transferTo(outputStream);
+                }
+            }
+            outputStream.write(closing);
+        });
     }
 
     private StreamingResponseBody downloadSingleFile(String fullPath) {
@@ -43,37 +169,124 @@ public class FileDownloadService extends AbstractStorageService {
         };
     }
 
-    private StreamingResponseBody downloadFolderAsZip(String fullPath, String originalPath) {
+    private StreamingResponseBody downloadFolderAsZip(String fullPath, String originalPath, ZipCompression compression,
+                                                      ProgressListener progress) {
         log.debug("Folder download (zip) started: '{}'", fullPath);
 
-        List<String> allPaths = storagePort.listAllPathsRecursive(fullPath);
-        if (allPaths.isEmpty()) {
+        Stream<StorageResource> resources = storagePort.streamAllObjectsRecursive(fullPath);
+        Iterator<StorageResource> iterator = resources.iterator();
+        if (!iterator.hasNext()) {
+            resources.close();
             log.warn("Folder is empty or not found for download: '{}'", fullPath);
             throw new StorageNotFoundException(originalPath);
         }
 
+        // Первая страница листинга уже получена, остальные подтягиваются по мере записи архива,
+        // а содержимое следующих объектов скачивается заранее, пока пишется текущий
+        if (parallelZip.enabled()) {
+            return outputStream -> {
+                try (resources;
+                     ObjectPrefetcher.Pipeline pipeline = prefetcher.open(iterator);
+                     ParallelZipWriter zip = parallelZip.create(outputStream, compressionMetrics.start())) {
+                    ZipCompressionMetrics.ArchiveStats stats = zip.stats();
+                    while (pipeline.hasNext()) {
+                        ObjectPrefetcher.PrefetchedObject object = pipeline.next();
+                        addZipEntry(zip, object, fullPath, compression);
+                        progress.advance(1, object.resource().size());
+                    }
+                    zip.finish();
+                    outputStream.flush();
+                    compressionMetrics.report(fullPath, stats);
+                }
+            };
+        }
         return outputStream -> {
-            try (ZipOutputStream zos = new ZipOutputStream(outputStream)) {
-                for (String objectPath : allPaths) {
-                    writeZipEntry(zos, objectPath, fullPath);
+            try (resources;
+                 ObjectPrefetcher.Pipeline pipeline = prefetcher.open(iterator);
+                 ZipOutputStream zos = new ZipOutputStream(outputStream)) {
+                ZipCompressionMetrics.ArchiveStats stats = compressionMetrics.start();
+                while (pipeline.hasNext()) {
+                    ObjectPrefetcher.PrefetchedObject object = pipeline.next();
+                    writeZipEntry(zos, object, fullPath, compression, stats);
+                    progress.advance(1, object.resource().size());
                 }
                 zos.finish();
                 zos.flush();
+                compressionMetrics.report(fullPath, stats);
             }
         };
     }
 
-    private void writeZipEntry(ZipOutputStream zos, String objectPath, String rootPath) throws IOException {
+    /**
+     * Скачанные заранее объекты сжимаются параллельно на общем пуле, потоковые — в текущем потоке.
+     */
+    private void addZipEntry(ParallelZipWriter zip, ObjectPrefetcher.PrefetchedObject object, String rootPath,
+                             ZipCompression compression) throws IOException {
+        String objectPath = object.resource().fullPath();
         String zipEntryName = objectPath.substring(rootPath.length());
         if (zipEntryName.isEmpty()) return;
 
-        zos.putNextEntry(new ZipEntry(zipEntryName));
+        if (objectPath.endsWith("/")) {
+            zip.addDirectory(zipEntryName);
+            return;
+        }
 
-        if (!objectPath.endsWith("/")) {
-            try (InputStream is = storagePort.download(objectPath)) {
-                is.transferTo(zos);
-            }
+        int level = compressionPolicy.levelFor(object.resource(), compression);
+        byte[] content = object.content();
+        if (content != null) {
+            zip.addBuffered(zipEntryName, content, level);
+            return;
+        }
+        try (InputStream is = object.open()) {
+            zip.addStreamed(zipEntryName, is, level);
+        }
+    }
+
+    private void writeZipEntry(ZipOutputStream zos, ObjectPrefetcher.PrefetchedObject object, String rootPath,
+                               ZipCompression compression, ZipCompressionMetrics.ArchiveStats stats) throws IOException {
+        String objectPath = object.resource().fullPath();
+        String zipEntryName = objectPath.substring(rootPath.length());
+        if (zipEntryName.isEmpty()) return;
+
+        ZipEntry entry = new ZipEntry(zipEntryName);
+        if (objectPath.endsWith("/")) {
+            zos.putNextEntry(entry);
+            zos.closeEntry();
+            return;
+        }
+
+        int level = compressionPolicy.levelFor(object.resource(), compression);
+        byte[] content = object.content();
+        if (level == Deflater.NO_COMPRESSION && content != null) {
+            // STORED требует размер и CRC до записи данных, для скачанного заранее объекта они известны
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCompressedSize(content.length);
+            entry.setCrc(crc.getValue());
+
+            zos.putNextEntry(entry);
+            zos.write(content);
+            zos.closeEntry();
+            stats.stored(content.length);
+            return;
+        }
+
+        // Крупные объекты читаются потоком: для несжимаемых deflate нулевого уровня почти бесплатен
+        zos.setLevel(level);
+        zos.putNextEntry(entry);
+        long started = compressionMetrics.cpuTime();
+        long written;
+        try (InputStream is = object.open()) {
+            written = is.transferTo(zos);
         }
         zos.closeEntry();
+
+        if (level == Deflater.NO_COMPRESSION) {
+            stats.stored(written);
+        } else {
+            stats.deflated(written, compressionMetrics.cpuTime() - started);
+        }
     }
 }
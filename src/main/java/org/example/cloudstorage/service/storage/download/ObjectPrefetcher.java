@@ -0,0 +1,179 @@
+package org.example.cloudstorage.service.storage.download;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Упреждающее чтение объектов для архивации папки.
+ * <p>
+ * Пока архиватор пишет текущий объект, следующие {@code prefetchDepth} объектов уже скачиваются параллельно
+ * в память. Суммарный объём скачанного, но ещё не записанного, ограничен {@code prefetchBudget} на архив.
+ * Объекты крупнее бюджета не буферизуются и читаются потоком в момент записи. Порядок выдачи всегда совпадает
+ * с порядком листинга.
+ */
+@Slf4j
+@Component
+public class ObjectPrefetcher {
+
+    private final ObjectStoragePort storagePort;
+    private final StorageProperties.Zip settings;
+    private final ExecutorService executor;
+
+    public ObjectPrefetcher(ObjectStoragePort storagePort, StorageProperties properties) {
+        this.storagePort = storagePort;
+        this.settings = properties.getZip();
+        this.executor = Executors.newFixedThreadPool(settings.getPrefetchThreads(),
+                new CustomizableThreadFactory("zip-prefetch-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Pipeline open(Iterator<StorageResource> source) {
+        return new Pipeline(source);
+    }
+
+    /**
+     * Объект, готовый к записи: либо уже в памяти, либо открывается потоком по требованию.
+     */
+    public final class PrefetchedObject {
+        private final StorageResource resource;
+        private final byte[] content;
+
+        private PrefetchedObject(StorageResource resource, byte[] content) {
+            this.resource = resource;
+            this.content = content;
+        }
+
+        public StorageResource resource() {
+            return resource;
+        }
+
+        /**
+         * Содержимое, если объект уже скачан заранее, иначе {@code null}.
+         */
+        public byte[] content() {
+            return content;
+        }
+
+        public InputStream open() {
+            return content != null ? new ByteArrayInputStream(content) : storagePort.download(resource.fullPath());
+        }
+    }
+
+    /**
+     * Однопоточный потребитель: {@link #next()} вызывается из потока, пишущего архив.
+     */
+    public final class Pipeline implements Closeable {
+        private final Iterator<StorageResource> source;
+        private final Deque<Slot> window = new ArrayDeque<>();
+        private final int budgetBytes = (int) Math.min(settings.getPrefetchBudget().toBytes(), Integer.MAX_VALUE);
+        private final Semaphore budget = new Semaphore(budgetBytes);
+
+        private StorageResource pending;
+        private Slot current;
+
+        private Pipeline(Iterator<StorageResource> source) {
+            this.source = source;
+        }
+
+        public boolean hasNext() {
+            return !window.isEmpty() || pending != null || source.hasNext();
+        }
+
+        public PrefetchedObject next() throws IOException {
+            // Предыдущий объект уже записан, его место в бюджете освобождается
+            releaseCurrent();
+            fill();
+
+            current = window.poll();
+            if (current == null) {
+                throw new IllegalStateException("Prefetch pipeline is exhausted");
+            }
+            PrefetchedObject object = new PrefetchedObject(current.resource, current.await());
+            fill();
+            return object;
+        }
+
+        @Override
+        public void close() {
+            releaseCurrent();
+            for (Slot slot : window) {
+                if (slot.content != null) slot.content.cancel(false);
+            }
+            window.clear();
+        }
+
+        private void fill() {
+            while (window.size() < settings.getPrefetchDepth()) {
+                if (pending == null) {
+                    if (!source.hasNext()) return;
+                    pending = source.next();
+                }
+
+                StorageResource resource = pending;
+                if (resource.isDirectory() || resource.size() > budgetBytes) {
+                    window.add(new Slot(resource, 0, null));
+                } else {
+                    int size = (int) resource.size();
+                    // Бюджет занят скачанными объектами: ждём, пока архиватор их запишет
+                    if (!budget.tryAcquire(size)) return;
+                    window.add(new Slot(resource, size,
+                            CompletableFuture.supplyAsync(() -> readFully(resource), executor)));
+                }
+                pending = null;
+            }
+        }
+
+        private void releaseCurrent() {
+            if (current != null) {
+                budget.release(current.reserved);
+                current = null;
+            }
+        }
+    }
+
+    private record Slot(StorageResource resource, int reserved, CompletableFuture<byte[]> content) {
+
+        byte[] await() throws IOException {
+            if (content == null) return null;
+            try {
+                return content.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+                if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+                throw e;
+            }
+        }
+    }
+
+    private byte[] readFully(StorageResource resource) {
+        log.trace("Prefetching '{}' ({} bytes)", resource.fullPath(), resource.size());
+        try (InputStream is = storagePort.download(resource.fullPath())) {
+            return is.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.cloudstorage.service.storage.download;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * ZIP-архиватор в духе pigz: записи, уже лежащие в памяти, сжимаются параллельно на пуле,
+ * а в поток пишутся строго в порядке добавления, с корректными CRC и размерами.
+ * <p>
+ * В очереди одновременно не больше {@code maxPending} записей и {@code maxPendingBytes} исходных байт:
+ * когда лимит достигнут, {@link #addBuffered} сначала дописывает голову очереди. Потоковые записи
+ * сжимаются в вызывающем потоке после того, как очередь опустеет.
+ * <p>
+ * Используется из одного потока; параллельны только задачи сжатия.
+ */
+public final class ParallelZipWriter implements Closeable {
+
+    private final ZipStreamWriter zip;
+    private final Executor executor;
+    private final int maxPending;
+    private final long maxPendingBytes;
+    private final ZipCompressionMetrics metrics;
+    private final ZipCompressionMetrics.ArchiveStats stats;
+
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    private long pendingBytes;
+
+    public ParallelZipWriter(OutputStream out, Executor executor, int maxPending, long maxPendingBytes,
+                             ZipCompressionMetrics metrics, ZipCompressionMetrics.ArchiveStats stats) {
+        this.zip = new ZipStreamWriter(out);
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.maxPendingBytes = maxPendingBytes;
+        this.metrics = metrics;
+        this.stats = stats;
+    }
+
+    public ZipCompressionMetrics.ArchiveStats stats() {
+        return stats;
+    }
+
+    public void addBuffered(String name, byte[] content, int level) throws IOException {
+        while (!pending.isEmpty()
+                && (pending.size() >= maxPending || pendingBytes + content.length > maxPendingBytes)) {
+            writeHead();
+        }
+        pending.add(new Pending(name, content.length, level,
+                CompletableFuture.supplyAsync(() -> compress(content, level), executor)));
+        pendingBytes += content.length;
+    }
+
+    public void addStreamed(String name, InputStream in, int level) throws IOException {
+        drain();
+        long started = metrics.cpuTime();
+        long size = zip.writeStreamed(name, in, level);
+        record(level, size, metrics.cpuTime() - started);
+    }
+
+    public void addDirectory(String name) {
+        pending.add(new Pending(name, 0, Deflater.NO_COMPRESSION, CompletableFuture.completedFuture(null)));
+    }
+
+    public void finish() throws IOException {
+        drain();
+        zip.finish();
+    }
+
+    /**
+     * Отменяет ещё не начатое сжатие; нужен, если архив прерван (например, клиент отключился).
+     */
+    @Override
+    public void close() {
+        for (Pending entry : pending) {
+            entry.result.cancel(false);
+        }
+        pending.clear();
+    }
+
+    private void drain() throws IOException {
+        while (!pending.isEmpty()) {
+            writeHead();
+        }
+    }
+
+    private void writeHead() throws IOException {
+        Pending head = pending.poll();
+        pendingBytes -= head.size;
+
+        Compressed compressed;
+        try {
+            compressed = head.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw e;
+        }
+
+        if (compressed == null) {
+            zip.writeDirectory(head.name);
+            return;
+        }
+        zip.writePrepared(head.name, compressed.method, compressed.data, compressed.length,
+                compressed.crc, head.size);
+        record(head.level, head.size, compressed.cpuNanos);
+    }
+
+    private void record(int level, long size, long cpuNanos) {
+        if (level == Deflater.NO_COMPRESSION) {
+            stats.stored(size);
+        } else {
+            stats.deflated(size, cpuNanos);
+        }
+    }
+
+    private Compressed compress(byte[] content, int level) {
+        long started = metrics.cpuTime();
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        if (level != Deflater.NO_COMPRESSION && content.length > 0) {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                deflater.setInput(content);
+                deflater.finish();
+                byte[] output = new byte[content.length];
+                int length = 0;
+                while (!deflater.finished() && length < output.length) {
+                    length += deflater.deflate(output, length, output.length - length);
+                }
+                if (deflater.finished()) {
+                    return new Compressed(ZipEntry.DEFLATED, output, length, crc.getValue(),
+                            metrics.cpuTime() - started);
+                }
+                // Сжатые данные не меньше исходных: выгоднее сохранить как есть
+            } finally {
+                deflater.end();
+            }
+        }
+        return new Compressed(ZipEntry.STORED, content, content.length, crc.getValue(), metrics.cpuTime() - started);
+    }
+
+    private record Pending(String name, int size, int level, CompletableFuture<Compressed> result) {
+    }
+
+    private record Compressed(int method, byte[] data, int length, long crc, long cpuNanos) {
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.cloudstorage.service.storage.download;
+
+import jakarta.annotation.PreDestroy;
+import org.example.cloudstorage.config.StorageProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Общий пул сжатия архивов узла. При {@code storage.zip.parallel-deflate-threads: 0} параллельное сжатие
+ * выключено и архивы пишутся последовательно через {@link java.util.zip.ZipOutputStream}.
+ * <p>
+ * Очередь одного архива ограничена количеством потоков пула (с запасом вдвое, чтобы ядра не простаивали,
+ * пока архиватор пишет готовые записи) и бюджетом упреждающего чтения по объёму.
+ */
+@Component
+public class ParallelZipWriterFactory {
+
+    private final ForkJoinPool pool;
+    private final int maxPending;
+    private final long maxPendingBytes;
+    private final ZipCompressionMetrics metrics;
+
+    public ParallelZipWriterFactory(StorageProperties properties, ZipCompressionMetrics metrics) {
+        StorageProperties.Zip settings = properties.getZip();
+        int threads = settings.getParallelDeflateThreads();
+        this.pool = threads > 0 ? new ForkJoinPool(threads) : null;
+        this.maxPending = Math.max(threads * 2, 1);
+        this.maxPendingBytes = settings.getPrefetchBudget().toBytes();
+        this.metrics = metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    public boolean enabled() {
+        return pool != null;
+    }
+
+    public ParallelZipWriter create(OutputStream out, ZipCompressionMetrics.ArchiveStats stats) {
+        if (pool == null) {
+            throw new IllegalStateException("Parallel deflate is disabled");
+        }
+        return new ParallelZipWriter(out, pool, maxPending, maxPendingBytes, metrics, stats);
+    }
+}
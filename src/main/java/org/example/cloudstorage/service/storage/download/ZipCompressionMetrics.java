@@ -0,0 +1,95 @@
+package org.example.cloudstorage.service.storage.download;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Учёт процессорного времени на сжатие архивов и оценка сэкономленного.
+ * <p>
+ * Сэкономленное время для несжатых записей оценивается по стоимости deflate на байт:
+ * из этого же архива, если в нём было что сжимать, иначе из скользящего среднего по предыдущим архивам.
+ * Метрики: {@code storage.zip.cpu} (потрачено на deflate), {@code storage.zip.cpu.saved} (оценка экономии),
+ * {@code storage.zip.bytes} с тегом {@code method=stored|deflated}.
+ */
+@Slf4j
+@Component
+public class ZipCompressionMetrics {
+
+    // Оценка до первого измерения: порядок стоимости deflate уровня 6 на современном ядре
+    private static final double INITIAL_NANOS_PER_BYTE = 10.0;
+    private static final double SMOOTHING = 0.2;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported();
+    private final AtomicLong nanosPerByteBits = new AtomicLong(Double.doubleToLongBits(INITIAL_NANOS_PER_BYTE));
+
+    private final Timer spent;
+    private final Timer saved;
+    private final Counter storedBytes;
+    private final Counter deflatedBytes;
+
+    public ZipCompressionMetrics(MeterRegistry meterRegistry) {
+        this.spent = Timer.builder("storage.zip.cpu").description("CPU time spent deflating archive entries")
+                .register(meterRegistry);
+        this.saved = Timer.builder("storage.zip.cpu.saved").description("Estimated CPU time saved by storing entries")
+                .register(meterRegistry);
+        this.storedBytes = Counter.builder("storage.zip.bytes").tag("method", "stored").baseUnit("bytes")
+                .register(meterRegistry);
+        this.deflatedBytes = Counter.builder("storage.zip.bytes").tag("method", "deflated").baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public long cpuTime() {
+        return cpuTimeSupported ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    public ArchiveStats start() {
+        return new ArchiveStats();
+    }
+
+    public void report(String archive, ArchiveStats stats) {
+        double nanosPerByte;
+        if (stats.deflatedBytes > 0) {
+            nanosPerByte = (double) stats.deflateNanos / stats.deflatedBytes;
+            nanosPerByteBits.updateAndGet(bits -> Double.doubleToLongBits(
+                    Double.longBitsToDouble(bits) * (1 - SMOOTHING) + nanosPerByte * SMOOTHING));
+        } else {
+            nanosPerByte = Double.longBitsToDouble(nanosPerByteBits.get());
+        }
+        long savedNanos = (long) (stats.storedBytes * nanosPerByte);
+
+        spent.record(Duration.ofNanos(stats.deflateNanos));
+        saved.record(Duration.ofNanos(savedNanos));
+        storedBytes.increment(stats.storedBytes);
+        deflatedBytes.increment(stats.deflatedBytes);
+
+        log.info("Archive '{}': deflated {} bytes in {} ms CPU, stored {} bytes uncompressed, ~{} ms CPU saved",
+                archive, stats.deflatedBytes, stats.deflateNanos / 1_000_000, stats.storedBytes, savedNanos / 1_000_000);
+    }
+
+    /**
+     * Счётчики одного архива, пишутся только потоком архиватора.
+     */
+    public static final class ArchiveStats {
+        private long storedBytes;
+        private long deflatedBytes;
+        private long deflateNanos;
+
+        public void stored(long bytes) {
+            storedBytes += bytes;
+        }
+
+        public void deflated(long bytes, long cpuNanos) {
+            deflatedBytes += bytes;
+            deflateNanos += cpuNanos;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.cloudstorage.service.storage.download;
+
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.dto.storage.ZipCompression;
+import org.example.cloudstorage.model.StorageResource;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Выбирает уровень сжатия для записи архива. Форматы, которые уже сжаты (фото, видео, аудио, архивы,
+ * офисные документы на zip), deflate почти не уменьшает, поэтому на них процессор не тратится.
+ */
+@Component
+public class ZipCompressionPolicy {
+
+    private static final Set<String> PRECOMPRESSED_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "avif",
+            "mp4", "m4v", "mov", "mkv", "webm", "avi",
+            "mp3", "m4a", "aac", "ogg", "opus", "flac",
+            "zip", "gz", "tgz", "bz2", "xz", "zst", "7z", "rar", "jar", "apk",
+            "docx", "xlsx", "pptx", "odt", "ods", "odp", "epub", "pdf", "woff", "woff2"
+    );
+
+    private static final Set<String> PRECOMPRESSED_TYPES = Set.of(
+            "application/zip", "application/gzip", "application/x-7z-compressed", "application/vnd.rar",
+            "application/x-bzip2", "application/x-xz", "application/zstd", "application/pdf"
+    );
+
+    private final int deflateLevel;
+
+    public ZipCompressionPolicy(StorageProperties properties) {
+        this.deflateLevel = properties.getZip().getDeflateLevel();
+    }
+
+    /**
+     * @return уровень для {@link Deflater}; {@link Deflater#NO_COMPRESSION} значит хранить без сжатия
+     */
+    public int levelFor(StorageResource resource, ZipCompression mode) {
+        if (mode == ZipCompression.NONE || isPrecompressed(resource)) {
+            return Deflater.NO_COMPRESSION;
+        }
+        return mode == ZipCompression.FAST ? Deflater.BEST_SPEED : deflateLevel;
+    }
+
+    boolean isPrecompressed(StorageResource resource) {
+        String contentType = resource.contentType();
+        if (contentType != null) {
+            String type = contentType.toLowerCase(Locale.ROOT);
+            if (PRECOMPRESSED_TYPES.contains(type)) return true;
+            // svg и bmp хорошо сжимаются, несмотря на image/*
+            if ((type.startsWith("image/") && !type.contains("svg") && !type.contains("bmp"))
+                    || type.startsWith("video/")
+                    || (type.startsWith("audio/") && !type.contains("wav"))) {
+                return true;
+            }
+        }
+
+        String path = resource.fullPath();
+        int dot = path.lastIndexOf('.');
+        return dot > path.lastIndexOf('/') && PRECOMPRESSED_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,247 @@
+package org.example.cloudstorage.service.storage.download;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Низкоуровневая запись ZIP в поток: в отличие от {@link java.util.zip.ZipOutputStream} принимает уже сжатые
+ * данные с известными CRC и размерами, поэтому сжимать записи можно где угодно, а писать строго по порядку.
+ * <p>
+ * Потоковые записи (размер заранее неизвестен) сжимаются на месте и закрываются дескриптором данных.
+ * ZIP64 включается только там, где без него не обойтись: для смещений и размеров от 4 ГБ и для архивов
+ * от 65535 записей. Имена пишутся в UTF-8 с соответствующим флагом.
+ */
+final class ZipStreamWriter {
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_COUNT_MAGIC = 0xFFFF;
+    private static final int FLAG_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF8 = 1 << 11;
+    private static final int VERSION_DEFAULT = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CountingOutputStream out;
+    private final List<CentralEntry> entries = new ArrayList<>();
+    private final byte[] scratch = new byte[8];
+    private final int dosTime;
+    private final int dosDate;
+
+    ZipStreamWriter(OutputStream out) {
+        this.out = new CountingOutputStream(out);
+        LocalDateTime now = LocalDateTime.now();
+        this.dosDate = ((Math.max(now.getYear(), 1980) - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+        this.dosTime = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() >> 1);
+    }
+
+    /**
+     * Запись с готовыми данными: {@code length} байт из {@code data} уже сжаты методом {@code method}.
+     */
+    void writePrepared(String name, int method, byte[] data, int length, long crc, long size) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = out.count;
+
+        writeLocalHeader(nameBytes, FLAG_UTF8, method, crc, length, size);
+        out.write(data, 0, length);
+        entries.add(new CentralEntry(nameBytes, FLAG_UTF8, method, crc, length, size, offset));
+    }
+
+    /**
+     * Потоковая запись: данные сжимаются в вызывающем потоке по мере чтения.
+     *
+     * @return количество несжатых байт
+     */
+    long writeStreamed(String name, InputStream in, int level) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = out.count;
+        int flags = FLAG_UTF8 | FLAG_DESCRIPTOR;
+
+        writeLocalHeader(nameBytes, flags, ZipEntry.DEFLATED, 0, 0, 0);
+        long dataStart = out.count;
+
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(level, true);
+        long size = 0;
+        try {
+            DeflaterOutputStream deflating = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                deflating.write(buffer, 0, read);
+                size += read;
+            }
+            deflating.finish();
+        } finally {
+            deflater.end();
+        }
+        long compressedSize = out.count - dataStart;
+
+        writeInt(0x08074b50);
+        writeInt(crc.getValue());
+        // Как и ZipInputStream, 8-байтные размеры только когда 4 байт не хватает
+        if (compressedSize >= ZIP64_MAGIC || size >= ZIP64_MAGIC) {
+            writeLong(compressedSize);
+            writeLong(size);
+        } else {
+            writeInt(compressedSize);
+            writeInt(size);
+        }
+
+        entries.add(new CentralEntry(nameBytes, flags, ZipEntry.DEFLATED, crc.getValue(), compressedSize, size, offset));
+        return size;
+    }
+
+    void writeDirectory(String name) throws IOException {
+        writePrepared(name, ZipEntry.STORED, new byte[0], 0, 0, 0);
+    }
+
+    /**
+     * Пишет центральный каталог и конец архива. Нижележащий поток не закрывается.
+     */
+    void finish() throws IOException {
+        long directoryStart = out.count;
+        for (CentralEntry entry : entries) {
+            writeCentralEntry(entry);
+        }
+        long directorySize = out.count - directoryStart;
+        int count = entries.size();
+
+        if (count >= ZIP64_COUNT_MAGIC || directoryStart >= ZIP64_MAGIC || directorySize >= ZIP64_MAGIC) {
+            long zip64EndOffset = out.count;
+            writeInt(0x06064b50);
+            writeLong(44);
+            writeShort(VERSION_ZIP64);
+            writeShort(VERSION_ZIP64);
+            writeInt(0);
+            writeInt(0);
+            writeLong(count);
+            writeLong(count);
+            writeLong(directorySize);
+            writeLong(directoryStart);
+
+            writeInt(0x07064b50);
+            writeInt(0);
+            writeLong(zip64EndOffset);
+            writeInt(1);
+        }
+
+        writeInt(0x06054b50);
+        writeShort(0);
+        writeShort(0);
+        writeShort(Math.min(count, ZIP64_COUNT_MAGIC));
+        writeShort(Math.min(count, ZIP64_COUNT_MAGIC));
+        writeInt(Math.min(directorySize, ZIP64_MAGIC));
+        writeInt(Math.min(directoryStart, ZIP64_MAGIC));
+        writeShort(0);
+        out.flush();
+    }
+
+    private void writeLocalHeader(byte[] name, int flags, int method, long crc, long compressedSize, long size)
+            throws IOException {
+        writeInt(0x04034b50);
+        writeShort(VERSION_DEFAULT);
+        writeShort(flags);
+        writeShort(method);
+        writeShort(dosTime);
+        writeShort(dosDate);
+        writeInt(crc);
+        writeInt(compressedSize);
+        writeInt(size);
+        writeShort(name.length);
+        writeShort(0);
+        out.write(name);
+    }
+
+    private void writeCentralEntry(CentralEntry entry) throws IOException {
+        boolean zip64Sizes = entry.compressedSize >= ZIP64_MAGIC || entry.size >= ZIP64_MAGIC;
+        boolean zip64Offset = entry.offset >= ZIP64_MAGIC;
+        int extraLength = (zip64Sizes || zip64Offset) ? 4 + (zip64Sizes ? 16 : 0) + (zip64Offset ? 8 : 0) : 0;
+        int version = extraLength > 0 ? VERSION_ZIP64 : VERSION_DEFAULT;
+
+        writeInt(0x02014b50);
+        writeShort(version);
+        writeShort(version);
+        writeShort(entry.flags);
+        writeShort(entry.method);
+        writeShort(dosTime);
+        writeShort(dosDate);
+        writeInt(entry.crc);
+        writeInt(zip64Sizes ? ZIP64_MAGIC : entry.compressedSize);
+        writeInt(zip64Sizes ? ZIP64_MAGIC : entry.size);
+        writeShort(entry.name.length);
+        writeShort(extraLength);
+        writeShort(0);
+        writeShort(0);
+        writeShort(0);
+        writeInt(0);
+        writeInt(zip64Offset ? ZIP64_MAGIC : entry.offset);
+        out.write(entry.name);
+
+        if (extraLength > 0) {
+            writeShort(0x0001);
+            writeShort(extraLength - 4);
+            if (zip64Sizes) {
+                writeLong(entry.size);
+                writeLong(entry.compressedSize);
+            }
+            if (zip64Offset) {
+                writeLong(entry.offset);
+            }
+        }
+    }
+
+    private void writeShort(int value) throws IOException {
+        scratch[0] = (byte) value;
+        scratch[1] = (byte) (value >>> 8);
+        out.write(scratch, 0, 2);
+    }
+
+    private void writeInt(long value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            scratch[i] = (byte) (value >>> (8 * i));
+        }
+        out.write(scratch, 0, 4);
+    }
+
+    private void writeLong(long value) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            scratch[i] = (byte) (value >>> (8 * i));
+        }
+        out.write(scratch, 0, 8);
+    }
+
+    private record CentralEntry(byte[] name, int flags, int method, long crc,
+                                long compressedSize, long size, long offset) {
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.cloudstorage.service.storage.job;
+
+import org.example.cloudstorage.model.StorageJob;
+import org.example.cloudstorage.service.storage.base.ProgressListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Прогресс выполняющейся задачи. Счётчики копятся в памяти и пишутся в БД не чаще {@code flushInterval};
+ * та же запись возвращает флаг отмены, и отменённая задача прерывается исключением из {@link #advance}.
+ */
+class JobProgress implements ProgressListener {
+
+    private final String jobId;
+    private final String workerId;
+    private final StorageJobQueue queue;
+    private final long flushIntervalNanos;
+
+    private final AtomicLong itemsDone;
+    private final AtomicLong bytesDone;
+    private long lastFlush = System.nanoTime();
+
+    JobProgress(StorageJob job, String workerId, StorageJobQueue queue, Duration flushInterval) {
+        this.jobId = job.getId();
+        this.workerId = workerId;
+        this.queue = queue;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        // Возобновлённая задача продолжает счёт с того, что успела сделать до остановки узла
+        this.itemsDone = new AtomicLong(job.getItemsDone());
+        this.bytesDone = new AtomicLong(job.getBytesDone());
+    }
+
+    @Override
+    public void advance(long items, long bytes) {
+        itemsDone.addAndGet(items);
+        bytesDone.addAndGet(bytes);
+        flushIfDue();
+    }
+
+    long itemsDone() {
+        return itemsDone.get();
+    }
+
+    long bytesDone() {
+        return bytesDone.get();
+    }
+
+    private synchronized void flushIfDue() {
+        long now = System.nanoTime();
+        if (now - lastFlush < flushIntervalNanos) return;
+        lastFlush = now;
+
+        if (queue.progress(jobId, workerId, itemsDone.get(), bytesDone.get())) {
+            throw new CancelledException(jobId);
+        }
+    }
+
+    static final class CancelledException extends RuntimeException {
+        CancelledException(String jobId) {
+            super("Job " + jobId + " cancelled");
+        }
+    }
+}
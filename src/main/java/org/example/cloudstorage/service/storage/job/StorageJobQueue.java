@@ -0,0 +1,124 @@
+package org.example.cloudstorage.service.storage.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.model.StorageJob;
+import org.example.cloudstorage.repository.StorageJobRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Очередь фоновых задач в Postgres. Узлы забирают задачи через SKIP LOCKED, так что одну задачу
+ * не запустят два узла, а очередь не требует отдельного брокера.
+ */
+@Slf4j
+@Component
+public class StorageJobQueue {
+
+    private final StorageJobRepository repository;
+    private final StorageProperties.Jobs settings;
+    private final Clock clock = Clock.systemUTC();
+
+    public StorageJobQueue(StorageJobRepository repository, StorageProperties properties) {
+        this.repository = repository;
+        this.settings = properties.getJobs();
+    }
+
+    /**
+     * Ставит задачу в очередь, если у владельца меньше {@code maxActive} незавершённых. Проверка и вставка
+     * идут под локом владельца в одной транзакции, поэтому параллельные постановки не превысят лимит.
+     *
+     * @return {@code false}, если лимит уже исчерпан и задача не записана
+     */
+    @Transactional
+    public boolean enqueue(StorageJob job, int maxActive) {
+        repository.lockOwner(job.getOwnerId());
+        if (repository.countActive(job.getOwnerId()) >= maxActive) {
+            return false;
+        }
+        repository.save(job);
+        return true;
+    }
+
+    /**
+     * Забирает до {@code limit} задач: ожидающих и брошенных узлами, которые перестали присылать пульс.
+     * Брошенная задача, исчерпавшая попытки или отменённая, завершается здесь же и не возвращается.
+     */
+    @Transactional
+    public List<StorageJob> claim(String workerId, int limit) {
+        Instant now = clock.instant();
+        List<StorageJob> claimed = new ArrayList<>();
+        for (StorageJob job : repository.lockClaimable(now.minus(settings.getHeartbeatTimeout()), limit)) {
+            if (job.getStatus() == StorageJob.Status.RUNNING) {
+                log.warn("Job {} abandoned by worker {}, attempt {}/{}",
+                        job.getId(), job.getWorkerId(), job.getAttempts(), settings.getMaxAttempts());
+                if (job.isCancelRequested() || job.getAttempts() >= settings.getMaxAttempts()) {
+                    job.setStatus(job.isCancelRequested() ? StorageJob.Status.CANCELLED : StorageJob.Status.FAILED);
+                    job.setError(job.isCancelRequested() ? null : "Interrupted " + job.getAttempts() + " times");
+                    job.setFinishedAt(now);
+                    continue;
+                }
+            }
+
+            job.setStatus(StorageJob.Status.RUNNING);
+            job.setWorkerId(workerId);
+            job.setHeartbeatAt(now);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setStartedAt(Objects.requireNonNullElse(job.getStartedAt(), now));
+            if (job.getType() == StorageJob.Type.ZIP) {
+                // Недописанный архив пропал вместе с узлом, сборка начинается заново
+                job.setItemsDone(0);
+                job.setBytesDone(0);
+            }
+            claimed.add(job);
+        }
+        return claimed;
+    }
+
+    /**
+     * Записывает прогресс и продлевает пульс.
+     *
+     * @return запрошена ли отмена задачи
+     */
+    @Transactional
+    public boolean progress(String jobId, String workerId, long itemsDone, long bytesDone) {
+        repository.updateProgress(jobId, workerId, itemsDone, bytesDone);
+        return repository.isCancelRequested(jobId);
+    }
+
+    @Transactional
+    public void finish(String jobId, String workerId, StorageJob.Status status, long itemsDone, long bytesDone,
+                       String resultKey, String error) {
+        repository.finish(jobId, workerId, status.name(), itemsDone, bytesDone, resultKey, error);
+    }
+
+    @Transactional
+    public void heartbeat(Collection<String> jobIds, String workerId) {
+        if (jobIds.isEmpty()) return;
+        repository.heartbeat(jobIds, workerId);
+    }
+
+    @Transactional
+    public int requeue(String workerId) {
+        return repository.requeue(workerId);
+    }
+
+    /**
+     * Удаляет до {@code limit} завершённых задач старше срока хранения.
+     *
+     * @return удалённые задачи: их архивы нужно убрать из хранилища
+     */
+    @Transactional
+    public List<StorageJob> removeExpired(int limit) {
+        List<StorageJob> expired = repository.lockExpired(clock.instant().minus(settings.getRetention()), limit);
+        repository.deleteAll(expired);
+        return expired;
+    }
+}
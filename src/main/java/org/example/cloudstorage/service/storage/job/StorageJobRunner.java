@@ -0,0 +1,195 @@
+package org.example.cloudstorage.service.storage.job;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StorageJob;
+import org.example.cloudstorage.service.storage.action.FileActionService;
+import org.example.cloudstorage.service.storage.download.FileDownloadService;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.quota.StorageUsageService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Исполнитель фоновых задач узла: забирает задачи из {@link StorageJobQueue} по мере освобождения
+ * воркеров, выполняет их и пишет прогресс.
+ * <p>
+ * Пока задача выполняется, узел присылает пульс. При штатной остановке задачи узла сразу возвращаются
+ * в очередь; если узел упал, их заберёт другой узел после {@code heartbeatTimeout}. Удаление и перенос
+ * при повторном запуске продолжают с того, что осталось в источнике, архив собирается заново.
+ */
+@Slf4j
+@Component
+public class StorageJobRunner {
+
+    static final String RESULT_PREFIX = "jobs/";
+
+    private final StorageJobQueue queue;
+    private final FileActionService actionService;
+    private final FileDownloadService downloadService;
+    private final StorageUsageService usageService;
+    private final ObjectStoragePort storagePort;
+    private final StorageProperties.Jobs settings;
+
+    private final String workerId = UUID.randomUUID().toString();
+    private final ExecutorService executor;
+    private final Map<String, JobProgress> running = new ConcurrentHashMap<>();
+    private volatile boolean shuttingDown;
+
+    public StorageJobRunner(StorageJobQueue queue,
+                            FileActionService actionService,
+                            FileDownloadService downloadService,
+                            StorageUsageService usageService,
+                            ObjectStoragePort storagePort,
+                            StorageProperties properties) {
+        this.queue = queue;
+        this.actionService = actionService;
+        this.downloadService = downloadService;
+        this.usageService = usageService;
+        this.storagePort = storagePort;
+        this.settings = properties.getJobs();
+        this.executor = Executors.newFixedThreadPool(settings.getWorkers(), new CustomizableThreadFactory("storage-job-"));
+    }
+
+    @Scheduled(fixedDelayString = "${storage.jobs.poll-interval:PT1S}")
+    public void poll() {
+        int free = settings.getWorkers() - running.size();
+        if (free <= 0 || shuttingDown) return;
+
+        try {
+            List<StorageJob> jobs = queue.claim(workerId, free);
+            for (StorageJob job : jobs) {
+                running.put(job.getId(), new JobProgress(job, workerId, queue, settings.getProgressFlushInterval()));
+                executor.execute(() -> run(job));
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to poll job queue: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${storage.jobs.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        try {
+            queue.heartbeat(running.keySet(), workerId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to send job heartbeat: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        shuttingDown = true;
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        int requeued = queue.requeue(workerId);
+        if (requeued > 0) {
+            log.info("{} running jobs returned to the queue on shutdown", requeued);
+        }
+    }
+
+    void run(StorageJob job) {
+        JobProgress progress = running.get(job.getId());
+        log.info("Job {} started: type={}, userId={}, path='{}', attempt {}",
+                job.getId(), job.getType(), job.getOwnerId(), job.getSourcePath(), job.getAttempts());
+        try {
+            String resultKey = switch (job.getType()) {
+                case DELETE -> {
+                    delete(job, progress);
+                    yield null;
+                }
+                case MOVE -> {
+                    move(job, progress);
+                    yield null;
+                }
+                case ZIP -> buildArchive(job, progress);
+            };
+            // Перенос переименованием не сообщает прогресса по объектам: выполненная задача сделана целиком
+            queue.finish(job.getId(), workerId, StorageJob.Status.SUCCEEDED,
+                    Math.max(progress.itemsDone(), job.getItemsTotal()),
+                    Math.max(progress.bytesDone(), job.getBytesTotal()), resultKey, null);
+            log.info("Job {} succeeded: {} items, {} bytes", job.getId(), progress.itemsDone(), progress.bytesDone());
+        } catch (JobProgress.CancelledException e) {
+            queue.finish(job.getId(), workerId, StorageJob.Status.CANCELLED,
+                    progress.itemsDone(), progress.bytesDone(), null, null);
+            log.info("Job {} cancelled after {} items", job.getId(), progress.itemsDone());
+        } catch (RuntimeException | IOException e) {
+            if (shuttingDown) {
+                // Задача вернётся в очередь и продолжится на этом или другом узле
+                log.info("Job {} interrupted by shutdown", job.getId());
+                return;
+            }
+            queue.finish(job.getId(), workerId, StorageJob.Status.FAILED,
+                    progress.itemsDone(), progress.bytesDone(), null, e.getMessage());
+            log.error("Job {} failed: {}", job.getId(), e.getMessage(), e);
+        } finally {
+            running.remove(job.getId());
+        }
+    }
+
+    private void delete(StorageJob job, JobProgress progress) {
+        try {
+            actionService.delete(job.getOwnerId(), job.getSourcePath(), progress);
+        } catch (StorageNotFoundException e) {
+            // Файл удалили до остановки узла, но не успели завершить задачу
+            if (!job.isResumed()) throw e;
+        }
+        if (job.isResumed()) {
+            // Квота последней пачки до остановки могла не вернуться: учёт сверяется с хранилищем
+            usageService.rebuild(job.getOwnerId());
+        }
+    }
+
+    private void move(StorageJob job, JobProgress progress) {
+        if (job.isResumed()) {
+            actionService.resumeMove(job.getOwnerId(), job.getSourcePath(), job.getTargetPath(), progress);
+        } else {
+            actionService.move(job.getOwnerId(), job.getSourcePath(), job.getTargetPath(), progress);
+        }
+    }
+
+    /**
+     * Архив собирается во временный файл и загружается в хранилище целиком: размер известен заранее,
+     * а воркер не держит открытым поток к клиенту.
+     */
+    private String buildArchive(StorageJob job, JobProgress progress) throws IOException {
+        Path archive = Files.createTempFile(workDir(), "storage-job-", ".zip");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(archive))) {
+                downloadService.zipFolder(job.getOwnerId(), job.getSourcePath(), job.getCompression(), progress)
+                        .writeTo(out);
+            }
+
+            String resultKey = RESULT_PREFIX + job.getId() + ".zip";
+            try (InputStream in = Files.newInputStream(archive)) {
+                storagePort.uploadFile(resultKey, in, Files.size(archive), "application/zip");
+            }
+            return resultKey;
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    private Path workDir() {
+        return Path.of(StringUtils.hasText(settings.getWorkDir())
+                ? settings.getWorkDir()
+                : System.getProperty("java.io.tmpdir"));
+    }
+}
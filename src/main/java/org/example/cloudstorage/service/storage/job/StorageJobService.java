@@ -0,0 +1,304 @@
+package org.example.cloudstorage.service.storage.job;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.AppConstants;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.dto.storage.StorageJobDto;
+import org.example.cloudstorage.dto.storage.ZipCompression;
+import org.example.cloudstorage.exception.BadRequestException;
+import org.example.cloudstorage.exception.storage.JobConflictException;
+import org.example.cloudstorage.exception.storage.JobLimitExceededException;
+import org.example.cloudstorage.exception.storage.JobNotFoundException;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.mapper.ResourceResponseMapper;
+import org.example.cloudstorage.model.StorageJob;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.repository.FileMetadataRepository;
+import org.example.cloudstorage.repository.StorageJobRepository;
+import org.example.cloudstorage.service.storage.base.AbstractStorageService;
+import org.example.cloudstorage.service.storage.catalog.FileCatalogService;
+import org.example.cloudstorage.service.storage.download.FileDownload;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.validation.PathValidator;
+import org.example.cloudstorage.util.PathUtils;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.example.cloudstorage.config.AppConstants.ExceptionMessages.JOB_NO_RESULT;
+import static org.example.cloudstorage.config.AppConstants.ExceptionMessages.JOB_RESULT_NOT_READY;
+
+/**
+ * Фоновые операции над папками: удаление, перенос и сборка архива, которые в запросе упираются в таймауты.
+ * <p>
+ * Постановка задачи проверяет запрос так же, как синхронная операция, записывает задачу в очередь и сразу
+ * возвращает её идентификатор. Дальше клиент опрашивает состояние или подписывается на поток событий,
+ * может отменить задачу и, для архива, скачать результат. Объём работы оценивается по каталогу заранее,
+ * поэтому у прогресса есть итог и оценка оставшегося времени.
+ */
+@Slf4j
+@Service
+public class StorageJobService extends AbstractStorageService {
+
+    private static final int RECENT_LIMIT = 50;
+    private static final int CLEANUP_BATCH = 100;
+
+    private final StorageJobRepository repository;
+    private final StorageJobQueue queue;
+    private final FileCatalogService catalog;
+    private final StorageProperties.Jobs settings;
+    private final Clock clock = Clock.systemUTC();
+    private final ScheduledExecutorService events =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("storage-job-events-"));
+
+    public StorageJobService(ObjectStoragePort storagePort,
+                             PathValidator pathValidator,
+                             ResourceResponseMapper resourceMapper,
+                             StorageJobRepository repository,
+                             StorageJobQueue queue,
+                             FileCatalogService catalog,
+                             StorageProperties properties) {
+        super(storagePort, pathValidator, resourceMapper);
+        this.repository = repository;
+        this.queue = queue;
+        this.catalog = catalog;
+        this.settings = properties.getJobs();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        events.shutdownNow();
+    }
+
+    // Постановка
+
+    public StorageJobDto submitDelete(long userId, String path) {
+        log.info("Delete job request: userId={}, path='{}'", userId, path);
+        String fullPath = generateUserPath(userId, path);
+        return submit(userId, StorageJob.Type.DELETE, path, null, null, fullPath);
+    }
+
+    public StorageJobDto submitMove(long userId, String fromPath, String toPath) {
+        log.info("Move job request: userId={}, from='{}', to='{}'", userId, fromPath, toPath);
+        String fullFrom = generateUserPath(userId, fromPath);
+        pathValidator.validateMove(fullFrom, generateUserPath(userId, toPath));
+        return submit(userId, StorageJob.Type.MOVE, fromPath, toPath, null, fullFrom);
+    }
+
+    public StorageJobDto submitZip(long userId, String path, ZipCompression compression) {
+        log.info("Archive job request: userId={}, path='{}', compression={}", userId, path, compression);
+        if (!path.endsWith("/")) {
+            throw new BadRequestException(AppConstants.ExceptionMessages.PATH_MUST_BE_DIRECTORY);
+        }
+        String fullPath = generateUserPath(userId, path);
+        return submit(userId, StorageJob.Type.ZIP, path, null,
+                compression == null ? ZipCompression.AUTO : compression, fullPath);
+    }
+
+    // Чтение и управление
+
+    @Transactional(readOnly = true)
+    public StorageJobDto get(long userId, String jobId) {
+        return toDto(load(userId, jobId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<StorageJobDto> listRecent(long userId) {
+        return repository.findRecent(userId, RECENT_LIMIT).stream()
+                .map(this::toDto)
+                .toList();
+    }
+
+    /**
+     * Задача из очереди отменяется сразу. Выполняющаяся останавливается воркером при ближайшей записи прогресса:
+     * удаление оставляет уже удалённое удалённым, перенос откатывается, недособранный архив выбрасывается.
+     */
+    @Transactional
+    public StorageJobDto cancel(long userId, String jobId) {
+        StorageJob job = load(userId, jobId);
+        if (repository.requestCancel(jobId, userId) == 0) {
+            throw new JobConflictException(AppConstants.ExceptionMessages.JOB_ALREADY_FINISHED, jobId);
+        }
+        log.info("Job {} cancellation requested by user {}", jobId, userId);
+        return toDto(repository.findById(jobId).orElse(job));
+    }
+
+    /**
+     * Поток событий {@code progress} с состоянием задачи: событие уходит при каждом изменении,
+     * после завершения задачи поток закрывается.
+     */
+    public SseEmitter subscribe(long userId, String jobId) {
+        load(userId, jobId);
+        SseEmitter emitter = new SseEmitter(settings.getEventsTimeout().toMillis());
+        AtomicReference<StorageJobDto> lastSent = new AtomicReference<>();
+        AtomicReference<ScheduledFuture<?>> ticker = new AtomicReference<>();
+
+        Runnable stop = () -> {
+            ScheduledFuture<?> future = ticker.get();
+            if (future != null) future.cancel(false);
+        };
+        emitter.onCompletion(stop);
+        emitter.onTimeout(stop);
+        emitter.onError(error -> stop.run());
+
+        long period = settings.getPollInterval().toMillis();
+        ticker.set(events.scheduleAtFixedRate(() -> {
+            try {
+                StorageJobDto state = repository.findByIdAndOwnerId(jobId, userId)
+                        .map(this::toDto)
+                        .orElse(null);
+                if (state == null) {
+                    emitter.complete();
+                    return;
+                }
+                if (!state.equals(lastSent.getAndSet(state))) {
+                    emitter.send(SseEmitter.event().name("progress").data(state, MediaType.APPLICATION_JSON));
+                }
+                if (state.status().isFinished()) {
+                    emitter.complete();
+                }
+            } catch (IOException | RuntimeException e) {
+                // Клиент отключился или БД недоступна: поток закрывается, клиент может подписаться заново
+                log.debug("Job {} event stream closed: {}", jobId, e.getMessage());
+                stop.run();
+                emitter.completeWithError(e);
+            }
+        }, 0, period, TimeUnit.MILLISECONDS));
+        return emitter;
+    }
+
+    /**
+     * Готовый архив задачи сборки.
+     */
+    @Transactional(readOnly = true)
+    public FileDownload downloadResult(long userId, String jobId) {
+        StorageJob job = load(userId, jobId);
+        if (job.getType() != StorageJob.Type.ZIP) {
+            throw new JobConflictException(JOB_NO_RESULT, jobId);
+        }
+        if (job.getStatus() != StorageJob.Status.SUCCEEDED || job.getResultKey() == null) {
+            throw new JobConflictException(JOB_RESULT_NOT_READY, jobId);
+        }
+
+        String resultKey = job.getResultKey();
+        StorageResource archive = storagePort.getResource(resultKey);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentLength(archive.size());
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(PathUtils.getDownloadName(job.getSourcePath()))
+                .build());
+        return new FileDownload(HttpStatus.OK, headers, outputStream -> {
+            try (InputStream is = storagePort.download(resultKey)) {
+                is.transferTo(outputStream);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${storage.jobs.cleanup-interval:PT10M}")
+    public void cleanupExpired() {
+        try {
+            List<StorageJob> expired;
+            while (!(expired = queue.removeExpired(CLEANUP_BATCH)).isEmpty()) {
+                List<String> archives = expired.stream()
+                        .map(StorageJob::getResultKey)
+                        .filter(Objects::nonNull)
+                        .toList();
+                if (!archives.isEmpty()) {
+                    storagePort.deleteObjects(archives);
+                }
+                log.debug("Removed {} expired jobs and {} archives", expired.size(), archives.size());
+                if (expired.size() < CLEANUP_BATCH) break;
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to clean up expired jobs: {}", e.getMessage(), e);
+        }
+    }
+
+    private StorageJobDto submit(long userId, StorageJob.Type type, String sourcePath, String targetPath,
+                                 ZipCompression compression, String fullPath) {
+        // Быстрый отказ до оценки объёма по хранилищу; окончательно лимит проверяется при записи в очередь
+        if (repository.countActive(userId) >= settings.getMaxActivePerUser()) {
+            throw new JobLimitExceededException(fullPath);
+        }
+
+        StorageJob job = new StorageJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setOwnerId(userId);
+        job.setType(type);
+        job.setStatus(StorageJob.Status.QUEUED);
+        job.setSourcePath(sourcePath);
+        job.setTargetPath(targetPath);
+        job.setCompression(compression);
+        job.setCreatedAt(clock.instant());
+        estimate(job, userId, fullPath);
+
+        if (!queue.enqueue(job, settings.getMaxActivePerUser())) {
+            throw new JobLimitExceededException(fullPath);
+        }
+        log.info("Job {} queued: type={}, userId={}, {} items, {} bytes",
+                job.getId(), type, userId, job.getItemsTotal(), job.getBytesTotal());
+        return toDto(job);
+    }
+
+    private void estimate(StorageJob job, long userId, String fullPath) {
+        if (fullPath.endsWith("/")) {
+            if (!storagePort.containsObjects(fullPath)) {
+                throw new StorageNotFoundException(fullPath);
+            }
+            FileMetadataRepository.SubtreeTotals totals = catalog.subtreeTotals(userId, fullPath);
+            job.setItemsTotal(totals.getItems());
+            job.setBytesTotal(totals.getBytes());
+        } else {
+            job.setItemsTotal(1);
+            job.setBytesTotal(storagePort.getResource(fullPath).size());
+        }
+    }
+
+    private StorageJob load(long userId, String jobId) {
+        // Чужая задача неотличима от несуществующей
+        return repository.findByIdAndOwnerId(jobId, userId)
+                .orElseThrow(() -> new JobNotFoundException(jobId));
+    }
+
+    private StorageJobDto toDto(StorageJob job) {
+        return new StorageJobDto(job.getId(), job.getType(), job.getStatus(), job.getSourcePath(), job.getTargetPath(),
+                job.getItemsDone(), job.getItemsTotal(), job.getBytesDone(), job.getBytesTotal(), eta(job),
+                job.getError(), job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt());
+    }
+
+    /**
+     * Оставшееся время по средней скорости с начала выполнения: по байтам, если они есть, иначе по объектам.
+     */
+    private Long eta(StorageJob job) {
+        if (job.getStatus() != StorageJob.Status.RUNNING || job.getStartedAt() == null) return null;
+
+        boolean byBytes = job.getBytesTotal() > 0;
+        long done = byBytes ? job.getBytesDone() : job.getItemsDone();
+        long total = byBytes ? job.getBytesTotal() : job.getItemsTotal();
+        if (done <= 0 || done >= total) return null;
+
+        long elapsed = Duration.between(job.getStartedAt(), clock.instant()).toMillis();
+        return elapsed * (total - done) / done / 1000;
+    }
+}
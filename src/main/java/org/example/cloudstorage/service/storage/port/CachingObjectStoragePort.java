@@ -0,0 +1,237 @@
+package org.example.cloudstorage.service.storage.port;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StorageResource;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Декоратор порта с кэшем метаданных: результаты stat/exists (включая отрицательные)
+ * и проверки непустоты папок. Записи живут ограниченное время и ограничены по количеству.
+ * <p>
+ * Каждая запись через этот порт сбрасывает ровно затронутые ключи и префиксы папок-предков,
+ * поэтому в пределах одного узла кэш не отдаёт устаревшие данные. Изменения, сделанные в обход
+ * приложения или на другом узле, становятся видны по истечении TTL.
+ */
+@Slf4j
+public class CachingObjectStoragePort implements ObjectStoragePort {
+
+    private final ObjectStoragePort delegate;
+    private final Cache<String, Optional<StorageResource>> statCache;
+    private final Cache<String, Boolean> prefixCache;
+
+    public CachingObjectStoragePort(ObjectStoragePort delegate,
+                                    StorageProperties.Cache settings,
+                                    MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.statCache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfter(CachingObjectStoragePort.<Optional<StorageResource>>expiry(
+                        Optional::isPresent, settings.getTtl(), settings.getNegativeTtl()))
+                .recordStats()
+                .build();
+        this.prefixCache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfter(CachingObjectStoragePort.<Boolean>expiry(
+                        Boolean::booleanValue, settings.getTtl(), settings.getNegativeTtl()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, statCache, "storage.metadata.stat");
+        CaffeineCacheMetrics.monitor(meterRegistry, prefixCache, "storage.metadata.prefix");
+    }
+
+    @Override
+    public StorageResource getResource(String path) {
+        return stat(path).orElseThrow(() -> new StorageNotFoundException(path));
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return stat(path).isPresent();
+    }
+
+    @Override
+    public boolean containsObjects(String prefix) {
+        // Кэшируются только префиксы папок: их умеем точно сбрасывать по предкам записанного ключа
+        if (!prefix.endsWith("/")) {
+            return delegate.containsObjects(prefix);
+        }
+        return prefixCache.get(prefix, delegate::containsObjects);
+    }
+
+    @Override
+    public void delete(String path) {
+        try {
+            delegate.delete(path);
+        } finally {
+            invalidate(path);
+        }
+    }
+
+    @Override
+    public void deleteObjects(List<String> paths) {
+        try {
+            delegate.deleteObjects(paths);
+        } finally {
+            paths.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public InputStream download(String path) {
+        return delegate.download(path);
+    }
+
+    @Override
+    public InputStream download(String path, long offset, long length) {
+        return delegate.download(path, offset, length);
+    }
+
+    @Override
+    public StorageResource uploadFile(String fullPath, InputStream data, long size, String contentType) {
+        try {
+            return delegate.uploadFile(fullPath, data, size, contentType);
+        } finally {
+            invalidate(fullPath);
+        }
+    }
+
+    @Override
+    public String startMultipartUpload(String fullPath, String contentType) {
+        return delegate.startMultipartUpload(fullPath, contentType);
+    }
+
+    @Override
+    public String uploadPart(String fullPath, String uploadId, int partNumber, InputStream data, long size) {
+        return delegate.uploadPart(fullPath, uploadId, partNumber, data, size);
+    }
+
+    @Override
+    public StorageResource completeMultipartUpload(String fullPath, String uploadId, List<String> partEtags) {
+        try {
+            return delegate.completeMultipartUpload(fullPath, uploadId, partEtags);
+        } finally {
+            invalidate(fullPath);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String fullPath, String uploadId) {
+        delegate.abortMultipartUpload(fullPath, uploadId);
+    }
+
+    @Override
+    public Stream<StorageResource> streamAllObjectsRecursive(String prefix) {
+        return delegate.streamAllObjectsRecursive(prefix);
+    }
+
+    @Override
+    public Stream<StorageResource> streamFolder(String folderPath) {
+        return delegate.streamFolder(folderPath);
+    }
+
+    @Override
+    public List<StorageResource> listObjects(String prefix, int limit) {
+        return delegate.listObjects(prefix, limit);
+    }
+
+    @Override
+    public StoragePage listFolderPage(String folderPath, String afterKey, int limit) {
+        return delegate.listFolderPage(folderPath, afterKey, limit);
+    }
+
+    @Override
+    public StorageResource createFolder(String folderPath) {
+        try {
+            return delegate.createFolder(folderPath);
+        } finally {
+            invalidate(folderPath);
+        }
+    }
+
+    @Override
+    public void copy(String sourcePath, String destinationPath) {
+        try {
+            delegate.copy(sourcePath, destinationPath);
+        } finally {
+            invalidate(destinationPath);
+        }
+    }
+
+    @Override
+    public boolean rename(String sourcePath, String destinationPath) {
+        boolean renamed = delegate.rename(sourcePath, destinationPath);
+        if (renamed) {
+            // Вместе с папкой переехало всё, что закэшировано под её префиксом, а под новым префиксом
+            // могли остаться отрицательные ответы, например от чтения после прошлого переноса в обратную сторону
+            invalidateSubtree(sourcePath);
+            invalidateSubtree(destinationPath);
+        }
+        return renamed;
+    }
+
+    private Optional<StorageResource> stat(String path) {
+        return statCache.get(path, key -> {
+            try {
+                return Optional.of(delegate.getResource(key));
+            } catch (StorageNotFoundException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Сбрасывает сам ключ и все префиксы папок над ним: появление или исчезновение объекта
+     * может изменить ответ на вопрос «есть ли что-то в папке» для каждого предка.
+     */
+    private void invalidate(String key) {
+        statCache.invalidate(key);
+        for (int slash = key.indexOf('/'); slash != -1; slash = key.indexOf('/', slash + 1)) {
+            prefixCache.invalidate(key.substring(0, slash + 1));
+        }
+        log.trace("Metadata cache invalidated for '{}'", key);
+    }
+
+    /**
+     * Сбрасывает всё закэшированное под префиксом и сам префикс с предками.
+     */
+    private void invalidateSubtree(String prefix) {
+        statCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        prefixCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        invalidate(prefix);
+    }
+
+    // Отрицательные ответы живут меньше: объект может появиться в обход этого узла
+    private static <V> Expiry<String, V> expiry(Predicate<V> positive, Duration ttl, Duration negativeTtl) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, V value, long currentTime) {
+                return (positive.test(value) ? ttl : negativeTtl).toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+}
@@ -0,0 +1,234 @@
+package org.example.cloudstorage.service.storage.port;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.exception.storage.StorageInternalException;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.dedup.BlobCatalog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Порт в режиме дедупликации: пути пользователей — строки {@link BlobCatalog}, содержимое лежит в бакете
+ * под ключами {@value #BLOB_PREFIX}… по одному объекту на каждый уникальный SHA-256.
+ * <p>
+ * Загрузка пишет поток во временный блоб, считая хеш по дороге. Если такое содержимое уже есть, путь
+ * получает ссылку на существующий блоб, а только что записанный удаляется. Копирование, перемещение
+ * и удаление меняют только ссылки; освободившиеся блобы удаляет {@code BlobGarbageCollector}.
+ * <p>
+ * ETag ресурса — SHA-256 содержимого, поэтому одинаковые файлы имеют одинаковый ETag.
+ */
+@Slf4j
+public class DeduplicatingObjectStoragePort implements ObjectStoragePort {
+
+    public static final String BLOB_PREFIX = "blobs/";
+
+    // Идентификатор составной загрузки: <id блоба>:<uploadId хранилища>
+    private static final char UPLOAD_ID_SEPARATOR = ':';
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    private final ObjectStoragePort blobs;
+    private final BlobCatalog catalog;
+
+    public DeduplicatingObjectStoragePort(ObjectStoragePort blobs, BlobCatalog catalog) {
+        this.blobs = blobs;
+        this.catalog = catalog;
+    }
+
+    @Override
+    public StorageResource getResource(String path) {
+        return catalog.find(path).orElseThrow(() -> new StorageNotFoundException(path));
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return catalog.find(path).isPresent();
+    }
+
+    @Override
+    public void delete(String path) {
+        catalog.remove(List.of(path));
+    }
+
+    @Override
+    public void deleteObjects(List<String> paths) {
+        if (paths == null || paths.isEmpty()) return;
+        catalog.remove(paths);
+    }
+
+    @Override
+    public InputStream download(String path) {
+        return path.endsWith("/") ? downloadMarker(path) : blobs.download(blobKey(path));
+    }
+
+    @Override
+    public InputStream download(String path, long offset, long length) {
+        return path.endsWith("/") ? downloadMarker(path) : blobs.download(blobKey(path), offset, length);
+    }
+
+    @Override
+    public StorageResource uploadFile(String fullPath, InputStream data, long size, String contentType) {
+        String storageKey = BLOB_PREFIX + UUID.randomUUID();
+        MessageDigest digest = sha256();
+        StorageResource stored = blobs.uploadFile(storageKey, new DigestInputStream(data, digest), size, contentType);
+        return attach(fullPath, storageKey, HexFormat.of().formatHex(digest.digest()), stored.size(), contentType);
+    }
+
+    @Override
+    public String startMultipartUpload(String fullPath, String contentType) {
+        String blobId = UUID.randomUUID().toString();
+        return blobId + UPLOAD_ID_SEPARATOR + blobs.startMultipartUpload(BLOB_PREFIX + blobId, contentType);
+    }
+
+    @Override
+    public String uploadPart(String fullPath, String uploadId, int partNumber, InputStream data, long size) {
+        return blobs.uploadPart(storageKey(uploadId), storageUploadId(uploadId), partNumber, data, size);
+    }
+
+    /**
+     * Части приходят в разных запросах, поэтому хеш считается повторным чтением собранного объекта.
+     */
+    @Override
+    public StorageResource completeMultipartUpload(String fullPath, String uploadId, List<String> partEtags) {
+        String storageKey = storageKey(uploadId);
+        StorageResource stored = blobs.completeMultipartUpload(storageKey, storageUploadId(uploadId), partEtags);
+
+        MessageDigest digest = sha256();
+        try (InputStream content = new DigestInputStream(blobs.download(storageKey), digest)) {
+            content.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            deleteQuietly(storageKey);
+            throw new StorageInternalException(fullPath, e);
+        }
+        return attach(fullPath, storageKey, HexFormat.of().formatHex(digest.digest()), stored.size(), stored.contentType());
+    }
+
+    @Override
+    public void abortMultipartUpload(String fullPath, String uploadId) {
+        blobs.abortMultipartUpload(storageKey(uploadId), storageUploadId(uploadId));
+    }
+
+    @Override
+    public Stream<StorageResource> streamAllObjectsRecursive(String prefix) {
+        return pages(afterKey -> catalog.listRange(prefix, afterKey, LIST_PAGE_SIZE));
+    }
+
+    @Override
+    public Stream<StorageResource> streamFolder(String folderPath) {
+        return pages(afterKey -> catalog.listChildren(folderPath, afterKey, LIST_PAGE_SIZE));
+    }
+
+    @Override
+    public StoragePage listFolderPage(String folderPath, String afterKey, int limit) {
+        List<StorageResource> items = catalog.listChildren(folderPath, afterKey, limit + 1);
+        if (items.size() <= limit) {
+            return new StoragePage(items, null);
+        }
+        List<StorageResource> page = items.subList(0, limit);
+        return new StoragePage(page, page.get(limit - 1).fullPath());
+    }
+
+    @Override
+    public List<StorageResource> listObjects(String prefix, int limit) {
+        return catalog.listRange(prefix, null, limit);
+    }
+
+    @Override
+    public boolean containsObjects(String prefix) {
+        return catalog.containsAny(prefix);
+    }
+
+    @Override
+    public StorageResource createFolder(String folderPath) {
+        catalog.addFolder(folderPath);
+        return new StorageResource(folderPath, 0);
+    }
+
+    @Override
+    public void copy(String sourcePath, String destinationPath) {
+        log.trace("Dedup: copy reference '{}' -> '{}'", sourcePath, destinationPath);
+        catalog.copy(sourcePath, destinationPath);
+    }
+
+    private StorageResource attach(String fullPath, String storageKey, String hash, long size, String contentType) {
+        String blobKey;
+        try {
+            blobKey = catalog.attach(fullPath, hash, storageKey, size, contentType);
+        } catch (RuntimeException e) {
+            deleteQuietly(storageKey);
+            throw e;
+        }
+
+        if (!blobKey.equals(storageKey)) {
+            log.debug("Dedup: '{}' matches existing blob {} ({} bytes), duplicate removed", fullPath, hash, size);
+            deleteQuietly(storageKey);
+        }
+        return new StorageResource(fullPath, size, contentType, hash, Instant.now());
+    }
+
+    // Не удалённый здесь объект не потеряется: сборщик мусора уберёт блобы, о которых не знает каталог
+    private void deleteQuietly(String storageKey) {
+        try {
+            blobs.delete(storageKey);
+        } catch (RuntimeException e) {
+            log.warn("Dedup: failed to delete unused blob '{}': {}", storageKey, e.getMessage());
+        }
+    }
+
+    // Страницы запрашиваются по мере чтения стрима; короткая страница — последняя
+    private static Stream<StorageResource> pages(Function<String, List<StorageResource>> nextPage) {
+        return Stream.iterate(nextPage.apply(null),
+                        page -> !page.isEmpty(),
+                        page -> page.size() < LIST_PAGE_SIZE
+                                ? List.of()
+                                : nextPage.apply(page.get(page.size() - 1).fullPath()))
+                .flatMap(List::stream);
+    }
+
+    private static String storageKey(String uploadId) {
+        return BLOB_PREFIX + uploadId.substring(0, separatorIndex(uploadId));
+    }
+
+    private static String storageUploadId(String uploadId) {
+        return uploadId.substring(separatorIndex(uploadId) + 1);
+    }
+
+    private static int separatorIndex(String uploadId) {
+        int index = uploadId.indexOf(UPLOAD_ID_SEPARATOR);
+        if (index < 0) {
+            throw new IllegalArgumentException("Not a deduplicated upload id: " + uploadId);
+        }
+        return index;
+    }
+
+    // Как и в бакете, путь без объекта не читается: сервис не должен отдать удалённый файл пустым
+    private String blobKey(String path) {
+        return catalog.findStorageKey(path).orElseThrow(() -> new StorageNotFoundException(path));
+    }
+
+    // Маркер папки в бакете — пустой объект, без содержимого в блобах
+    private InputStream downloadMarker(String path) {
+        getResource(path);
+        return InputStream.nullInputStream();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package org.example.cloudstorage.service.storage.port;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StoragePortConfig;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.exception.storage.StorageInternalException;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StorageResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Хранилище объектов в памяти процесса для тестов и бенчмарков сервисного слоя.
+ * <p>
+ * Ключи лежат в {@link ConcurrentSkipListMap}: рекурсивный листинг — диапазон ключей, плоский листинг
+ * перескакивает через поддерево подпапки одним {@code higherKey}, как S3 с разделителем. Объекты неизменяемы
+ * и подменяются целиком, так что чтение никогда не видит наполовину записанный объект.
+ * <p>
+ * {@link LatencyProfile} добавляет задержку каждому запросу и ограничивает скорость передачи данных,
+ * чтобы нагрузка в процессе была похожа на работу с сетевым хранилищем.
+ */
+@Slf4j
+@Component(StoragePortConfig.BACKEND_PORT)
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "memory")
+public class InMemoryObjectStoragePort implements ObjectStoragePort {
+
+    private static final String SUBTREE_END = String.valueOf(Character.MAX_VALUE);
+
+    private final ConcurrentSkipListMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final LatencyProfile profile;
+
+    /**
+     * Задержка на запрос и пропускная способность в байтах в секунду ({@code 0} — без ограничения).
+     */
+    public record LatencyProfile(Duration requestLatency, long bytesPerSecond) {
+
+        public static final LatencyProfile NONE = new LatencyProfile(Duration.ZERO, 0);
+
+        /**
+         * Порядок величин MinIO в той же сети: единицы миллисекунд на запрос, около гигабита на поток.
+         */
+        public static final LatencyProfile LAN = new LatencyProfile(Duration.ofMillis(2), 120L * 1024 * 1024);
+
+        /**
+         * Порядок величин облачного S3 из той же зоны.
+         */
+        public static final LatencyProfile CLOUD = new LatencyProfile(Duration.ofMillis(20), 80L * 1024 * 1024);
+    }
+
+    public InMemoryObjectStoragePort() {
+        this(LatencyProfile.NONE);
+    }
+
+    @Autowired
+    public InMemoryObjectStoragePort(StorageProperties properties) {
+        this(new LatencyProfile(properties.getMemory().getLatency(), properties.getMemory().getBandwidth().toBytes()));
+    }
+
+    public InMemoryObjectStoragePort(LatencyProfile profile) {
+        this.profile = profile;
+        log.info("In-memory storage: latency={}, bandwidth={} B/s", profile.requestLatency(), profile.bytesPerSecond());
+    }
+
+    @Override
+    public StorageResource getResource(String path) {
+        log.trace("Memory: Stat object request: '{}'", path);
+        roundTrip();
+        return find(path).toResource(path);
+    }
+
+    @Override
+    public void delete(String path) {
+        log.debug("Memory: Remove object request: '{}'", path);
+        roundTrip();
+        objects.remove(path);
+    }
+
+    @Override
+    public void deleteObjects(List<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            log.debug("Memory: Batch delete requested with empty list");
+            return;
+        }
+        log.debug("Memory: Batch delete started for {} objects", paths.size());
+        roundTrip();
+        paths.forEach(objects::remove);
+    }
+
+    @Override
+    public InputStream download(String path) {
+        log.debug("Memory: Download object request: '{}'", path);
+        roundTrip();
+        byte[] data = find(path).data();
+        return throttled(new ByteArrayInputStream(data));
+    }
+
+    @Override
+    public InputStream download(String path, long offset, long length) {
+        log.debug("Memory: Ranged download request: '{}' [{}, +{})", path, offset, length);
+        roundTrip();
+        byte[] data = find(path).data();
+        int from = (int) Math.min(offset, data.length);
+        int to = (int) Math.min(data.length, offset + length);
+        return throttled(new ByteArrayInputStream(data, from, to - from));
+    }
+
+    @Override
+    public StorageResource uploadFile(String fullPath, InputStream data, long size, String contentType) {
+        log.debug("Memory: Uploading object: '{}' ({} bytes, {})", fullPath, size, contentType);
+        roundTrip();
+        byte[] content = read(fullPath, data, size);
+        StoredObject stored = new StoredObject(content, contentType, nextEtag(), Instant.now());
+        objects.put(fullPath, stored);
+        return stored.toResource(fullPath);
+    }
+
+    @Override
+    public String startMultipartUpload(String fullPath, String contentType) {
+        log.debug("Memory: Starting multipart upload: '{}' ({})", fullPath, contentType);
+        roundTrip();
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new Upload(fullPath, contentType, new ConcurrentSkipListMap<>()));
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String fullPath, String uploadId, int partNumber, InputStream data, long size) {
+        log.debug("Memory: Uploading part {} of '{}' ({} bytes)", partNumber, fullPath, size);
+        roundTrip();
+        Upload upload = findUpload(fullPath, uploadId);
+        byte[] content = read(fullPath, data, size);
+        StoredObject part = new StoredObject(content, null, nextEtag(), Instant.now());
+        upload.parts().put(partNumber, part);
+        return part.etag();
+    }
+
+    @Override
+    public StorageResource completeMultipartUpload(String fullPath, String uploadId, List<String> partEtags) {
+        log.debug("Memory: Completing multipart upload: '{}', {} parts", fullPath, partEtags.size());
+        roundTrip();
+        Upload upload = findUpload(fullPath, uploadId);
+        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+        for (int i = 0; i < partEtags.size(); i++) {
+            StoredObject part = upload.parts().get(i + 1);
+            if (part == null || !part.etag().equals(partEtags.get(i))) {
+                throw new StorageInternalException(fullPath,
+                        new IOException("Part " + (i + 1) + " of upload " + uploadId + " is missing or has changed"));
+            }
+            assembled.writeBytes(part.data());
+        }
+        // Как у S3: ETag составного объекта оканчивается числом частей
+        StoredObject stored = new StoredObject(assembled.toByteArray(), upload.contentType(),
+                nextEtag() + "-" + partEtags.size(), Instant.now());
+        objects.put(fullPath, stored);
+        uploads.remove(uploadId);
+        return stored.toResource(fullPath);
+    }
+
+    @Override
+    public void abortMultipartUpload(String fullPath, String uploadId) {
+        log.debug("Memory: Aborting multipart upload: '{}', uploadId={}", fullPath, uploadId);
+        roundTrip();
+        findUpload(fullPath, uploadId);
+        uploads.remove(uploadId);
+    }
+
+    @Override
+    public Stream<StorageResource> streamAllObjectsRecursive(String prefix) {
+        log.debug("Memory: List objects (recursive) with prefix: '{}'", prefix);
+        roundTrip();
+        return subtree(prefix).entrySet().stream()
+                .map(entry -> entry.getValue().toResource(entry.getKey()));
+    }
+
+    @Override
+    public Stream<StorageResource> streamFolder(String folderPath) {
+        log.debug("Memory: List objects (flat) with prefix: '{}'", folderPath);
+        roundTrip();
+        Iterator<StorageResource> iterator = new FlatIterator(folderPath, folderPath);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    @Override
+    public StoragePage listFolderPage(String folderPath, String afterKey, int limit) {
+        log.debug("Memory: List objects page with prefix: '{}', after: '{}', limit: {}", folderPath, afterKey, limit);
+        roundTrip();
+        FlatIterator iterator;
+        if (afterKey == null) {
+            iterator = new FlatIterator(folderPath, folderPath);
+        } else if (afterKey.endsWith("/") && !afterKey.equals(folderPath)) {
+            // После подпапки — сразу за её поддеревом
+            iterator = new FlatIterator(folderPath, afterKey + SUBTREE_END);
+        } else {
+            iterator = new FlatIterator(folderPath, afterKey);
+            iterator.skipExact(afterKey);
+        }
+
+        List<StorageResource> page = new ArrayList<>(limit);
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return new StoragePage(page, iterator.hasNext() && !page.isEmpty() ? page.get(page.size() - 1).fullPath() : null);
+    }
+
+    @Override
+    public StorageResource createFolder(String folderPath) {
+        log.debug("Memory: Creating folder marker: '{}'", folderPath);
+        roundTrip();
+        objects.put(folderPath, new StoredObject(new byte[0], null, nextEtag(), Instant.now()));
+        return new StorageResource(folderPath, 0);
+    }
+
+    @Override
+    public void copy(String sourcePath, String destinationPath) {
+        log.debug("Memory: Copy object: '{}' -> '{}'", sourcePath, destinationPath);
+        roundTrip();
+        StoredObject source = find(sourcePath);
+        // Содержимое неизменяемо, поэтому копия разделяет массив с источником
+        objects.put(destinationPath, new StoredObject(source.data(), source.contentType(), source.etag(), Instant.now()));
+    }
+
+    @Override
+    public boolean exists(String path) {
+        roundTrip();
+        return objects.containsKey(path);
+    }
+
+    @Override
+    public boolean containsObjects(String prefix) {
+        roundTrip();
+        String first = objects.ceilingKey(prefix);
+        return first != null && first.startsWith(prefix);
+    }
+
+    /**
+     * Число объектов: для проверок в тестах и бенчмарках.
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    public void clear() {
+        objects.clear();
+        uploads.clear();
+    }
+
+    private ConcurrentNavigableMap<String, StoredObject> subtree(String prefix) {
+        return objects.subMap(prefix, true, prefix + SUBTREE_END, false);
+    }
+
+    private StoredObject find(String path) {
+        StoredObject stored = objects.get(path);
+        if (stored == null) {
+            throw new StorageNotFoundException(path);
+        }
+        return stored;
+    }
+
+    private Upload findUpload(String fullPath, String uploadId) {
+        Upload upload = uploads.get(uploadId);
+        if (upload == null || !upload.fullPath().equals(fullPath)) {
+            throw new StorageNotFoundException(fullPath);
+        }
+        return upload;
+    }
+
+    private byte[] read(String path, InputStream data, long size) {
+        try (InputStream in = throttled(data)) {
+            byte[] content = size < 0 ? in.readAllBytes() : in.readNBytes(Math.toIntExact(size));
+            if (size >= 0 && content.length != size) {
+                throw new IOException("Stream ended after " + content.length + " of " + size + " bytes");
+            }
+            return content;
+        } catch (IOException e) {
+            throw new StorageInternalException(path, e);
+        }
+    }
+
+    private String nextEtag() {
+        return "%016x".formatted(versions.incrementAndGet());
+    }
+
+    private void roundTrip() {
+        if (!profile.requestLatency().isZero()) {
+            pause(profile.requestLatency().toNanos());
+        }
+    }
+
+    private InputStream throttled(InputStream in) {
+        return profile.bytesPerSecond() > 0 ? new ThrottledInputStream(in, profile.bytesPerSecond()) : in;
+    }
+
+    private static void pause(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private record StoredObject(byte[] data, String contentType, String etag, Instant lastModified) {
+        StorageResource toResource(String key) {
+            return new StorageResource(key, data.length, contentType, etag, lastModified);
+        }
+    }
+
+    /**
+     * Поток, отдающий байты не быстрее заданной скорости: после каждого чтения ждёт, пока не наступит время,
+     * к которому при этой скорости были бы переданы все прочитанные байты.
+     */
+    private static final class ThrottledInputStream extends FilterInputStream {
+
+        private final long bytesPerSecond;
+        private final long start = System.nanoTime();
+        private long transferred;
+
+        private ThrottledInputStream(InputStream in, long bytesPerSecond) {
+            super(in);
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) account(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) account(read);
+            return read;
+        }
+
+        private void account(int bytes) {
+            transferred += bytes;
+            long due = start + transferred * 1_000_000_000L / bytesPerSecond;
+            long wait = due - System.nanoTime();
+            if (wait > 0) pause(wait);
+        }
+    }
+
+    private record Upload(String fullPath, String contentType, ConcurrentSkipListMap<Integer, StoredObject> parts) {
+    }
+
+    /**
+     * Плоский листинг: ключи первого уровня и общие префиксы подпапок. Найдя подпапку, итератор
+     * сразу переходит к первому ключу после её поддерева.
+     */
+    private final class FlatIterator implements Iterator<StorageResource> {
+
+        private final String prefix;
+        private String cursor;
+        private boolean inclusive = true;
+        private StorageResource next;
+
+        private FlatIterator(String prefix, String from) {
+            this.prefix = prefix;
+            this.cursor = from;
+        }
+
+        /**
+         * Пропускает ключ, равный {@code key}: листинг страницы идёт строго после него.
+         */
+        void skipExact(String key) {
+            if (cursor.equals(key)) inclusive = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) next = advance();
+            return next != null;
+        }
+
+        @Override
+        public StorageResource next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            StorageResource current = next;
+            next = null;
+            return current;
+        }
+
+        private StorageResource advance() {
+            Map.Entry<String, StoredObject> entry = inclusive ? objects.ceilingEntry(cursor) : objects.higherEntry(cursor);
+            if (entry == null || !entry.getKey().startsWith(prefix)) return null;
+
+            String key = entry.getKey();
+            int slash = key.indexOf('/', prefix.length());
+            if (slash < 0) {
+                cursor = key;
+                inclusive = false;
+                return entry.getValue().toResource(key);
+            }
+
+            String commonPrefix = key.substring(0, slash + 1);
+            cursor = commonPrefix + SUBTREE_END;
+            inclusive = true;
+            return new StorageResource(commonPrefix, 0);
+        }
+    }
+}
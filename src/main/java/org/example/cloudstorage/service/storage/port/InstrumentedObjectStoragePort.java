@@ -0,0 +1,418 @@
+package org.example.cloudstorage.service.storage.port;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StoragePath;
+import org.example.cloudstorage.model.StorageResource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Декоратор порта с метриками обращений к хранилищу. Стоит прямо над бэкендом, поэтому видит запросы
+ * к MinIO (или другому бэкенду) такими, какими их делает приложение после дедупликации и дерева путей.
+ * <p>
+ * Метрики:
+ * <ul>
+ *     <li>{@code storage.requests} — задержка по операциям с тегами {@code operation}, {@code outcome=success|error}
+ *     и {@code keyspace}; корзины гистограммы — границы SLO из настроек;</li>
+ *     <li>{@code storage.requests.active} — запросы в работе по операциям;</li>
+ *     <li>{@code storage.errors} — ошибки с тегом {@code exception} (подтип {@code StorageException});</li>
+ *     <li>{@code storage.bytes} — переданные данные, {@code direction=in|out};</li>
+ *     <li>{@code storage.list.size} — элементов в ответе листинга, {@code mode=page|stream}.</li>
+ * </ul>
+ * {@code keyspace} — {@code user} для ключей пользователей, иначе первый сегмент ключа ({@code objects},
+ * {@code blobs}, {@code jobs}): пути пользователей в теги не попадают. Конкретные медленные префиксы
+ * ищутся по логу: запросы дольше {@code slow-threshold} пишутся с путём.
+ * <p>
+ * У скачивания время — до получения потока от хранилища, байты считаются при закрытии потока.
+ * У ленивых листингов время — сумма ожиданий хранилища при чтении стрима, без времени потребителя,
+ * а в работе листинг считается, пока стрим не дочитан или не закрыт.
+ */
+@Slf4j
+public class InstrumentedObjectStoragePort implements ObjectStoragePort {
+
+    public static final String REQUESTS = "storage.requests";
+    public static final String ACTIVE = "storage.requests.active";
+    public static final String ERRORS = "storage.errors";
+    public static final String BYTES = "storage.bytes";
+    public static final String LIST_SIZE = "storage.list.size";
+
+    static final String STAT = "stat";
+    static final String LIST = "list";
+    static final String PUT = "put";
+    static final String PUT_PART = "put.part";
+    static final String MULTIPART_START = "multipart.start";
+    static final String MULTIPART_COMPLETE = "multipart.complete";
+    static final String MULTIPART_ABORT = "multipart.abort";
+    static final String GET = "get";
+    static final String COPY = "copy";
+    static final String RENAME = "rename";
+    static final String REMOVE = "remove";
+    static final String REMOVE_BATCH = "remove.batch";
+    static final String CREATE_FOLDER = "mkdir";
+
+    private static final String ROOT_KEYSPACE = "root";
+    private static final String USER_KEYSPACE = "user";
+
+    private final ObjectStoragePort delegate;
+    private final long slowThresholdNanos;
+    private final Meter.MeterProvider<Timer> requests;
+    private final Meter.MeterProvider<LongTaskTimer> active;
+    private final Meter.MeterProvider<Counter> errors;
+    private final Meter.MeterProvider<DistributionSummary> bytes;
+    private final Meter.MeterProvider<DistributionSummary> listSize;
+
+    public InstrumentedObjectStoragePort(ObjectStoragePort delegate,
+                                         StorageProperties.Metrics settings,
+                                         MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.slowThresholdNanos = settings.getSlowThreshold().toNanos();
+        this.requests = Timer.builder(REQUESTS)
+                .description("Latency of object storage requests")
+                .serviceLevelObjectives(settings.getSlo().toArray(Duration[]::new))
+                .withRegistry(meterRegistry);
+        this.active = LongTaskTimer.builder(ACTIVE)
+                .description("Object storage requests in flight")
+                .withRegistry(meterRegistry);
+        this.errors = Counter.builder(ERRORS)
+                .description("Failed object storage requests by exception type")
+                .withRegistry(meterRegistry);
+        this.bytes = DistributionSummary.builder(BYTES)
+                .description("Data transferred to and from object storage")
+                .baseUnit("bytes")
+                .withRegistry(meterRegistry);
+        this.listSize = DistributionSummary.builder(LIST_SIZE)
+                .description("Items returned by object storage listings")
+                .baseUnit("items")
+                .withRegistry(meterRegistry);
+    }
+
+    @Override
+    public StorageResource getResource(String path) {
+        return call(STAT, path, () -> delegate.getResource(path));
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return call(STAT, path, () -> delegate.exists(path));
+    }
+
+    @Override
+    public void delete(String path) {
+        run(REMOVE, path, () -> delegate.delete(path));
+    }
+
+    @Override
+    public void deleteObjects(List<String> paths) {
+        // Пачка относится к одному пространству ключей: папка пользователя или служебный префикс
+        String path = paths == null || paths.isEmpty() ? null : paths.get(0);
+        run(REMOVE_BATCH, path, () -> delegate.deleteObjects(paths));
+    }
+
+    @Override
+    public InputStream download(String path) {
+        return countOut(path, call(GET, path, () -> delegate.download(path)));
+    }
+
+    @Override
+    public InputStream download(String path, long offset, long length) {
+        return countOut(path, call(GET, path, () -> delegate.download(path, offset, length)));
+    }
+
+    @Override
+    public StorageResource uploadFile(String fullPath, InputStream data, long size, String contentType) {
+        if (size >= 0) {
+            StorageResource resource = call(PUT, fullPath, () -> delegate.uploadFile(fullPath, data, size, contentType));
+            countIn(fullPath, size);
+            return resource;
+        }
+        CountingInputStream counted = new CountingInputStream(data, null);
+        StorageResource resource = call(PUT, fullPath, () -> delegate.uploadFile(fullPath, counted, size, contentType));
+        countIn(fullPath, counted.count);
+        return resource;
+    }
+
+    @Override
+    public String startMultipartUpload(String fullPath, String contentType) {
+        return call(MULTIPART_START, fullPath, () -> delegate.startMultipartUpload(fullPath, contentType));
+    }
+
+    @Override
+    public String uploadPart(String fullPath, String uploadId, int partNumber, InputStream data, long size) {
+        String etag = call(PUT_PART, fullPath, () -> delegate.uploadPart(fullPath, uploadId, partNumber, data, size));
+        countIn(fullPath, size);
+        return etag;
+    }
+
+    @Override
+    public StorageResource completeMultipartUpload(String fullPath, String uploadId, List<String> partEtags) {
+        return call(MULTIPART_COMPLETE, fullPath, () -> delegate.completeMultipartUpload(fullPath, uploadId, partEtags));
+    }
+
+    @Override
+    public void abortMultipartUpload(String fullPath, String uploadId) {
+        run(MULTIPART_ABORT, fullPath, () -> delegate.abortMultipartUpload(fullPath, uploadId));
+    }
+
+    @Override
+    public Stream<StorageResource> streamAllObjectsRecursive(String prefix) {
+        return measureListing(prefix, () -> delegate.streamAllObjectsRecursive(prefix));
+    }
+
+    @Override
+    public Stream<StorageResource> streamFolder(String folderPath) {
+        return measureListing(folderPath, () -> delegate.streamFolder(folderPath));
+    }
+
+    @Override
+    public StoragePage listFolderPage(String folderPath, String afterKey, int limit) {
+        StoragePage page = call(LIST, folderPath, () -> delegate.listFolderPage(folderPath, afterKey, limit));
+        countListed("page", folderPath, page.items().size());
+        return page;
+    }
+
+    @Override
+    public List<StorageResource> listObjects(String prefix, int limit) {
+        List<StorageResource> page = call(LIST, prefix, () -> delegate.listObjects(prefix, limit));
+        countListed("page", prefix, page.size());
+        return page;
+    }
+
+    @Override
+    public boolean containsObjects(String prefix) {
+        return call(LIST, prefix, () -> delegate.containsObjects(prefix));
+    }
+
+    @Override
+    public StorageResource createFolder(String folderPath) {
+        return call(CREATE_FOLDER, folderPath, () -> delegate.createFolder(folderPath));
+    }
+
+    @Override
+    public void copy(String sourcePath, String destinationPath) {
+        run(COPY, sourcePath, () -> delegate.copy(sourcePath, destinationPath));
+    }
+
+    @Override
+    public boolean rename(String sourcePath, String destinationPath) {
+        return call(RENAME, sourcePath, () -> delegate.rename(sourcePath, destinationPath));
+    }
+
+    /**
+     * Пространство ключей для тегов: {@code user} для ключей пользователей, иначе первый сегмент ключа.
+     */
+    static String keyspace(String path) {
+        if (path == null || path.isEmpty()) return ROOT_KEYSPACE;
+        if (StoragePath.parse(path).hasOwner()) return USER_KEYSPACE;
+        int slash = path.indexOf('/');
+        return slash <= 0 ? ROOT_KEYSPACE : path.substring(0, slash);
+    }
+
+    private <T> T call(String operation, String path, Supplier<T> request) {
+        Measurement measurement = new Measurement(operation, path);
+        long start = System.nanoTime();
+        try {
+            T result = request.get();
+            measurement.stop(System.nanoTime() - start, null);
+            return result;
+        } catch (RuntimeException e) {
+            measurement.stop(System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    private void run(String operation, String path, Runnable request) {
+        call(operation, path, () -> {
+            request.run();
+            return null;
+        });
+    }
+
+    private Stream<StorageResource> measureListing(String path, Supplier<Stream<StorageResource>> open) {
+        Measurement measurement = new Measurement(LIST, path);
+        long start = System.nanoTime();
+        Stream<StorageResource> source;
+        try {
+            source = open.get();
+        } catch (RuntimeException e) {
+            measurement.stop(System.nanoTime() - start, e);
+            throw e;
+        }
+        MeasuredListing listing = new MeasuredListing(source.spliterator(), measurement, System.nanoTime() - start);
+        return StreamSupport.stream(listing, false)
+                .onClose(listing::close)
+                .onClose(source::close);
+    }
+
+    private InputStream countOut(String path, InputStream data) {
+        return new CountingInputStream(data, count -> bytes.withTags("direction", "out", "keyspace", keyspace(path))
+                .record(count));
+    }
+
+    private void countIn(String path, long count) {
+        bytes.withTags("direction", "in", "keyspace", keyspace(path)).record(count);
+    }
+
+    private void countListed(String mode, String path, long count) {
+        listSize.withTags("mode", mode, "keyspace", keyspace(path)).record(count);
+    }
+
+    /**
+     * Один запрос к хранилищу: считается в работе с создания до {@link #stop}.
+     */
+    private final class Measurement {
+
+        private final String operation;
+        private final String path;
+        private final LongTaskTimer.Sample sample;
+
+        private Measurement(String operation, String path) {
+            this.operation = operation;
+            this.path = path;
+            this.sample = active.withTags("operation", operation).start();
+        }
+
+        private void stop(long nanos, RuntimeException error) {
+            sample.stop();
+            requests.withTags("operation", operation, "outcome", error == null ? "success" : "error",
+                    "keyspace", keyspace(path)).record(nanos, TimeUnit.NANOSECONDS);
+            if (error != null) {
+                errors.withTags("operation", operation, "exception", error.getClass().getSimpleName()).increment();
+            }
+            if (nanos >= slowThresholdNanos) {
+                log.warn("Slow storage request: {} '{}' took {} ms{}", operation, path, nanos / 1_000_000,
+                        error == null ? "" : " and failed with " + error.getClass().getSimpleName());
+            }
+        }
+    }
+
+    /**
+     * Обёртка листинга: копит время внутри хранилища и число элементов, фиксирует их один раз —
+     * когда стрим дочитан, упал или закрыт.
+     */
+    private final class MeasuredListing implements Spliterator<StorageResource> {
+
+        private final Spliterator<StorageResource> source;
+        private final Measurement measurement;
+        private long nanos;
+        private long count;
+        private boolean done;
+        private StorageResource next;
+
+        private MeasuredListing(Spliterator<StorageResource> source, Measurement measurement, long openNanos) {
+            this.source = source;
+            this.measurement = measurement;
+            this.nanos = openNanos;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StorageResource> action) {
+            if (done) return false;
+            long start = System.nanoTime();
+            boolean advanced;
+            try {
+                // Элемент отдаётся потребителю после замера, чтобы его работа не попала во время хранилища
+                advanced = source.tryAdvance(item -> next = item);
+            } catch (RuntimeException e) {
+                nanos += System.nanoTime() - start;
+                finish(e);
+                throw e;
+            }
+            nanos += System.nanoTime() - start;
+            if (!advanced) {
+                finish(null);
+                return false;
+            }
+            count++;
+            StorageResource item = next;
+            next = null;
+            action.accept(item);
+            return true;
+        }
+
+        @Override
+        public Spliterator<StorageResource> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & ~(SIZED | SUBSIZED);
+        }
+
+        private void close() {
+            finish(null);
+        }
+
+        private void finish(RuntimeException error) {
+            if (done) return;
+            done = true;
+            measurement.stop(nanos, error);
+            countListed("stream", measurement.path, count);
+        }
+    }
+
+    /**
+     * Считает прочитанные байты; {@code onClose} получает их число один раз при закрытии.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final LongConsumer onClose;
+        private long count;
+        private boolean closed;
+
+        private CountingInputStream(InputStream in, LongConsumer onClose) {
+            super(in);
+            this.onClose = onClose;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!closed && onClose != null) {
+                    onClose.accept(count);
+                }
+                closed = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,806 @@
+package org.example.cloudstorage.service.storage.port;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StoragePortConfig;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.exception.storage.*;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StorageResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Хранилище объектов в локальной файловой системе: ключ — путь файла относительно {@code <root>/data}.
+ * <p>
+ * Семантика повторяет S3, чтобы сервисы и декораторы не замечали разницы:
+ * <ul>
+ *     <li>папка существует как объект, только если для неё создан маркер — файл {@value #FOLDER_MARKER} внутри
+ *     каталога; каталоги без маркера видны только как общие префиксы листинга;</li>
+ *     <li>листинг идёт в лексикографическом порядке ключей, как в S3;</li>
+ *     <li>объект появляется целиком или не появляется: запись идёт во временный файл в {@code <root>/tmp}
+ *     и переносится на место атомарным rename.</li>
+ * </ul>
+ * Копирование и сборка multipart-загрузки идут через {@link FileChannel#transferTo} (copy_file_range/sendfile)
+ * без копирования данных через heap. Перенос файла и папки — один {@link Files#move}.
+ * <p>
+ * Тип содержимого хранится в расширенном атрибуте файла, если файловая система их поддерживает,
+ * иначе определяется по имени.
+ */
+@Slf4j
+@Component(StoragePortConfig.BACKEND_PORT)
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "local")
+public class LocalFileSystemStorageAdapter implements ObjectStoragePort {
+
+    // Символ '#' запрещён в пользовательских путях, поэтому маркер не совпадёт с именем файла
+    static final String FOLDER_MARKER = "#folder";
+
+    private static final String CONTENT_TYPE_ATTRIBUTE = "content-type";
+    private static final String UPLOADS_DIR = "uploads";
+    private static final String UPLOAD_CONTENT_TYPE = "content-type";
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    // Каталог мог удалить параллельный prune пустых родителей между созданием и переносом файла
+    private static final int PLACE_ATTEMPTS = 3;
+
+    private final Path data;
+    private final Path tmp;
+    private final boolean extendedAttributes;
+
+    @Autowired
+    public LocalFileSystemStorageAdapter(StorageProperties properties) {
+        this(Path.of(properties.getLocal().getRoot()));
+    }
+
+    public LocalFileSystemStorageAdapter(Path root) {
+        Path absoluteRoot = root.toAbsolutePath().normalize();
+        this.data = absoluteRoot.resolve("data");
+        this.tmp = absoluteRoot.resolve("tmp");
+        try {
+            Files.createDirectories(data);
+            Files.createDirectories(tmp.resolve(UPLOADS_DIR));
+            this.extendedAttributes = Files.getFileStore(data).supportsFileAttributeView(UserDefinedFileAttributeView.class);
+            removeAbandonedWrites();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not initialize local storage at " + absoluteRoot, e);
+        }
+        log.info("Local storage at '{}', extended attributes: {}", absoluteRoot, extendedAttributes);
+    }
+
+    @Override
+    public StorageResource getResource(String path) {
+        log.trace("Local: Stat object request: '{}'", path);
+        return handleRequest(path, () -> {
+            Path file = objectFile(path);
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                throw new StorageNotFoundException(path);
+            }
+            String contentType = path.endsWith("/") ? null : readContentType(file, path);
+            return toResource(path, attributes, contentType);
+        });
+    }
+
+    @Override
+    public void delete(String path) {
+        log.debug("Local: Remove object request: '{}'", path);
+        handleRequest(path, () -> {
+            deleteObject(path);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteObjects(List<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            log.debug("Local: Batch delete requested with empty list");
+            return;
+        }
+
+        log.debug("Local: Batch delete started for {} objects", paths.size());
+        for (String path : paths) {
+            try {
+                deleteObject(path);
+            } catch (IOException | RuntimeException e) {
+                log.error("Local: Error deleting object {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public InputStream download(String path) {
+        log.debug("Local: Download object request: '{}'", path);
+        return handleRequest(path, () -> {
+            FileChannel channel = openObject(path);
+            return new FileRegionInputStream(channel, 0, channel.size());
+        });
+    }
+
+    @Override
+    public InputStream download(String path, long offset, long length) {
+        log.debug("Local: Ranged download request: '{}' [{}, +{})", path, offset, length);
+        return handleRequest(path, () -> {
+            FileChannel channel = openObject(path);
+            long end = Math.min(channel.size(), offset + length);
+            return new FileRegionInputStream(channel, Math.min(offset, end), end);
+        });
+    }
+
+    @Override
+    public StorageResource uploadFile(String fullPath, InputStream data, long size, String contentType) {
+        log.debug("Local: Uploading object: '{}' ({} bytes, {})", fullPath, size, contentType);
+        return handleRequest(fullPath, () -> {
+            Path staged = newTempFile();
+            try {
+                long written = writeStream(staged, data, size);
+                if (size >= 0 && written != size) {
+                    throw new IOException("Stream ended after " + written + " of " + size + " bytes");
+                }
+                writeContentType(staged, contentType);
+                Path target = place(staged, fullPath);
+                return toResource(fullPath, Files.readAttributes(target, BasicFileAttributes.class), contentType);
+            } finally {
+                Files.deleteIfExists(staged);
+            }
+        });
+    }
+
+    @Override
+    public String startMultipartUpload(String fullPath, String contentType) {
+        log.debug("Local: Starting multipart upload: '{}' ({})", fullPath, contentType);
+        return handleRequest(fullPath, () -> {
+            String uploadId = UUID.randomUUID().toString();
+            Path dir = Files.createDirectory(uploadDir(uploadId));
+            if (contentType != null) {
+                Files.writeString(dir.resolve(UPLOAD_CONTENT_TYPE), contentType, StandardCharsets.UTF_8);
+            }
+            return uploadId;
+        });
+    }
+
+    @Override
+    public String uploadPart(String fullPath, String uploadId, int partNumber, InputStream data, long size) {
+        log.debug("Local: Uploading part {} of '{}' ({} bytes)", partNumber, fullPath, size);
+        return handleRequest(fullPath, () -> {
+            Path dir = existingUploadDir(fullPath, uploadId);
+            Path staged = newTempFile();
+            try {
+                long written = writeStream(staged, data, size);
+                if (written != size) {
+                    throw new IOException("Part " + partNumber + " ended after " + written + " of " + size + " bytes");
+                }
+                // Повторная загрузка того же номера заменяет часть целиком
+                Path part = Files.move(staged, dir.resolve(partName(partNumber)),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                return etag(Files.readAttributes(part, BasicFileAttributes.class));
+            } finally {
+                Files.deleteIfExists(staged);
+            }
+        });
+    }
+
+    @Override
+    public StorageResource completeMultipartUpload(String fullPath, String uploadId, List<String> partEtags) {
+        log.debug("Local: Completing multipart upload: '{}', {} parts", fullPath, partEtags.size());
+        handleRequest(fullPath, () -> {
+            Path dir = existingUploadDir(fullPath, uploadId);
+            Path staged = newTempFile();
+            try {
+                try (FileChannel out = FileChannel.open(staged, StandardOpenOption.WRITE)) {
+                    for (int i = 0; i < partEtags.size(); i++) {
+                        Path part = dir.resolve(partName(i + 1));
+                        String actual = etag(Files.readAttributes(part, BasicFileAttributes.class));
+                        if (!actual.equals(partEtags.get(i))) {
+                            throw new IOException("Part " + (i + 1) + " of upload " + uploadId + " has changed");
+                        }
+                        try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                            transfer(in, 0, in.size(), out);
+                        }
+                    }
+                }
+                Path contentType = dir.resolve(UPLOAD_CONTENT_TYPE);
+                writeContentType(staged, Files.exists(contentType) ? Files.readString(contentType) : null);
+                place(staged, fullPath);
+            } finally {
+                Files.deleteIfExists(staged);
+            }
+            FileSystemUtils.deleteRecursively(dir);
+            return null;
+        });
+        return getResource(fullPath);
+    }
+
+    @Override
+    public void abortMultipartUpload(String fullPath, String uploadId) {
+        log.debug("Local: Aborting multipart upload: '{}', uploadId={}", fullPath, uploadId);
+        handleRequest(fullPath, () -> {
+            FileSystemUtils.deleteRecursively(existingUploadDir(fullPath, uploadId));
+            return null;
+        });
+    }
+
+    @Override
+    public Stream<StorageResource> streamAllObjectsRecursive(String prefix) {
+        log.debug("Local: List objects (recursive) with prefix: '{}'", prefix);
+        return stream(new KeyIterator(prefix, true));
+    }
+
+    @Override
+    public Stream<StorageResource> streamFolder(String folderPath) {
+        log.debug("Local: List objects (flat) with prefix: '{}'", folderPath);
+        return stream(new KeyIterator(folderPath, false));
+    }
+
+    @Override
+    public StoragePage listFolderPage(String folderPath, String afterKey, int limit) {
+        log.debug("Local: List objects page with prefix: '{}', after: '{}', limit: {}", folderPath, afterKey, limit);
+        // Подпапка в плоском листинге — один общий префикс, поэтому её содержимое пропускается само.
+        // Обход начинается сразу после afterKey: ключи до него не читаются с диска и не проверяются
+        try (Stream<StorageResource> resources = stream(new KeyIterator(folderPath, false, afterKey))) {
+            List<StorageResource> items = resources
+                    .limit(limit + 1L)
+                    .toList();
+            boolean hasMore = items.size() > limit;
+            List<StorageResource> page = hasMore ? items.subList(0, limit) : items;
+            return new StoragePage(page, hasMore ? page.get(page.size() - 1).fullPath() : null);
+        }
+    }
+
+    @Override
+    public StorageResource createFolder(String folderPath) {
+        log.debug("Local: Creating folder marker: '{}'", folderPath);
+        handleRequest(folderPath, () -> {
+            Path staged = newTempFile();
+            try {
+                place(staged, folderPath);
+            } finally {
+                Files.deleteIfExists(staged);
+            }
+            return null;
+        });
+        return new StorageResource(folderPath, 0);
+    }
+
+    @Override
+    public void copy(String sourcePath, String destinationPath) {
+        log.debug("Local: Copy object: '{}' -> '{}'", sourcePath, destinationPath);
+        handleRequest(sourcePath, () -> {
+            Path source = objectFile(sourcePath);
+            Path staged = newTempFile();
+            try {
+                try (FileChannel in = openObject(sourcePath);
+                     FileChannel out = FileChannel.open(staged, StandardOpenOption.WRITE)) {
+                    transfer(in, 0, in.size(), out);
+                }
+                if (!sourcePath.endsWith("/")) {
+                    writeContentType(staged, readContentType(source, sourcePath));
+                }
+                place(staged, destinationPath);
+            } finally {
+                Files.deleteIfExists(staged);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public boolean exists(String path) {
+        try {
+            getResource(path);
+            return true;
+        } catch (StorageNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Файл и папка со всем содержимым переносятся одним rename. Если папка назначения уже существует
+     * и не пуста или файловая система не умеет атомарный перенос, возвращает {@code false}.
+     */
+    @Override
+    public boolean rename(String sourcePath, String destinationPath) {
+        log.debug("Local: Rename: '{}' -> '{}'", sourcePath, destinationPath);
+        Path source = sourcePath.endsWith("/") ? keyPath(sourcePath) : objectFile(sourcePath);
+        Path target = destinationPath.endsWith("/") ? keyPath(destinationPath) : objectFile(destinationPath);
+        return handleRequest(sourcePath, () -> {
+            boolean folder = sourcePath.endsWith("/");
+            if (folder ? !Files.isDirectory(source, LinkOption.NOFOLLOW_LINKS) : !Files.isRegularFile(source, LinkOption.NOFOLLOW_LINKS)) {
+                throw new StorageNotFoundException(sourcePath);
+            }
+            if (folder && !isEmptyOrMissing(target)) {
+                return false;
+            }
+            try {
+                Files.createDirectories(target.getParent());
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                log.debug("Local: Rename of '{}' is not atomic here, falling back to copy: {}", sourcePath, e.getMessage());
+                return false;
+            }
+            pruneEmptyParents(source.getParent());
+            return true;
+        });
+    }
+
+    // Ключи и файлы
+
+    /**
+     * Путь по ключу без учёта маркеров. Ключ не может выйти за корень хранилища.
+     */
+    private Path keyPath(String key) {
+        Path path = data.resolve(key).normalize();
+        if (!path.startsWith(data)) {
+            throw new StorageAccessDeniedException(key, null);
+        }
+        return path;
+    }
+
+    /**
+     * Файл объекта: для папки — её маркер.
+     */
+    private Path objectFile(String key) {
+        Path path = keyPath(key);
+        return key.endsWith("/") ? path.resolve(FOLDER_MARKER) : path;
+    }
+
+    private String key(Path path, boolean directory) {
+        String relative = data.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+        return directory && !relative.isEmpty() ? relative + "/" : relative;
+    }
+
+    private FileChannel openObject(String key) throws IOException {
+        Path file = objectFile(key);
+        if (Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+            throw new StorageNotFoundException(key);
+        }
+        return FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    private void deleteObject(String path) throws IOException {
+        Path file = objectFile(path);
+        if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+            // Как в S3, удаление несуществующего ключа ничего не делает
+            return;
+        }
+        if (Files.deleteIfExists(file)) {
+            pruneEmptyParents(file.getParent());
+        }
+    }
+
+    private static boolean isEmptyOrMissing(Path dir) throws IOException {
+        if (!Files.exists(dir, LinkOption.NOFOLLOW_LINKS)) return true;
+        if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) return false;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            return !entries.iterator().hasNext();
+        }
+    }
+
+    /**
+     * Удаляет опустевшие каталоги вверх до корня: без маркера пустой каталог в S3 не существовал бы.
+     */
+    private void pruneEmptyParents(Path dir) {
+        Path current = dir;
+        while (current != null && current.startsWith(data) && !current.equals(data)) {
+            try {
+                Files.delete(current);
+            } catch (DirectoryNotEmptyException | NoSuchFileException e) {
+                return;
+            } catch (IOException e) {
+                log.debug("Local: Could not prune '{}': {}", current, e.getMessage());
+                return;
+            }
+            current = current.getParent();
+        }
+    }
+
+    /**
+     * Переносит подготовленный файл на место объекта атомарным rename, создавая каталоги по пути.
+     */
+    private Path place(Path staged, String key) throws IOException {
+        Path target = objectFile(key);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Files.createDirectories(target.getParent());
+                return Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (NoSuchFileException e) {
+                if (attempt == PLACE_ATTEMPTS) throw e;
+            } catch (FileSystemException e) {
+                if (blockedByFileTree(target)) {
+                    // В S3 ключи "a" и "a/b" независимы, в файловой системе одно из них должно быть каталогом
+                    throw new StorageConflictException(key);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private boolean blockedByFileTree(Path target) {
+        if (Files.isDirectory(target, LinkOption.NOFOLLOW_LINKS)) return true;
+        for (Path parent = target.getParent(); parent != null && !parent.equals(data); parent = parent.getParent()) {
+            if (Files.isRegularFile(parent, LinkOption.NOFOLLOW_LINKS)) return true;
+        }
+        return false;
+    }
+
+    private Path newTempFile() throws IOException {
+        return Files.createTempFile(tmp, "object-", ".tmp");
+    }
+
+    private void removeAbandonedWrites() throws IOException {
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(tmp, "*.tmp")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    // Загрузки по частям
+
+    private Path uploadDir(String uploadId) {
+        Path dir = tmp.resolve(UPLOADS_DIR).resolve(uploadId).normalize();
+        if (!dir.getParent().equals(tmp.resolve(UPLOADS_DIR))) {
+            throw new IllegalArgumentException("Invalid upload id: " + uploadId);
+        }
+        return dir;
+    }
+
+    private Path existingUploadDir(String fullPath, String uploadId) {
+        Path dir = uploadDir(uploadId);
+        if (!Files.isDirectory(dir)) {
+            throw new StorageNotFoundException(fullPath);
+        }
+        return dir;
+    }
+
+    private static String partName(int partNumber) {
+        return "%05d.part".formatted(partNumber);
+    }
+
+    // Передача данных
+
+    /**
+     * Пишет поток в файл. {@link FileChannel#transferFrom} из произвольного канала читает через временный
+     * direct-буфер потока, так что данные попадают в файл без промежуточных массивов в heap.
+     */
+    private static long writeStream(Path file, InputStream data, long size) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ReadableByteChannel in = Channels.newChannel(data);
+            long position = 0;
+            while (size < 0 || position < size) {
+                long chunk = size < 0 ? TRANSFER_CHUNK : Math.min(TRANSFER_CHUNK, size - position);
+                long transferred = out.transferFrom(in, position, chunk);
+                if (transferred == 0) break;
+                position += transferred;
+            }
+            return position;
+        }
+    }
+
+    private static void transfer(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long transferred = in.transferTo(position, end - position, out);
+            if (transferred == 0) {
+                throw new IOException("Unexpected end of file at " + position);
+            }
+            position += transferred;
+        }
+    }
+
+    // Метаданные
+
+    private StorageResource toResource(String key, BasicFileAttributes attributes, String contentType) {
+        return new StorageResource(key, attributes.size(), contentType, etag(attributes),
+                attributes.lastModifiedTime().toInstant());
+    }
+
+    /**
+     * ETag по размеру и времени изменения: объект перезаписывается только целиком через rename,
+     * так что новая версия всегда получает новое время.
+     */
+    private static String etag(BasicFileAttributes attributes) {
+        Instant modified = attributes.lastModifiedTime().toInstant();
+        return "%x%09x-%x".formatted(modified.getEpochSecond(), modified.getNano(), attributes.size());
+    }
+
+    private void writeContentType(Path file, String contentType) throws IOException {
+        if (!extendedAttributes || contentType == null) return;
+        Files.getFileAttributeView(file, UserDefinedFileAttributeView.class)
+                .write(CONTENT_TYPE_ATTRIBUTE, StandardCharsets.UTF_8.encode(contentType));
+    }
+
+    private String readContentType(Path file, String key) throws IOException {
+        if (extendedAttributes) {
+            UserDefinedFileAttributeView view = Files.getFileAttributeView(file, UserDefinedFileAttributeView.class);
+            if (view.list().contains(CONTENT_TYPE_ATTRIBUTE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(view.size(CONTENT_TYPE_ATTRIBUTE));
+                view.read(CONTENT_TYPE_ATTRIBUTE, buffer);
+                return StandardCharsets.UTF_8.decode(buffer.flip()).toString();
+            }
+        }
+        return URLConnection.guessContentTypeFromName(key);
+    }
+
+    // Листинг
+
+    private Stream<StorageResource> stream(Iterator<StorageResource> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Ленивый обход ключей под префиксом в порядке S3. Каталог читается целиком при входе в него и сортируется:
+     * имени подкаталога соответствует ключ {@code name/}, поэтому всё его содержимое встаёт ровно на место
+     * этого ключа среди соседей. Без рекурсии подкаталоги отдаются общими префиксами. С {@code afterKey}
+     * обход начинается с первого ключа после него: место в отсортированном каталоге ищется двоичным поиском.
+     */
+    private final class KeyIterator implements Iterator<StorageResource> {
+
+        private final String prefix;
+        private final boolean recursive;
+        private final Deque<Iterator<Path>> stack = new ArrayDeque<>();
+        private StorageResource next;
+
+        private KeyIterator(String prefix, boolean recursive) {
+            this(prefix, recursive, null);
+        }
+
+        private KeyIterator(String prefix, boolean recursive, String afterKey) {
+            this.prefix = prefix;
+            this.recursive = recursive;
+
+            int slash = prefix.lastIndexOf('/');
+            String dirKey = prefix.substring(0, slash + 1);
+            Path dir = keyPath(dirKey);
+            String namePrefix = prefix.substring(slash + 1);
+            if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) return;
+
+            if (namePrefix.isEmpty() && (afterKey == null || afterKey.compareTo(dirKey) < 0)) {
+                // Маркер самой папки: ключ "a/" при префиксе "a/"
+                Path marker = dir.resolve(FOLDER_MARKER);
+                if (!dir.equals(data) && Files.isRegularFile(marker)) {
+                    next = resource(marker, key(dir, true));
+                }
+            }
+            List<Map.Entry<String, Path>> entries = sortedChildren(dir, name -> name.startsWith(namePrefix));
+            int from = afterKey == null ? 0 : firstAfter(entries, dirKey, afterKey);
+            stack.push(entries.subList(from, entries.size()).stream().map(Map.Entry::getValue).iterator());
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public StorageResource next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            StorageResource current = next;
+            next = null;
+            return current;
+        }
+
+        private StorageResource advance() {
+            while (!stack.isEmpty()) {
+                Iterator<Path> level = stack.peek();
+                if (!level.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+
+                Path child = level.next();
+                if (!Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    return resource(child, key(child, false));
+                }
+
+                String dirKey = key(child, true);
+                if (!recursive) {
+                    // Общий префикс есть в S3, только если под ним есть хотя бы один ключ
+                    if (containsKeys(child)) return new StorageResource(dirKey, 0);
+                    continue;
+                }
+
+                stack.push(children(child, name -> true).iterator());
+                Path marker = child.resolve(FOLDER_MARKER);
+                if (Files.isRegularFile(marker)) {
+                    return resource(marker, dirKey);
+                }
+            }
+            return null;
+        }
+
+        private boolean containsKeys(Path dir) {
+            Deque<Path> pending = new ArrayDeque<>(List.of(dir));
+            while (!pending.isEmpty()) {
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(pending.pop())) {
+                    for (Path entry : entries) {
+                        if (!Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) return true;
+                        pending.push(entry);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Каталог удалили во время обхода
+                } catch (IOException e) {
+                    throw new StorageInternalException(prefix, e);
+                }
+            }
+            return false;
+        }
+
+        private List<Path> children(Path dir, Predicate<String> nameFilter) {
+            return sortedChildren(dir, nameFilter).stream().map(Map.Entry::getValue).toList();
+        }
+
+        // Записи каталога с ключами относительно него, отсортированные по ключу
+        private List<Map.Entry<String, Path>> sortedChildren(Path dir, Predicate<String> nameFilter) {
+            List<Map.Entry<String, Path>> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    String name = entry.getFileName().toString();
+                    if (name.equals(FOLDER_MARKER)) continue;
+                    String sortKey = Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS) ? name + "/" : name;
+                    if (nameFilter.test(sortKey)) {
+                        entries.add(Map.entry(sortKey, entry));
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                return List.of();
+            } catch (IOException e) {
+                throw new StorageInternalException(prefix, e);
+            }
+            entries.sort(Map.Entry.comparingByKey());
+            return entries;
+        }
+
+        /**
+         * Индекс первой записи, чей полный ключ {@code dirKey + имя} больше {@code afterKey}. Ключ не из этого
+         * каталога целиком меньше или целиком больше всех его ключей.
+         */
+        private static int firstAfter(List<Map.Entry<String, Path>> entries, String dirKey, String afterKey) {
+            if (!afterKey.startsWith(dirKey)) {
+                return afterKey.compareTo(dirKey) < 0 ? 0 : entries.size();
+            }
+            String afterName = afterKey.substring(dirKey.length());
+            int low = 0;
+            int high = entries.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (entries.get(mid).getKey().compareTo(afterName) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private StorageResource resource(Path file, String key) {
+            try {
+                // В листинге MinIO тип содержимого тоже не приходит
+                return toResource(key, Files.readAttributes(file, BasicFileAttributes.class), null);
+            } catch (IOException e) {
+                throw new StorageInternalException(key, e);
+            }
+        }
+    }
+
+    /**
+     * Поток области файла. Передача в файловый поток идёт через {@link FileChannel#transferTo} без копирования
+     * через heap; в остальные потоки — крупными блоками.
+     */
+    private static final class FileRegionInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private FileRegionInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (position >= end) return -1;
+            int toRead = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+            if (read > 0) position += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            long start = position;
+            if (out instanceof FileOutputStream file) {
+                transfer(channel, position, end - position, file.getChannel());
+                position = end;
+                return end - start;
+            }
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            int read;
+            while ((read = read(buffer, 0, buffer.length)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return position - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private <T> T handleRequest(String path, CheckedSupplier<T> action) {
+        try {
+            return action.get();
+        } catch (NoSuchFileException e) {
+            log.trace("Local: Not found '{}': {}", path, e.getMessage());
+            throw new StorageNotFoundException(path, e);
+        } catch (FileAlreadyExistsException | NotDirectoryException | DirectoryNotEmptyException e) {
+            // На месте папки по пути лежит файл или наоборот
+            log.warn("Local: Path conflict for '{}': {}", path, e.getMessage());
+            throw new StorageConflictException(path);
+        } catch (AccessDeniedException e) {
+            log.warn("Local: Access denied for '{}': {}", path, e.getMessage());
+            throw new StorageAccessDeniedException(path, e);
+        } catch (FileSystemException e) {
+            if (e.getFile() != null && !Files.exists(Path.of(e.getFile()), LinkOption.NOFOLLOW_LINKS)) {
+                // Часть пути оказалась файлом: такого ключа нет
+                log.trace("Local: Not found '{}': {}", path, e.getMessage());
+                throw new StorageNotFoundException(path, e);
+            }
+            log.error("Local: File system error for path '{}': {}", path, e.getMessage());
+            throw new StorageInternalException(path, e);
+        } catch (IOException e) {
+            log.error("Local: I/O error for path '{}': {}", path, e.getMessage());
+            throw new StorageInternalException(path, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface CheckedSupplier<T> {
+        T get() throws IOException;
+    }
+}
@@ -6,25 +6,41 @@ import io.minio.errors.ServerException;
 import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
+import io.minio.messages.Part;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StoragePortConfig;
 import org.example.cloudstorage.exception.storage.*;
+import org.example.cloudstorage.model.StoragePage;
 import org.example.cloudstorage.model.StorageResource;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 @RequiredArgsConstructor
-@Component
+@Component(StoragePortConfig.BACKEND_PORT)
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "minio", matchIfMissing = true)
 public class MinioObjectStorageAdapter implements ObjectStoragePort {
 
+    private static final int LIST_PAGE_SIZE = 1000;
+    private static final String SUBTREE_END = String.valueOf(Character.MAX_VALUE);
+
     private final MinioClient minioClient;
+    private final ParallelMultipartUploader multipartUploader;
+    private final MultipartMinioClient multipartClient;
 
     @Value("${minio.bucket-name}")
     private String bucket;
@@ -40,7 +56,8 @@ public class MinioObjectStorageAdapter implements ObjectStoragePort {
                             .build()
             );
 
-            return new StorageResource(path, stat.size());
+            return new StorageResource(path, stat.size(), stat.contentType(),
+                    unquote(stat.etag()), stat.lastModified().toInstant());
         });
     }
 
@@ -98,28 +115,101 @@ public class MinioObjectStorageAdapter implements ObjectStoragePort {
             String contentType
     ) {
         log.debug("MinIO: Uploading object: '{}' ({} bytes, {})", path, size, contentType);
-        handleRequest(path, () ->
-                minioClient.putObject(
-                        PutObjectArgs.builder()
+        // При неизвестной длине итог известен только после чтения, поэтому считаем байты по пути
+        CountingInputStream counted = new CountingInputStream(data);
+        ObjectWriteResponse response = handleRequest(path, () -> {
+            if (!multipartUploader.shouldSplit(size)) {
+                return putObject(path, counted, size, contentType);
+            }
+            byte[] firstPart = counted.readNBytes(multipartUploader.partSize());
+            if (firstPart.length < multipartUploader.partSize()) {
+                // Поток кончился в пределах одной части: multipart не нужен
+                return putObject(path, new ByteArrayInputStream(firstPart), firstPart.length, contentType);
+            }
+            return multipartUploader.upload(bucket, path, firstPart, counted, contentType);
+        });
+
+        long written = size < 0 ? counted.count : size;
+        return new StorageResource(path, written, contentType, unquote(response.etag()), Instant.now());
+    }
+
+    @Override
+    public String startMultipartUpload(String fullPath, String contentType) {
+        log.debug("MinIO: Starting multipart upload: '{}' ({})", fullPath, contentType);
+        return handleRequest(fullPath, () -> unwrapJoin(() -> multipartClient.createUpload(bucket, fullPath, contentType)));
+    }
+
+    @Override
+    public String uploadPart(String fullPath, String uploadId, int partNumber, InputStream data, long size) {
+        log.debug("MinIO: Uploading part {} of '{}' ({} bytes)", partNumber, fullPath, size);
+        return handleRequest(fullPath, () -> {
+            byte[] part = data.readNBytes(Math.toIntExact(size));
+            if (part.length != size) {
+                throw new IOException("Part " + partNumber + " ended after " + part.length + " of " + size + " bytes");
+            }
+            return unwrapJoin(() -> multipartClient.uploadPart(bucket, fullPath, uploadId, partNumber, part).join());
+        });
+    }
+
+    @Override
+    public StorageResource completeMultipartUpload(String fullPath, String uploadId, List<String> partEtags) {
+        log.debug("MinIO: Completing multipart upload: '{}', {} parts", fullPath, partEtags.size());
+        Part[] parts = new Part[partEtags.size()];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new Part(i + 1, partEtags.get(i));
+        }
+        handleRequest(fullPath, () -> unwrapJoin(() -> multipartClient.completeUpload(bucket, fullPath, uploadId, parts)));
+        // Размер и тип собранного объекта надёжнее взять у хранилища
+        return getResource(fullPath);
+    }
+
+    @Override
+    public void abortMultipartUpload(String fullPath, String uploadId) {
+        log.debug("MinIO: Aborting multipart upload: '{}', uploadId={}", fullPath, uploadId);
+        handleRequest(fullPath, () -> {
+            unwrapJoin(() -> {
+                multipartClient.abortUpload(bucket, fullPath, uploadId);
+                return null;
+            });
+            return null;
+        });
+    }
+
+    private ObjectWriteResponse putObject(String path, InputStream data, long size, String contentType)
+            throws Exception {
+        return minioClient.putObject(
+                PutObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(path)
+                        .stream(data, size, -1)
+                        .contentType(contentType)
+                        .build()
+        );
+    }
+
+    @Override
+    public InputStream download(String path) {
+        log.debug("MinIO: Download object request: '{}'", path);
+        return handleRequest(path, () ->
+                minioClient.getObject(
+                        GetObjectArgs.builder()
                                 .bucket(bucket)
                                 .object(path)
-                                .stream(data, size, -1)
-                                .contentType(contentType)
                                 .build()
                 )
         );
-
-        return new StorageResource(path, size);
     }
 
     @Override
-    public InputStream download(String path) {
-        log.debug("MinIO: Download object request: '{}'", path);
+    public InputStream download(String path, long offset, long length) {
+        log.debug("MinIO: Ranged download request: '{}' [{}, +{})", path, offset, length);
         return handleRequest(path, () ->
                 minioClient.getObject(
                         GetObjectArgs.builder()
                                 .bucket(bucket)
                                 .object(path)
+                                .offset(offset)
+                                .length(length)
                                 .build()
                 )
         );
@@ -157,58 +247,89 @@ public class MinioObjectStorageAdapter implements ObjectStoragePort {
     }
 
     @Override
-    public List<StorageResource> listFolder(String path) {
+    public Stream<StorageResource> streamFolder(String path) {
         log.debug("MinIO: List objects (flat) with prefix: '{}'", path);
-        return handleRequest(path, () -> {
-            List<StorageResource> result = new ArrayList<>();
+        return streamObjects(path, ListObjectsArgs.builder()
+                .bucket(bucket)
+                .prefix(path)
+                .delimiter("/")
+                .maxKeys(LIST_PAGE_SIZE)
+                .build());
+    }
 
-            Iterable<Result<Item>> items = minioClient.listObjects(
-                    ListObjectsArgs.builder()
-                            .bucket(bucket)
-                            .prefix(path)
-                            .delimiter("/")
-                            .build()
-            );
+    @Override
+    public StoragePage listFolderPage(String path, String afterKey, int limit) {
+        log.debug("MinIO: List objects page with prefix: '{}', after: '{}', limit: {}", path, afterKey, limit);
+        return handleRequest(path, () -> {
+            ListObjectsArgs.Builder args = ListObjectsArgs.builder()
+                    .bucket(bucket)
+                    .prefix(path)
+                    .delimiter("/")
+                    .maxKeys(limit + 1);
+            if (afterKey != null) {
+                // Ключи внутри общего префикса больше самого префикса, поэтому сдвигаем маркер за всё поддерево;
+                // маркер самой папки — обычный ключ, после него идёт её содержимое
+                boolean subfolder = afterKey.endsWith("/") && !afterKey.equals(path);
+                args.startAfter(subfolder ? afterKey + SUBTREE_END : afterKey);
+            }
 
-            for (Result<Item> r : items) {
-                Item item = r.get();
-                result.add(new StorageResource(item.objectName(), item.size()));
+            // limit + 1 помещается в одну страницу ответа, так что это ровно один запрос к MinIO
+            Iterator<Result<Item>> items = minioClient.listObjects(args.build()).iterator();
+            List<StorageResource> page = new ArrayList<>(limit);
+            boolean hasMore = false;
+            while (items.hasNext()) {
+                Item item = items.next().get();
+                if (page.size() == limit) {
+                    hasMore = true;
+                    break;
+                }
+                page.add(toResource(item));
             }
-            log.trace("MinIO: Found {} items in prefix '{}'", result.size(), path);
-            return result;
+
+            log.trace("MinIO: Page of {} items in prefix '{}', hasMore={}", page.size(), path, hasMore);
+            return new StoragePage(page, hasMore ? page.get(page.size() - 1).fullPath() : null);
         });
     }
 
     @Override
-    public List<StorageResource> listAllObjectsRecursive(String prefix) {
+    public Stream<StorageResource> streamAllObjectsRecursive(String prefix) {
         log.debug("MinIO: List objects (recursive) with prefix: '{}'", prefix);
-        return handleRequest(prefix, () -> {
-            List<StorageResource> resources = new ArrayList<>();
-
-            Iterable<Result<Item>> items = minioClient.listObjects(
-                    ListObjectsArgs.builder()
-                            .bucket(bucket)
-                            .prefix(prefix)
-                            .recursive(true)
-                            .build()
-            );
+        return streamObjects(prefix, ListObjectsArgs.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .recursive(true)
+                .maxKeys(LIST_PAGE_SIZE)
+                .build());
+    }
 
-            for (Result<Item> r : items) {
-                Item item = r.get();
-                resources.add(new StorageResource(item.objectName(), item.size()));
-            }
-            log.trace("MinIO: Found {} items recursively in prefix '{}'", resources.size(), prefix);
-            return resources;
-        });
+    @Override
+    public boolean containsObjects(String prefix) {
+        log.trace("MinIO: Probe prefix: '{}'", prefix);
+        try (Stream<StorageResource> resources = streamObjects(prefix, ListObjectsArgs.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .recursive(true)
+                .maxKeys(1)
+                .build())) {
+            return resources.findAny().isPresent();
+        }
     }
 
     @Override
-    public List<String> listAllPathsRecursive(String prefix) {
-        return listAllObjectsRecursive(prefix).stream()
-                .map(StorageResource::fullPath)
-                .toList();
+    public List<StorageResource> listObjects(String prefix, int limit) {
+        log.trace("MinIO: List first {} keys under prefix: '{}'", limit, prefix);
+        try (Stream<StorageResource> resources = streamObjects(prefix, ListObjectsArgs.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .recursive(true)
+                .maxKeys(limit)
+                .build())) {
+            // limit не даёт ленивому итератору запросить следующую страницу
+            return resources.limit(limit).toList();
+        }
     }
 
+    @Override
     public boolean exists(String path) {
         try {
             getResource(path);
@@ -218,6 +339,28 @@ public class MinioObjectStorageAdapter implements ObjectStoragePort {
         }
     }
 
+    // Iterable из listObjects ленивый: следующая страница запрашивается только когда стрим до неё дочитан
+    private Stream<StorageResource> streamObjects(String prefix, ListObjectsArgs args) {
+        Iterable<Result<Item>> items = minioClient.listObjects(args);
+        return StreamSupport.stream(items.spliterator(), false)
+                .map(result -> handleRequest(prefix, () -> toResource(result.get())));
+    }
+
+    private static StorageResource toResource(Item item) {
+        if (item.isDir()) {
+            // Общий префикс из листинга с разделителем: ни etag, ни даты у него нет
+            return new StorageResource(item.objectName(), 0);
+        }
+        return new StorageResource(item.objectName(), item.size(), null,
+                unquote(item.etag()), item.lastModified().toInstant());
+    }
+
+    private static String unquote(String etag) {
+        return etag != null && etag.length() > 1 && etag.startsWith("\"") && etag.endsWith("\"")
+                ? etag.substring(1, etag.length() - 1)
+                : etag;
+    }
+
     private <T> T handleRequest(String path, CheckedSupplier<T> action) {
         try {
             return action.get();
@@ -250,8 +393,43 @@ public class MinioObjectStorageAdapter implements ObjectStoragePort {
         }
     }
 
+    /**
+     * Асинхронный клиент заворачивает ошибки в {@link CompletionException}; для разбора в {@link #handleRequest}
+     * нужна исходная причина.
+     */
+    private static <T> T unwrapJoin(CheckedSupplier<T> action) throws Exception {
+        try {
+            return action.get();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
     @FunctionalInterface
     private interface CheckedSupplier<T> {
         T get() throws Exception;
     }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+    }
 }
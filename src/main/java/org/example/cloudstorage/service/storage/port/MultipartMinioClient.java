@@ -0,0 +1,49 @@
+package org.example.cloudstorage.service.storage.port;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.messages.Part;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Открывает низкоуровневые вызовы multipart-загрузки S3, которые в клиенте MinIO защищены:
+ * публичный {@code putObject} грузит части строго последовательно.
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    public String createUpload(String bucket, String object, String contentType) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        return createMultipartUploadAsync(bucket, null, object, headers, null)
+                .join()
+                .result()
+                .uploadId();
+    }
+
+    /**
+     * Массив передаётся целиком, длина части равна его длине.
+     */
+    public CompletableFuture<String> uploadPart(String bucket, String object, String uploadId,
+                                               int partNumber, byte[] data) throws Exception {
+        return uploadPartAsync(bucket, null, object, data, data.length, uploadId, partNumber, null, null)
+                .thenApply(response -> response.etag());
+    }
+
+    public ObjectWriteResponse completeUpload(String bucket, String object, String uploadId, Part[] parts)
+            throws Exception {
+        return completeMultipartUploadAsync(bucket, null, object, uploadId, parts, null, null).join();
+    }
+
+    public void abortUpload(String bucket, String object, String uploadId) throws Exception {
+        abortMultipartUploadAsync(bucket, null, object, uploadId, null, null).join();
+    }
+}
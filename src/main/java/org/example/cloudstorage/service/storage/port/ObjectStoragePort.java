@@ -1,9 +1,11 @@
 package org.example.cloudstorage.service.storage.port;
 
+import org.example.cloudstorage.model.StoragePage;
 import org.example.cloudstorage.model.StorageResource;
 
 import java.io.InputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ObjectStoragePort {
 
@@ -15,17 +17,103 @@ public interface ObjectStoragePort {
 
     InputStream download(String path);
 
+    /**
+     * Поток {@code length} байт объекта начиная с {@code offset}.
+     */
+    InputStream download(String path, long offset, long length);
+
+    /**
+     * Загрузка объекта. При {@code size < 0} длина неизвестна и поток читается до конца.
+     */
     StorageResource uploadFile(String fullPath, InputStream data, long size, String contentType);
 
-    List<StorageResource> listAllObjectsRecursive(String prefix);
+    /**
+     * Начинает загрузку объекта по частям, которые могут приходить в разных запросах.
+     *
+     * @return идентификатор загрузки для последующих вызовов
+     */
+    String startMultipartUpload(String fullPath, String contentType);
 
-    List<String> listAllPathsRecursive(String prefix);
+    /**
+     * Загружает часть с номером {@code partNumber} (с 1). Все части, кроме последней, должны быть не меньше
+     * минимального размера части хранилища. Повторная загрузка того же номера заменяет часть.
+     *
+     * @return ETag части, нужен для завершения загрузки
+     */
+    String uploadPart(String fullPath, String uploadId, int partNumber, InputStream data, long size);
 
-    StorageResource createFolder(String folderPath);
+    /**
+     * Собирает объект из частей 1..n, ETag которых переданы по порядку.
+     */
+    StorageResource completeMultipartUpload(String fullPath, String uploadId, List<String> partEtags);
+
+    void abortMultipartUpload(String fullPath, String uploadId);
+
+    /**
+     * Ленивый рекурсивный обход префикса: страницы листинга запрашиваются по мере чтения стрима.
+     * Стрим нужно закрывать (try-with-resources).
+     */
+    Stream<StorageResource> streamAllObjectsRecursive(String prefix);
 
-    List<StorageResource> listFolder(String folderPath);
+    /**
+     * Ленивый листинг первого уровня папки (объекты и общие префиксы).
+     */
+    Stream<StorageResource> streamFolder(String folderPath);
+
+    /**
+     * Одна страница листинга первого уровня папки, не больше {@code limit} элементов, строго после {@code afterKey}.
+     * Если {@code afterKey} — подпапка, её содержимое тоже пропускается.
+     */
+    StoragePage listFolderPage(String folderPath, String afterKey, int limit);
+
+    StorageResource createFolder(String folderPath);
 
     void copy(String sourcePath, String destinationPath);
 
     boolean exists(String path);
+
+    /**
+     * Перенос объекта или папки со всем содержимым без копирования данных, если хранилище это умеет.
+     *
+     * @return {@code false}, если не умеет: тогда перенос делается копированием и удалением
+     */
+    default boolean rename(String sourcePath, String destinationPath) {
+        return false;
+    }
+
+    /**
+     * Есть ли под префиксом хотя бы один объект (в том числе виртуальная папка).
+     */
+    default boolean containsObjects(String prefix) {
+        try (Stream<StorageResource> resources = streamAllObjectsRecursive(prefix)) {
+            return resources.findAny().isPresent();
+        }
+    }
+
+    /**
+     * Одна страница рекурсивного листинга: первые (в лексикографическом порядке) {@code limit} ключей под префиксом.
+     */
+    default List<StorageResource> listObjects(String prefix, int limit) {
+        try (Stream<StorageResource> resources = streamAllObjectsRecursive(prefix)) {
+            return resources.limit(limit).toList();
+        }
+    }
+
+    default List<StorageResource> listAllObjectsRecursive(String prefix) {
+        try (Stream<StorageResource> resources = streamAllObjectsRecursive(prefix)) {
+            return resources.toList();
+        }
+    }
+
+    default List<String> listAllPathsRecursive(String prefix) {
+        try (Stream<StorageResource> resources = streamAllObjectsRecursive(prefix)) {
+            return resources.map(StorageResource::fullPath).toList();
+        }
+    }
+
+    default List<StorageResource> listFolder(String folderPath) {
+        try (Stream<StorageResource> resources = streamFolder(folderPath)) {
+            return resources.toList();
+        }
+    }
 }
@@ -0,0 +1,154 @@
+package org.example.cloudstorage.service.storage.port;
+
+import io.minio.ObjectWriteResponse;
+import io.minio.errors.ServerException;
+import io.minio.messages.Part;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.StorageProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Параллельная multipart-загрузка крупного объекта.
+ * <p>
+ * Поток читается частями по {@code partSize} в вызывающем потоке, каждая часть сразу уходит на общий пул.
+ * Одновременно в памяти не больше {@code partParallelism} частей одной загрузки. Упавшая часть повторяется
+ * сама по себе с экспоненциальной задержкой, уже загруженные части не перезаливаются. Если часть не удалась
+ * окончательно, загрузка отменяется на стороне хранилища, чтобы не оставлять брошенных частей.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "minio", matchIfMissing = true)
+public class ParallelMultipartUploader {
+
+    private final MultipartMinioClient client;
+    private final StorageProperties.Upload settings;
+    private final ExecutorService executor;
+
+    public ParallelMultipartUploader(MultipartMinioClient client, StorageProperties properties) {
+        this.client = client;
+        this.settings = properties.getUpload();
+        this.executor = Executors.newFixedThreadPool(settings.getPartThreads(),
+                new CustomizableThreadFactory("storage-upload-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public int partSize() {
+        return (int) settings.getPartSize().toBytes();
+    }
+
+    /**
+     * Объекты известного размера меньше порога грузятся одним запросом.
+     */
+    public boolean shouldSplit(long size) {
+        return size < 0 || size >= settings.getMultipartThreshold().toBytes();
+    }
+
+    /**
+     * Загружает поток как multipart-объект. Первая часть уже прочитана вызывающим кодом: так короткий
+     * поток неизвестной длины можно записать обычным {@code putObject}, не открывая multipart.
+     */
+    public ObjectWriteResponse upload(String bucket, String object, byte[] firstPart, InputStream rest,
+                                      String contentType) throws Exception {
+        String uploadId = client.createUpload(bucket, object, contentType);
+        log.debug("MinIO: Multipart upload started: '{}', uploadId={}", object, uploadId);
+
+        Semaphore permits = new Semaphore(settings.getPartParallelism());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Part>> parts = new ArrayList<>();
+        try {
+            byte[] chunk = firstPart;
+            while (chunk.length > 0 && failure.get() == null) {
+                permits.acquire();
+                int number = parts.size() + 1;
+                byte[] data = chunk;
+                parts.add(CompletableFuture
+                        .supplyAsync(() -> new Part(number, uploadWithRetry(bucket, object, uploadId, number, data)), executor)
+                        .whenComplete((ignored, error) -> {
+                            if (error != null) failure.compareAndSet(null, error);
+                            permits.release();
+                        }));
+                // Последняя часть короче остальных: readNBytes возвращает массив ровно прочитанной длины
+                chunk = rest.readNBytes(partSize());
+            }
+
+            Part[] completed = new Part[parts.size()];
+            for (int i = 0; i < completed.length; i++) {
+                completed[i] = parts.get(i).join();
+            }
+            ObjectWriteResponse response = client.completeUpload(bucket, object, uploadId, completed);
+            log.debug("MinIO: Multipart upload completed: '{}', {} parts", object, completed.length);
+            return response;
+        } catch (Exception e) {
+            parts.forEach(part -> part.cancel(false));
+            abortQuietly(bucket, object, uploadId);
+            throw unwrap(e);
+        }
+    }
+
+    private String uploadWithRetry(String bucket, String object, String uploadId, int partNumber, byte[] data) {
+        int attempt = 0;
+        while (true) {
+            try {
+                return client.uploadPart(bucket, object, uploadId, partNumber, data).get();
+            } catch (Exception e) {
+                Exception cause = unwrap(e);
+                if (!isTransient(cause) || ++attempt > settings.getPartMaxRetries()) {
+                    throw new CompletionException(cause);
+                }
+
+                long backoff = settings.getPartRetryBackoff().toMillis() << (attempt - 1);
+                log.warn("MinIO: Part {} of '{}' failed ({}), retry {}/{} in {} ms",
+                        partNumber, object, cause.getMessage(), attempt, settings.getPartMaxRetries(), backoff);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(interrupted);
+                }
+            }
+        }
+    }
+
+    private void abortQuietly(String bucket, String object, String uploadId) {
+        try {
+            client.abortUpload(bucket, object, uploadId);
+            log.debug("MinIO: Multipart upload aborted: '{}', uploadId={}", object, uploadId);
+        } catch (Exception e) {
+            log.error("MinIO: Failed to abort multipart upload '{}', uploadId={}: {}", object, uploadId, e.getMessage());
+        }
+    }
+
+    private static boolean isTransient(Exception e) {
+        return e instanceof IOException || e instanceof ServerException;
+    }
+
+    private static Exception unwrap(Exception e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        return cause instanceof Exception exception ? exception : new IllegalStateException(cause);
+    }
+}
@@ -0,0 +1,330 @@
+package org.example.cloudstorage.service.storage.port;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StorageNode;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.tree.PathTree;
+
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Порт с деревом путей: пути пользователей разрешаются через {@link PathTree}, а объекты лежат
+ * в нижележащем порту под неизменными ключами {@value #OBJECT_PREFIX}…, не связанными с путём.
+ * <p>
+ * Поэтому {@link #rename} переносит файл или папку любого размера одним UPDATE, без копирования объектов.
+ * Рекурсивный листинг обходит дерево в глубину; имена папок хранятся со слэшем, так что порядок обхода
+ * совпадает с порядком ключей бакета.
+ */
+@Slf4j
+public class PathIndirectionStoragePort implements ObjectStoragePort {
+
+    public static final String OBJECT_PREFIX = "objects/";
+
+    // Идентификатор составной загрузки: <id объекта>:<uploadId нижележащего порта>
+    private static final char UPLOAD_ID_SEPARATOR = ':';
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    private final ObjectStoragePort objects;
+    private final PathTree tree;
+
+    public PathIndirectionStoragePort(ObjectStoragePort objects, PathTree tree) {
+        this.objects = objects;
+        this.tree = tree;
+    }
+
+    @Override
+    public StorageResource getResource(String path) {
+        return tree.resolve(path)
+                .filter(PathIndirectionStoragePort::isObject)
+                .map(node -> PathTree.toResource(path, node))
+                .orElseThrow(() -> new StorageNotFoundException(path));
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return tree.resolve(path).filter(PathIndirectionStoragePort::isObject).isPresent();
+    }
+
+    @Override
+    public void delete(String path) {
+        deleteObjects(List.of(path));
+    }
+
+    @Override
+    public void deleteObjects(List<String> paths) {
+        if (paths == null || paths.isEmpty()) return;
+        List<String> keys = tree.remove(paths);
+        if (!keys.isEmpty()) {
+            objects.deleteObjects(keys);
+        }
+    }
+
+    @Override
+    public InputStream download(String path) {
+        StorageNode node = object(path);
+        return node.isDirectory() ? InputStream.nullInputStream() : objects.download(node.getStorageKey());
+    }
+
+    @Override
+    public InputStream download(String path, long offset, long length) {
+        StorageNode node = object(path);
+        return node.isDirectory()
+                ? InputStream.nullInputStream()
+                : objects.download(node.getStorageKey(), offset, length);
+    }
+
+    @Override
+    public StorageResource uploadFile(String fullPath, InputStream data, long size, String contentType) {
+        String objectKey = OBJECT_PREFIX + UUID.randomUUID();
+        StorageResource stored = objects.uploadFile(objectKey, data, size, contentType);
+        return bind(fullPath, objectKey, stored);
+    }
+
+    @Override
+    public String startMultipartUpload(String fullPath, String contentType) {
+        String objectId = UUID.randomUUID().toString();
+        return objectId + UPLOAD_ID_SEPARATOR + objects.startMultipartUpload(OBJECT_PREFIX + objectId, contentType);
+    }
+
+    @Override
+    public String uploadPart(String fullPath, String uploadId, int partNumber, InputStream data, long size) {
+        return objects.uploadPart(objectKey(uploadId, fullPath), innerUploadId(uploadId), partNumber, data, size);
+    }
+
+    @Override
+    public StorageResource completeMultipartUpload(String fullPath, String uploadId, List<String> partEtags) {
+        String objectKey = objectKey(uploadId, fullPath);
+        StorageResource stored = objects.completeMultipartUpload(objectKey, innerUploadId(uploadId), partEtags);
+        return bind(fullPath, objectKey, stored);
+    }
+
+    @Override
+    public void abortMultipartUpload(String fullPath, String uploadId) {
+        objects.abortMultipartUpload(objectKey(uploadId, fullPath), innerUploadId(uploadId));
+    }
+
+    @Override
+    public Stream<StorageResource> streamAllObjectsRecursive(String prefix) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(new SubtreeIterator(prefix), Spliterator.ORDERED), false);
+    }
+
+    @Override
+    public Stream<StorageResource> streamFolder(String folderPath) {
+        return tree.resolve(folderPath)
+                .filter(StorageNode::isDirectory)
+                .map(folder -> StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                        new ChildrenIterator(folder.getId(), "", null), Spliterator.ORDERED), false)
+                        .map(node -> PathTree.toResource(folderPath + node.getName(), node)))
+                .orElseGet(Stream::empty);
+    }
+
+    @Override
+    public StoragePage listFolderPage(String folderPath, String afterKey, int limit) {
+        return tree.listFolderPage(folderPath, afterKey, limit);
+    }
+
+    @Override
+    public List<StorageResource> listObjects(String prefix, int limit) {
+        try (Stream<StorageResource> resources = streamAllObjectsRecursive(prefix)) {
+            return resources.limit(limit).toList();
+        }
+    }
+
+    @Override
+    public boolean containsObjects(String prefix) {
+        if (prefix.endsWith("/")) {
+            // Узел папки существует, только пока в ней что-то есть или у неё есть маркер
+            return tree.resolve(prefix).isPresent();
+        }
+        return ObjectStoragePort.super.containsObjects(prefix);
+    }
+
+    @Override
+    public StorageResource createFolder(String folderPath) {
+        tree.putFolder(folderPath);
+        return new StorageResource(folderPath, 0);
+    }
+
+    @Override
+    public void copy(String sourcePath, String destinationPath) {
+        StorageNode source = tree.resolve(sourcePath)
+                .filter(PathIndirectionStoragePort::isObject)
+                .orElseThrow(() -> new StorageNotFoundException(sourcePath));
+        if (source.isDirectory()) {
+            tree.putFolder(destinationPath);
+            return;
+        }
+
+        String objectKey = OBJECT_PREFIX + UUID.randomUUID();
+        objects.copy(source.getStorageKey(), objectKey);
+        bind(destinationPath, objectKey, PathTree.toResource(destinationPath, source));
+    }
+
+    @Override
+    public boolean rename(String sourcePath, String destinationPath) {
+        tree.move(sourcePath, destinationPath);
+        return true;
+    }
+
+    private StorageResource bind(String fullPath, String objectKey, StorageResource stored) {
+        String previousKey;
+        try {
+            previousKey = tree.putFile(fullPath, objectKey, stored);
+        } catch (RuntimeException e) {
+            deleteQuietly(objectKey);
+            throw e;
+        }
+        if (previousKey != null) {
+            deleteQuietly(previousKey);
+        }
+        return new StorageResource(fullPath, stored.size(), stored.contentType(), stored.etag(), stored.lastModified());
+    }
+
+    private void deleteQuietly(String objectKey) {
+        try {
+            objects.delete(objectKey);
+        } catch (RuntimeException e) {
+            log.warn("Path tree: failed to delete unreferenced object '{}': {}", objectKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Узел объекта по пути, как его видит бакет: файл или маркер папки. У маркера нет объекта,
+     * он читается пустым, как в S3; путь, который дерево не разрешает, — {@link StorageNotFoundException}.
+     */
+    private StorageNode object(String path) {
+        return tree.resolve(path)
+                .filter(PathIndirectionStoragePort::isObject)
+                .orElseThrow(() -> new StorageNotFoundException(path));
+    }
+
+    private static String objectKey(String uploadId, String fullPath) {
+        int separator = uploadId.indexOf(UPLOAD_ID_SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Not a path tree upload id for '" + fullPath + "': " + uploadId);
+        }
+        return OBJECT_PREFIX + uploadId.substring(0, separator);
+    }
+
+    private static String innerUploadId(String uploadId) {
+        return uploadId.substring(uploadId.indexOf(UPLOAD_ID_SEPARATOR) + 1);
+    }
+
+    // Папка без маркера — только общий префикс, как в бакете
+    private static boolean isObject(StorageNode node) {
+        return !node.isDirectory() || node.isMarker();
+    }
+
+    // Наименьшая строка, большая всех строк с этим началом
+    private static String rangeEnd(String prefix) {
+        return prefix.substring(0, prefix.length() - 1) + (char) (prefix.charAt(prefix.length() - 1) + 1);
+    }
+
+    /**
+     * Дочерние узлы одной папки, страницами по мере чтения.
+     */
+    private final class ChildrenIterator implements Iterator<StorageNode> {
+        private final long parentId;
+        private final String fromName;
+        private final String toName;
+        private Iterator<StorageNode> page = List.<StorageNode>of().iterator();
+        private String afterName = "";
+        private boolean exhausted;
+
+        private ChildrenIterator(long parentId, String fromName, String toName) {
+            this.parentId = parentId;
+            this.fromName = fromName;
+            this.toName = toName;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!page.hasNext() && !exhausted) {
+                List<StorageNode> next = tree.children(parentId, fromName, afterName, toName, LIST_PAGE_SIZE);
+                exhausted = next.size() < LIST_PAGE_SIZE;
+                if (!next.isEmpty()) {
+                    afterName = next.get(next.size() - 1).getName();
+                }
+                page = next.iterator();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public StorageNode next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return page.next();
+        }
+    }
+
+    /**
+     * Обход в глубину всех объектов с заданным началом ключа: файлов и маркеров папок.
+     * На каждом уровне держится одна страница дочерних узлов.
+     */
+    private final class SubtreeIterator implements Iterator<StorageResource> {
+        private final Deque<Level> stack = new ArrayDeque<>();
+        private StorageResource next;
+
+        private SubtreeIterator(String prefix) {
+            int slash = prefix.lastIndexOf('/');
+            String folderPath = prefix.substring(0, slash + 1);
+            String namePrefix = prefix.substring(slash + 1);
+
+            Long folderId = folderPath.isEmpty()
+                    ? Long.valueOf(StorageNode.ROOT_PARENT)
+                    : tree.resolve(folderPath).filter(StorageNode::isDirectory).map(StorageNode::getId).orElse(null);
+            if (folderId != null) {
+                String toName = namePrefix.isEmpty() ? null : rangeEnd(namePrefix);
+                stack.push(new Level(folderPath, new ChildrenIterator(folderId, namePrefix, toName)));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !stack.isEmpty()) {
+                Level level = stack.peek();
+                if (!level.children().hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+
+                StorageNode node = level.children().next();
+                String path = level.path() + node.getName();
+                if (node.isDirectory()) {
+                    // Маркер папки идёт раньше её содержимого
+                    stack.push(new Level(path, new ChildrenIterator(node.getId(), "", null)));
+                    if (node.isMarker()) {
+                        next = new StorageResource(path, 0);
+                    }
+                } else {
+                    next = PathTree.toResource(path, node);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public StorageResource next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            StorageResource result = next;
+            next = null;
+            return result;
+        }
+    }
+
+    private record Level(String path, ChildrenIterator children) {
+    }
+}
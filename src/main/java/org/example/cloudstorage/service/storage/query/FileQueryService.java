@@ -1,50 +1,221 @@
 package org.example.cloudstorage.service.storage.query;
 
 import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.AppConstants;
+import org.example.cloudstorage.dto.storage.DirectoryPageDto;
+import org.example.cloudstorage.dto.storage.ListingFormat;
 import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.dto.storage.ResourceSort;
+import org.example.cloudstorage.dto.storage.SearchPageDto;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
 import org.example.cloudstorage.mapper.ResourceResponseMapper;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StorageResource;
 import org.example.cloudstorage.service.storage.validation.PathValidator;
 import org.example.cloudstorage.service.storage.base.AbstractStorageService;
+import org.example.cloudstorage.service.storage.catalog.FileCatalogService;
 import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.util.CursorUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class FileQueryService extends AbstractStorageService {
 
+    // Страница, которую потоковый листинг держит в памяти между чтением из хранилища и записью в ответ
+    private static final int STREAM_PAGE_SIZE = AppConstants.Storage.MAX_PAGE_SIZE;
+
+    private final FileCatalogService catalog;
+    private final ListingStreamWriter streamWriter;
+
     public FileQueryService(ObjectStoragePort storagePort, PathValidator pathValidator,
-                            ResourceResponseMapper resourceMapper) {
+                            ResourceResponseMapper resourceMapper, FileCatalogService catalog,
+                            ListingStreamWriter streamWriter) {
         super(storagePort, pathValidator, resourceMapper);
+        this.catalog = catalog;
+        this.streamWriter = streamWriter;
     }
 
     public ResourceInfoDto getResource(long userId, String path) {
         log.info("Request to get resource: userId={}, path='{}'", userId, path);
         String fullPath = generateUserPath(userId, path);
         log.debug("Full path for getResource: '{}'", fullPath);
-        return resourceMapper.toDto(storagePort.getResource(fullPath));
+        StorageResource resource = catalog.find(userId, fullPath)
+                .orElseThrow(() -> new StorageNotFoundException(fullPath));
+        return resourceMapper.toDto(resource);
     }
 
-    public List<ResourceInfoDto> search(long userId, String query) {
-        log.info("Search request: userId={}, query='{}'", userId, query);
-        String prefix = generateUserPrefix(userId);
-        var foundResources = storagePort.listAllObjectsRecursive(prefix);
+    /**
+     * Поиск без {@code limit} в прежнем контракте API: все объекты, в пути которых (от корня пользователя)
+     * есть подстрока без учёта регистра, в порядке ключей, без ранжирования и без ограничения числа.
+     */
+    public List<ResourceInfoDto> searchByPath(long userId, String query) {
+        log.info("Path search request: userId={}, query='{}'", userId, query);
+        try (Stream<StorageResource> found = catalog.streamPathMatches(userId, query)) {
+            List<ResourceInfoDto> result = found.map(resourceMapper::toDto).toList();
+            log.info("Path search found {} items for query '{}'", result.size(), query);
+            return result;
+        }
+    }
 
-        var result = foundResources.stream()
-                .filter(res -> res.fullPath().toLowerCase().contains(query.toLowerCase()))
-                .toList();
+    /**
+     * То же, что {@link #searchByPath}, но потоком: каталог читается страницами, и каждая пишется в ответ
+     * по мере получения, так что неограниченный поиск не держит в памяти все совпадения.
+     */
+    public StreamingResponseBody streamPathSearch(long userId, String query, ListingFormat format) {
+        log.info("Stream path search request: userId={}, query='{}', format={}", userId, query, format);
+        return out -> {
+            long written = 0;
+            try (Stream<StorageResource> found = catalog.streamPathMatches(userId, query);
+                 ListingStreamWriter.ListingStream stream = streamWriter.open(out, format)) {
+                for (StorageResource resource : (Iterable<StorageResource>) found::iterator) {
+                    stream.write(resourceMapper.toDto(resource));
+                    if (++written % STREAM_PAGE_SIZE == 0) {
+                        stream.flush();
+                    }
+                }
+                stream.finish();
+            }
+            log.debug("Streamed {} path search results for query '{}'", written, query);
+        };
+    }
+
+    /**
+     * Ранжированный поиск по имени — контракт запросов с {@code limit} или {@code cursor}.
+     * Страницы задаются смещением, закодированным в курсоре.
+     */
+    public SearchPageDto search(long userId, String query, int limit, String cursor) {
+        log.info("Search request: userId={}, query='{}', limit={}", userId, query, limit);
+        SearchSlice slice = searchSlice(userId, query, limit, cursor);
+        List<ResourceInfoDto> result = resourceMapper.toDtoList(slice.items());
 
         log.info("Search found {} items for query '{}'", result.size(), query);
-        return resourceMapper.toDtoList(result);
+        return new SearchPageDto(result, slice.nextCursor());
+    }
+
+    /**
+     * Та же страница, что в {@link #search}, но записью в ответ потоком в запрошенном формате:
+     * каждый результат переводится в DTO в момент записи, и списка DTO рядом со страницей нет.
+     */
+    public StreamedPage streamSearchPage(long userId, String query, int limit, String cursor, ListingFormat format) {
+        log.info("Stream search page request: userId={}, query='{}', limit={}, format={}", userId, query, limit, format);
+        // Страница читается до начала ответа: курсор следующей уходит в заголовке, неверный курсор получает 400
+        SearchSlice slice = searchSlice(userId, query, limit, cursor);
+
+        StreamingResponseBody body = out -> {
+            try (ListingStreamWriter.ListingStream stream = streamWriter.open(out, format)) {
+                for (StorageResource resource : slice.items()) {
+                    stream.write(resourceMapper.toDto(resource));
+                }
+                stream.finish();
+            }
+            log.debug("Streamed {} search results for query '{}'", slice.items().size(), query);
+        };
+        return new StreamedPage(body, slice.nextCursor());
+    }
+
+    public List<ResourceInfoDto> listFolder(long userId, String path, ResourceSort sort) {
+        log.info("List folder request: userId={}, path='{}', sort={}", userId, path, sort);
+        String fullPath = generateUserPath(userId, path);
+
+        List<StorageResource> children = catalog.listFolder(userId, fullPath);
+        Stream<ResourceInfoDto> items = children.stream()
+                .map(resourceMapper::toDto);
+        return (sort == null ? items : items.sorted(sort.comparator())).toList();
+    }
+
+    /**
+     * Строгий ETag листинга папки по её версии в каталоге: одно чтение по ключу, сколько бы ни было
+     * в папке объектов. Один и тот же для полного листинга и для любой его страницы с любой сортировкой:
+     * если папка не менялась, не меняется ни одна страница. {@code Last-Modified} у листинга нет:
+     * удаление дочернего объекта не оставляет в каталоге даты. JSON и NDJSON одного листинга — разные
+     * представления с разными байтами, поэтому строгий ETag у каждого свой.
+     *
+     * @throws StorageNotFoundException если папки нет, чтобы условный запрос не получил 304 за несуществующий путь
+     */
+    public String getFolderETag(long userId, String path, ListingFormat format) {
+        String fullPath = generateUserPath(userId, path);
+        long version = catalog.folderVersion(userId, fullPath)
+                .orElseThrow(() -> new StorageNotFoundException(fullPath));
+        return format == ListingFormat.NDJSON ? "\"" + version + "-ndjson\"" : "\"" + version + "\"";
+    }
+
+    /**
+     * Страница листинга папки. Страницы идут в порядке ключей хранилища, и каждая стоит одного индексного
+     * запроса к каталогу. Сортировки у страниц нет: её порядок отличается от порядка курсора.
+     */
+    public DirectoryPageDto listFolderPage(long userId, String path, int limit, String cursor) {
+        log.info("List folder page request: userId={}, path='{}', limit={}", userId, path, limit);
+        String fullPath = generateUserPath(userId, path);
+        String afterKey = cursor == null ? null : CursorUtils.decode(fullPath, cursor);
+        int pageSize = Math.min(limit, AppConstants.Storage.MAX_PAGE_SIZE);
+
+        StoragePage page = folderPage(userId, fullPath, afterKey, pageSize);
+
+        List<ResourceInfoDto> result = resourceMapper.toDtoList(page.items());
+
+        String nextCursor = page.hasMore() ? CursorUtils.encode(fullPath, page.lastKey()) : null;
+        return new DirectoryPageDto(result, nextCursor);
     }
 
-    public List<ResourceInfoDto> listFolder(long userId, String path) {
-        log.info("List folder request: userId={}, path='{}'", userId, path);
+    /**
+     * Вся папка потоком: страницы читаются по одной и пишутся в ответ по мере получения, так что в памяти
+     * лежит одна страница, а не весь листинг и его копия из DTO. Сортировке нужен весь листинг сразу,
+     * с ней папка читается целиком, как в {@link #listFolder}, и только запись идёт потоком.
+     */
+    public StreamingResponseBody streamFolder(long userId, String path, ResourceSort sort, ListingFormat format) {
+        log.info("Stream folder request: userId={}, path='{}', sort={}, format={}", userId, path, sort, format);
+        if (sort != null) {
+            List<ResourceInfoDto> items = listFolder(userId, path, sort);
+            return out -> {
+                try (ListingStreamWriter.ListingStream stream = streamWriter.open(out, format)) {
+                    for (ResourceInfoDto item : items) {
+                        stream.write(item);
+                    }
+                    stream.finish();
+                }
+            };
+        }
+
         String fullPath = generateUserPath(userId, path);
-        var resources = storagePort.listFolder(fullPath);
+        return out -> {
+            long written = 0;
+            try (ListingStreamWriter.ListingStream stream = streamWriter.open(out, format)) {
+                String afterKey = null;
+                do {
+                    StoragePage page = folderPage(userId, fullPath, afterKey, STREAM_PAGE_SIZE);
+                    for (StorageResource resource : page.items()) {
+                        stream.write(resourceMapper.toDto(resource));
+                    }
+                    stream.flush();
+                    written += page.items().size();
+                    afterKey = page.lastKey();
+                } while (afterKey != null);
+                stream.finish();
+            }
+            log.debug("Streamed {} items of folder '{}'", written, fullPath);
+        };
+    }
+
+    private SearchSlice searchSlice(long userId, String query, int limit, String cursor) {
+        int offset = cursor == null ? 0 : CursorUtils.decodeOffset(cursor);
+        int pageSize = Math.min(limit, AppConstants.Storage.MAX_PAGE_SIZE);
+
+        // Лишний элемент показывает, есть ли следующая страница
+        List<StorageResource> found = catalog.search(userId, query, offset, pageSize + 1);
+        boolean hasMore = found.size() > pageSize;
+        return new SearchSlice(hasMore ? found.subList(0, pageSize) : found,
+                hasMore ? CursorUtils.encodeOffset(offset + pageSize) : null);
+    }
+
+    private StoragePage folderPage(long userId, String fullPath, String afterKey, int limit) {
+        return catalog.listFolderPage(userId, fullPath, afterKey, limit);
+    }
 
-        return resourceMapper.toDtoList(resources.stream()
-                .filter(resource -> !resource.fullPath().equals(fullPath)).toList());
+    private record SearchSlice(List<StorageResource> items, String nextCursor) {
     }
 }
@@ -0,0 +1,84 @@
+package org.example.cloudstorage.service.storage.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.cloudstorage.dto.storage.ListingFormat;
+import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Пишет элементы листинга прямо в ответ генератором Jackson, без промежуточного списка.
+ * Сериализация та же, что у обычного ответа: используется общий {@link ObjectMapper} приложения.
+ */
+@Component
+public class ListingStreamWriter {
+
+    private final ObjectWriter itemWriter;
+
+    public ListingStreamWriter(ObjectMapper objectMapper) {
+        // Сбрасывает буфер вызывающий код после страницы, а не Jackson после каждого элемента
+        this.itemWriter = objectMapper.writerFor(ResourceInfoDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public ListingStream open(OutputStream out, ListingFormat format) throws IOException {
+        JsonGenerator generator = itemWriter.createGenerator(out);
+        // Поток ответа закрывает контейнер. Незавершённый массив не дописывается: оборванный при ошибке
+        // ответ должен остаться невалидным, а не выглядеть полным листингом
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        return new ListingStream(generator, format);
+    }
+
+    public final class ListingStream implements Closeable {
+
+        private final JsonGenerator generator;
+        private final ListingFormat format;
+
+        private ListingStream(JsonGenerator generator, ListingFormat format) throws IOException {
+            this.generator = generator;
+            this.format = format;
+            if (format == ListingFormat.JSON) {
+                generator.writeStartArray();
+            } else {
+                // Между объектами верхнего уровня Jackson по умолчанию ставит пробел, строки разделяются вручную
+                generator.setRootValueSeparator(null);
+            }
+        }
+
+        public void write(ResourceInfoDto item) throws IOException {
+            itemWriter.writeValue(generator, item);
+            if (format == ListingFormat.NDJSON) {
+                generator.writeRaw('\n');
+            }
+        }
+
+        /**
+         * Отдаёт клиенту всё записанное: вызывается после каждой страницы из хранилища.
+         */
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        /**
+         * Завершает листинг; без этого вызова ответ обрывается там, где остановилась запись.
+         */
+        public void finish() throws IOException {
+            if (format == ListingFormat.JSON) {
+                generator.writeEndArray();
+            }
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.cloudstorage.service.storage.query;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Страница, которая пишется в ответ потоком. Курсор известен заранее: страница прочитана из каталога
+ * до начала ответа, потоком идёт только запись, без промежуточного списка DTO.
+ */
+public record StreamedPage(
+        StreamingResponseBody body,
+        String nextCursor
+) {
+}
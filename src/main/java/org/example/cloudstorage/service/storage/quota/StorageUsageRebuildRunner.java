@@ -0,0 +1,39 @@
+package org.example.cloudstorage.service.storage.quota;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.model.User;
+import org.example.cloudstorage.repository.UserRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Команда пересчёта учёта места: запуск с {@code --storage.usage.rebuild-on-startup=true}
+ * сверяет счётчики всех пользователей с содержимым бакета.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "storage.usage", name = "rebuild-on-startup", havingValue = "true")
+public class StorageUsageRebuildRunner implements ApplicationRunner {
+
+    private final UserRepository userRepository;
+    private final StorageUsageService usageService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Rebuilding storage usage ledger for all users");
+        int rebuilt = 0;
+        for (User user : userRepository.findAll()) {
+            try {
+                usageService.rebuild(user.getId());
+                rebuilt++;
+            } catch (RuntimeException e) {
+                log.error("Failed to rebuild storage usage for user {}: {}", user.getId(), e.getMessage(), e);
+            }
+        }
+        log.info("Storage usage ledger rebuilt for {} users", rebuilt);
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.cloudstorage.service.storage.quota;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.AppConstants;
+import org.example.cloudstorage.config.MinioProperties;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.exception.storage.Quota.StorageQuotaExceededException;
+import org.example.cloudstorage.model.StoragePath;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.model.StorageUsage;
+import org.example.cloudstorage.repository.StorageUsageRepository;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Учёт занятого пользователем места (байты и количество объектов) без полного обхода бакета.
+ * Счётчики меняются атомарными UPDATE в Postgres; полный пересчёт из бакета выполняется только
+ * при первом обращении к пользователю и по команде {@link #rebuild(long)}.
+ * <p>
+ * В режиме дедупликации с {@code quota-mode=PHYSICAL} байты означают уникальное содержимое пользователя:
+ * поправки на дубликаты вносит {@code BlobCatalog}, а пересчёт учитывает каждый ETag (SHA-256) один раз.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StorageUsageService {
+
+    private final StorageUsageRepository usageRepository;
+    private final ObjectStoragePort storagePort;
+    private final MinioProperties properties;
+    private final StorageProperties storageProperties;
+
+    @Transactional
+    public void reserve(long userId, long count, long bytes) {
+        ensureInitialized(userId);
+
+        long maxCount = properties.getMaxFilesCount();
+        long maxBytes = properties.getMaxStorageSize().toBytes();
+
+        if (usageRepository.tryReserve(userId, count, bytes, maxCount, maxBytes) > 0) {
+            log.debug("Quota reserved for user {}: count={}, bytes={}", userId, count, bytes);
+            return;
+        }
+
+        StorageUsage usage = usageRepository.findById(userId).orElseThrow();
+        log.debug("Quota check failed for user {}: currentCount={}, newCount={}, currentSize={}, newSize={}",
+                userId, usage.getObjectCount(), count, usage.getUsedBytes(), bytes);
+
+        // Проверка по количеству
+        if (usage.getObjectCount() + count > maxCount) {
+            log.warn("Quota exceeded for user {}: too many files", userId);
+            throw new StorageQuotaExceededException(AppConstants.ExceptionMessages.MAX_FILE_COUNT_EXCEEDED);
+        }
+
+        log.warn("Quota exceeded for user {}: storage size limit reached", userId);
+        throw new StorageQuotaExceededException(AppConstants.ExceptionMessages.MAX_STORAGE_SIZE_EXCEEDED);
+    }
+
+    @Transactional
+    public void release(long userId, long count, long bytes) {
+        if (count == 0 && bytes == 0) return;
+        log.debug("Quota released for user {}: count={}, bytes={}", userId, count, bytes);
+        usageRepository.adjust(userId, -count, -bytes);
+    }
+
+    /**
+     * Безусловное изменение счётчиков, например для маркеров папок, которые не ограничиваются квотой.
+     */
+    @Transactional
+    public void record(long userId, long count, long bytes) {
+        ensureInitialized(userId);
+        usageRepository.adjust(userId, count, bytes);
+    }
+
+    @Transactional
+    public StorageUsage getUsage(long userId) {
+        ensureInitialized(userId);
+        return usageRepository.findById(userId).orElseThrow();
+    }
+
+    /**
+     * Пересчитывает учёт по фактическому содержимому бакета. Строка пользователя блокируется
+     * на время обхода, поэтому параллельные загрузки дождутся окончания пересчёта.
+     */
+    @Transactional
+    public StorageUsage rebuild(long userId) {
+        usageRepository.insertIfAbsent(userId, 0, 0);
+        usageRepository.lockByUserId(userId);
+
+        StorageUsage actual = scanBucket(userId);
+        usageRepository.upsert(userId, actual.getUsedBytes(), actual.getObjectCount());
+
+        log.info("Storage usage rebuilt for user {}: count={}, bytes={}",
+                userId, actual.getObjectCount(), actual.getUsedBytes());
+        return actual;
+    }
+
+    private void ensureInitialized(long userId) {
+        if (usageRepository.existsById(userId)) return;
+
+        log.info("No usage ledger for user {}, computing it from bucket", userId);
+        StorageUsage actual = scanBucket(userId);
+        usageRepository.insertIfAbsent(userId, actual.getUsedBytes(), actual.getObjectCount());
+    }
+
+    private StorageUsage scanBucket(long userId) {
+        String userPrefix = StoragePath.userRoot(userId);
+        long[] totals = new long[2];
+        Set<String> countedContent = physicalQuota() ? new HashSet<>() : null;
+        try (Stream<StorageResource> resources = storagePort.streamAllObjectsRecursive(userPrefix)) {
+            resources.forEach(resource -> {
+                totals[0]++;
+                if (countedContent == null || resource.etag() == null || countedContent.add(resource.etag())) {
+                    totals[1] += resource.size();
+                }
+            });
+        }
+        return new StorageUsage(userId, totals[1], totals[0]);
+    }
+
+    private boolean physicalQuota() {
+        StorageProperties.Dedup dedup = storageProperties.getDedup();
+        return dedup.isEnabled() && dedup.getQuotaMode() == StorageProperties.Dedup.QuotaMode.PHYSICAL;
+    }
+}
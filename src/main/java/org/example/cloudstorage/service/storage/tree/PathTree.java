@@ -0,0 +1,293 @@
+package org.example.cloudstorage.service.storage.tree;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.exception.storage.StorageConflictException;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StorageNode;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StoragePath;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.repository.FileMetadataRepository;
+import org.example.cloudstorage.repository.StorageNodeRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Дерево путей поверх бакета: папки — узлы с id, файлы — узлы с неизменным ключом объекта.
+ * <p>
+ * Путь разрешается спуском от корня по индексу (parent_id, name), по запросу на уровень вложенности.
+ * Перенос и переименование папки — один UPDATE её узла, сколько бы в ней ни было объектов.
+ * <p>
+ * Как и бакет, дерево различает явные папки (с маркером) и неявные: неявная папка создаётся вместе
+ * с первым узлом внутри и удаляется вместе с последним.
+ * <p>
+ * Когда дерево включено, оно же служит каталогом метаданных: листинги, поиск и объём поддерева
+ * читаются отсюда, а не из {@code files}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PathTree {
+
+    // Сегмент пути вместе с завершающим слэшем, если он есть: "user-1-files/", "docs/", "a.txt"
+    private static final Pattern SEGMENT = Pattern.compile("[^/]+/?");
+    // Такого узла нет: запросы по нему отвечают как по пустой папке
+    private static final long NO_NODE = -1;
+
+    private final StorageNodeRepository repository;
+
+    // Чтение
+
+    @Transactional(readOnly = true)
+    public Optional<StorageNode> resolve(String path) {
+        List<String> segments = segments(path);
+        List<StorageNode> chain = chain(path);
+        return !segments.isEmpty() && chain.size() == segments.size()
+                ? Optional.of(chain.get(chain.size() - 1))
+                : Optional.empty();
+    }
+
+    /**
+     * Дочерние узлы по имени в порядке ключей: не меньше {@code fromName}, строго после {@code afterName}
+     * и, если задано, строго меньше {@code toName}.
+     */
+    @Transactional(readOnly = true)
+    public List<StorageNode> children(long parentId, String fromName, String afterName, String toName, int limit) {
+        return toName == null
+                ? repository.findChildren(parentId, fromName, afterName, limit)
+                : repository.findChildrenBelow(parentId, fromName, afterName, toName, limit);
+    }
+
+    /**
+     * Страница первого уровня папки строго после {@code afterKey} (полный ключ) в порядке ключей,
+     * тот же контракт, что у {@code ObjectStoragePort#listFolderPage}.
+     */
+    @Transactional(readOnly = true)
+    public StoragePage listFolderPage(String folderPath, String afterKey, int limit) {
+        StorageNode folder = resolve(folderPath).filter(StorageNode::isDirectory).orElse(null);
+        if (folder == null) {
+            return new StoragePage(List.of(), null);
+        }
+
+        String afterName = afterKey == null ? "" : afterKey.substring(folderPath.length());
+        List<StorageResource> items = children(folder.getId(), "", afterName, null, limit + 1).stream()
+                .map(node -> toResource(folderPath + node.getName(), node))
+                .toList();
+        if (items.size() <= limit) {
+            return new StoragePage(items, null);
+        }
+        List<StorageResource> page = items.subList(0, limit);
+        return new StoragePage(page, page.get(limit - 1).fullPath());
+    }
+
+    /**
+     * Версия листинга папки: меняется при каждом изменении её первого уровня и переезжает вместе с узлом.
+     * Пусто, если такой папки нет.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> folderVersion(String folderPath) {
+        return resolve(folderPath).filter(StorageNode::isDirectory).map(StorageNode::getChildrenVersion);
+    }
+
+    /**
+     * Сколько объектов и байт лежит в папке вместе с подпапками.
+     */
+    @Transactional(readOnly = true)
+    public FileMetadataRepository.SubtreeTotals subtreeTotals(String folderPath) {
+        return repository.subtreeTotals(folderId(folderPath));
+    }
+
+    /**
+     * Поиск по подстроке имени среди узлов пользователя; параметры — как у
+     * {@link FileMetadataRepository#searchByName}. Полные пути найденных узлов собираются одним запросом.
+     */
+    @Transactional(readOnly = true)
+    public List<StorageResource> search(long userId, String query, String pattern, String prefixPattern,
+                                        int offset, int limit) {
+        List<StorageNode> found = repository.searchByName(userId, query, pattern, prefixPattern, offset, limit);
+        if (found.isEmpty()) return List.of();
+
+        Map<Long, String> paths = repository.findPaths(found.stream().map(StorageNode::getId).toList()).stream()
+                .collect(Collectors.toMap(StorageNodeRepository.NodePath::getId, StorageNodeRepository.NodePath::getPath));
+        return found.stream()
+                .filter(node -> paths.containsKey(node.getId()))
+                .map(node -> toResource(paths.get(node.getId()), node))
+                .toList();
+    }
+
+    // Запись
+
+    /**
+     * Привязывает путь файла к объекту {@code storageKey}, создавая недостающие папки.
+     *
+     * @return ключ объекта, на который путь указывал раньше, или {@code null}
+     */
+    @Transactional
+    public String putFile(String path, String storageKey, StorageResource stored) {
+        List<String> segments = segments(path);
+        Long owner = owner(path);
+        long parentId = ensureFolders(segments.subList(0, segments.size() - 1), owner);
+        String name = segments.get(segments.size() - 1);
+
+        String previousKey = repository.findByParentIdAndName(parentId, name)
+                .map(StorageNode::getStorageKey)
+                .orElse(null);
+        repository.upsertFile(parentId, name, storageKey, stored.size(), stored.contentType(), stored.etag(),
+                stored.lastModified() != null ? stored.lastModified() : Instant.now(), owner);
+        repository.bumpChildrenVersion(parentId);
+        return previousKey;
+    }
+
+    @Transactional
+    public void putFolder(String path) {
+        long id = ensureFolders(segments(path), owner(path));
+        repository.setMarker(id, true);
+    }
+
+    /**
+     * Удаляет файлы и маркеры папок. Папка с содержимым при удалении маркера становится неявной,
+     * опустевшие неявные папки выше удаляются.
+     *
+     * @return ключи объектов удалённых файлов
+     */
+    @Transactional
+    public List<String> remove(Collection<String> paths) {
+        List<String> removedKeys = new ArrayList<>();
+        for (String path : paths) {
+            List<StorageNode> chain = chain(path);
+            if (chain.isEmpty() || chain.size() != segments(path).size()) continue;
+
+            StorageNode node = chain.get(chain.size() - 1);
+            if (node.isDirectory()) {
+                repository.setMarker(node.getId(), false);
+                pruneEmpty(chain);
+            } else {
+                repository.deleteFiles(List.of(node.getId()));
+                repository.bumpChildrenVersion(node.getParentId());
+                removedKeys.add(node.getStorageKey());
+                pruneEmpty(chain.subList(0, chain.size() - 1));
+            }
+        }
+        return removedKeys;
+    }
+
+    /**
+     * Переносит узел вместе с поддеревом под новое имя и родителя.
+     */
+    @Transactional
+    public void move(String sourcePath, String destinationPath) {
+        List<StorageNode> sourceChain = chain(sourcePath);
+        if (sourceChain.isEmpty() || sourceChain.size() != segments(sourcePath).size()) {
+            throw new StorageNotFoundException(sourcePath);
+        }
+        StorageNode node = sourceChain.get(sourceChain.size() - 1);
+
+        List<String> destination = segments(destinationPath);
+        long parentId = ensureFolders(destination.subList(0, destination.size() - 1), owner(destinationPath));
+        String name = destination.get(destination.size() - 1);
+        if (repository.findByParentIdAndName(parentId, name).isPresent()) {
+            throw new StorageConflictException(destinationPath);
+        }
+
+        repository.move(node.getId(), parentId, name);
+        repository.bumpChildrenVersion(node.getParentId());
+        repository.bumpChildrenVersion(parentId);
+        pruneEmpty(sourceChain.subList(0, sourceChain.size() - 1));
+        log.debug("Path tree: node {} moved '{}' -> '{}'", node.getId(), sourcePath, destinationPath);
+    }
+
+    /**
+     * Переносит в дерево объект, записанный по пути как по ключу (бакет до включения дерева).
+     * Ключ объекта остаётся прежним; уже известные пути не трогаются.
+     *
+     * @return {@code true}, если путь добавлен
+     */
+    @Transactional
+    public boolean adopt(StorageResource resource) {
+        Optional<StorageNode> existing = resolve(resource.fullPath());
+        // Неявная папка могла появиться раньше вместе с содержимым: ей нужен только маркер
+        if (existing.isPresent() && (!existing.get().isDirectory() || existing.get().isMarker())) return false;
+
+        if (resource.isDirectory()) {
+            putFolder(resource.fullPath());
+        } else {
+            putFile(resource.fullPath(), resource.fullPath(), resource);
+        }
+        return true;
+    }
+
+    /**
+     * Объект, который путь к узлу означает в бакете: у папок — маркер без содержимого.
+     */
+    public static StorageResource toResource(String path, StorageNode node) {
+        if (node.isDirectory()) {
+            return new StorageResource(path, 0);
+        }
+        return new StorageResource(path, node.getSize(), node.getContentType(), node.getEtag(), node.getUpdatedAt());
+    }
+
+    /**
+     * Разбивает путь на имена узлов: у всех сегментов, кроме имени файла, сохраняется слэш.
+     */
+    public static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        Matcher matcher = SEGMENT.matcher(path);
+        while (matcher.find()) {
+            segments.add(matcher.group());
+        }
+        return segments;
+    }
+
+    // Узлы от корня до самого глубокого существующего сегмента пути
+    private List<StorageNode> chain(String path) {
+        List<StorageNode> chain = new ArrayList<>();
+        long parentId = StorageNode.ROOT_PARENT;
+        for (String name : segments(path)) {
+            Optional<StorageNode> node = repository.findByParentIdAndName(parentId, name);
+            if (node.isEmpty()) break;
+            chain.add(node.get());
+            parentId = node.get().getId();
+        }
+        return chain;
+    }
+
+    private long folderId(String folderPath) {
+        return resolve(folderPath).filter(StorageNode::isDirectory).map(StorageNode::getId).orElse(NO_NODE);
+    }
+
+    private long ensureFolders(List<String> folders, Long owner) {
+        long parentId = StorageNode.ROOT_PARENT;
+        for (String name : folders) {
+            if (repository.insertFolderIfAbsent(parentId, name, owner) > 0 && parentId != StorageNode.ROOT_PARENT) {
+                repository.bumpChildrenVersion(parentId);
+            }
+            parentId = repository.findByParentIdAndName(parentId, name)
+                    .map(StorageNode::getId)
+                    .orElseThrow();
+        }
+        return parentId;
+    }
+
+    private static Long owner(String path) {
+        StoragePath parsed = StoragePath.parse(path);
+        return parsed.hasOwner() ? parsed.userId() : null;
+    }
+
+    private void pruneEmpty(List<StorageNode> chain) {
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            if (repository.deleteIfEmptyImplicit(chain.get(i).getId()) == 0) return;
+            if (i > 0) repository.bumpChildrenVersion(chain.get(i - 1).getId());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.cloudstorage.service.storage.tree;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.model.StoragePath;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.model.User;
+import org.example.cloudstorage.repository.UserRepository;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+/**
+ * Команда миграции в дерево путей: запуск с {@code --storage.indirection.migrate-on-startup=true}
+ * добавляет в дерево все объекты пользователей, записанные по пути как по ключу. Ключи объектов не меняются,
+ * данные не копируются. Повторный запуск пропускает уже известные пути.
+ * <p>
+ * Выполняется раньше остальных команд старта, чтобы пересчёт квот и каталога уже видел дерево.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "storage.indirection", name = "migrate-on-startup", havingValue = "true")
+public class PathTreeMigrationRunner implements ApplicationRunner {
+
+    private final UserRepository userRepository;
+    private final ObjectStoragePort contentStoragePort;
+    private final PathTree tree;
+
+    public PathTreeMigrationRunner(UserRepository userRepository,
+                                   @Qualifier("contentStoragePort") ObjectStoragePort contentStoragePort,
+                                   PathTree tree) {
+        this.userRepository = userRepository;
+        this.contentStoragePort = contentStoragePort;
+        this.tree = tree;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Migrating bucket objects into the path tree");
+        long adopted = 0;
+        for (User user : userRepository.findAll()) {
+            try {
+                adopted += migrate(user.getId());
+            } catch (RuntimeException e) {
+                log.error("Failed to migrate user {} into the path tree: {}", user.getId(), e.getMessage(), e);
+            }
+        }
+        log.info("Path tree migration finished: {} objects added", adopted);
+    }
+
+    long migrate(long userId) {
+        long adopted = 0;
+        String userPrefix = StoragePath.userRoot(userId);
+        try (Stream<StorageResource> objects = contentStoragePort.streamAllObjectsRecursive(userPrefix)) {
+            for (StorageResource object : (Iterable<StorageResource>) objects::iterator) {
+                if (tree.adopt(object)) {
+                    adopted++;
+                }
+            }
+        }
+        log.debug("User {}: {} objects added to the path tree", userId, adopted);
+        return adopted;
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.cloudstorage.service.storage.upload;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.example.cloudstorage.config.AppConstants;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.exception.BadRequestException;
+import org.example.cloudstorage.exception.storage.Quota.StorageQuotaExceededException;
+import org.example.cloudstorage.exception.storage.StorageException;
+import org.example.cloudstorage.mapper.ResourceResponseMapper;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.base.AbstractStorageService;
+import org.example.cloudstorage.service.storage.catalog.FileCatalogService;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.quota.StorageUsageService;
+import org.example.cloudstorage.service.storage.validation.PathValidator;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Загрузка multipart-запроса без промежуточной буферизации: части читаются из тела запроса
+ * по мере поступления и сразу уходят в хранилище.
+ * <p>
+ * Имя части и квота проверяются по заголовкам части, до чтения её тела. Длина части заранее
+ * неизвестна, поэтому под неё резервируется остаток тела запроса по {@code Content-Length}: это
+ * верхняя граница, лишнее возвращается сразу после записи объекта. Поэтому запрос без
+ * {@code Content-Length} (chunked) отклоняется.
+ * <p>
+ * Тело запроса нельзя трогать до вызова: любое обращение к параметрам запроса заставит контейнер
+ * разобрать multipart целиком.
+ * <p>
+ * Работает только при {@code storage.upload.streaming-enabled}: разбор идёт через milestone-версию
+ * commons-fileupload2, и без флага этот код в запросах не участвует.
+ */
+@Slf4j
+@Service
+public class StreamingUploadService extends AbstractStorageService {
+
+    private final StorageUsageService usageService;
+    private final FileCatalogService catalog;
+    private final StorageProperties.Upload settings;
+
+    public StreamingUploadService(ObjectStoragePort storagePort,
+                                  PathValidator pathValidator,
+                                  ResourceResponseMapper resourceMapper,
+                                  StorageUsageService usageService,
+                                  FileCatalogService catalog,
+                                  StorageProperties properties) {
+        super(storagePort, pathValidator, resourceMapper);
+        this.usageService = usageService;
+        this.catalog = catalog;
+        this.settings = properties.getUpload();
+    }
+
+    public List<ResourceInfoDto> upload(long userId, String destinationPath, HttpServletRequest request)
+            throws IOException {
+        if (!settings.isStreamingEnabled()) {
+            throw new BadRequestException(AppConstants.ExceptionMessages.UPLOAD_STREAMING_DISABLED);
+        }
+        String destination = destinationPath == null ? "" : destinationPath;
+        pathValidator.validatePath(destination, true);
+
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            throw new BadRequestException(AppConstants.ExceptionMessages.UPLOAD_NOT_MULTIPART);
+        }
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            throw new BadRequestException(AppConstants.ExceptionMessages.UPLOAD_LENGTH_REQUIRED);
+        }
+        log.info("Streaming upload request: userId={}, to='{}', contentLength={}", userId, destination, contentLength);
+
+        JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+        FileItemInputIterator parts = upload.getItemIterator(request);
+
+        List<StorageResource> uploadedResources = new ArrayList<>();
+        long uploadedSize = 0;
+        while (parts.hasNext()) {
+            FileItemInput part = parts.next();
+            if (part.isFormField()) {
+                log.trace("Streaming upload: skipping form field '{}'", part.getFieldName());
+                continue;
+            }
+
+            StorageResource resource = uploadPart(userId, destination, part, contentLength - uploadedSize);
+            uploadedResources.add(resource);
+            uploadedSize += resource.size();
+        }
+
+        return resourceMapper.toDtoList(uploadedResources);
+    }
+
+    private StorageResource uploadPart(long userId, String destination, FileItemInput part, long remainingBody)
+            throws IOException {
+        String originalFilename = part.getName();
+        pathValidator.validatePath(originalFilename, false);
+
+        String fullPath = generateUserPath(userId, destination + originalFilename);
+        pathValidator.validateUpload(fullPath);
+
+        long limit = Math.min(remainingBody, settings.getMaxFileSize().toBytes());
+        usageService.reserve(userId, 1, limit);
+
+        log.debug("Streaming file: '{}' (at most {} bytes)", fullPath, limit);
+        LimitedInputStream body = new LimitedInputStream(part.getInputStream(), settings.getMaxFileSize().toBytes());
+        StorageResource resource;
+        try {
+            resource = storagePort.uploadFile(fullPath, body, -1, part.getContentType());
+        } catch (StorageException e) {
+            usageService.release(userId, 1, limit);
+            if (body.exceeded) {
+                log.warn("Streaming upload rejected: '{}' is larger than {}", fullPath, settings.getMaxFileSize());
+                throw new StorageQuotaExceededException(AppConstants.ExceptionMessages.MAX_FILE_SIZE_EXCEEDED);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            usageService.release(userId, 1, limit);
+            throw e;
+        }
+
+        // Резервировали по верхней границе, возвращаем разницу с фактическим размером
+        usageService.release(userId, 0, limit - resource.size());
+        catalog.recordFile(userId, resource);
+        return resource;
+    }
+
+    /**
+     * Обрывает чтение на превышении лимита размера файла. Хранилище заворачивает ошибку чтения
+     * в свою, поэтому причина запоминается во флаге.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+        private boolean exceeded;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) advance(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) advance(read);
+            return read;
+        }
+
+        private void advance(long read) throws IOException {
+            count += read;
+            if (count > limit) {
+                exceeded = true;
+                throw new IOException("File exceeds " + limit + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.example.cloudstorage.service.storage.upload;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.AppConstants;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.dto.storage.UploadSessionDto;
+import org.example.cloudstorage.exception.BadRequestException;
+import org.example.cloudstorage.exception.storage.Quota.StorageQuotaExceededException;
+import org.example.cloudstorage.exception.storage.UploadSessionConflictException;
+import org.example.cloudstorage.exception.storage.UploadSessionNotFoundException;
+import org.example.cloudstorage.mapper.ResourceResponseMapper;
+import org.example.cloudstorage.model.StoragePath;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.model.UploadSession;
+import org.example.cloudstorage.service.storage.base.AbstractStorageService;
+import org.example.cloudstorage.service.storage.catalog.FileCatalogService;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.quota.StorageUsageService;
+import org.example.cloudstorage.service.storage.validation.PathValidator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Возобновляемая загрузка файла частями в отдельных запросах.
+ * <p>
+ * Протокол: создать сессию с итоговым размером файла, слать части строго по порядку со смещением,
+ * при обрыве запросить принятое смещение и продолжить с него, затем завершить. Каждая часть сессии — это
+ * часть multipart-загрузки в хранилище, поэтому принятые байты не хранятся на узле и не теряются при обрыве.
+ * <p>
+ * Квота резервируется на весь размер при создании сессии и возвращается при отмене или истечении.
+ * Сессия без активности дольше {@code sessionTtl} отменяется фоновой очисткой.
+ */
+@Slf4j
+@Service
+public class UploadSessionService extends AbstractStorageService {
+
+    // Запись одной части не должна идти дольше; иначе блокировку снимет Redis
+    private static final Duration LOCK_TIMEOUT = Duration.ofMinutes(10);
+    private static final int CLEANUP_BATCH = 100;
+
+    private final UploadSessionStore store;
+    private final StorageUsageService usageService;
+    private final FileCatalogService catalog;
+    private final StorageProperties.Upload settings;
+    private final Clock clock = Clock.systemUTC();
+
+    public UploadSessionService(ObjectStoragePort storagePort,
+                                PathValidator pathValidator,
+                                ResourceResponseMapper resourceMapper,
+                                UploadSessionStore store,
+                                StorageUsageService usageService,
+                                FileCatalogService catalog,
+                                StorageProperties properties) {
+        super(storagePort, pathValidator, resourceMapper);
+        this.store = store;
+        this.usageService = usageService;
+        this.catalog = catalog;
+        this.settings = properties.getUpload();
+    }
+
+    public UploadSessionDto create(long userId, String path, String name, long size, String contentType) {
+        log.info("Upload session request: userId={}, path='{}', name='{}', size={}", userId, path, name, size);
+        String destination = path == null ? "" : path;
+        pathValidator.validatePath(destination, true);
+        pathValidator.validatePath(name, false);
+        if (size > settings.getMaxFileSize().toBytes()) {
+            throw new StorageQuotaExceededException(AppConstants.ExceptionMessages.MAX_FILE_SIZE_EXCEEDED);
+        }
+
+        String fullPath = generateUserPath(userId, destination + name);
+        pathValidator.validateUpload(fullPath);
+
+        usageService.reserve(userId, 1, size);
+        String uploadId;
+        try {
+            uploadId = storagePort.startMultipartUpload(fullPath, contentType);
+        } catch (RuntimeException e) {
+            usageService.release(userId, 1, size);
+            throw e;
+        }
+
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), userId, fullPath, size, contentType,
+                uploadId, settings.getSessionChunkSize().toBytes(), 0, expiresAt(), List.of());
+        store.save(session);
+        log.debug("Upload session {} created for '{}'", session.id(), fullPath);
+        return toDto(session);
+    }
+
+    public UploadSessionDto status(long userId, String sessionId) {
+        return toDto(load(userId, sessionId));
+    }
+
+    /**
+     * Принимает часть, начинающуюся с {@code offset}. Смещение должно совпадать с принятым сервером: повтор уже
+     * принятой части или пропуск отклоняются, клиенту нужно запросить статус и продолжить с него.
+     */
+    public UploadSessionDto uploadChunk(long userId, String sessionId, long offset, InputStream data, long length) {
+        return withLock(userId, sessionId, session -> {
+            if (offset != session.offset()) {
+                log.warn("Upload session {}: offset {} rejected, expected {}", sessionId, offset, session.offset());
+                throw new UploadSessionConflictException(
+                        AppConstants.ExceptionMessages.UPLOAD_OFFSET_MISMATCH, session.fullPath());
+            }
+
+            long remaining = session.size() - offset;
+            boolean lastChunk = length == remaining;
+            if (length <= 0 || length > session.chunkSize() || (!lastChunk && length != session.chunkSize())) {
+                throw new BadRequestException(AppConstants.ExceptionMessages.UPLOAD_CHUNK_SIZE_INVALID);
+            }
+
+            int partNumber = session.nextPartNumber();
+            String etag = storagePort.uploadPart(session.fullPath(), session.uploadId(), partNumber, data, length);
+
+            long newOffset = offset + length;
+            Instant expiresAt = expiresAt();
+            store.recordPart(sessionId, partNumber, etag, newOffset, expiresAt);
+            log.debug("Upload session {}: part {} accepted, offset {}/{}", sessionId, partNumber, newOffset, session.size());
+
+            return toDto(new UploadSession(session.id(), session.userId(), session.fullPath(), session.size(),
+                    session.contentType(), session.uploadId(), session.chunkSize(), newOffset, expiresAt, List.of()));
+        });
+    }
+
+    public ResourceInfoDto complete(long userId, String sessionId) {
+        return withLock(userId, sessionId, session -> {
+            if (!session.isComplete()) {
+                throw new UploadSessionConflictException(
+                        AppConstants.ExceptionMessages.UPLOAD_INCOMPLETE, session.fullPath());
+            }
+            // Пока шла загрузка, по этому пути могли создать файл или папку
+            pathValidator.validateUpload(session.fullPath());
+
+            StorageResource resource;
+            if (session.size() == 0) {
+                // Multipart не собирается из нуля частей: пустой файл пишется обычной загрузкой
+                storagePort.abortMultipartUpload(session.fullPath(), session.uploadId());
+                resource = storagePort.uploadFile(session.fullPath(), new ByteArrayInputStream(new byte[0]), 0,
+                        session.contentType());
+            } else {
+                resource = storagePort.completeMultipartUpload(session.fullPath(), session.uploadId(),
+                        session.partEtags());
+            }
+
+            store.delete(sessionId);
+            catalog.recordFile(userId, resource);
+            log.info("Upload session {} completed: '{}' ({} bytes)", sessionId, session.fullPath(), resource.size());
+            return resourceMapper.toDto(resource);
+        });
+    }
+
+    public void abort(long userId, String sessionId) {
+        withLock(userId, sessionId, session -> {
+            discard(session);
+            log.info("Upload session {} aborted by user", sessionId);
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${storage.upload.session-cleanup-interval:PT10M}")
+    public void cleanupExpired() {
+        Instant now = clock.instant();
+        for (String sessionId : store.findExpired(now, CLEANUP_BATCH)) {
+            Optional<String> lock = store.tryLock(sessionId, LOCK_TIMEOUT);
+            if (lock.isEmpty()) continue;
+            try {
+                Optional<UploadSession> session = store.find(sessionId);
+                if (session.isEmpty()) {
+                    // Хэш уже истёк сам: отменить загрузку в хранилище нечем, остаётся убрать ссылку
+                    log.warn("Upload session {} vanished before cleanup, storage upload may be left behind", sessionId);
+                    store.delete(sessionId);
+                } else if (!session.get().expiresAt().isAfter(now)) {
+                    // Между выборкой и блокировкой сессию могли продлить, поэтому срок проверяется ещё раз
+                    discard(session.get());
+                    log.info("Upload session {} expired, '{}' discarded at offset {}/{}",
+                            sessionId, session.get().fullPath(), session.get().offset(), session.get().size());
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to clean up upload session {}: {}", sessionId, e.getMessage());
+            } finally {
+                unlock(sessionId, lock.get());
+            }
+        }
+    }
+
+    private void discard(UploadSession session) {
+        storagePort.abortMultipartUpload(session.fullPath(), session.uploadId());
+        store.delete(session.id());
+        usageService.release(session.userId(), 1, session.size());
+    }
+
+    private <T> T withLock(long userId, String sessionId, Function<UploadSession, T> action) {
+        load(userId, sessionId);
+        String lock = store.tryLock(sessionId, LOCK_TIMEOUT)
+                .orElseThrow(() -> new UploadSessionConflictException(AppConstants.ExceptionMessages.UPLOAD_SESSION_BUSY, sessionId));
+        try {
+            // Перечитываем под блокировкой: пока её ждали, состояние могло измениться
+            return action.apply(load(userId, sessionId));
+        } finally {
+            unlock(sessionId, lock);
+        }
+    }
+
+    private void unlock(String sessionId, String lock) {
+        if (!store.unlock(sessionId, lock)) {
+            log.warn("Upload session {} lock expired before release (timeout {}), the session may have been changed concurrently",
+                    sessionId, LOCK_TIMEOUT);
+        }
+    }
+
+    private UploadSession load(long userId, String sessionId) {
+        return store.find(sessionId)
+                // Чужая сессия неотличима от несуществующей
+                .filter(session -> session.userId() == userId)
+                .orElseThrow(() -> new UploadSessionNotFoundException(sessionId));
+    }
+
+    private Instant expiresAt() {
+        return clock.instant().plus(settings.getSessionTtl());
+    }
+
+    private UploadSessionDto toDto(UploadSession session) {
+        StoragePath path = StoragePath.parse(session.fullPath());
+        return new UploadSessionDto(session.id(), path.parentPath(), path.name(), session.size(), session.offset(),
+                session.chunkSize(), session.expiresAt());
+    }
+}
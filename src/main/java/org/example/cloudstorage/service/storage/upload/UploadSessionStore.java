@@ -0,0 +1,142 @@
+package org.example.cloudstorage.service.storage.upload;
+
+import lombok.RequiredArgsConstructor;
+import org.example.cloudstorage.model.UploadSession;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Сессии загрузки в Redis: хэш на сессию и общий sorted set сроков истечения.
+ * <p>
+ * Сам хэш живёт дольше срока сессии на {@link #GRACE}: фоновая очистка находит просроченные сессии по sorted set
+ * и должна успеть прочитать их, чтобы отменить загрузку в хранилище и вернуть квоту.
+ */
+@Component
+@RequiredArgsConstructor
+public class UploadSessionStore {
+
+    private static final String KEY_PREFIX = "cloudStorage:uploads:";
+    private static final String EXPIRY_KEY = KEY_PREFIX + "expiry";
+    private static final String LOCK_SUFFIX = ":lock";
+    private static final String PART_PREFIX = "part:";
+    private static final Duration GRACE = Duration.ofHours(1);
+    // Снимается только блокировка с тем же токеном: чужую, взятую после истечения нашей, не трогаем
+    private static final RedisScript<Long> UNLOCK = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redis;
+
+    public void save(UploadSession session) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("userId", String.valueOf(session.userId()));
+        fields.put("path", session.fullPath());
+        fields.put("size", String.valueOf(session.size()));
+        fields.put("uploadId", session.uploadId());
+        fields.put("chunkSize", String.valueOf(session.chunkSize()));
+        fields.put("offset", String.valueOf(session.offset()));
+        fields.put("expiresAt", String.valueOf(session.expiresAt().toEpochMilli()));
+        if (session.contentType() != null) {
+            fields.put("contentType", session.contentType());
+        }
+
+        String key = key(session.id());
+        redis.opsForHash().putAll(key, fields);
+        touch(session.id(), session.expiresAt());
+    }
+
+    /**
+     * Фиксирует принятую часть: ETag, новое смещение и продлённый срок пишутся одной командой.
+     */
+    public void recordPart(String id, int partNumber, String etag, long offset, Instant expiresAt) {
+        redis.opsForHash().putAll(key(id), Map.of(
+                PART_PREFIX + partNumber, etag,
+                "offset", String.valueOf(offset),
+                "expiresAt", String.valueOf(expiresAt.toEpochMilli())
+        ));
+        touch(id, expiresAt);
+    }
+
+    public Optional<UploadSession> find(String id) {
+        Map<Object, Object> fields = redis.opsForHash().entries(key(id));
+        if (fields.isEmpty()) return Optional.empty();
+
+        long size = Long.parseLong((String) fields.get("size"));
+        long chunkSize = Long.parseLong((String) fields.get("chunkSize"));
+        long offset = Long.parseLong((String) fields.get("offset"));
+
+        int parts = (int) ((offset + chunkSize - 1) / chunkSize);
+        List<String> partEtags = new ArrayList<>(parts);
+        for (int number = 1; number <= parts; number++) {
+            partEtags.add((String) fields.get(PART_PREFIX + number));
+        }
+
+        return Optional.of(new UploadSession(
+                id,
+                Long.parseLong((String) fields.get("userId")),
+                (String) fields.get("path"),
+                size,
+                (String) fields.get("contentType"),
+                (String) fields.get("uploadId"),
+                chunkSize,
+                offset,
+                Instant.ofEpochMilli(Long.parseLong((String) fields.get("expiresAt"))),
+                partEtags
+        ));
+    }
+
+    public void delete(String id) {
+        redis.delete(key(id));
+        redis.opsForZSet().remove(EXPIRY_KEY, id);
+    }
+
+    /**
+     * Идентификаторы сессий, срок которых истёк к {@code now}, не больше {@code limit}.
+     */
+    public Set<String> findExpired(Instant now, int limit) {
+        Set<String> ids = redis.opsForZSet().rangeByScore(EXPIRY_KEY, 0, now.toEpochMilli(), 0, limit);
+        return ids == null ? Set.of() : ids;
+    }
+
+    /**
+     * Сессию меняет не больше одного запроса одновременно, в том числе между узлами.
+     * Блокировка истекает сама, если держатель умер.
+     *
+     * @return токен держателя для {@link #unlock}, пусто — сессия занята
+     */
+    public Optional<String> tryLock(String id, Duration timeout) {
+        String token = UUID.randomUUID().toString();
+        boolean acquired = Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(key(id) + LOCK_SUFFIX, token, timeout));
+        return acquired ? Optional.of(token) : Optional.empty();
+    }
+
+    /**
+     * Снимает блокировку, если она всё ещё принадлежит держателю с этим токеном.
+     *
+     * @return {@code false}, если блокировка истекла раньше и, возможно, уже взята другим запросом
+     */
+    public boolean unlock(String id, String token) {
+        Long deleted = redis.execute(UNLOCK, List.of(key(id) + LOCK_SUFFIX), token);
+        return deleted != null && deleted > 0;
+    }
+
+    private void touch(String id, Instant expiresAt) {
+        redis.expireAt(key(id), expiresAt.plus(GRACE));
+        redis.opsForZSet().add(EXPIRY_KEY, id, expiresAt.toEpochMilli());
+    }
+
+    private static String key(String id) {
+        return KEY_PREFIX + id;
+    }
+}
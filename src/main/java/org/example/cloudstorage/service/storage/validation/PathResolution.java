@@ -0,0 +1,26 @@
+package org.example.cloudstorage.service.storage.validation;
+
+/**
+ * Результат разрешения пути.
+ *
+ * @param state            что лежит по пути
+ * @param parentPresent    существует ли родительская папка (явно или виртуально)
+ * @param blockingAncestor ближайший предок, который является файлом, или {@code null}
+ */
+public record PathResolution(
+        PathState state,
+        boolean parentPresent,
+        String blockingAncestor
+) {
+    public boolean exists() {
+        return state != PathState.ABSENT;
+    }
+
+    public boolean isFolder() {
+        return state == PathState.FOLDER || state == PathState.VIRTUAL_FOLDER;
+    }
+
+    public boolean hasFileAncestor() {
+        return blockingAncestor != null;
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.cloudstorage.service.storage.validation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.model.StoragePath;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.util.PathUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Определяет, чем является путь в хранилище, одним коротким листингом.
+ * <p>
+ * Листинг по префиксу {@code path} (без слэша) в порядке ключей отдаёт сначала сам файл {@code path},
+ * затем соседей вида {@code path.bak}, затем маркер {@code path/} и содержимое папки. Поэтому первой
+ * страницы из {@link #PROBE_LIMIT} ключей почти всегда хватает, чтобы отличить файл, явную папку,
+ * виртуальную папку и отсутствие пути.
+ * <p>
+ * Предки проверяются только для отсутствующего пути и только до первой непустой папки: валидация
+ * не допускает файл и папку с одним именем, значит под файлом не бывает объектов, и непустой родитель
+ * гарантирует, что ни один предок не файл. Обе проверки предков кэшируются декоратором порта,
+ * так что при загрузке в существующую папку к хранилищу уходит один листинг.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PathResolver {
+
+    static final int PROBE_LIMIT = 16;
+
+    private final ObjectStoragePort storagePort;
+
+    public PathResolution resolve(String path) {
+        String base = PathUtils.trimTrailingSlash(path);
+        PathState state = resolveState(base);
+        log.trace("Resolver: '{}' resolved as {}", path, state);
+
+        if (state != PathState.ABSENT) {
+            return new PathResolution(state, true, null);
+        }
+        return resolveAncestors(base);
+    }
+
+    private PathState resolveState(String base) {
+        String folder = base + "/";
+        List<StorageResource> page = storagePort.listObjects(base, PROBE_LIMIT);
+
+        boolean file = false;
+        boolean marker = false;
+        boolean children = false;
+        boolean conclusive = page.size() < PROBE_LIMIT;
+
+        for (StorageResource resource : page) {
+            String key = resource.fullPath();
+            if (key.equals(base)) {
+                file = true;
+            } else if (key.compareTo(folder) >= 0) {
+                // Маркер папки идёт раньше её содержимого, дальше смотреть незачем
+                marker = key.equals(folder);
+                children = !marker && key.startsWith(folder);
+                conclusive = true;
+                break;
+            }
+        }
+
+        if (!conclusive) {
+            // Страницу целиком заняли соседи с тем же началом имени
+            log.trace("Resolver: probe for '{}' is inconclusive, falling back to direct checks", base);
+            marker = storagePort.exists(folder);
+            children = !marker && storagePort.containsObjects(folder);
+        }
+
+        if (file) return PathState.FILE;
+        if (marker) return PathState.FOLDER;
+        if (children) return PathState.VIRTUAL_FOLDER;
+        return PathState.ABSENT;
+    }
+
+    private PathResolution resolveAncestors(String base) {
+        StoragePath parent = StoragePath.parse(base).parent();
+
+        for (StoragePath folder = parent; folder != null; folder = folder.parent()) {
+            if (storagePort.containsObjects(folder.key())) {
+                return new PathResolution(PathState.ABSENT, folder == parent, null);
+            }
+
+            String folderAsFile = folder.keyWithoutSlash();
+            if (storagePort.exists(folderAsFile)) {
+                log.trace("Resolver: ancestor '{}' of '{}' is a file", folderAsFile, base);
+                return new PathResolution(PathState.ABSENT, false, folderAsFile);
+            }
+        }
+        return new PathResolution(PathState.ABSENT, false, null);
+    }
+}
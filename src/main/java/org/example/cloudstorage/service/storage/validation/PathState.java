@@ -0,0 +1,11 @@
+package org.example.cloudstorage.service.storage.validation;
+
+public enum PathState {
+    /** Есть объект с точно таким ключом (без слэша на конце). */
+    FILE,
+    /** Есть маркер папки {@code path/}. */
+    FOLDER,
+    /** Маркера нет, но под {@code path/} лежат объекты. */
+    VIRTUAL_FOLDER,
+    ABSENT
+}
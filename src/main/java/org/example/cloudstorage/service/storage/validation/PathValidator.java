@@ -5,12 +5,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.example.cloudstorage.config.AppConstants;
 import org.example.cloudstorage.exception.storage.*;
 import org.example.cloudstorage.exception.BadRequestException;
-import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
-import org.example.cloudstorage.util.PathUtils;
+import org.example.cloudstorage.model.StoragePath;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-
 import static org.example.cloudstorage.config.AppConstants.ExceptionMessages.*;
 
 @Slf4j
@@ -18,78 +15,57 @@ import static org.example.cloudstorage.config.AppConstants.ExceptionMessages.*;
 @RequiredArgsConstructor
 public class PathValidator {
 
-    private final ObjectStoragePort storagePort;
+    private final PathResolver pathResolver;
 
     public boolean existsAnywhere(String path) {
         log.trace("Validator: checking existence for '{}'", path);
-
-        if (storagePort.exists(path)) {
-            log.trace("Validator: found exact match for '{}'", path);
-            return true;
-        }
-
-        String alternative = path.endsWith("/")
-                ? PathUtils.trimTrailingSlash(path)
-                : path + "/";
-
-        if (storagePort.exists(alternative)) {
-            log.trace("Validator: found alternative match for '{}' as '{}'", path, alternative);
-            return true;
-        }
-
-        if (path.endsWith("/")) {
-            boolean hasChildren = !storagePort.listAllPathsRecursive(path).isEmpty();
-            if (hasChildren) {
-                log.trace("Validator: found virtual directory (has children) for '{}'", path);
-            }
-            return hasChildren;
-        }
-
-        return false;
+        return pathResolver.resolve(path).exists();
     }
 
-    public void validateCreateFolder(String path, String userPrefix) {
-        log.debug("Validator: validating folder creation for path='{}', userPrefix='{}'", path, userPrefix);
-        if (existsAnywhere(path)) {
+    public void validateCreateFolder(StoragePath folder) {
+        String path = folder.key();
+        log.debug("Validator: validating folder creation for path='{}'", path);
+        PathResolution target = pathResolver.resolve(path);
+        if (target.exists()) {
             log.warn("Validator: folder creation failed - path already exists: '{}'", path);
             throw new StorageConflictException(path);
         }
 
-        String parentPath = PathUtils.extractParentPath(path);
-        if (!parentPath.equals(userPrefix)) {
-            if (!existsAnywhere(parentPath)) {
-                log.warn("Validator: folder creation failed - parent missing: '{}'", parentPath);
-                throw new BadRequestException(FOLDER_PARENT_MISSING);
-            }
+        if (target.hasFileAncestor()) {
+            log.warn("Validator: folder creation failed - ancestor '{}' is a file", target.blockingAncestor());
+            throw new StorageConflictException(target.blockingAncestor());
+        }
+
+        if (!folder.isTopLevel() && !target.parentPresent()) {
+            log.warn("Validator: folder creation failed - parent missing: '{}'", folder.parentPath());
+            throw new BadRequestException(FOLDER_PARENT_MISSING);
         }
     }
 
     public void validateUpload(String path) {
         log.debug("Validator: validating upload for path='{}'", path);
-        if (existsAnywhere(path)) {
+        PathResolution target = pathResolver.resolve(path);
+        if (target.exists()) {
             log.warn("Validator: upload failed - path already exists: '{}'", path);
             throw new StorageConflictException(path);
         }
 
-        List<String> steps = PathUtils.getParentSteps(path);
-        for (String step : steps) {
-            String stepAsFile = PathUtils.trimTrailingSlash(step);
-            if (storagePort.exists(stepAsFile)) {
-                log.warn("Validator: upload failed - parent step '{}' is a file, cannot be a directory", stepAsFile);
-                throw new StorageConflictException(stepAsFile);
-            }
+        if (target.hasFileAncestor()) {
+            log.warn("Validator: upload failed - parent step '{}' is a file, cannot be a directory", target.blockingAncestor());
+            throw new StorageConflictException(target.blockingAncestor());
         }
     }
 
     public void validateMove(String from, String to) {
         log.info("Validator: validating move from='{}' to='{}'", from, to);
 
-        if (!existsAnywhere(from)) {
+        if (!pathResolver.resolve(from).exists()) {
             log.warn("Validator: move failed - source does not exist: '{}'", from);
             throw new StorageNotFoundException(from);
         }
 
-        if (existsAnywhere(to)) {
+        PathResolution target = pathResolver.resolve(to);
+        if (target.exists()) {
             log.warn("Validator: move failed - destination already exists: '{}'", to);
             throw new StorageConflictException(to);
         }
@@ -103,6 +79,11 @@ public class PathValidator {
             log.warn("Validator: move failed - attempt to move into itself");
             throw new BadRequestException(MOVE_INTO_ITSELF);
         }
+
+        if (target.hasFileAncestor()) {
+            log.warn("Validator: move failed - destination ancestor '{}' is a file", target.blockingAncestor());
+            throw new StorageConflictException(target.blockingAncestor());
+        }
     }
 
     public void validatePath(String path, boolean mustBeDirectory) throws BadRequestException {
@@ -0,0 +1,28 @@
+package org.example.cloudstorage.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public final class BatchUtils {
+
+    private BatchUtils() {}
+
+    /**
+     * Читает стрим и отдаёт элементы пачками не больше {@code batchSize}, не накапливая весь стрим в памяти.
+     */
+    public static <T> void forEachBatch(Stream<T> stream, int batchSize, Consumer<List<T>> consumer) {
+        List<T> batch = new ArrayList<>(batchSize);
+        stream.forEachOrdered(item -> {
+            batch.add(item);
+            if (batch.size() >= batchSize) {
+                consumer.accept(List.copyOf(batch));
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            consumer.accept(List.copyOf(batch));
+        }
+    }
+}
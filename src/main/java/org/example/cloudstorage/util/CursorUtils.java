@@ -0,0 +1,56 @@
+package org.example.cloudstorage.util;
+
+import org.example.cloudstorage.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.example.cloudstorage.config.AppConstants.ExceptionMessages.INVALID_CURSOR;
+
+/**
+ * Непрозрачные курсоры пагинации: для листинга папки это имя последнего отданного элемента
+ * относительно папки, для ранжированного поиска — смещение следующей страницы.
+ */
+public final class CursorUtils {
+
+    private CursorUtils() {}
+
+    public static String encode(String folderPath, String lastKey) {
+        String relative = lastKey.substring(folderPath.length());
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(relative.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decode(String folderPath, String cursor) {
+        String relative;
+        try {
+            relative = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(INVALID_CURSOR);
+        }
+
+        // Курсор указывает только на непосредственного потомка папки или на её собственный маркер
+        // (пустой относительный путь): страница бакета может закончиться на нём
+        int slash = relative.indexOf('/');
+        if (relative.contains("..") || (slash != -1 && slash != relative.length() - 1)) {
+            throw new BadRequestException(INVALID_CURSOR);
+        }
+        return folderPath + relative;
+    }
+
+    public static String encodeOffset(int offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Integer.toString(offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static int decodeOffset(String cursor) {
+        try {
+            int offset = Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (offset < 0) throw new BadRequestException(INVALID_CURSOR);
+            return offset;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException тоже IllegalArgumentException
+            throw new BadRequestException(INVALID_CURSOR);
+        }
+    }
+}
@@ -48,13 +48,34 @@ public final class PathUtils {
         return steps;
     }
 
+    /**
+     * Обратные слэши становятся прямыми, повторные и ведущие слэши убираются. Один проход без регулярных
+     * выражений; уже чистый путь возвращается как есть, без копирования.
+     */
     public static String normalize(String path) {
         if (isRoot(path)) return "";
 
-        return path.trim()
-                .replace("\\", "/")
-                .replaceAll("/{2,}", "/")
-                .replaceAll("^/+", "");
+        String trimmed = path.trim();
+        if (isNormalized(trimmed)) return trimmed;
+
+        StringBuilder normalized = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i) == '\\' ? '/' : trimmed.charAt(i);
+            if (c == '/' && (normalized.isEmpty() || normalized.charAt(normalized.length() - 1) == '/')) continue;
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isNormalized(String path) {
+        // Ведущий слэш считается повторным
+        char previous = '/';
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '\\' || (c == '/' && previous == '/')) return false;
+            previous = c;
+        }
+        return true;
     }
 
     public static String getDownloadName(String path) {
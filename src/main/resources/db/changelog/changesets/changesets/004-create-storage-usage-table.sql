@@ -0,0 +1,9 @@
+--liquibase formatted sql
+--changeset gofra:4
+
+CREATE TABLE IF NOT EXISTS storage_usage (
+                                     user_id BIGINT PRIMARY KEY,
+                                     used_bytes BIGINT NOT NULL DEFAULT 0,
+                                     object_count BIGINT NOT NULL DEFAULT 0,
+                                     updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW()
+);
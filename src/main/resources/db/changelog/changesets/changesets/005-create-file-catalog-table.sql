@@ -0,0 +1,21 @@
+--liquibase formatted sql
+--changeset gofra:5
+
+-- Пути сравниваются побайтно (COLLATE "C"), как ключи в MinIO: порядок листинга и курсоры совпадают
+CREATE TABLE IF NOT EXISTS files (
+                       id BIGSERIAL PRIMARY KEY,
+                       user_id BIGINT NOT NULL,
+                       path TEXT COLLATE "C" NOT NULL,
+                       parent_path TEXT COLLATE "C" NOT NULL,
+                       name TEXT NOT NULL,
+                       size BIGINT NOT NULL DEFAULT 0,
+                       is_dir BOOLEAN NOT NULL DEFAULT FALSE,
+                       is_virtual BOOLEAN NOT NULL DEFAULT FALSE,
+                       content_type VARCHAR(255),
+                       etag VARCHAR(255),
+                       created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+                       updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+                       CONSTRAINT uk_files_user_path UNIQUE (user_id, path)
+);
+
+CREATE INDEX IF NOT EXISTS idx_files_user_parent ON files(user_id, parent_path, path);
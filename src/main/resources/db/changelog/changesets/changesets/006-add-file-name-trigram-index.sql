@@ -0,0 +1,7 @@
+--liquibase formatted sql
+--changeset gofra:6
+
+-- Триграммный индекс по имени: поиск подстроки не сканирует все файлы пользователя
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_files_name_trgm ON files USING gin (lower(name) gin_trgm_ops);
@@ -0,0 +1,28 @@
+--liquibase formatted sql
+--changeset gofra:7
+
+-- Режим дедупликации: содержимое хранится один раз, пути пользователей ссылаются на него по SHA-256
+CREATE TABLE IF NOT EXISTS blobs (
+                       hash VARCHAR(64) PRIMARY KEY,
+                       storage_key TEXT NOT NULL,
+                       size BIGINT NOT NULL,
+                       ref_count BIGINT NOT NULL DEFAULT 0,
+                       created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+                       updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+                       CONSTRAINT uk_blobs_storage_key UNIQUE (storage_key)
+);
+
+-- Сборщик мусора выбирает только блобы без ссылок, старейшие первыми
+CREATE INDEX IF NOT EXISTS idx_blobs_unreferenced ON blobs(updated_at) WHERE ref_count = 0;
+
+-- Полные ключи, как в бакете; у маркеров папок hash пустой
+CREATE TABLE IF NOT EXISTS blob_refs (
+                       path TEXT COLLATE "C" PRIMARY KEY,
+                       owner_id BIGINT,
+                       hash VARCHAR(64) REFERENCES blobs(hash),
+                       size BIGINT NOT NULL DEFAULT 0,
+                       content_type VARCHAR(255),
+                       created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_blob_refs_owner_hash ON blob_refs(owner_id, hash);
@@ -0,0 +1,19 @@
+--liquibase formatted sql
+--changeset gofra:8
+
+-- Дерево путей: папка — узел с id, файл ссылается на объект бакета по неизменному ключу.
+-- Имя папки хранится со слэшем на конце, поэтому порядок имён совпадает с порядком полных ключей.
+-- Корни (user-N-files/) имеют parent_id = 0.
+CREATE TABLE IF NOT EXISTS storage_nodes (
+                       id BIGSERIAL PRIMARY KEY,
+                       parent_id BIGINT NOT NULL,
+                       name TEXT COLLATE "C" NOT NULL,
+                       is_dir BOOLEAN NOT NULL,
+                       is_marker BOOLEAN NOT NULL DEFAULT FALSE,
+                       storage_key TEXT,
+                       size BIGINT NOT NULL DEFAULT 0,
+                       content_type VARCHAR(255),
+                       etag VARCHAR(255),
+                       updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+                       CONSTRAINT uk_storage_nodes_parent_name UNIQUE (parent_id, name)
+);
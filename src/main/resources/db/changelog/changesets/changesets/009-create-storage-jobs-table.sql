@@ -0,0 +1,31 @@
+--liquibase formatted sql
+--changeset gofra:9
+
+-- Фоновые операции над папками: удаление, перенос, сборка архива. Пути — относительно корня пользователя
+CREATE TABLE IF NOT EXISTS storage_jobs (
+                       id VARCHAR(36) PRIMARY KEY,
+                       owner_id BIGINT NOT NULL,
+                       type VARCHAR(16) NOT NULL,
+                       status VARCHAR(16) NOT NULL,
+                       source_path TEXT NOT NULL,
+                       target_path TEXT,
+                       compression VARCHAR(16),
+                       items_total BIGINT NOT NULL DEFAULT 0,
+                       bytes_total BIGINT NOT NULL DEFAULT 0,
+                       items_done BIGINT NOT NULL DEFAULT 0,
+                       bytes_done BIGINT NOT NULL DEFAULT 0,
+                       result_key TEXT,
+                       error TEXT,
+                       cancel_requested BOOLEAN NOT NULL DEFAULT FALSE,
+                       attempts INT NOT NULL DEFAULT 0,
+                       worker_id VARCHAR(64),
+                       heartbeat_at TIMESTAMP WITH TIME ZONE,
+                       created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+                       started_at TIMESTAMP WITH TIME ZONE,
+                       finished_at TIMESTAMP WITH TIME ZONE
+);
+
+-- Очередь: воркеры забирают ожидающие задачи и задачи умерших узлов, старейшие первыми
+CREATE INDEX IF NOT EXISTS idx_storage_jobs_active ON storage_jobs(created_at) WHERE status IN ('QUEUED', 'RUNNING');
+CREATE INDEX IF NOT EXISTS idx_storage_jobs_owner ON storage_jobs(owner_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_storage_jobs_finished ON storage_jobs(finished_at) WHERE finished_at IS NOT NULL;
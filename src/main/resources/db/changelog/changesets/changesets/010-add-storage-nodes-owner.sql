@@ -0,0 +1,24 @@
+--liquibase formatted sql
+--changeset gofra:10
+
+-- Владелец узла: с деревом путей каталог (поиск, объём поддерева) читается из storage_nodes,
+-- и поиску нужно ограничиваться узлами одного пользователя без обхода дерева от корня.
+-- Перенос не выходит за пределы пользователя, поэтому владелец узла не меняется.
+ALTER TABLE storage_nodes ADD COLUMN IF NOT EXISTS user_id BIGINT;
+
+WITH RECURSIVE owned AS (
+    SELECT id, CAST(substring(name FROM '^user-([0-9]+)-files/$') AS BIGINT) AS user_id
+    FROM storage_nodes
+    WHERE parent_id = 0
+    UNION ALL
+    SELECT node.id, owned.user_id
+    FROM storage_nodes node
+    JOIN owned ON node.parent_id = owned.id
+)
+UPDATE storage_nodes SET user_id = owned.user_id
+FROM owned
+WHERE storage_nodes.id = owned.id;
+
+-- Имя папки хранится со слэшем, ищется без него, как в каталоге files
+CREATE INDEX IF NOT EXISTS idx_storage_nodes_name_trgm
+    ON storage_nodes USING gin (lower(rtrim(name, '/')) gin_trgm_ops);
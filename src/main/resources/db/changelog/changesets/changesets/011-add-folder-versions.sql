@@ -0,0 +1,19 @@
+--liquibase formatted sql
+--changeset gofra:11
+
+-- Версия листинга папки для ETag: меняется при каждом изменении её дочерних объектов, читается одной строкой
+-- вместо обхода всех потомков. Значения берутся из одной последовательности, поэтому папка, созданная заново
+-- по тому же пути, не получает версию, которую клиент уже видел у прежней.
+CREATE SEQUENCE IF NOT EXISTS folder_version_seq;
+
+-- Каталог files: версия по пути папки относительно корня пользователя (у корня путь пустой).
+-- Изменение содержимого папки удаляет её строку, новая версия выдаётся при следующем чтении.
+CREATE TABLE IF NOT EXISTS folder_versions (
+                       user_id BIGINT NOT NULL,
+                       path TEXT COLLATE "C" NOT NULL,
+                       version BIGINT NOT NULL DEFAULT nextval('folder_version_seq'),
+                       PRIMARY KEY (user_id, path)
+);
+
+-- Дерево путей: версия хранится в узле папки и переезжает вместе с ним
+ALTER TABLE storage_nodes ADD COLUMN IF NOT EXISTS children_version BIGINT NOT NULL DEFAULT nextval('folder_version_seq');
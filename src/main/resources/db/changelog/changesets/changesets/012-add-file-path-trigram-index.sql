@@ -0,0 +1,5 @@
+--liquibase formatted sql
+--changeset gofra:12
+
+-- Поиск без limit сохраняет прежний контракт: подстрока ищется во всём пути, а не только в имени
+CREATE INDEX IF NOT EXISTS idx_files_path_trgm ON files USING gin (lower(path) gin_trgm_ops);
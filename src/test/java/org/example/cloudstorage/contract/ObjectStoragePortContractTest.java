@@ -0,0 +1,250 @@
+package org.example.cloudstorage.contract;
+
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Общий контракт {@link ObjectStoragePort}: поведение S3, на которое опираются сервисы и декораторы.
+ * Каждая реализация хранилища наследует эти тесты. Тесты не зависят друг от друга, но могут работать
+ * с одним бакетом, поэтому у каждого свои ключи.
+ */
+public abstract class ObjectStoragePortContractTest {
+
+    // Минимальная часть S3: все части, кроме последней, не меньше
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    protected abstract ObjectStoragePort port();
+
+    @Test
+    @DisplayName("Должен успешно загрузить и получить метаданные файла")
+    void uploadAndGetResource_ShouldWork() {
+        byte[] content = "hello world".getBytes();
+
+        StorageResource uploaded = port().uploadFile("contract-get/file.txt", new ByteArrayInputStream(content),
+                content.length, "text/plain");
+
+        StorageResource resource = port().getResource("contract-get/file.txt");
+        assertThat(resource.fullPath()).isEqualTo("contract-get/file.txt");
+        assertThat(resource.size()).isEqualTo(content.length);
+        assertThat(resource.etag()).isNotBlank();
+        assertThat(uploaded.size()).isEqualTo(content.length);
+    }
+
+    @Test
+    @DisplayName("Должен выбросить StorageNotFoundException, если файла нет")
+    void getResource_ShouldThrowNotFound() {
+        assertThatThrownBy(() -> port().getResource("contract-missing/file.txt"))
+                .isInstanceOf(StorageNotFoundException.class);
+        assertThat(port().exists("contract-missing/file.txt")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Скачивание отсутствующего ключа выбрасывает StorageNotFoundException, а не пустой поток")
+    void download_ShouldThrowNotFound_WhenKeyMissing() {
+        assertThatThrownBy(() -> port().download("contract-missing/file.txt"))
+                .isInstanceOf(StorageNotFoundException.class);
+        assertThatThrownBy(() -> port().download("contract-missing/file.txt", 0, 4))
+                .isInstanceOf(StorageNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Поток неизвестной длины загружается целиком")
+    void uploadFile_ShouldAcceptUnknownLength() throws Exception {
+        byte[] content = "streamed without length".getBytes();
+
+        StorageResource uploaded = port().uploadFile("contract-stream/file.txt", new ByteArrayInputStream(content),
+                -1, "text/plain");
+
+        assertThat(uploaded.size()).isEqualTo(content.length);
+        try (InputStream in = port().download("contract-stream/file.txt")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    @DisplayName("Должен отдать содержимое файла целиком и по диапазону")
+    void download_ShouldReturnCorrectContent() throws Exception {
+        byte[] content = "test content".getBytes();
+        port().uploadFile("contract-download/file.txt", new ByteArrayInputStream(content), content.length, "text/plain");
+
+        try (InputStream in = port().download("contract-download/file.txt")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        try (InputStream in = port().download("contract-download/file.txt", 5, 4)) {
+            assertThat(in.readAllBytes()).isEqualTo("cont".getBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Должен успешно скопировать объект")
+    void copy_ShouldCreateIndependentObject() throws Exception {
+        byte[] content = "copied".getBytes();
+        upload("contract-copy/source.txt", content);
+
+        port().copy("contract-copy/source.txt", "contract-copy-target/source.txt");
+        port().delete("contract-copy/source.txt");
+
+        try (InputStream in = port().download("contract-copy-target/source.txt")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    @DisplayName("Должен успешно удалить файл, повторное удаление ничего не делает")
+    void delete_ShouldRemoveObject() {
+        upload("contract-delete/file.txt", new byte[0]);
+
+        port().delete("contract-delete/file.txt");
+        port().delete("contract-delete/file.txt");
+
+        assertThatThrownBy(() -> port().getResource("contract-delete/file.txt"))
+                .isInstanceOf(StorageNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Должен удалить папку со всем содержимым пачкой")
+    void deleteObjects_ShouldRemoveFolderContents() {
+        port().createFolder("contract-batch/");
+        upload("contract-batch/file1.txt", new byte[0]);
+        upload("contract-batch/sub/file2.txt", new byte[0]);
+
+        port().deleteObjects(port().listAllPathsRecursive("contract-batch/"));
+
+        assertThat(port().containsObjects("contract-batch/")).isFalse();
+        assertThatThrownBy(() -> port().getResource("contract-batch/sub/file2.txt"))
+                .isInstanceOf(StorageNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Рекурсивный листинг отдаёт все ключи под префиксом, включая маркер папки, в порядке ключей")
+    void listAllPathsRecursive_ShouldReturnKeysInOrder() {
+        port().createFolder("contract-tree/");
+        upload("contract-tree/file1.txt", new byte[0]);
+        upload("contract-tree/subdir/file2.txt", new byte[0]);
+        upload("contract-tree.txt", new byte[0]);
+
+        assertThat(port().listAllPathsRecursive("contract-tree/"))
+                .containsExactly("contract-tree/", "contract-tree/file1.txt", "contract-tree/subdir/file2.txt");
+        assertThat(port().listObjects("contract-tree/", 2)).extracting(StorageResource::fullPath)
+                .containsExactly("contract-tree/", "contract-tree/file1.txt");
+        assertThat(port().containsObjects("contract-tree/subdir/")).isTrue();
+        assertThat(port().containsObjects("contract-tree/none/")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Должен успешно создать пустую папку")
+    void createFolder_ShouldCreateObjectWithSlash() {
+        port().createFolder("contract-new-folder/");
+
+        StorageResource resource = port().getResource("contract-new-folder/");
+        assertThat(resource.fullPath()).isEqualTo("contract-new-folder/");
+        assertThat(resource.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("getResource должен отличать папку от файла")
+    void getResource_ShouldDistinguishFolderAndFile() {
+        upload("contract-distinguish/file.txt", new byte[0]);
+
+        assertThat(port().getResource("contract-distinguish/file.txt")).isNotNull();
+        assertThatThrownBy(() -> port().getResource("contract-distinguish/file.txt/"))
+                .isInstanceOf(StorageNotFoundException.class);
+        // Папки без маркера как объекта нет, есть только префикс
+        assertThatThrownBy(() -> port().getResource("contract-distinguish/"))
+                .isInstanceOf(StorageNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("listFolder должен возвращать саму папку, объекты первого уровня и подпапки")
+    void listFolder_ShouldReturnNonRecursiveItems() {
+        port().createFolder("contract-flat/");
+        upload("contract-flat/1.txt", new byte[0]);
+        upload("contract-flat/sub/2.txt", new byte[0]);
+        upload("contract-flat/sub/deeper/3.txt", new byte[0]);
+
+        assertThat(port().listFolder("contract-flat/")).extracting(StorageResource::fullPath)
+                .containsExactly("contract-flat/", "contract-flat/1.txt", "contract-flat/sub/");
+    }
+
+    @Test
+    @DisplayName("listFolderPage должен отдавать страницы без повторов, пропуская содержимое подпапок")
+    void listFolderPage_ShouldPageWithoutDuplicates() {
+        upload("contract-paged/1.txt", new byte[0]);
+        upload("contract-paged/sub/2.txt", new byte[0]);
+        upload("contract-paged/sub/3.txt", new byte[0]);
+        upload("contract-paged/z.txt", new byte[0]);
+
+        StoragePage first = port().listFolderPage("contract-paged/", null, 2);
+        StoragePage second = port().listFolderPage("contract-paged/", first.lastKey(), 2);
+
+        assertThat(first.items()).extracting(StorageResource::fullPath)
+                .containsExactly("contract-paged/1.txt", "contract-paged/sub/");
+        assertThat(first.hasMore()).isTrue();
+        assertThat(second.items()).extracting(StorageResource::fullPath)
+                .containsExactly("contract-paged/z.txt");
+        assertThat(second.hasMore()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Страница после маркера самой папки продолжается её содержимым")
+    void listFolderPage_ShouldContinueAfterFolderMarker() {
+        port().createFolder("contract-marker-page/");
+        upload("contract-marker-page/a.txt", new byte[0]);
+
+        StoragePage first = port().listFolderPage("contract-marker-page/", null, 1);
+        StoragePage second = port().listFolderPage("contract-marker-page/", first.lastKey(), 1);
+
+        assertThat(first.items()).extracting(StorageResource::fullPath).containsExactly("contract-marker-page/");
+        assertThat(second.items()).extracting(StorageResource::fullPath).containsExactly("contract-marker-page/a.txt");
+    }
+
+    @Test
+    @DisplayName("Части собираются в объект по номерам независимо от порядка загрузки")
+    void multipartUpload_ShouldAssemblePartsInOrder() throws Exception {
+        byte[] head = new byte[MIN_PART_SIZE];
+        new Random(5).nextBytes(head);
+        byte[] tail = "tail".getBytes();
+        String key = "contract-multipart/file.bin";
+
+        String uploadId = port().startMultipartUpload(key, "application/octet-stream");
+        String second = port().uploadPart(key, uploadId, 2, new ByteArrayInputStream(tail), tail.length);
+        String first = port().uploadPart(key, uploadId, 1, new ByteArrayInputStream(head), head.length);
+        StorageResource result = port().completeMultipartUpload(key, uploadId, List.of(first, second));
+
+        assertThat(result.size()).isEqualTo(head.length + tail.length);
+        try (InputStream in = port().download(key)) {
+            byte[] assembled = in.readAllBytes();
+            assertThat(assembled).startsWith(head).endsWith(tail);
+        }
+    }
+
+    @Test
+    @DisplayName("Отменённая загрузка по частям не создаёт объекта")
+    void abortMultipartUpload_ShouldLeaveNoObject() {
+        byte[] part = "part".getBytes();
+        String key = "contract-aborted/file.bin";
+        String uploadId = port().startMultipartUpload(key, "application/octet-stream");
+        port().uploadPart(key, uploadId, 1, new ByteArrayInputStream(part), part.length);
+
+        port().abortMultipartUpload(key, uploadId);
+
+        assertThat(port().exists(key)).isFalse();
+        assertThat(port().containsObjects("contract-aborted/")).isFalse();
+    }
+
+    protected void upload(String key, byte[] content) {
+        port().uploadFile(key, new ByteArrayInputStream(content), content.length, "text/plain");
+    }
+}
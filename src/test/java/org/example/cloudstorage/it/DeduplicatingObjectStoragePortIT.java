@@ -0,0 +1,43 @@
+package org.example.cloudstorage.it;
+
+import org.example.cloudstorage.contract.ObjectStoragePortContractTest;
+import org.example.cloudstorage.repository.BlobReferenceRepository;
+import org.example.cloudstorage.repository.BlobRepository;
+import org.example.cloudstorage.service.storage.dedup.BlobCatalog;
+import org.example.cloudstorage.service.storage.port.DeduplicatingObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.InMemoryObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+// Режим дедупликации под общим контрактом: ссылки и блобы в Postgres, содержимое — в хранилище в памяти
+@SpringBootTest(properties = "storage.backend=memory")
+@ActiveProfiles("dev")
+class DeduplicatingObjectStoragePortIT extends ObjectStoragePortContractTest {
+
+    @Autowired
+    private BlobCatalog blobCatalog;
+
+    @Autowired
+    private BlobReferenceRepository referenceRepository;
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    private ObjectStoragePort port;
+
+    @BeforeEach
+    void setUp() {
+        // Хранилище блобов новое на каждый тест, поэтому и каталог не должен ссылаться на прежнее содержимое
+        referenceRepository.deleteAllInBatch();
+        blobRepository.deleteAllInBatch();
+        port = new DeduplicatingObjectStoragePort(new InMemoryObjectStoragePort(), blobCatalog);
+    }
+
+    @Override
+    protected ObjectStoragePort port() {
+        return port;
+    }
+}
@@ -1,33 +1,27 @@
 package org.example.cloudstorage.it;
 
-import io.minio.BucketExistsArgs;
-import io.minio.MakeBucketArgs;
-import io.minio.MinioClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.assertj.core.api.Assertions;
+import org.example.cloudstorage.dto.storage.ListingFormat;
 import org.example.cloudstorage.dto.storage.ResourceInfoDto;
 import org.example.cloudstorage.exception.BadRequestException;
 import org.example.cloudstorage.exception.storage.StorageConflictException;
 import org.example.cloudstorage.exception.storage.StorageNotFoundException;
 import org.example.cloudstorage.service.storage.FileService;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
-import org.springframework.test.context.DynamicPropertyRegistry;
-import org.springframework.test.context.DynamicPropertySource;
 
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
-import org.testcontainers.containers.GenericContainer;
-import org.testcontainers.containers.wait.strategy.Wait;
-import org.testcontainers.junit.jupiter.Container;
-import org.testcontainers.junit.jupiter.Testcontainers;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -35,43 +29,17 @@ import java.util.zip.ZipInputStream;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest
-@Testcontainers
+// Хранилище в памяти: сервисный слой проверяется без контейнера MinIO,
+// совместимость бэкендов гарантирует ObjectStoragePortContractTest
+@SpringBootTest(properties = {"storage.backend=memory", "storage.upload.streaming-enabled=true"})
 @ActiveProfiles("dev")
 class FileServiceIntegrationTest {
 
-    @Container
-    static GenericContainer<?> minio = new GenericContainer<>("minio/minio:RELEASE.2023-10-25T06-33-25Z")
-            .withEnv("MINIO_ROOT_USER", "testuser")
-            .withEnv("MINIO_ROOT_PASSWORD", "testpassword")
-            .withCommand("server /data")
-            .withExposedPorts(9000)
-            .waitingFor(Wait.forHttp("/minio/health/ready").forPort(9000));
-
-    @DynamicPropertySource
-    static void minioProperties(DynamicPropertyRegistry registry) {
-        registry.add("minio.url", () -> "http://" + minio.getHost() + ":" + minio.getMappedPort(9000));
-        registry.add("minio.access-key", () -> "testuser");
-        registry.add("minio.secret-key", () -> "testpassword");
-        registry.add("minio.bucket-name", () -> "test-bucket");
-    }
-
     @Autowired
     private FileService fileService;
 
-    @Autowired
-    private MinioClient minioClient;
-
     private final long userId = 1L;
 
-    @BeforeEach
-    void setUp() throws Exception {
-        String bucket = "test-bucket";
-        if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build())) {
-            minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
-        }
-    }
-
     @Test
     @DisplayName("Поиск с пустой строкой должен возвращать все файлы пользователя")
     void search_EmptyQuery_ShouldReturnAllFiles() throws IOException {
@@ -140,6 +108,29 @@ class FileServiceIntegrationTest {
         }
     }
 
+    @Test
+    @DisplayName("Потоковый листинг папки совпадает с обычным, NDJSON отдаёт объект на строку")
+    void streamFolder_ShouldWriteSameItemsAsListFolder() throws IOException {
+        long streamUserId = 501L;
+        fileService.upload(streamUserId, "stream/", List.of(
+                new MockMultipartFile("files", "a.txt", "text/plain", "a".getBytes()),
+                new MockMultipartFile("files", "sub/b.txt", "text/plain", "b".getBytes())
+        ));
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        fileService.streamFolder(streamUserId, "stream/", null, ListingFormat.JSON).writeTo(json);
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        fileService.streamFolder(streamUserId, "stream/", null, ListingFormat.NDJSON).writeTo(ndjson);
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<ResourceInfoDto> streamed = List.of(mapper.readValue(json.toByteArray(), ResourceInfoDto[].class));
+        assertEquals(fileService.listFolder(streamUserId, "stream/"), streamed);
+
+        List<String> lines = ndjson.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(streamed.size(), lines.size());
+        assertEquals(streamed.get(0), mapper.readValue(lines.get(0), ResourceInfoDto.class));
+    }
+
     @Test
     @DisplayName("Поиск должен быть регистронезависимым и находить вхождения")
     void search_ShouldBeCaseInsensitive() throws IOException {
@@ -269,4 +260,106 @@ class FileServiceIntegrationTest {
 
         Assertions.assertThat(items).hasSize(3);
     }
+
+    @Test
+    @DisplayName("Каталог: виртуальная папка исчезает из листинга вместе с последним файлом")
+    void catalog_ShouldDropVirtualFolder_WhenLastFileDeleted() throws IOException {
+        long catalogUserId = 777L;
+        fileService.upload(catalogUserId, "virtual/nested/", List.of(
+                new MockMultipartFile("files", "only.txt", "text/plain", "data".getBytes())
+        ));
+        assertEquals("virtual/", fileService.getResource(catalogUserId, "virtual/").name());
+
+        fileService.delete(catalogUserId, "virtual/nested/only.txt");
+
+        assertTrue(fileService.listFolder(catalogUserId, "").isEmpty());
+        assertThrows(StorageNotFoundException.class, () ->
+                fileService.getResource(catalogUserId, "virtual/")
+        );
+    }
+
+    @Test
+    @DisplayName("Поиск: точное совпадение выше частичного, страницы не пересекаются")
+    void search_ShouldRankExactMatchFirstAndPaginate() throws IOException {
+        long searchUserId = 778L;
+        fileService.upload(searchUserId, "", List.of(
+                new MockMultipartFile("files", "old-notes.txt", "text/plain", "1".getBytes()),
+                new MockMultipartFile("files", "notes.txt", "text/plain", "2".getBytes()),
+                new MockMultipartFile("files", "notes.txt.bak", "text/plain", "3".getBytes())
+        ));
+
+        var first = fileService.search(searchUserId, "notes.txt", 2, null);
+        assertEquals("notes.txt", first.items().get(0).name());
+        assertEquals(2, first.items().size());
+        assertNotNull(first.nextCursor());
+
+        var second = fileService.search(searchUserId, "notes.txt", 2, first.nextCursor());
+        assertEquals(1, second.items().size());
+        assertEquals("old-notes.txt", second.items().get(0).name());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Потоковая загрузка: части пишутся в хранилище с фактическим размером")
+    void uploadStream_ShouldStoreEveryPart() throws IOException {
+        long streamUserId = 779L;
+        String boundary = "stream-boundary";
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"object\"; filename=\"первый.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n"
+                + "hello stream\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"object\"; filename=\"second.bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n"
+                + "x".repeat(10_000) + "\r\n"
+                + "--" + boundary + "--\r\n";
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/resource/stream");
+        request.setContentType("multipart/form-data; boundary=" + boundary);
+        request.setCharacterEncoding("UTF-8");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+
+        List<ResourceInfoDto> uploaded = fileService.uploadStream(streamUserId, "inbox/", request);
+
+        assertEquals(2, uploaded.size());
+        assertEquals(12L, fileService.getResource(streamUserId, "inbox/первый.txt").size());
+        assertEquals(10_000L, fileService.getResource(streamUserId, "inbox/second.bin").size());
+    }
+
+    @Test
+    @DisplayName("ETag листинга стабилен без изменений и меняется при добавлении и удалении файла")
+    void folderETag_ShouldFollowChildrenChanges() throws IOException {
+        long etagUserId = 780L;
+        fileService.upload(etagUserId, "photos/", List.of(
+                new MockMultipartFile("files", "a.jpg", "image/jpeg", "a".getBytes())));
+
+        String initial = fileService.getFolderETag(etagUserId, "photos/");
+        assertEquals(initial, fileService.getFolderETag(etagUserId, "photos/"));
+        // Представления одного листинга различаются: NDJSON не подтверждается ETag'ом JSON
+        assertNotEquals(initial, fileService.getFolderETag(etagUserId, "photos/", ListingFormat.NDJSON));
+
+        fileService.upload(etagUserId, "photos/", List.of(
+                new MockMultipartFile("files", "b.jpg", "image/jpeg", "b".getBytes())));
+        String afterUpload = fileService.getFolderETag(etagUserId, "photos/");
+        assertNotEquals(initial, afterUpload);
+
+        fileService.delete(etagUserId, "photos/b.jpg");
+        assertNotEquals(afterUpload, fileService.getFolderETag(etagUserId, "photos/"));
+    }
+
+    @Test
+    @DisplayName("ETag несуществующей папки не выдаётся, а пересозданная папка получает новый ETag")
+    void folderETag_ShouldFailForMissingFolder_AndChangeAfterRecreate() {
+        long etagUserId = 781L;
+        assertThrows(StorageNotFoundException.class, () -> fileService.getFolderETag(etagUserId, "missing/"));
+
+        fileService.createFolder(etagUserId, "empty/");
+        String initial = fileService.getFolderETag(etagUserId, "empty/");
+
+        fileService.delete(etagUserId, "empty/");
+        assertThrows(StorageNotFoundException.class, () -> fileService.getFolderETag(etagUserId, "empty/"));
+
+        fileService.createFolder(etagUserId, "empty/");
+        assertNotEquals(initial, fileService.getFolderETag(etagUserId, "empty/"));
+    }
 }
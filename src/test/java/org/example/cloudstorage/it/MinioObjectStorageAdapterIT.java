@@ -3,9 +3,10 @@ package org.example.cloudstorage.it;
 import io.minio.BucketExistsArgs;
 import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
-import org.example.cloudstorage.service.storage.port.MinioObjectStorageAdapter;
-import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.contract.ObjectStoragePortContractTest;
 import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.port.MinioObjectStorageAdapter;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -21,14 +22,13 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.util.List;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Testcontainers
-class MinioObjectStorageAdapterIT {
+class MinioObjectStorageAdapterIT extends ObjectStoragePortContractTest {
 
     @Container
     static GenericContainer<?> minio =
@@ -48,6 +48,9 @@ class MinioObjectStorageAdapterIT {
         registry.add("minio.access-key", () -> "testuser");
         registry.add("minio.secret-key", () -> "testpassword");
         registry.add("minio.bucket-name", () -> "test-bucket");
+        // Минимальная часть S3 — 5 МБ, чтобы многочастная загрузка случилась на небольшом файле
+        registry.add("storage.upload.multipart-threshold", () -> "5MB");
+        registry.add("storage.upload.part-size", () -> "5MB");
     }
 
     @Autowired
@@ -59,6 +62,11 @@ class MinioObjectStorageAdapterIT {
     @Value("${minio.bucket-name}")
     private String bucket;
 
+    @Override
+    protected ObjectStoragePort port() {
+        return adapter;
+    }
+
     @BeforeEach
     void setUp() throws Exception {
         if (!minioClient.bucketExists(
@@ -69,155 +77,20 @@ class MinioObjectStorageAdapterIT {
     }
 
     @Test
-    @DisplayName("Должен успешно загрузить и получить метаданные файла")
-    void uploadAndGetResource_ShouldWork() {
-        String path = "test-file.txt";
-        byte[] content = "hello world".getBytes();
-
-        adapter.uploadFile(
-                path,
-                new ByteArrayInputStream(content),
-                content.length,
-                "text/plain"
-        );
-
-        StorageResource resource = adapter.getResource(path);
-
-        assertThat(resource.fullPath()).isEqualTo(path);
-        assertThat(resource.size()).isEqualTo(content.length);
-    }
-
-    @Test
-    @DisplayName("Должен выбросить StorageNotFoundException, если файла нет")
-    void getResource_ShouldThrowNotFound() {
-        assertThatThrownBy(() -> adapter.getResource("non-existent.txt"))
-                .isInstanceOf(StorageNotFoundException.class);
-    }
-
-    @Test
-    @DisplayName("Должен успешно скопировать объект")
-    void copyObject_ShouldWorkCorrectly() {
-        adapter.uploadFile("folder/file1.txt", new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-        assertThat(adapter.getResource("folder/file1.txt")).isNotNull();
-
-        adapter.copy("folder/file1.txt", "renamed-folder/file1.txt");
-        assertThat(adapter.getResource("renamed-folder/file1.txt")).isNotNull();
-    }
-
-    @Test
-    @DisplayName("Должен успешно удалить файл")
-    void deleteFile_ShouldWorkCorrectly() {
-        String path = "file-to-delete.txt";
-        adapter.uploadFile(path, new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-
-        assertThat(adapter.getResource(path)).isNotNull();
-        adapter.delete(path);
-        assertThatThrownBy(() -> adapter.getResource(path))
-                .isInstanceOf(StorageNotFoundException.class);
-    }
-
-    @Test
-    @DisplayName("Должен успешно удалить папку и все её содержимое")
-    void deleteFolder_ShouldWorkCorrectly() {
-        adapter.createFolder("folder/");
-        adapter.uploadFile("folder/file1.txt", new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-        adapter.uploadFile("folder/sub/file2.txt", new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-
-        assertThat(adapter.getResource("folder/file1.txt")).isNotNull();
-        assertThat(adapter.getResource("folder/sub/file2.txt")).isNotNull();
-
-        adapter.deleteObjects(adapter.listAllPathsRecursive("folder/"));
-
-        assertThatThrownBy(() -> adapter.getResource("folder/file1.txt"))
-                .isInstanceOf(StorageNotFoundException.class);
-        assertThatThrownBy(() -> adapter.getResource("folder/sub/file2.txt"))
-                .isInstanceOf(StorageNotFoundException.class);
-    }
-
-    @Test
-    @DisplayName("Должен найти все пути рекурсивно в папке, включая папку")
-    void listAllObjectsRecursive_ShouldReturnAllPaths() {
-        adapter.createFolder("docs2/");
-        adapter.uploadFile("docs2/file1.txt", new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-        adapter.uploadFile("docs2/subdir/file2.txt", new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-
-        List<String> allFiles = adapter.listAllPathsRecursive("docs2/");
-
-        List<String> normalized = allFiles.stream()
-                .map(p -> p.substring(p.indexOf("docs2/")))
-                .toList();
-
-        assertThat(normalized)
-                .containsExactlyInAnyOrder(
-                        "docs2/",
-                        "docs2/file1.txt",
-                        "docs2/subdir/file2.txt"
-                );
-    }
-
-    @Test
-    @DisplayName("Должен найти все объекты рекурсивно в папке, включая папку")
-    void search_ShouldFindFilesRecursively() {
-        adapter.createFolder("docs/");
-        adapter.uploadFile("docs/test1.txt", new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-        adapter.uploadFile("docs/sub/test2.txt", new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-        adapter.uploadFile("other.txt", new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-
-        List<StorageResource> found = adapter.listAllObjectsRecursive("docs/");
-
-        assertThat(found)
-                .extracting(StorageResource::fullPath)
-                .containsExactlyInAnyOrder(
-                            "docs/",
-                        "docs/test1.txt",
-                        "docs/sub/test2.txt"
-                );
-    }
-
-    @Test
-    @DisplayName("Должен успешно скачать содержимое файла")
-    void download_ShouldReturnCorrectContent() throws Exception {
-        String path = "download-test.txt";
-        byte[] content = "test content".getBytes();
-        adapter.uploadFile(path, new ByteArrayInputStream(content), content.length, "text/plain");
-
-        try (InputStream downloaded = adapter.download(path)) {
-            assertThat(downloaded.readAllBytes()).isEqualTo(content);
+    @DisplayName("Поток неизвестной длины крупнее части грузится параллельными частями без искажений")
+    void uploadFile_ShouldSplitLargeStreamIntoParts() throws Exception {
+        byte[] content = new byte[12 * 1024 * 1024 + 123];
+        new Random(11).nextBytes(content);
+
+        StorageResource uploaded = adapter.uploadFile("multipart/big.bin", new ByteArrayInputStream(content), -1,
+                "application/octet-stream");
+
+        assertThat(uploaded.size()).isEqualTo(content.length);
+        assertThat(adapter.getResource("multipart/big.bin").size()).isEqualTo(content.length);
+        // ETag multipart-объекта имеет вид <md5>-<число частей>
+        assertThat(uploaded.etag()).endsWith("-3");
+        try (InputStream in = adapter.download("multipart/big.bin")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
         }
     }
-
-    @Test
-    @DisplayName("Должен успешно создать пустую папку")
-    void createFolder_ShouldCreateObjectWithSlash() {
-        String folderPath = "new-folder/";
-        adapter.createFolder(folderPath);
-
-        StorageResource resource = adapter.getResource(folderPath);
-        assertThat(resource.fullPath()).isEqualTo(folderPath);
-        assertThat(resource.size()).isEqualTo(0);
-    }
-
-    @Test
-    @DisplayName("getResource должен отличать папку от файла")
-    void getResource_ShouldDistinguishFolderAndFile() {
-        String filePath = "folder-to-distinguish/file.txt";
-        adapter.uploadFile(filePath, new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-
-        assertThat(adapter.getResource(filePath)).isNotNull();
-
-        assertThatThrownBy(() -> adapter.getResource(filePath + "/"))
-                .isInstanceOf(StorageNotFoundException.class);
-    }
-
-    @Test
-    @DisplayName("listFolder должен возвращать объекты первого уровня и саму папку")
-    void listFolder_ShouldReturnNonRecursiveItems() {
-        adapter.createFolder("a/");
-        adapter.uploadFile("a/1.txt", new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-        adapter.uploadFile("a/sub/2.txt", new ByteArrayInputStream(new byte[0]), 0, "text/plain");
-
-        List<StorageResource> items = adapter.listFolder("a/");
-
-        assertThat(items).hasSize(3);
-    }
 }
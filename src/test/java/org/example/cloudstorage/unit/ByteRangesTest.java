@@ -0,0 +1,53 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.service.storage.download.ByteRanges;
+import org.example.cloudstorage.service.storage.download.ByteRanges.ByteRange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ByteRangesTest {
+
+    @Test
+    @DisplayName("Обычный, открытый и суффиксный диапазоны приводятся к границам объекта")
+    void parse_ShouldClampRangesToObjectSize() {
+        assertEquals(List.of(new ByteRange(0, 99)), ByteRanges.parse("bytes=0-99", 1000));
+        assertEquals(List.of(new ByteRange(900, 999)), ByteRanges.parse("bytes=900-", 1000));
+        assertEquals(List.of(new ByteRange(500, 999)), ByteRanges.parse("bytes=-500", 1000));
+        assertEquals(List.of(new ByteRange(990, 999)), ByteRanges.parse("bytes=990-5000", 1000));
+        assertEquals("bytes 0-99/1000", new ByteRange(0, 99).contentRange(1000));
+    }
+
+    @Test
+    @DisplayName("Неудовлетворимые диапазоны отбрасываются, некорректный заголовок игнорируется")
+    void parse_ShouldSeparateUnsatisfiableFromInvalid() {
+        assertEquals(List.of(new ByteRange(0, 9)), ByteRanges.parse("bytes=0-9,2000-3000", 1000));
+        assertTrue(ByteRanges.parse("bytes=1000-1100", 1000).isEmpty());
+        assertNull(ByteRanges.parse("items=0-9", 1000));
+        assertNull(ByteRanges.parse(null, 1000));
+        assertNull(ByteRanges.parse("bytes=0-9", 0));
+    }
+
+    @Test
+    @DisplayName("If-Range совпадает только со строгим ETag или точной датой текущей версии")
+    void ifRangeMatches_ShouldRequireSameVersion() {
+        Instant modified = Instant.parse("2024-05-01T10:15:30Z");
+        String etag = "\"abc-3\"";
+
+        assertTrue(ByteRanges.ifRangeMatches(null, etag, modified));
+        assertTrue(ByteRanges.ifRangeMatches("\"abc-3\"", etag, modified));
+        assertTrue(ByteRanges.ifRangeMatches("Wed, 01 May 2024 10:15:30 GMT", etag, modified));
+
+        assertFalse(ByteRanges.ifRangeMatches("\"old\"", etag, modified));
+        assertFalse(ByteRanges.ifRangeMatches("W/\"abc-3\"", etag, modified));
+        assertFalse(ByteRanges.ifRangeMatches("Wed, 01 May 2024 10:15:29 GMT", etag, modified));
+        assertFalse(ByteRanges.ifRangeMatches("garbage", etag, modified));
+    }
+}
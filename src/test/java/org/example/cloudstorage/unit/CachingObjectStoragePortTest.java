@@ -0,0 +1,105 @@
+package org.example.cloudstorage.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.port.CachingObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingObjectStoragePortTest {
+
+    @Mock
+    private ObjectStoragePort delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachingObjectStoragePort port;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        port = new CachingObjectStoragePort(delegate, new StorageProperties.Cache(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Отрицательный ответ кэшируется и сбрасывается загрузкой файла")
+    void exists_ShouldCacheNegativeResultUntilUpload() {
+        when(delegate.getResource("a/file.txt"))
+                .thenThrow(new StorageNotFoundException("a/file.txt"))
+                .thenReturn(new StorageResource("a/file.txt", 3));
+
+        assertFalse(port.exists("a/file.txt"));
+        assertFalse(port.exists("a/file.txt"));
+        verify(delegate, times(1)).getResource("a/file.txt");
+
+        port.uploadFile("a/file.txt", new ByteArrayInputStream(new byte[3]), 3, "text/plain");
+
+        assertTrue(port.exists("a/file.txt"));
+        verify(delegate, times(2)).getResource("a/file.txt");
+    }
+
+    @Test
+    @DisplayName("Удаление сбрасывает проверки непустоты всех папок-предков")
+    void deleteObjects_ShouldInvalidateAncestorPrefixes() {
+        when(delegate.containsObjects("a/")).thenReturn(true, false);
+        when(delegate.containsObjects("a/b/")).thenReturn(true, false);
+
+        assertTrue(port.containsObjects("a/"));
+        assertTrue(port.containsObjects("a/b/"));
+        assertTrue(port.containsObjects("a/b/"));
+
+        port.deleteObjects(List.of("a/b/c.txt"));
+
+        assertFalse(port.containsObjects("a/"));
+        assertFalse(port.containsObjects("a/b/"));
+        verify(delegate, times(2)).containsObjects("a/b/");
+    }
+
+    @Test
+    @DisplayName("Перенос туда и обратно не оставляет отрицательных ответов под папкой назначения")
+    void rename_ShouldInvalidateDestinationSubtree() {
+        when(delegate.rename(anyString(), anyString())).thenReturn(true);
+        when(delegate.getResource("a/x.txt"))
+                .thenThrow(new StorageNotFoundException("a/x.txt"))
+                .thenReturn(new StorageResource("a/x.txt", 1));
+        when(delegate.containsObjects("a/sub/")).thenReturn(false, true);
+
+        port.rename("a/", "b/");
+        assertFalse(port.exists("a/x.txt"));
+        assertFalse(port.containsObjects("a/sub/"));
+
+        port.rename("b/", "a/");
+
+        assertTrue(port.exists("a/x.txt"));
+        assertTrue(port.containsObjects("a/sub/"));
+    }
+
+    @Test
+    @DisplayName("Попадания и промахи публикуются в метриках")
+    void stats_ShouldBeExposedAsMetrics() {
+        when(delegate.getResource("x")).thenReturn(new StorageResource("x", 1));
+
+        port.getResource("x");
+        port.getResource("x");
+
+        double hits = meterRegistry.get("cache.gets")
+                .tag("cache", "storage.metadata.stat")
+                .tag("result", "hit")
+                .functionCounter().count();
+        assertTrue(hits >= 1);
+    }
+}
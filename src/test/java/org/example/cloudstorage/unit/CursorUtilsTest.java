@@ -0,0 +1,55 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.exception.BadRequestException;
+import org.example.cloudstorage.util.CursorUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorUtilsTest {
+
+    @Test
+    @DisplayName("Курсор должен восстанавливать ключ внутри той же папки")
+    void encodeDecode_ShouldRoundTrip() {
+        String folder = "user-1-files/docs/";
+        String cursor = CursorUtils.encode(folder, "user-1-files/docs/Отчёт 2026.pdf");
+
+        assertEquals("user-1-files/docs/Отчёт 2026.pdf", CursorUtils.decode(folder, cursor));
+    }
+
+    @Test
+    @DisplayName("Страница, закончившаяся маркером самой папки, даёт курсор, который API принимает")
+    void encodeDecode_ShouldAcceptFolderOwnMarker() {
+        String folder = "user-1-files/docs/";
+        String cursor = CursorUtils.encode(folder, folder);
+
+        assertEquals(folder, CursorUtils.decode(folder, cursor));
+    }
+
+    @Test
+    @DisplayName("Курсор не должен выводить за пределы папки")
+    void decode_ShouldRejectForeignKeys() {
+        String escaping = Base64.getUrlEncoder().encodeToString("../user-2-files/".getBytes(StandardCharsets.UTF_8));
+        String nested = Base64.getUrlEncoder().encodeToString("a/b.txt".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(BadRequestException.class, () -> CursorUtils.decode("user-1-files/", escaping));
+        assertThrows(BadRequestException.class, () -> CursorUtils.decode("user-1-files/", nested));
+        assertThrows(BadRequestException.class, () -> CursorUtils.decode("user-1-files/", "%%%"));
+    }
+
+    @Test
+    @DisplayName("Курсор поиска должен хранить смещение и отвергать мусор")
+    void offsetCursor_ShouldRoundTripAndRejectGarbage() {
+        assertEquals(200, CursorUtils.decodeOffset(CursorUtils.encodeOffset(200)));
+
+        String negative = Base64.getUrlEncoder().encodeToString("-5".getBytes(StandardCharsets.UTF_8));
+        String text = Base64.getUrlEncoder().encodeToString("abc".getBytes(StandardCharsets.UTF_8));
+        assertThrows(BadRequestException.class, () -> CursorUtils.decodeOffset(negative));
+        assertThrows(BadRequestException.class, () -> CursorUtils.decodeOffset(text));
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.dedup.BlobCatalog;
+import org.example.cloudstorage.service.storage.port.DeduplicatingObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeduplicatingObjectStoragePortTest {
+
+    // SHA-256 от "hello"
+    private static final String HELLO_SHA256 = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    @Mock
+    private ObjectStoragePort blobs;
+
+    @Mock
+    private BlobCatalog catalog;
+
+    private DeduplicatingObjectStoragePort port;
+
+    @BeforeEach
+    void setUp() {
+        port = new DeduplicatingObjectStoragePort(blobs, catalog);
+    }
+
+    @Test
+    @DisplayName("Новое содержимое остаётся блобом, путь ссылается на него по SHA-256")
+    void uploadFile_ShouldKeepBlob_WhenContentIsNew() {
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        when(blobs.uploadFile(key.capture(), any(), eq(5L), eq("text/plain"))).thenAnswer(invocation -> {
+            consume(invocation.getArgument(1));
+            return new StorageResource(invocation.getArgument(0), 5);
+        });
+        when(catalog.attach(eq("user-1-files/a.txt"), eq(HELLO_SHA256), anyString(), eq(5L), eq("text/plain")))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+
+        StorageResource resource = port.uploadFile("user-1-files/a.txt", stream("hello"), 5, "text/plain");
+
+        assertTrue(key.getValue().startsWith(DeduplicatingObjectStoragePort.BLOB_PREFIX));
+        assertEquals(HELLO_SHA256, resource.etag());
+        assertEquals("user-1-files/a.txt", resource.fullPath());
+        verify(blobs, never()).delete(anyString());
+    }
+
+    @Test
+    @DisplayName("Повторное содержимое удаляется сразу после загрузки, путь получает существующий блоб")
+    void uploadFile_ShouldDropDuplicate_WhenContentAlreadyStored() {
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        when(blobs.uploadFile(key.capture(), any(), anyLong(), any())).thenAnswer(invocation -> {
+            consume(invocation.getArgument(1));
+            return new StorageResource(invocation.getArgument(0), 5);
+        });
+        when(catalog.attach(anyString(), eq(HELLO_SHA256), anyString(), anyLong(), any()))
+                .thenReturn("blobs/existing");
+
+        port.uploadFile("user-1-files/copy.txt", stream("hello"), 5, "text/plain");
+
+        verify(blobs).delete(key.getValue());
+    }
+
+    @Test
+    @DisplayName("Копирование и удаление меняют только ссылки, бакет не трогается")
+    void copyAndDelete_ShouldOnlyTouchReferences() {
+        port.copy("user-1-files/a.txt", "user-1-files/b.txt");
+        port.deleteObjects(List.of("user-1-files/a.txt"));
+
+        verify(catalog).copy("user-1-files/a.txt", "user-1-files/b.txt");
+        verify(catalog).remove(List.of("user-1-files/a.txt"));
+        verifyNoInteractions(blobs);
+    }
+
+    @Test
+    @DisplayName("Идентификатор составной загрузки несёт ключ блоба, части уходят в него")
+    void multipartUpload_ShouldRouteParts_ToBlobKey() {
+        when(blobs.startMultipartUpload(anyString(), eq("application/zip"))).thenReturn("s3-upload");
+        String uploadId = port.startMultipartUpload("user-1-files/big.zip", "application/zip");
+
+        InputStream part = stream("part");
+        port.uploadPart("user-1-files/big.zip", uploadId, 1, part, 4);
+
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        verify(blobs).startMultipartUpload(key.capture(), eq("application/zip"));
+        verify(blobs).uploadPart(key.getValue(), "s3-upload", 1, part, 4);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Путь без ссылки на содержимое не скачивается пустым потоком")
+    void download_ShouldThrowNotFound_WhenPathUnknown() {
+        when(catalog.findStorageKey("user-1-files/gone.txt")).thenReturn(Optional.empty());
+
+        assertThrows(StorageNotFoundException.class, () -> port.download("user-1-files/gone.txt"));
+        assertThrows(StorageNotFoundException.class, () -> port.download("user-1-files/gone.txt", 0, 10));
+        verifyNoInteractions(blobs);
+    }
+
+    private static void consume(InputStream in) throws IOException {
+        in.transferTo(OutputStream.nullOutputStream());
+    }
+}
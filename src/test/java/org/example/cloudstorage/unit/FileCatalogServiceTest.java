@@ -0,0 +1,108 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.repository.FileMetadataRepository;
+import org.example.cloudstorage.service.storage.catalog.FileCatalogService;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.tree.PathTree;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileCatalogServiceTest {
+
+    @Mock
+    private FileMetadataRepository repository;
+
+    @Mock
+    private ObjectStoragePort storagePort;
+
+    @Mock
+    private PathTree tree;
+
+    private FileCatalogService catalog;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.getIndirection().setEnabled(true);
+        catalog = new FileCatalogService(repository, storagePort, tree, properties);
+    }
+
+    @Test
+    @DisplayName("С деревом путей перенос папки не трогает строки каталога")
+    void moveFolder_ShouldNotRewriteRows_WhenTreeEnabled() {
+        catalog.moveFolder(1L, "user-1-files/docs/", "user-1-files/archive/docs/");
+        catalog.recordFile(1L, new StorageResource("user-1-files/archive/docs/a.txt", 3));
+
+        verifyNoInteractions(repository, storagePort);
+    }
+
+    @Test
+    @DisplayName("С деревом путей листинг и поиск читаются из дерева")
+    void reads_ShouldComeFromTree_WhenTreeEnabled() {
+        List<StorageResource> found = List.of(new StorageResource("user-1-files/docs/report_1.pdf", 5));
+        when(tree.search(1L, "report_1", "%report\\_1%", "report\\_1%", 0, 10)).thenReturn(found);
+        StoragePage page = new StoragePage(List.of(new StorageResource("user-1-files/docs/", 0)), null);
+        when(tree.listFolderPage("user-1-files/", null, 1000)).thenReturn(page);
+
+        assertEquals(found, catalog.search(1L, "Report_1", 0, 10));
+        assertEquals(page.items(), catalog.listFolder(1L, "user-1-files/"));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Поиск по пути находит подстроку в папках-предках, а не только в имени")
+    void streamPathMatches_ShouldMatchWholeRelativePath() {
+        StorageResource nested = new StorageResource("user-1-files/Reports/2024/a.pdf", 5);
+        StorageResource folder = new StorageResource("user-1-files/Reports/", 0);
+        when(storagePort.streamAllObjectsRecursive("user-1-files/")).thenReturn(Stream.of(
+                new StorageResource("user-1-files/", 0),
+                folder,
+                nested,
+                new StorageResource("user-1-files/other.txt", 1)));
+
+        try (Stream<StorageResource> found = catalog.streamPathMatches(1L, "reports")) {
+            assertEquals(List.of(folder, nested), found.toList());
+        }
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Версия листинга: у несуществующей папки её нет, корень без узла существует всегда")
+    void folderVersion_ShouldBeEmptyOnlyForMissingFolder() {
+        when(tree.folderVersion("user-1-files/missing/")).thenReturn(Optional.empty());
+        when(tree.folderVersion("user-1-files/docs/")).thenReturn(Optional.of(42L));
+        when(tree.folderVersion("user-1-files/")).thenReturn(Optional.empty());
+
+        assertTrue(catalog.folderVersion(1L, "user-1-files/missing/").isEmpty());
+        assertEquals(Optional.of(42L), catalog.folderVersion(1L, "user-1-files/docs/"));
+        assertEquals(Optional.of(0L), catalog.folderVersion(1L, "user-1-files/"));
+    }
+
+    @Test
+    @DisplayName("Без дерева запись файла сбрасывает версию листинга родительской папки")
+    void recordFile_ShouldDropParentFolderVersion_WhenTreeDisabled() {
+        FileCatalogService flat = new FileCatalogService(repository, storagePort, tree, new StorageProperties());
+        when(repository.existsByUserId(1L)).thenReturn(true);
+
+        flat.recordFile(1L, new StorageResource("user-1-files/docs/a.txt", 3));
+
+        verify(repository).deleteFolderVersion(1L, "docs/");
+        verifyNoInteractions(tree);
+    }
+}
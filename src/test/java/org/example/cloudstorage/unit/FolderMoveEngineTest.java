@@ -0,0 +1,87 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.exception.storage.StorageUnavailableException;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.action.FolderMoveEngine;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FolderMoveEngineTest {
+
+    @Mock
+    private ObjectStoragePort storagePort;
+
+    private FolderMoveEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.getMove().setParallelism(2);
+        properties.getMove().setDeleteBatchSize(10);
+        properties.getMove().setMaxRetries(1);
+        properties.getMove().setRetryBackoff(Duration.ofMillis(1));
+        engine = new FolderMoveEngine(storagePort, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    @DisplayName("Временный сбой копирования повторяется, все источники удаляются")
+    void move_ShouldRetryTransientFailures() {
+        when(storagePort.streamAllObjectsRecursive("from/")).thenReturn(Stream.of(
+                new StorageResource("from/a", 1), new StorageResource("from/b", 1), new StorageResource("from/c", 1)));
+        doThrow(new StorageUnavailableException("from/b", new IOException("reset")))
+                .doNothing()
+                .when(storagePort).copy("from/b", "to/b");
+
+        long moved = engine.move("from/", "to/");
+
+        assertEquals(3, moved);
+        verify(storagePort, times(2)).copy("from/b", "to/b");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> deleted = ArgumentCaptor.forClass(List.class);
+        verify(storagePort, atLeastOnce()).deleteObjects(deleted.capture());
+        assertThat(deleted.getAllValues().stream().flatMap(List::stream))
+                .containsExactlyInAnyOrder("from/a", "from/b", "from/c");
+    }
+
+    @Test
+    @DisplayName("Окончательный сбой откатывает уже сделанные копии")
+    void move_ShouldRollBack_WhenCopyFails() {
+        when(storagePort.streamAllObjectsRecursive("from/")).thenReturn(Stream.of(
+                new StorageResource("from/a", 1), new StorageResource("from/b", 1)));
+        doThrow(new StorageNotFoundException("from/b")).when(storagePort).copy("from/b", "to/b");
+        when(storagePort.streamAllObjectsRecursive("to/")).thenReturn(Stream.of(new StorageResource("to/a", 1)));
+        when(storagePort.exists("from/a")).thenReturn(true);
+
+        assertThrows(StorageNotFoundException.class, () -> engine.move("from/", "to/"));
+
+        verify(storagePort).deleteObjects(List.of("to/a"));
+        verify(storagePort, never()).deleteObjects(argThat(paths -> paths.contains("from/a")));
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.contract.ObjectStoragePortContractTest;
+import org.example.cloudstorage.service.storage.port.InMemoryObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.InMemoryObjectStoragePort.LatencyProfile;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryObjectStoragePortTest extends ObjectStoragePortContractTest {
+
+    private final InMemoryObjectStoragePort port = new InMemoryObjectStoragePort();
+
+    @Override
+    protected ObjectStoragePort port() {
+        return port;
+    }
+
+    @Test
+    @DisplayName("Профиль задержки добавляет время на каждый запрос")
+    void latencyProfile_ShouldDelayEveryRequest() {
+        InMemoryObjectStoragePort slow = new InMemoryObjectStoragePort(new LatencyProfile(Duration.ofMillis(5), 0));
+        slow.uploadFile("slow/a.txt", InputStream.nullInputStream(), 0, "text/plain");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            slow.exists("slow/a.txt");
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+    }
+
+    @Test
+    @DisplayName("Профиль пропускной способности ограничивает скорость чтения")
+    void latencyProfile_ShouldThrottleDownload() throws Exception {
+        InMemoryObjectStoragePort slow = new InMemoryObjectStoragePort(new LatencyProfile(Duration.ZERO, 4L * 1024 * 1024));
+        slow.uploadFile("throttle/big.bin", new ByteArrayInputStream(new byte[1024 * 1024]), -1, null);
+
+        long start = System.nanoTime();
+        try (InputStream in = slow.download("throttle/big.bin")) {
+            assertThat(in.readAllBytes()).hasSize(1024 * 1024);
+        }
+
+        // 1 МБ при 4 МБ/с — не быстрее четверти секунды
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(250));
+    }
+}
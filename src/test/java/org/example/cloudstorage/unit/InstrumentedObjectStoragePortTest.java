@@ -0,0 +1,86 @@
+package org.example.cloudstorage.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.port.InMemoryObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.InstrumentedObjectStoragePort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InstrumentedObjectStoragePortTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private InstrumentedObjectStoragePort port;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        port = new InstrumentedObjectStoragePort(new InMemoryObjectStoragePort(),
+                new StorageProperties.Metrics(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Загрузка и скачивание: задержка по операциям и переданные байты в обе стороны")
+    void uploadAndDownload_ShouldRecordLatencyAndBytes() throws Exception {
+        port.uploadFile("user-1-files/a.txt", new ByteArrayInputStream(new byte[10]), 10, "text/plain");
+        port.uploadFile("user-1-files/b.txt", new ByteArrayInputStream(new byte[7]), -1, "text/plain");
+        try (InputStream data = port.download("user-1-files/a.txt")) {
+            data.readAllBytes();
+        }
+
+        assertAll(
+                () -> assertEquals(2, meterRegistry.get(InstrumentedObjectStoragePort.REQUESTS)
+                        .tags("operation", "put", "outcome", "success", "keyspace", "user").timer().count()),
+                () -> assertEquals(1, meterRegistry.get(InstrumentedObjectStoragePort.REQUESTS)
+                        .tags("operation", "get", "outcome", "success").timer().count()),
+                () -> assertEquals(17, meterRegistry.get(InstrumentedObjectStoragePort.BYTES)
+                        .tag("direction", "in").summary().totalAmount()),
+                () -> assertEquals(10, meterRegistry.get(InstrumentedObjectStoragePort.BYTES)
+                        .tag("direction", "out").summary().totalAmount()),
+                () -> assertEquals(0, meterRegistry.get(InstrumentedObjectStoragePort.ACTIVE)
+                        .tag("operation", "get").longTaskTimer().activeTasks())
+        );
+    }
+
+    @Test
+    @DisplayName("Ошибка считается по типу исключения, служебный префикс — отдельным пространством ключей")
+    void getResource_ShouldCountErrorsByExceptionType() {
+        assertThrows(StorageNotFoundException.class, () -> port.getResource("blobs/ab/cdef"));
+
+        assertAll(
+                () -> assertEquals(1, meterRegistry.get(InstrumentedObjectStoragePort.ERRORS)
+                        .tags("operation", "stat", "exception", "StorageNotFoundException").counter().count()),
+                () -> assertEquals(1, meterRegistry.get(InstrumentedObjectStoragePort.REQUESTS)
+                        .tags("operation", "stat", "outcome", "error", "keyspace", "blobs").timer().count())
+        );
+    }
+
+    @Test
+    @DisplayName("Ленивый листинг фиксируется один раз, с числом прочитанных элементов")
+    void streamFolder_ShouldRecordOnceWhenClosed() {
+        port.uploadFile("user-1-files/docs/a.txt", new ByteArrayInputStream(new byte[1]), 1, "text/plain");
+        port.uploadFile("user-1-files/docs/b.txt", new ByteArrayInputStream(new byte[1]), 1, "text/plain");
+
+        try (Stream<StorageResource> resources = port.streamFolder("user-1-files/docs/")) {
+            assertEquals(2, resources.count());
+        }
+
+        assertAll(
+                () -> assertEquals(1, meterRegistry.get(InstrumentedObjectStoragePort.REQUESTS)
+                        .tags("operation", "list", "outcome", "success").timer().count()),
+                () -> assertEquals(2, meterRegistry.get(InstrumentedObjectStoragePort.LIST_SIZE)
+                        .tag("mode", "stream").summary().totalAmount())
+        );
+    }
+}
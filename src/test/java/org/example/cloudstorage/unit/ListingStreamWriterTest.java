@@ -0,0 +1,64 @@
+package org.example.cloudstorage.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.cloudstorage.dto.storage.ListingFormat;
+import org.example.cloudstorage.dto.storage.ResourceInfoDto;
+import org.example.cloudstorage.service.storage.query.ListingStreamWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ListingStreamWriterTest {
+
+    private static final String FILE_JSON = "{\"path\":\"docs/\",\"name\":\"a.txt\",\"size\":5,\"type\":\"FILE\"}";
+    private static final String DIR_JSON = "{\"path\":\"docs/\",\"name\":\"sub/\",\"type\":\"DIRECTORY\"}";
+
+    private final ListingStreamWriter writer = new ListingStreamWriter(new ObjectMapper());
+
+    @Test
+    @DisplayName("JSON пишется массивом, NDJSON — объектом на строку")
+    void write_ShouldProduceArrayOrLines() throws IOException {
+        assertAll(
+                () -> assertEquals("[" + FILE_JSON + "," + DIR_JSON + "]", write(ListingFormat.JSON, true)),
+                () -> assertEquals(FILE_JSON + "\n" + DIR_JSON + "\n", write(ListingFormat.NDJSON, true))
+        );
+    }
+
+    @Test
+    @DisplayName("Без finish массив не закрывается: оборванный ответ не выглядит полным")
+    void close_ShouldNotTerminateUnfinishedArray() throws IOException {
+        assertEquals("[" + FILE_JSON + "," + DIR_JSON, write(ListingFormat.JSON, false));
+    }
+
+    @Test
+    @DisplayName("NDJSON выбирается только по явному Accept")
+    void fromAccept_ShouldPreferJsonUnlessNdjsonRequested() {
+        assertAll(
+                () -> assertEquals(ListingFormat.JSON, ListingFormat.fromAccept(null)),
+                () -> assertEquals(ListingFormat.JSON, ListingFormat.fromAccept("*/*")),
+                () -> assertEquals(ListingFormat.JSON, ListingFormat.fromAccept("application/json")),
+                () -> assertEquals(ListingFormat.JSON, ListingFormat.fromAccept("not a media type")),
+                () -> assertEquals(ListingFormat.NDJSON, ListingFormat.fromAccept("application/x-ndjson")),
+                () -> assertEquals(ListingFormat.NDJSON, ListingFormat.fromAccept("application/x-ndjson, application/json;q=0.5"))
+        );
+    }
+
+    private String write(ListingFormat format, boolean finish) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ListingStreamWriter.ListingStream stream = writer.open(out, format)) {
+            stream.write(ResourceInfoDto.file("docs/", "a.txt", 5));
+            stream.flush();
+            stream.write(ResourceInfoDto.directory("docs/", "sub/"));
+            if (finish) {
+                stream.finish();
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.contract.ObjectStoragePortContractTest;
+import org.example.cloudstorage.exception.storage.StorageConflictException;
+import org.example.cloudstorage.exception.storage.StorageInternalException;
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StoragePage;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.port.LocalFileSystemStorageAdapter;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalFileSystemStorageAdapterTest extends ObjectStoragePortContractTest {
+
+    @TempDir
+    private Path root;
+
+    private LocalFileSystemStorageAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        adapter = new LocalFileSystemStorageAdapter(root);
+    }
+
+    @Override
+    protected ObjectStoragePort port() {
+        return adapter;
+    }
+
+    @Test
+    @DisplayName("Поток неизвестной длины пишется целиком, в файловый поток отдаётся без искажений")
+    void uploadFile_ShouldWriteStreamOfUnknownLength() throws Exception {
+        byte[] content = new byte[9 * 1024 * 1024 + 17];
+        new Random(3).nextBytes(content);
+
+        StorageResource uploaded = adapter.uploadFile("big.bin", new ByteArrayInputStream(content), -1, null);
+
+        assertThat(uploaded.size()).isEqualTo(content.length);
+        Path copy = root.resolve("copy.bin");
+        try (InputStream in = adapter.download("big.bin"); OutputStream out = new FileOutputStream(copy.toFile())) {
+            in.transferTo(out);
+        }
+        assertThat(Files.readAllBytes(copy)).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("Оборванный поток не оставляет объекта")
+    void uploadFile_ShouldNotPublishTruncatedObject() {
+        assertThatThrownBy(() -> adapter.uploadFile("short.bin", new ByteArrayInputStream(new byte[3]), 10, null))
+                .isInstanceOf(StorageInternalException.class);
+
+        assertThatThrownBy(() -> adapter.getResource("short.bin"))
+                .isInstanceOf(StorageNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Рекурсивный листинг идёт в порядке ключей S3 и учитывает префикс без слэша")
+    void listAllPathsRecursive_ShouldFollowKeyOrder() {
+        adapter.createFolder("docs/");
+        upload("docs/test1.txt");
+        upload("docs/sub/test2.txt");
+        upload("docs.txt");
+        upload("other.txt");
+
+        assertThat(adapter.listAllPathsRecursive("docs/"))
+                .containsExactly("docs/", "docs/sub/test2.txt", "docs/test1.txt");
+        assertThat(adapter.listAllPathsRecursive("doc"))
+                .containsExactly("docs.txt", "docs/", "docs/sub/test2.txt", "docs/test1.txt");
+    }
+
+    @Test
+    @DisplayName("Страница начинается сразу после курсора, даже если ключа курсора уже нет")
+    void listFolderPage_ShouldSeekPastCursor() {
+        adapter.createFolder("paged/");
+        upload("paged/a.txt");
+        upload("paged/c.txt");
+        upload("paged/d/e.txt");
+        upload("paged/f.txt");
+
+        StoragePage afterMissing = adapter.listFolderPage("paged/", "paged/b.txt", 2);
+        StoragePage afterFolder = adapter.listFolderPage("paged/", "paged/d/", 10);
+        StoragePage beforeFolder = adapter.listFolderPage("paged/", "pa", 10);
+
+        assertThat(afterMissing.items()).extracting(StorageResource::fullPath)
+                .containsExactly("paged/c.txt", "paged/d/");
+        assertThat(afterMissing.lastKey()).isEqualTo("paged/d/");
+        assertThat(afterFolder.items()).extracting(StorageResource::fullPath)
+                .containsExactly("paged/f.txt");
+        assertThat(afterFolder.lastKey()).isNull();
+        assertThat(beforeFolder.items()).extracting(StorageResource::fullPath)
+                .containsExactly("paged/", "paged/a.txt", "paged/c.txt", "paged/d/", "paged/f.txt");
+    }
+
+    @Test
+    @DisplayName("Удаление последнего объекта убирает опустевшие каталоги")
+    void deleteObjects_ShouldPruneEmptyDirectories() {
+        adapter.createFolder("folder/");
+        upload("folder/file1.txt");
+        upload("folder/sub/file2.txt");
+
+        adapter.deleteObjects(adapter.listAllPathsRecursive("folder/"));
+
+        assertThat(adapter.containsObjects("folder/")).isFalse();
+        assertThat(root.resolve("data/folder")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Папка переносится одним rename вместе с маркером и содержимым")
+    void rename_ShouldMoveFolderAtomically() {
+        adapter.createFolder("src/");
+        upload("src/a.txt");
+        upload("src/sub/b.txt");
+
+        assertThat(adapter.rename("src/", "dst/moved/")).isTrue();
+
+        assertThat(adapter.listAllPathsRecursive("dst/moved/"))
+                .containsExactly("dst/moved/", "dst/moved/a.txt", "dst/moved/sub/b.txt");
+        assertThat(adapter.containsObjects("src/")).isFalse();
+    }
+
+    @Test
+    @DisplayName("В непустую папку rename не переносит, перенос уходит в копирование")
+    void rename_ShouldRefuse_WhenTargetNotEmpty() {
+        upload("src/a.txt");
+        upload("dst/b.txt");
+
+        assertThat(adapter.rename("src/", "dst/")).isFalse();
+        assertThat(adapter.exists("src/a.txt")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Объект под путём, где предок — файл, — конфликт")
+    void uploadFile_ShouldConflict_WhenAncestorIsFile() {
+        upload("x/y.txt");
+
+        assertThatThrownBy(() -> upload("x/y.txt/z.txt"))
+                .isInstanceOf(StorageConflictException.class);
+    }
+
+    private void upload(String key) {
+        adapter.uploadFile(key, new ByteArrayInputStream(new byte[0]), 0, "text/plain");
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.download.ObjectPrefetcher;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ObjectPrefetcherTest {
+
+    @Mock
+    private ObjectStoragePort storagePort;
+
+    private ObjectPrefetcher prefetcher;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.getZip().setPrefetchDepth(3);
+        properties.getZip().setPrefetchBudget(DataSize.ofBytes(10));
+        properties.getZip().setPrefetchThreads(2);
+        prefetcher = new ObjectPrefetcher(storagePort, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Объекты выдаются в порядке листинга, крупные читаются потоком при записи")
+    void pipeline_ShouldKeepOrderAndStreamOversizedObjects() throws IOException {
+        List<StorageResource> listing = List.of(
+                new StorageResource("root/a.txt", 4),
+                new StorageResource("root/dir/", 0),
+                new StorageResource("root/big.bin", 100),
+                new StorageResource("root/b.txt", 4),
+                new StorageResource("root/c.txt", 4)
+        );
+        when(storagePort.download(anyString())).thenAnswer(invocation ->
+                new ByteArrayInputStream(invocation.<String>getArgument(0).getBytes(StandardCharsets.UTF_8)));
+
+        List<String> written = new ArrayList<>();
+        try (ObjectPrefetcher.Pipeline pipeline = prefetcher.open(listing.iterator())) {
+            while (pipeline.hasNext()) {
+                ObjectPrefetcher.PrefetchedObject object = pipeline.next();
+                if (object.resource().isDirectory()) {
+                    written.add(object.resource().fullPath());
+                    continue;
+                }
+                try (InputStream is = object.open()) {
+                    written.add(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        assertThat(written).containsExactly("root/a.txt", "root/dir/", "root/big.bin", "root/b.txt", "root/c.txt");
+        verify(storagePort, times(4)).download(anyString());
+        verify(storagePort, never()).download("root/dir/");
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.cloudstorage.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.cloudstorage.service.storage.download.ParallelZipWriter;
+import org.example.cloudstorage.service.storage.download.ZipCompressionMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelZipWriterTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final ZipCompressionMetrics metrics = new ZipCompressionMetrics(new SimpleMeterRegistry());
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Параллельно сжатые записи идут в порядке добавления и читаются стандартными средствами")
+    void finish_ShouldProduceValidArchive_InInsertionOrder() throws IOException {
+        byte[] random = new byte[100_000];
+        new Random(7).nextBytes(random);
+
+        Map<String, byte[]> expected = new LinkedHashMap<>();
+        expected.put("docs/", new byte[0]);
+        expected.put("docs/readme.txt", "hello world ".repeat(10_000).getBytes(StandardCharsets.UTF_8));
+        expected.put("docs/Отчёт.txt", "строка отчёта\n".repeat(5_000).getBytes(StandardCharsets.UTF_8));
+        expected.put("photo.jpg", random);
+        expected.put("big.log", "log line\n".repeat(50_000).getBytes(StandardCharsets.UTF_8));
+        expected.put("empty.txt", new byte[0]);
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        ZipCompressionMetrics.ArchiveStats stats = metrics.start();
+        // Очередь из двух записей и 64 КБ заставляет архиватор дописывать голову по ходу добавления
+        try (ParallelZipWriter zip = new ParallelZipWriter(archive, pool, 2, 64 * 1024, metrics, stats)) {
+            zip.addDirectory("docs/");
+            zip.addBuffered("docs/readme.txt", expected.get("docs/readme.txt"), 6);
+            zip.addBuffered("docs/Отчёт.txt", expected.get("docs/Отчёт.txt"), Deflater.BEST_SPEED);
+            zip.addBuffered("photo.jpg", random, 6);
+            zip.addStreamed("big.log", new ByteArrayInputStream(expected.get("big.log")), 6);
+            zip.addBuffered("empty.txt", new byte[0], 6);
+            zip.finish();
+        }
+
+        // Локальные заголовки и дескрипторы: ZipInputStream сверяет CRC каждой записи
+        Map<String, byte[]> streamed = new LinkedHashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                streamed.put(entry.getName(), zis.readAllBytes());
+            }
+        }
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(streamed.keySet()));
+        expected.forEach((name, content) -> assertArrayEquals(content, streamed.get(name), name));
+
+        // Центральный каталог
+        Path file = Files.write(tempDir.resolve("archive.zip"), archive.toByteArray());
+        try (ZipFile zipFile = new ZipFile(file.toFile())) {
+            assertEquals(expected.size(), zipFile.size());
+            for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                ZipEntry zipEntry = zipFile.getEntry(entry.getKey());
+                assertEquals(entry.getValue().length, zipEntry.getSize(), entry.getKey());
+                assertArrayEquals(entry.getValue(), zipFile.getInputStream(zipEntry).readAllBytes(), entry.getKey());
+            }
+            // Случайные данные не сжимаются и сохраняются как есть
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("photo.jpg").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("docs/readme.txt").getMethod());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.exception.storage.StorageNotFoundException;
+import org.example.cloudstorage.model.StorageNode;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.port.PathIndirectionStoragePort;
+import org.example.cloudstorage.service.storage.tree.PathTree;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PathIndirectionStoragePortTest {
+
+    @Mock
+    private ObjectStoragePort objects;
+
+    @Mock
+    private PathTree tree;
+
+    private PathIndirectionStoragePort port;
+
+    @BeforeEach
+    void setUp() {
+        port = new PathIndirectionStoragePort(objects, tree);
+    }
+
+    @Test
+    @DisplayName("Переименование папки меняет только дерево, объекты не копируются")
+    void rename_ShouldMoveTreeNode_WithoutTouchingObjects() {
+        boolean renamed = port.rename("user-1-files/docs/", "user-1-files/archive/docs/");
+
+        assertTrue(renamed);
+        verify(tree).move("user-1-files/docs/", "user-1-files/archive/docs/");
+        verifyNoInteractions(objects);
+    }
+
+    @Test
+    @DisplayName("Перезапись файла пишет новый объект и удаляет прежний")
+    void uploadFile_ShouldReplacePreviousObject() {
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        when(objects.uploadFile(key.capture(), any(), eq(5L), eq("text/plain")))
+                .thenAnswer(invocation -> new StorageResource(invocation.getArgument(0), 5));
+        when(tree.putFile(eq("user-1-files/a.txt"), anyString(), any())).thenReturn("objects/old");
+
+        StorageResource resource = port.uploadFile("user-1-files/a.txt", stream("hello"), 5, "text/plain");
+
+        assertTrue(key.getValue().startsWith(PathIndirectionStoragePort.OBJECT_PREFIX));
+        assertEquals("user-1-files/a.txt", resource.fullPath());
+        verify(tree).putFile(eq("user-1-files/a.txt"), eq(key.getValue()), any());
+        verify(objects).delete("objects/old");
+    }
+
+    @Test
+    @DisplayName("Скачивание идёт по ключу объекта, а не по пути")
+    void download_ShouldResolveObjectKey() {
+        StorageNode node = new StorageNode();
+        node.setStorageKey("objects/123");
+        when(tree.resolve("user-1-files/a.txt")).thenReturn(Optional.of(node));
+
+        port.download("user-1-files/a.txt", 10, 20);
+
+        verify(objects).download("objects/123", 10, 20);
+    }
+
+    @Test
+    @DisplayName("Путь, который дерево не разрешает, не скачивается пустым потоком")
+    void download_ShouldThrowNotFound_WhenPathUnresolved() {
+        when(tree.resolve("user-1-files/gone.txt")).thenReturn(Optional.empty());
+        StorageNode implicitFolder = new StorageNode();
+        implicitFolder.setDirectory(true);
+        when(tree.resolve("user-1-files/docs/")).thenReturn(Optional.of(implicitFolder));
+
+        assertThrows(StorageNotFoundException.class, () -> port.download("user-1-files/gone.txt"));
+        assertThrows(StorageNotFoundException.class, () -> port.download("user-1-files/gone.txt", 0, 10));
+        // Папка без маркера — только общий префикс, объекта для скачивания нет
+        assertThrows(StorageNotFoundException.class, () -> port.download("user-1-files/docs/"));
+        verifyNoInteractions(objects);
+    }
+
+    @Test
+    @DisplayName("Удаление убирает пути из дерева и объекты удалённых файлов")
+    void deleteObjects_ShouldDeleteKeysReturnedByTree() {
+        when(tree.remove(List.of("user-1-files/a.txt", "user-1-files/docs/")))
+                .thenReturn(List.of("objects/1"));
+
+        port.deleteObjects(List.of("user-1-files/a.txt", "user-1-files/docs/"));
+
+        verify(objects).deleteObjects(List.of("objects/1"));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes());
+    }
+}
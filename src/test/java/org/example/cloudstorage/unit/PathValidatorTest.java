@@ -2,21 +2,31 @@ package org.example.cloudstorage.unit;
 
 import org.example.cloudstorage.exception.BadRequestException;
 import org.example.cloudstorage.exception.storage.StorageConflictException;
+import org.example.cloudstorage.model.StorageResource;
 import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.validation.PathResolver;
 import org.example.cloudstorage.service.storage.validation.PathValidator;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,20 +35,35 @@ class PathValidatorTest {
     @Mock
     private ObjectStoragePort storagePort;
 
-    @InjectMocks
     private PathValidator pathValidator;
 
+    @BeforeEach
+    void setUp() {
+        pathValidator = new PathValidator(new PathResolver(storagePort));
+    }
+
+    private static List<StorageResource> keys(String... keys) {
+        return Arrays.stream(keys).map(key -> new StorageResource(key, 0)).toList();
+    }
+
     @Nested
     @DisplayName("Тесты existsAnywhere")
     class ExistsAnywhereTests {
         @Test
         void shouldReturnTrue_WhenFolderExistsButFileRequested() {
             String path = "folder";
-            when(storagePort.exists("folder")).thenReturn(false);
-            when(storagePort.exists("folder/")).thenReturn(true); // а там папка
+            when(storagePort.listObjects(eq("folder"), anyInt())).thenReturn(keys("folder/")); // а там папка
 
             assertTrue(pathValidator.existsAnywhere(path));
         }
+
+        @Test
+        void shouldReturnTrue_WhenOnlyChildrenExist() {
+            // Соседи с тем же началом имени не мешают найти виртуальную папку
+            when(storagePort.listObjects(eq("docs"), anyInt())).thenReturn(keys("docs.bak", "docs/a.txt"));
+
+            assertTrue(pathValidator.existsAnywhere("docs/"));
+        }
     }
 
     @Test
@@ -46,10 +71,11 @@ class PathValidatorTest {
         String destinationPath = "music/rock/song.mp3";
         String fileThatBlocksWay = "music/rock";
 
-        // На любой запрос по умолчанию отвечаем false
-        when(storagePort.exists(anyString())).thenReturn(false);
+        // Самого файла нет, родительская папка пуста
+        when(storagePort.listObjects(eq(destinationPath), anyInt())).thenReturn(List.of());
+        when(storagePort.containsObjects("music/rock/")).thenReturn(false);
 
-        // А вот для этого конкретного случая — true
+        // А вот на месте родителя лежит файл
         when(storagePort.exists(fileThatBlocksWay)).thenReturn(true);
 
         assertThrows(StorageConflictException.class, () ->
@@ -57,15 +83,25 @@ class PathValidatorTest {
         );
     }
 
+    @Test
+    void shouldNotStatEveryStep_WhenUploadingIntoExistingFolder() {
+        String destinationPath = "a/b/c/d/file.txt";
+        when(storagePort.listObjects(eq(destinationPath), anyInt())).thenReturn(List.of());
+        when(storagePort.containsObjects("a/b/c/d/")).thenReturn(true);
+
+        assertDoesNotThrow(() -> pathValidator.validateUpload(destinationPath));
+        verify(storagePort, never()).exists(anyString());
+    }
+
     @Test
     void shouldThrowException_WhenMovingFolderIntoItself() {
         String from = "my-folder/";
         String to = "my-folder/sub-folder/";
 
-        // Сначала задаем общее поведение (всех остальных путей нет)
-        when(storagePort.exists(anyString())).thenReturn(false);
-        // Затем специфичное (наш 'from' существует)
-        when(storagePort.exists(from)).thenReturn(true);
+        // Источник существует, назначения нет
+        when(storagePort.listObjects(eq("my-folder"), anyInt())).thenReturn(keys("my-folder/"));
+        when(storagePort.listObjects(eq("my-folder/sub-folder"), anyInt())).thenReturn(List.of());
+        when(storagePort.containsObjects("my-folder/")).thenReturn(true);
 
         BadRequestException ex = assertThrows(BadRequestException.class,
                 () -> pathValidator.validateMove(from, to));
@@ -76,9 +112,9 @@ class PathValidatorTest {
             String from = "file.txt";
             String to = "new-name/";
 
-            when(storagePort.exists(from)).thenReturn(true);
+            when(storagePort.listObjects(eq("file.txt"), anyInt())).thenReturn(keys("file.txt"));
+            when(storagePort.listObjects(eq("new-name"), anyInt())).thenReturn(List.of());
 
             assertThrows(BadRequestException.class, () -> pathValidator.validateMove(from, to));
         }
     }
-
@@ -0,0 +1,184 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.dto.storage.StorageJobDto;
+import org.example.cloudstorage.dto.storage.ZipCompression;
+import org.example.cloudstorage.exception.BadRequestException;
+import org.example.cloudstorage.exception.storage.JobConflictException;
+import org.example.cloudstorage.exception.storage.JobLimitExceededException;
+import org.example.cloudstorage.exception.storage.JobNotFoundException;
+import org.example.cloudstorage.mapper.ResourceResponseMapper;
+import org.example.cloudstorage.model.StorageJob;
+import org.example.cloudstorage.repository.FileMetadataRepository;
+import org.example.cloudstorage.repository.StorageJobRepository;
+import org.example.cloudstorage.service.storage.catalog.FileCatalogService;
+import org.example.cloudstorage.service.storage.job.StorageJobQueue;
+import org.example.cloudstorage.service.storage.job.StorageJobService;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.validation.PathValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageJobServiceTest {
+
+    private static final String FOLDER = "user-1-files/photos/";
+
+    @Mock
+    private ObjectStoragePort storagePort;
+
+    @Mock
+    private PathValidator pathValidator;
+
+    @Mock
+    private StorageJobRepository repository;
+
+    @Mock
+    private StorageJobQueue queue;
+
+    @Mock
+    private FileCatalogService catalog;
+
+    private StorageJobService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new StorageJobService(storagePort, pathValidator, new ResourceResponseMapper(), repository, queue,
+                catalog, new StorageProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Задача встаёт в очередь с объёмом работы, посчитанным по каталогу")
+    void submitDelete_ShouldQueueJobWithTotalsFromCatalog() {
+        when(storagePort.containsObjects(FOLDER)).thenReturn(true);
+        when(catalog.subtreeTotals(1L, FOLDER)).thenReturn(totals(120, 4096));
+        when(queue.enqueue(any(), eq(5))).thenReturn(true);
+
+        StorageJobDto result = service.submitDelete(1L, "photos/");
+
+        ArgumentCaptor<StorageJob> saved = ArgumentCaptor.forClass(StorageJob.class);
+        verify(queue).enqueue(saved.capture(), eq(5));
+        assertEquals(StorageJob.Status.QUEUED, saved.getValue().getStatus());
+        assertEquals(StorageJob.Type.DELETE, result.type());
+        assertEquals(120, result.itemsTotal());
+        assertEquals(4096, result.bytesTotal());
+        assertNotNull(result.id());
+    }
+
+    @Test
+    @DisplayName("Сверх лимита незавершённых задач новая отклоняется до обращения к хранилищу")
+    void submit_ShouldReject_WhenActiveLimitReached() {
+        when(repository.countActive(1L)).thenReturn(5L);
+
+        assertThrows(JobLimitExceededException.class, () -> service.submitDelete(1L, "photos/"));
+        verifyNoInteractions(storagePort);
+        verify(repository, never()).save(any());
+        verifyNoInteractions(queue);
+    }
+
+    @Test
+    @DisplayName("Лимит, занятый параллельной постановкой после быстрой проверки, отклоняет задачу при записи")
+    void submit_ShouldReject_WhenLimitReachedConcurrently() {
+        when(repository.countActive(1L)).thenReturn(4L);
+        when(storagePort.containsObjects(FOLDER)).thenReturn(true);
+        when(catalog.subtreeTotals(1L, FOLDER)).thenReturn(totals(1, 1));
+        when(queue.enqueue(any(), eq(5))).thenReturn(false);
+
+        assertThrows(JobLimitExceededException.class, () -> service.submitDelete(1L, "photos/"));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Архив собирается только для папки")
+    void submitZip_ShouldReject_WhenPathIsFile() {
+        assertThrows(BadRequestException.class, () -> service.submitZip(1L, "photos/a.jpg", ZipCompression.AUTO));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Чужая задача неотличима от несуществующей")
+    void get_ShouldThrowNotFound_ForForeignJob() {
+        when(repository.findByIdAndOwnerId("job-1", 2L)).thenReturn(Optional.empty());
+
+        assertThrows(JobNotFoundException.class, () -> service.get(2L, "job-1"));
+    }
+
+    @Test
+    @DisplayName("Оставшееся время считается по средней скорости в байтах")
+    void get_ShouldEstimateRemainingTime_ForRunningJob() {
+        StorageJob job = job(StorageJob.Status.RUNNING);
+        job.setStartedAt(Instant.now().minusSeconds(30));
+        job.setBytesTotal(400);
+        job.setBytesDone(100);
+        when(repository.findByIdAndOwnerId("job-1", 1L)).thenReturn(Optional.of(job));
+
+        StorageJobDto result = service.get(1L, "job-1");
+
+        assertNotNull(result.etaSeconds());
+        assertTrue(result.etaSeconds() >= 89 && result.etaSeconds() <= 91, "eta=" + result.etaSeconds());
+    }
+
+    @Test
+    @DisplayName("Отменить завершённую задачу нельзя")
+    void cancel_ShouldConflict_WhenJobFinished() {
+        when(repository.findByIdAndOwnerId("job-1", 1L)).thenReturn(Optional.of(job(StorageJob.Status.SUCCEEDED)));
+        when(repository.requestCancel("job-1", 1L)).thenReturn(0);
+
+        assertThrows(JobConflictException.class, () -> service.cancel(1L, "job-1"));
+    }
+
+    @Test
+    @DisplayName("Результат недоступен, пока архив не собран")
+    void downloadResult_ShouldConflict_WhenJobStillRunning() {
+        StorageJob job = job(StorageJob.Status.RUNNING);
+        job.setType(StorageJob.Type.ZIP);
+        when(repository.findByIdAndOwnerId("job-1", 1L)).thenReturn(Optional.of(job));
+
+        assertThrows(JobConflictException.class, () -> service.downloadResult(1L, "job-1"));
+        verifyNoInteractions(storagePort);
+    }
+
+    private static StorageJob job(StorageJob.Status status) {
+        StorageJob job = new StorageJob();
+        job.setId("job-1");
+        job.setOwnerId(1L);
+        job.setType(StorageJob.Type.DELETE);
+        job.setStatus(status);
+        job.setSourcePath("photos/");
+        job.setCreatedAt(Instant.now());
+        return job;
+    }
+
+    private static FileMetadataRepository.SubtreeTotals totals(long items, long bytes) {
+        return new FileMetadataRepository.SubtreeTotals() {
+            @Override
+            public long getItems() {
+                return items;
+            }
+
+            @Override
+            public long getBytes() {
+                return bytes;
+            }
+        };
+    }
+}
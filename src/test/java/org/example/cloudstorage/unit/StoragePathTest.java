@@ -0,0 +1,87 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.model.StoragePath;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StoragePathTest {
+
+    @Test
+    @DisplayName("Путь пользователя нормализуется и склеивается с корнем")
+    void of_ShouldNormalizeAndPrefix() {
+        StoragePath path = StoragePath.of(7, "  //docs\\\\reports//q1.pdf ");
+
+        assertAll(
+                () -> assertEquals("user-7-files/docs/reports/q1.pdf", path.key()),
+                () -> assertEquals(7, path.userId()),
+                () -> assertEquals("docs/reports/q1.pdf", path.relativePath()),
+                () -> assertFalse(path.isDirectory())
+        );
+    }
+
+    @Test
+    @DisplayName("Разбор ключа: родитель и имя папки и файла")
+    void parse_ShouldSplitParentAndName() {
+        StoragePath file = StoragePath.parse("user-42-files/docs/report.pdf");
+        StoragePath folder = StoragePath.parse("user-42-files/docs/sub/");
+
+        assertAll(
+                () -> assertEquals(42, file.userId()),
+                () -> assertEquals("docs/", file.parentPath()),
+                () -> assertEquals("report.pdf", file.name()),
+                () -> assertEquals("docs/", folder.parentPath()),
+                () -> assertEquals("sub", folder.name()),
+                () -> assertEquals("sub/", folder.lastSegment()),
+                () -> assertEquals("user-42-files/docs/sub", folder.keyWithoutSlash())
+        );
+    }
+
+    @Test
+    @DisplayName("Корень пользователя и объекты верхнего уровня")
+    void parse_ShouldRecognizeRootAndTopLevel() {
+        StoragePath root = StoragePath.parse("user-3-files/");
+        StoragePath topLevel = StoragePath.parse("user-3-files/a.txt");
+
+        assertAll(
+                () -> assertTrue(root.isRoot()),
+                () -> assertTrue(root.isDirectory()),
+                () -> assertEquals("", root.name()),
+                () -> assertNull(root.parent()),
+                () -> assertTrue(topLevel.isTopLevel()),
+                () -> assertEquals("", topLevel.parentPath()),
+                () -> assertEquals(root, topLevel.parent())
+        );
+    }
+
+    @Test
+    @DisplayName("Ключ вне пользовательских корней разбирается как относительный путь")
+    void parse_ShouldKeepForeignKeyAsRelative() {
+        StoragePath path = StoragePath.parse("blobs/ab/cdef");
+
+        assertAll(
+                () -> assertFalse(path.hasOwner()),
+                () -> assertEquals("blobs/ab/cdef", path.relativePath()),
+                () -> assertEquals("blobs/ab/", path.parentPath())
+        );
+    }
+
+    @Test
+    @DisplayName("Подъём по предкам до корня пользователя включительно")
+    void parent_ShouldWalkUpToUserRoot() {
+        List<String> ancestors = new ArrayList<>();
+        for (StoragePath folder = StoragePath.parse("user-1-files/a/b/c.txt").parent(); folder != null; folder = folder.parent()) {
+            ancestors.add(folder.key());
+        }
+
+        assertEquals(List.of("user-1-files/a/b/", "user-1-files/a/", "user-1-files/"), ancestors);
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.config.AppConstants;
+import org.example.cloudstorage.config.MinioProperties;
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.exception.storage.Quota.StorageQuotaExceededException;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.model.StorageUsage;
+import org.example.cloudstorage.repository.StorageUsageRepository;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.quota.StorageUsageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageUsageServiceTest {
+
+    @Mock
+    private StorageUsageRepository usageRepository;
+
+    @Mock
+    private ObjectStoragePort storagePort;
+
+    @Mock
+    private MinioProperties properties;
+
+    @Spy
+    private StorageProperties storageProperties = new StorageProperties();
+
+    @InjectMocks
+    private StorageUsageService usageService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(properties.getMaxFilesCount()).thenReturn(10);
+        lenient().when(properties.getMaxStorageSize()).thenReturn(DataSize.ofBytes(100));
+    }
+
+    @Test
+    void reserve_ShouldNotScanBucket_WhenLedgerExists() {
+        when(usageRepository.existsById(1L)).thenReturn(true);
+        when(usageRepository.tryReserve(1L, 2, 50, 10, 100)).thenReturn(1);
+
+        usageService.reserve(1L, 2, 50);
+
+        verifyNoInteractions(storagePort);
+    }
+
+    @Test
+    void reserve_ShouldInitializeLedgerFromBucket_OnFirstUse() {
+        when(usageRepository.existsById(1L)).thenReturn(false);
+        when(storagePort.streamAllObjectsRecursive("user-1-files/")).thenReturn(Stream.of(
+                new StorageResource("user-1-files/a.txt", 10),
+                new StorageResource("user-1-files/b/", 0)
+        ));
+        when(usageRepository.tryReserve(anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+
+        usageService.reserve(1L, 1, 5);
+
+        verify(usageRepository).insertIfAbsent(1L, 10, 2);
+    }
+
+    @Test
+    void reserve_ShouldReportCountLimit_WhenTooManyFiles() {
+        when(usageRepository.existsById(1L)).thenReturn(true);
+        when(usageRepository.tryReserve(anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(0);
+        when(usageRepository.findById(1L)).thenReturn(Optional.of(new StorageUsage(1L, 0, 10)));
+
+        var ex = assertThrows(StorageQuotaExceededException.class, () -> usageService.reserve(1L, 1, 1));
+        assertEquals(AppConstants.ExceptionMessages.MAX_FILE_COUNT_EXCEEDED, ex.getMessage());
+    }
+
+    @Test
+    void reserve_ShouldReportSizeLimit_WhenStorageIsFull() {
+        when(usageRepository.existsById(1L)).thenReturn(true);
+        when(usageRepository.tryReserve(anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(0);
+        when(usageRepository.findById(1L)).thenReturn(Optional.of(new StorageUsage(1L, 90, 1)));
+
+        var ex = assertThrows(StorageQuotaExceededException.class, () -> usageService.reserve(1L, 1, 20));
+        assertEquals(AppConstants.ExceptionMessages.MAX_STORAGE_SIZE_EXCEEDED, ex.getMessage());
+    }
+
+    @Test
+    void rebuild_ShouldCountDuplicateContentOnce_InPhysicalQuotaMode() {
+        storageProperties.getDedup().setEnabled(true);
+        storageProperties.getDedup().setQuotaMode(StorageProperties.Dedup.QuotaMode.PHYSICAL);
+        when(storagePort.streamAllObjectsRecursive("user-1-files/")).thenReturn(Stream.of(
+                new StorageResource("user-1-files/a.iso", 40, null, "hash-a", null),
+                new StorageResource("user-1-files/copy/a.iso", 40, null, "hash-a", null),
+                new StorageResource("user-1-files/b.txt", 5, null, "hash-b", null),
+                new StorageResource("user-1-files/copy/", 0)
+        ));
+
+        StorageUsage usage = usageService.rebuild(1L);
+
+        assertEquals(45, usage.getUsedBytes());
+        assertEquals(4, usage.getObjectCount());
+        verify(usageRepository).upsert(1L, 45, 4);
+    }
+}
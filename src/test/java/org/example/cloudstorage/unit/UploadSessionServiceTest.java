@@ -0,0 +1,131 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.dto.storage.UploadSessionDto;
+import org.example.cloudstorage.exception.storage.UploadSessionConflictException;
+import org.example.cloudstorage.exception.storage.UploadSessionNotFoundException;
+import org.example.cloudstorage.mapper.ResourceResponseMapper;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.model.UploadSession;
+import org.example.cloudstorage.service.storage.catalog.FileCatalogService;
+import org.example.cloudstorage.service.storage.port.ObjectStoragePort;
+import org.example.cloudstorage.service.storage.quota.StorageUsageService;
+import org.example.cloudstorage.service.storage.upload.UploadSessionService;
+import org.example.cloudstorage.service.storage.upload.UploadSessionStore;
+import org.example.cloudstorage.service.storage.validation.PathValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSessionServiceTest {
+
+    private static final String SESSION_ID = "session-1";
+    private static final String LOCK_TOKEN = "lock-token";
+    private static final String FULL_PATH = "user-1-files/docs/big.bin";
+    private static final long CHUNK = 10;
+
+    @Mock
+    private ObjectStoragePort storagePort;
+
+    @Mock
+    private PathValidator pathValidator;
+
+    @Mock
+    private UploadSessionStore store;
+
+    @Mock
+    private StorageUsageService usageService;
+
+    @Mock
+    private FileCatalogService catalog;
+
+    private UploadSessionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new UploadSessionService(storagePort, pathValidator, new ResourceResponseMapper(), store,
+                usageService, catalog, new StorageProperties());
+        lenient().when(store.tryLock(eq(SESSION_ID), any(Duration.class))).thenReturn(Optional.of(LOCK_TOKEN));
+        lenient().when(store.unlock(SESSION_ID, LOCK_TOKEN)).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Часть со смещением, равным принятому, уходит в хранилище очередной частью multipart")
+    void uploadChunk_ShouldUploadNextPart_WhenOffsetMatches() {
+        when(store.find(SESSION_ID)).thenReturn(Optional.of(session(1L, 25, 10, Instant.now().plusSeconds(60))));
+        InputStream data = new ByteArrayInputStream(new byte[10]);
+        when(storagePort.uploadPart(FULL_PATH, "upload-1", 2, data, 10)).thenReturn("etag-2");
+
+        UploadSessionDto result = service.uploadChunk(1L, SESSION_ID, 10, data, 10);
+
+        assertEquals(20, result.offset());
+        assertEquals("big.bin", result.name());
+        verify(store).recordPart(eq(SESSION_ID), eq(2), eq("etag-2"), eq(20L), any(Instant.class));
+        verify(store).unlock(SESSION_ID, LOCK_TOKEN);
+    }
+
+    @Test
+    @DisplayName("Неверное смещение и чужая сессия отклоняются без обращения к хранилищу")
+    void uploadChunk_ShouldReject_WrongOffsetOrForeignSession() {
+        when(store.find(SESSION_ID)).thenReturn(Optional.of(session(1L, 25, 10, Instant.now().plusSeconds(60))));
+        InputStream data = new ByteArrayInputStream(new byte[10]);
+
+        assertThrows(UploadSessionConflictException.class, () -> service.uploadChunk(1L, SESSION_ID, 0, data, 10));
+        assertThrows(UploadSessionNotFoundException.class, () -> service.uploadChunk(2L, SESSION_ID, 10, data, 10));
+        verify(storagePort, never()).uploadPart(any(), any(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Завершение собирает объект из частей по порядку и удаляет сессию")
+    void complete_ShouldAssemblePartsInOrder() {
+        UploadSession session = new UploadSession(SESSION_ID, 1L, FULL_PATH, 25, null, "upload-1", CHUNK, 25,
+                Instant.now().plusSeconds(60), List.of("e1", "e2", "e3"));
+        when(store.find(SESSION_ID)).thenReturn(Optional.of(session));
+        StorageResource resource = new StorageResource(FULL_PATH, 25);
+        when(storagePort.completeMultipartUpload(FULL_PATH, "upload-1", List.of("e1", "e2", "e3"))).thenReturn(resource);
+
+        service.complete(1L, SESSION_ID);
+
+        verify(catalog).recordFile(1L, resource);
+        verify(store).delete(SESSION_ID);
+        verify(usageService, never()).release(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Очистка отменяет просроченную загрузку и возвращает квоту")
+    void cleanupExpired_ShouldAbortUploadAndReleaseQuota() {
+        when(store.findExpired(any(Instant.class), anyInt())).thenReturn(Set.of(SESSION_ID));
+        when(store.find(SESSION_ID)).thenReturn(Optional.of(session(1L, 25, 10, Instant.now().minusSeconds(1))));
+
+        service.cleanupExpired();
+
+        verify(storagePort).abortMultipartUpload(FULL_PATH, "upload-1");
+        verify(usageService).release(1L, 1, 25);
+        verify(store).delete(SESSION_ID);
+        verify(store).unlock(SESSION_ID, LOCK_TOKEN);
+    }
+
+    private static UploadSession session(long userId, long size, long offset, Instant expiresAt) {
+        return new UploadSession(SESSION_ID, userId, FULL_PATH, size, null, "upload-1", CHUNK, offset, expiresAt,
+                List.of("e1"));
+    }
+}
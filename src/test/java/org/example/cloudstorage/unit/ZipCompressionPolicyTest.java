@@ -0,0 +1,33 @@
+package org.example.cloudstorage.unit;
+
+import org.example.cloudstorage.config.StorageProperties;
+import org.example.cloudstorage.dto.storage.ZipCompression;
+import org.example.cloudstorage.model.StorageResource;
+import org.example.cloudstorage.service.storage.download.ZipCompressionPolicy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ZipCompressionPolicyTest {
+
+    private final ZipCompressionPolicy policy = new ZipCompressionPolicy(new StorageProperties());
+
+    @Test
+    @DisplayName("Уже сжатые форматы хранятся без сжатия, остальное сжимается по режиму")
+    void levelFor_ShouldDependOnContentAndMode() {
+        StorageResource photo = new StorageResource("u/Фото.JPG", 10);
+        StorageResource video = new StorageResource("u/clip", 10, "video/mp4", null, null);
+        StorageResource vector = new StorageResource("u/logo", 10, "image/svg+xml", null, null);
+        StorageResource text = new StorageResource("u/notes.txt", 10);
+
+        assertEquals(Deflater.NO_COMPRESSION, policy.levelFor(photo, ZipCompression.AUTO));
+        assertEquals(Deflater.NO_COMPRESSION, policy.levelFor(video, ZipCompression.AUTO));
+        assertEquals(6, policy.levelFor(vector, ZipCompression.AUTO));
+        assertEquals(6, policy.levelFor(text, ZipCompression.AUTO));
+        assertEquals(Deflater.BEST_SPEED, policy.levelFor(text, ZipCompression.FAST));
+        assertEquals(Deflater.NO_COMPRESSION, policy.levelFor(text, ZipCompression.NONE));
+    }
+}